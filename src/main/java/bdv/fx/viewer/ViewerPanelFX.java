@@ -30,6 +30,7 @@
 package bdv.fx.viewer;
 
 import bdv.cache.CacheControl;
+import bdv.fx.viewer.render.FetchPriorityPolicy;
 import bdv.fx.viewer.render.RenderUnit;
 import bdv.viewer.Interpolation;
 import bdv.viewer.RequestRepaint;
@@ -42,6 +43,7 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.scene.Node;
 import javafx.scene.layout.StackPane;
+import net.imglib2.FinalInterval;
 import net.imglib2.FinalRealInterval;
 import net.imglib2.Interval;
 import net.imglib2.Positionable;
@@ -96,6 +98,8 @@ public class ViewerPanelFX
 
 	private final ExecutorService renderingExecutorService;
 
+	private final boolean ownsRenderingExecutorService;
+
 	private final CopyOnWriteArrayList<TransformListener<AffineTransform3D>> transformListeners;
 
 	private final ViewerOptions.Values options;
@@ -171,10 +175,42 @@ public class ViewerPanelFX
 			final CacheControl cacheControl,
 			final ViewerOptions optional,
 			final Function<Source<?>, Interpolation> interpolation)
+	{
+		this(sources, numTimepoints, cacheControl, optional, interpolation, null);
+	}
+
+	/**
+	 *
+	 * Will create {@link ViewerPanelFX} and populate with {@code sources}.
+	 *
+	 * @param sources
+	 * 		the {@link SourceAndConverter sources} to display.
+	 * @param numTimepoints
+	 * 		number of available timepoints.
+	 * @param cacheControl
+	 * 		to control IO budgeting and fetcher queue.
+	 * @param optional
+	 * 		optional parameters. See {@link ViewerOptions#options()}.
+	 * @param interpolation
+	 *      Get interpolation method for each data source.
+	 * @param renderingExecutorService
+	 * 		render tiles on this {@link ExecutorService}, e.g. shared between multiple viewers. The caller is responsible
+	 * 		for shutting it down. If {@code null}, a thread pool owned by this viewer is created.
+	 */
+	public ViewerPanelFX(
+			final List<SourceAndConverter<?>> sources,
+			final int numTimepoints,
+			final CacheControl cacheControl,
+			final ViewerOptions optional,
+			final Function<Source<?>, Interpolation> interpolation,
+			final ExecutorService renderingExecutorService)
 	{
 		super();
 		super.getChildren().setAll(canvasPane, overlayPane);
-		this.renderingExecutorService = Executors.newFixedThreadPool(optional.values.getNumRenderingThreads(), new RenderThreadFactory());
+		this.ownsRenderingExecutorService = renderingExecutorService == null;
+		this.renderingExecutorService = this.ownsRenderingExecutorService
+				? Executors.newFixedThreadPool(optional.values.getNumRenderingThreads(), new RenderThreadFactory())
+				: renderingExecutorService;
 		options = optional.values;
 
 		threadGroup = new ThreadGroup(this.toString());
@@ -194,6 +230,9 @@ public class ViewerPanelFX
 			options.getNumRenderingThreads(),
 			renderingExecutorService
 		);
+		this.renderUnit.setPriorityScreenPosition(() -> mouseTracker.getIsInside()
+				? new double[] {mouseTracker.getMouseX(), mouseTracker.getMouseY()}
+				: null);
 
 		setRenderedImageListener();
 		this.widthProperty().addListener((obs, oldv, newv) -> this.renderUnit.setDimensions((long)getWidth(), (long)getHeight()));
@@ -321,6 +360,30 @@ public class ViewerPanelFX
 	}
 
 	public void requestRepaint(final RealInterval intervalInGlobalSpace) {
+		final Interval screenInterval = toScreenInterval(intervalInGlobalSpace);
+		if (screenInterval != null)
+			requestRepaint(Intervals.minAsLongArray(screenInterval), Intervals.maxAsLongArray(screenInterval));
+	}
+
+	/**
+	 * Repaint the screen area of {@code intervalInGlobalSpace}, e.g. a brush stroke, at the screen scale at which the
+	 * rest of the screen is currently displayed, and reuse the rest of the current frame.
+	 *
+	 * @param intervalInGlobalSpace changed interval in global coordinates
+	 */
+	public void requestIncrementalRepaint(final RealInterval intervalInGlobalSpace) {
+		final Interval screenInterval = toScreenInterval(intervalInGlobalSpace);
+		if (screenInterval != null)
+			renderUnit.requestIncrementalRepaint(Intervals.minAsLongArray(screenInterval), Intervals.maxAsLongArray(screenInterval));
+	}
+
+	/**
+	 *
+	 * @param intervalInGlobalSpace interval in global coordinates
+	 * @return two-dimensional bounding box of {@code intervalInGlobalSpace} in screen coordinates, or {@code null} if it
+	 * does not intersect the viewer plane
+	 */
+	private Interval toScreenInterval(final RealInterval intervalInGlobalSpace) {
 		final AffineTransform3D transform = this.viewerTransform.copy();
 		final double[] tl = new double[3];
 		final double[] br = new double[3];
@@ -343,8 +406,9 @@ public class ViewerPanelFX
 			final long[] max = new long[2];
 			Arrays.setAll(min, integerInterval::min);
 			Arrays.setAll(max, integerInterval::max);
-			requestRepaint(min, max);
+			return new FinalInterval(min, max);
 		}
+		return null;
 	}
 
 	/**
@@ -426,11 +490,13 @@ public class ViewerPanelFX
 	}
 
 	/**
-	 * Shutdown the {@link ExecutorService} used for rendering tiles onto the screen.
+	 * Shutdown the {@link ExecutorService} used for rendering tiles onto the screen, unless it was passed in at
+	 * construction.
 	 */
 	public void stop()
 	{
-		renderingExecutorService.shutdown();
+		if (ownsRenderingExecutorService)
+			renderingExecutorService.shutdown();
 	}
 
 	private static final AtomicInteger panelNumber = new AtomicInteger(1);
@@ -520,6 +586,29 @@ public class ViewerPanelFX
 		this.renderUnit.setScreenScales(screenScales.clone());
 	}
 
+	/**
+	 * Adapt the screen scale at which rendering starts to measured render times.
+	 *
+	 * @param adaptiveScreenScales if {@code false}, always start rendering at the coarsest screen scale
+	 * @param targetRenderNanos time budget for rendering a full frame at the screen scale at which rendering starts
+	 */
+	public void setAdaptiveScreenScales(final boolean adaptiveScreenScales, final long targetRenderNanos)
+	{
+		LOG.debug("Setting adaptive screen scales to {} with target render time {}ns", adaptiveScreenScales, targetRenderNanos);
+		this.renderUnit.setAdaptiveScreenScales(adaptiveScreenScales, targetRenderNanos);
+	}
+
+	/**
+	 * Fetch cells of sources and mipmap levels in the order given by {@code fetchPriorityPolicy}.
+	 *
+	 * @param fetchPriorityPolicy assigns queue priorities, or {@code null} to use the priorities of the mipmap ordering
+	 * 		of each source
+	 */
+	public void setFetchPriorityPolicy(final FetchPriorityPolicy fetchPriorityPolicy)
+	{
+		this.renderUnit.setFetchPriorityPolicy(fetchPriorityPolicy);
+	}
+
 	/**
 	 *
 	 * @return {@link OverlayPane} used for drawing overlays without re-rendering 2D cross-sections
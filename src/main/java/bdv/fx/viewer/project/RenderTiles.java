@@ -0,0 +1,75 @@
+package bdv.fx.viewer.project;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Split a render target into square tiles that are rendered as independent tasks. Tiles are ordered by distance to a
+ * priority position (e.g. the mouse pointer), such that an executor that runs tasks in submission order renders the
+ * area of interest first. Unlike full width stripes, square tiles balance well across many threads for any aspect
+ * ratio of the render target.
+ */
+public class RenderTiles
+{
+
+	public static final int DEFAULT_TILE_SIZE = 64;
+
+	/**
+	 * Tile in coordinates relative to the min of the render target.
+	 */
+	public static class Tile
+	{
+		public final int minX;
+
+		public final int minY;
+
+		public final int width;
+
+		public final int height;
+
+		public Tile(final int minX, final int minY, final int width, final int height)
+		{
+			this.minX = minX;
+			this.minY = minY;
+			this.width = width;
+			this.height = height;
+		}
+
+		private double squaredDistance(final double x, final double y)
+		{
+			final double dx = minX + 0.5 * width - x;
+			final double dy = minY + 0.5 * height - y;
+			return dx * dx + dy * dy;
+		}
+
+		@Override
+		public String toString()
+		{
+			return String.format("{Tile: min=(%d, %d), size=(%d, %d)}", minX, minY, width, height);
+		}
+	}
+
+	/**
+	 *
+	 * @param width width of the render target
+	 * @param height height of the render target
+	 * @param tileSize side length of tiles
+	 * @param priorityPosition tiles closer to this position, relative to the min of the render target, come first.
+	 * 		If {@code null}, tiles closer to the center come first.
+	 * @return tiles that cover the render target, ordered by distance to {@code priorityPosition}
+	 */
+	public static List<Tile> tiles(final int width, final int height, final int tileSize, final double[] priorityPosition)
+	{
+		final List<Tile> tiles = new ArrayList<>((width / tileSize + 1) * (height / tileSize + 1));
+		for (int minY = 0; minY < height; minY += tileSize)
+			for (int minX = 0; minX < width; minX += tileSize)
+				tiles.add(new Tile(minX, minY, Math.min(tileSize, width - minX), Math.min(tileSize, height - minY)));
+
+		final double x = priorityPosition == null ? 0.5 * width : priorityPosition[0];
+		final double y = priorityPosition == null ? 0.5 * height : priorityPosition[1];
+		tiles.sort(Comparator.comparingDouble(tile -> tile.squaredDistance(x, y)));
+		return tiles;
+	}
+
+}
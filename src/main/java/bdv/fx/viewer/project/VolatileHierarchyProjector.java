@@ -124,6 +124,11 @@ public class VolatileHierarchyProjector< A extends Volatile< ? >, B extends Nume
 	 */
 	protected final AtomicInteger numInvalidPixels = new AtomicInteger();
 
+	/**
+	 * Tiles close to this position are rendered first, see {@link RenderTiles}.
+	 */
+	protected volatile double[] priorityPosition = null;
+
 	/**
 	 * Flag to indicate that someone is trying to interrupt rendering.
 	 */
@@ -171,6 +176,17 @@ public class VolatileHierarchyProjector< A extends Volatile< ? >, B extends Nume
 		clearMask();
 	}
 
+	/**
+	 * Render tiles close to this position first.
+	 *
+	 * @param priorityPosition position relative to the min of the target, or {@code null} to render tiles close to the
+	 * 		center of the target first
+	 */
+	public void setPriorityPosition( final double[] priorityPosition )
+	{
+		this.priorityPosition = priorityPosition == null ? null : priorityPosition.clone();
+	}
+
 	@Override
 	public void cancel()
 	{
@@ -188,6 +204,14 @@ public class VolatileHierarchyProjector< A extends Volatile< ? >, B extends Nume
 		return lastFrameIoNanoTime;
 	}
 
+	/**
+	 * @return number of pixels that could not be rendered at any mipmap level in the last frame
+	 */
+	public int getLastFrameNumInvalidPixels()
+	{
+		return numInvalidPixels.get();
+	}
+
 	@Override
 	public boolean isValid()
 	{
@@ -234,14 +258,9 @@ public class VolatileHierarchyProjector< A extends Volatile< ? >, B extends Nume
 		final long startTimeIoCumulative = iostat.getCumulativeIoNanoTime();
 //		final long startIoBytes = iostat.getIoBytes();
 
-		final int numTasks;
-		if ( numThreads > 1 )
-		{
-			numTasks = Math.min( numThreads * 10, height );
-		}
-		else
-			numTasks = 1;
-		final double taskHeight = ( double )height / numTasks;
+		final List< RenderTiles.Tile > tiles = numThreads > 1
+				? RenderTiles.tiles( width, height, RenderTiles.DEFAULT_TILE_SIZE, priorityPosition )
+				: RenderTiles.tiles( width, height, Math.max( width, height ), null );
 
 		int i;
 
@@ -256,13 +275,9 @@ public class VolatileHierarchyProjector< A extends Volatile< ? >, B extends Nume
 			valid = true;
 			numInvalidPixels.set( 0 );
 
-			final ArrayList< Callable< Void > > tasks = new ArrayList<>( numTasks );
-			for ( int taskNum = 0; taskNum < numTasks; ++taskNum )
+			final ArrayList< Callable< Void > > tasks = new ArrayList<>( tiles.size() );
+			for ( final RenderTiles.Tile tile : tiles )
 			{
-				final int myOffset = width * ( int ) ( taskNum * taskHeight );
-				final long myMinY = min[ 1 ] + ( int ) ( taskNum * taskHeight );
-				final int myHeight = ( int ) ( ( (taskNum == numTasks - 1 ) ? height : ( int ) ( ( taskNum + 1 ) * taskHeight ) ) - myMinY - min[ 1 ] );
-
 				final Callable< Void > r = new Callable< Void >()
 				{
 					@Override
@@ -272,28 +287,29 @@ public class VolatileHierarchyProjector< A extends Volatile< ? >, B extends Nume
 							return null;
 
 						final RandomAccess< B > targetRandomAccess = target.randomAccess( target );
-						final Cursor< ByteType > maskCursor = Views.iterable( mask ).cursor();
+						final RandomAccess< ByteType > maskRandomAccess = mask.randomAccess( mask );
 						final RandomAccess< A > sourceRandomAccess = sources.get( iFinal ).randomAccess( sourceInterval );
 						int myNumInvalidPixels = 0;
 
 						final long[] smin = new long[ n ];
 						System.arraycopy( min, 0, smin, 0, n );
-						smin[ 1 ] = myMinY;
-						sourceRandomAccess.setPosition( smin );
+						smin[ 0 ] += tile.minX;
+						smin[ 1 ] += tile.minY;
 
-						targetRandomAccess.setPosition( min[ 0 ], 0 );
-						targetRandomAccess.setPosition( myMinY, 1 );
-
-						maskCursor.jumpFwd( myOffset );
-
-						for ( int y = 0; y < myHeight; ++y )
+						for ( int y = 0; y < tile.height; ++y )
 						{
 							if ( interrupted.get() )
 								return null;
 
-							for ( int x = 0; x < width; ++x )
+							sourceRandomAccess.setPosition( smin );
+							targetRandomAccess.setPosition( smin[ 0 ], 0 );
+							targetRandomAccess.setPosition( smin[ 1 ], 1 );
+							maskRandomAccess.setPosition( mask.min( 0 ) + tile.minX, 0 );
+							maskRandomAccess.setPosition( mask.min( 1 ) + tile.minY + y, 1 );
+
+							for ( int x = 0; x < tile.width; ++x )
 							{
-								final ByteType m = maskCursor.next();
+								final ByteType m = maskRandomAccess.get();
 								if ( m.get() > iFinal )
 								{
 									final A a = sourceRandomAccess.get();
@@ -308,11 +324,9 @@ public class VolatileHierarchyProjector< A extends Volatile< ? >, B extends Nume
 								}
 								sourceRandomAccess.fwd( 0 );
 								targetRandomAccess.fwd( 0 );
+								maskRandomAccess.fwd( 0 );
 							}
 							++smin[ 1 ];
-							sourceRandomAccess.setPosition( smin );
-							targetRandomAccess.move( cr, 0 );
-							targetRandomAccess.fwd( 1 );
 						}
 						numInvalidPixels.addAndGet( myNumInvalidPixels );
 						if ( myNumInvalidPixels != 0 )
@@ -76,6 +76,16 @@ public class BufferExposingWritableImage extends WritableImage
 		this.callPixelsDirty.run();
 	}
 
+	/**
+	 *
+	 * @return pixel buffer in IntArgbPre format, row-major with a stride of {@link #getWidth() width}. Call
+	 * {@link #setPixelsDirty()} after modifying it.
+	 */
+	public int[] getBuffer()
+	{
+		return this.store;
+	}
+
 	public ArrayImg<ARGBType, IntAccess> asArrayImg()
 	{
 		return ArrayImgs.argbs(new IntArray(store), (long) getWidth(), (long) getHeight());
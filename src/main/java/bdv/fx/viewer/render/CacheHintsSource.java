@@ -0,0 +1,21 @@
+package bdv.fx.viewer.render;
+
+import net.imglib2.cache.volatiles.CacheHints;
+
+/**
+ * Source that is backed by volatile cached images but does not expose them in
+ * {@link bdv.viewer.Source#getSource(int, int)}, e.g. because they are composed with other data. Cache hints that the
+ * renderer would set on the images of a plain source are passed on to the backing images instead.
+ */
+public interface CacheHintsSource
+{
+
+	/**
+	 *
+	 * @param t timepoint
+	 * @param level mipmap level
+	 * @param hints cache hints for the backing images, or {@code null} to reset them to their defaults
+	 */
+	void setCacheHints(int t, int level, CacheHints hints);
+
+}
@@ -0,0 +1,54 @@
+package bdv.fx.viewer.render;
+
+import java.util.function.Supplier;
+
+/**
+ * Assigns fetcher queue priorities to the mipmap levels of rendered sources. Levels of the active source (e.g. the
+ * source that is being edited) are fetched before levels of all other sources, and within each source the finest
+ * visible level is fetched first, followed by coarser levels in render order.
+ *
+ * Lower values mean higher priority, consistent with {@link bdv.util.volatiles.SharedQueue}.
+ */
+public class FetchPriorityPolicy
+{
+
+	private final int numPriorities;
+
+	private final int backgroundOffset;
+
+	private final Supplier<?> activeSource;
+
+	/**
+	 *
+	 * @param numPriorities number of priorities of the fetcher queue
+	 * @param activeSource supplies the active source, may supply {@code null}
+	 */
+	public FetchPriorityPolicy(final int numPriorities, final Supplier<?> activeSource)
+	{
+		if (numPriorities < 2)
+			throw new IllegalArgumentException("Need at least two priorities but got " + numPriorities);
+		this.numPriorities = numPriorities;
+		this.backgroundOffset = numPriorities / 2;
+		this.activeSource = activeSource;
+	}
+
+	/**
+	 *
+	 * @param source rendered source
+	 * @param renderRank position of the mipmap level in render order, {@code 0} for the finest visible level
+	 * @return queue priority for fetching cells of mipmap level at {@code renderRank} of {@code source}
+	 */
+	public int getQueuePriority(final Object source, final int renderRank)
+	{
+		final boolean isActive = source != null && source == activeSource.get();
+		return isActive
+		       ? Math.min(renderRank, backgroundOffset - 1)
+		       : Math.min(backgroundOffset + renderRank, numPriorities - 1);
+	}
+
+	public int getNumPriorities()
+	{
+		return numPriorities;
+	}
+
+}
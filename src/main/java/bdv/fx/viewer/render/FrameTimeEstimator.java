@@ -0,0 +1,140 @@
+package bdv.fx.viewer.render;
+
+import java.util.Arrays;
+
+/**
+ * Estimates the time to render a full frame at each screen scale from an exponential moving average of measured render
+ * time per pixel, and selects the finest screen scale at which a full frame can be rendered within a time budget.
+ *
+ * Times are tracked per pixel so that frames that only re-render a small part of the screen (e.g. while painting) are
+ * comparable to full frames. Screen scales without measurements are estimated from the nearest screen scale with
+ * measurements.
+ */
+public class FrameTimeEstimator
+{
+
+	/**
+	 * Weight of a new measurement in the moving average.
+	 */
+	public static final double DEFAULT_SMOOTHING = 0.25;
+
+	/**
+	 * Switch to a finer screen scale only if its estimate is below this fraction of the budget. Avoids alternating
+	 * between two screen scales when the estimate of the finer one is close to the budget.
+	 */
+	public static final double REFINE_MARGIN = 0.75;
+
+	/**
+	 * Frames that cover a smaller fraction of the full frame are not measured: per pixel times are dominated by
+	 * fixed costs for small intervals.
+	 */
+	public static final double MIN_FRAME_FRACTION = 0.25;
+
+	private final double smoothing;
+
+	private double[] nanosPerPixel;
+
+	/**
+	 *
+	 * @param numScreenScales number of screen scales
+	 */
+	public FrameTimeEstimator(final int numScreenScales)
+	{
+		this(numScreenScales, DEFAULT_SMOOTHING);
+	}
+
+	/**
+	 *
+	 * @param numScreenScales number of screen scales
+	 * @param smoothing weight of a new measurement in the moving average, in the half-closed interval (0, 1]
+	 */
+	public FrameTimeEstimator(final int numScreenScales, final double smoothing)
+	{
+		if (!(smoothing > 0.0 && smoothing <= 1.0))
+			throw new IllegalArgumentException("Smoothing must be in the half-closed interval (0, 1] but got " + smoothing);
+		this.smoothing = smoothing;
+		reset(numScreenScales);
+	}
+
+	/**
+	 * Discard all measurements.
+	 *
+	 * @param numScreenScales number of screen scales
+	 */
+	public void reset(final int numScreenScales)
+	{
+		this.nanosPerPixel = new double[numScreenScales];
+		Arrays.fill(this.nanosPerPixel, Double.NaN);
+	}
+
+	/**
+	 * Add a measurement.
+	 *
+	 * @param screenScaleIndex index of the rendered screen scale
+	 * @param renderNanos time to render the frame, without blocking IO
+	 * @param numPixels number of rendered pixels
+	 * @param numFullFramePixels number of pixels of a full frame at {@code screenScaleIndex}
+	 * @return {@code true} if the measurement was used
+	 */
+	public boolean record(final int screenScaleIndex, final long renderNanos, final long numPixels, final long numFullFramePixels)
+	{
+		if (screenScaleIndex < 0 || screenScaleIndex >= nanosPerPixel.length)
+			return false;
+		if (renderNanos <= 0 || numPixels <= 0 || numPixels < MIN_FRAME_FRACTION * numFullFramePixels)
+			return false;
+		final double measurement = (double) renderNanos / numPixels;
+		final double previous = nanosPerPixel[screenScaleIndex];
+		nanosPerPixel[screenScaleIndex] = Double.isNaN(previous)
+				? measurement
+				: smoothing * measurement + (1.0 - smoothing) * previous;
+		return true;
+	}
+
+	/**
+	 *
+	 * @param screenScaleIndex screen scale index
+	 * @return estimated render time per pixel at {@code screenScaleIndex}, or {@link Double#NaN} if there are no
+	 * measurements at all
+	 */
+	public double estimateNanosPerPixel(final int screenScaleIndex)
+	{
+		if (!Double.isNaN(nanosPerPixel[screenScaleIndex]))
+			return nanosPerPixel[screenScaleIndex];
+		for (int distance = 1; distance < nanosPerPixel.length; ++distance)
+		{
+			final int finer = screenScaleIndex - distance;
+			final int coarser = screenScaleIndex + distance;
+			if (finer >= 0 && !Double.isNaN(nanosPerPixel[finer]))
+				return nanosPerPixel[finer];
+			if (coarser < nanosPerPixel.length && !Double.isNaN(nanosPerPixel[coarser]))
+				return nanosPerPixel[coarser];
+		}
+		return Double.NaN;
+	}
+
+	/**
+	 * Select the finest screen scale at which a full frame is estimated to render within {@code targetRenderNanos}.
+	 *
+	 * @param numFullFramePixels number of pixels of a full frame for each screen scale
+	 * @param targetRenderNanos time budget for a frame
+	 * @param currentScreenScaleIndex currently selected screen scale index
+	 * @return selected screen scale index, or {@code currentScreenScaleIndex} if there are no measurements
+	 */
+	public int selectScreenScaleIndex(final long[] numFullFramePixels, final long targetRenderNanos, final int currentScreenScaleIndex)
+	{
+		final int coarsest = nanosPerPixel.length - 1;
+		if (coarsest < 0)
+			return currentScreenScaleIndex;
+		for (int index = 0; index < coarsest; ++index)
+		{
+			final double estimate = estimateNanosPerPixel(index);
+			if (Double.isNaN(estimate))
+				return currentScreenScaleIndex;
+			final double budget = index < currentScreenScaleIndex ? REFINE_MARGIN * targetRenderNanos : targetRenderNanos;
+			if (estimate * numFullFramePixels[index] <= budget)
+				return index;
+		}
+		return coarsest;
+	}
+
+}
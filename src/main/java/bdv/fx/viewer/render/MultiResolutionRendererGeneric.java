@@ -83,6 +83,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.function.ToIntFunction;
 
 /**
@@ -194,18 +195,27 @@ public class MultiResolutionRendererGeneric<T>
 	private RealInterval lastRenderTargetRealInterval;
 
 	/**
-	 * If the rendering time (in nanoseconds) for the (currently) highest scaled screen image is above this threshold,
-	 * increase the {@link #maxScreenScaleIndex index} of the highest screen scale to use. Similarly, if the rendering
-	 * time for the (currently) second-highest scaled screen image is below this threshold, decrease the {@link
-	 * #maxScreenScaleIndex index} of the highest screen scale to use.
+	 * If {@link #adaptiveScreenScales}, rendering starts at the {@link #maxScreenScaleIndex finest screen scale} at which
+	 * a full frame is estimated to render within this threshold (in nanoseconds).
 	 */
-	private final long targetRenderNanos;
+	private long targetRenderNanos;
+
+	/**
+	 * Whether the {@link #maxScreenScaleIndex index of the screen scale} at which rendering starts is adapted to
+	 * measured render times. If {@code false}, rendering always starts at the coarsest screen scale.
+	 */
+	private boolean adaptiveScreenScales = false;
+
+	/**
+	 * Estimates full frame render times per screen scale for {@link #adaptiveScreenScales}.
+	 */
+	private FrameTimeEstimator frameTimeEstimator;
 
 	/**
 	 * The index of the (coarsest) screen scale with which to start rendering. Once this level is painted, rendering
-	 * proceeds to lower screen scales until index 0 (full resolution) has been reached. While rendering, the
-	 * maxScreenScaleIndex is adapted such that it is the highest index for which rendering in {@link
-	 * #targetRenderNanos} nanoseconds is still possible.
+	 * proceeds to lower screen scales until index 0 (full resolution) has been reached. If {@link
+	 * #adaptiveScreenScales}, the maxScreenScaleIndex is adapted while rendering such that it is the lowest index for
+	 * which rendering in {@link #targetRenderNanos} nanoseconds is still possible.
 	 */
 	private int maxScreenScaleIndex;
 
@@ -251,6 +261,19 @@ public class MultiResolutionRendererGeneric<T>
 	 */
 	private boolean newFrameRequest;
 
+	/**
+	 * Whether an {@link #requestIncrementalRepaint(Interval) incremental repaint} was requested. This will cause
+	 * re-projection of the requested interval even if it is the same as the last rendered interval, but does not
+	 * {@link CacheControl#prepareNextFrame() clear the fetcher queue}.
+	 */
+	private boolean dirtyRegionRequest;
+
+	/**
+	 * Screen scale index at which the whole screen was last rendered successfully. Incremental repaints are rendered at
+	 * this screen scale, such that they match the surrounding frame that is reused.
+	 */
+	private int displayedScreenScaleIndex = Integer.MAX_VALUE;
+
 	/**
 	 * The timepoint for which last a projector was {@link #createProjector created}.
 	 */
@@ -270,6 +293,31 @@ public class MultiResolutionRendererGeneric<T>
 
 	private final AffineTransform3D currentProjectorTransform = new AffineTransform3D();
 
+	/**
+	 * Single source projectors of the {@link #projector current projector}, used for collecting frame statistics.
+	 */
+	private final List<VolatileProjector> currentSourceProjectors = new ArrayList<>();
+
+	/**
+	 * Number of pixels rendered by each of the {@link #currentSourceProjectors}.
+	 */
+	private long currentProjectorNumPixels;
+
+	/**
+	 * Frame statistics are recorded into this, if not {@code null}.
+	 */
+	private volatile RenderMetrics metrics;
+
+	/**
+	 * Screen position (e.g. mouse pointer) around which tiles are rendered first. May return {@code null}.
+	 */
+	private volatile Supplier<double[]> priorityScreenPosition = () -> null;
+
+	/**
+	 * Overrides the fetcher queue priorities of the mipmap levels of volatile sources, if not {@code null}.
+	 */
+	private volatile FetchPriorityPolicy fetchPriorityPolicy;
+
 	/**
 	 * @param display
 	 * 		The canvas that will display the images we render.
@@ -394,6 +442,7 @@ public class MultiResolutionRendererGeneric<T>
 				scale.set(0.5 * (yScale - 1), 1, 3);
 				screenScaleTransforms[i] = scale;
 			}
+			displayedScreenScaleIndex = Integer.MAX_VALUE;
 
 			return true;
 		}
@@ -502,8 +551,9 @@ public class MultiResolutionRendererGeneric<T>
 			clearQueue = newFrameRequest;
 			if (clearQueue)
 				cacheControl.prepareNextFrame();
-			createProjector = newFrameRequest || resized || requestedScreenScaleIndex != currentScreenScaleIndex || !sameAsLastRenderedInterval;
+			createProjector = newFrameRequest || dirtyRegionRequest || resized || requestedScreenScaleIndex != currentScreenScaleIndex || !sameAsLastRenderedInterval;
 			newFrameRequest = false;
+			dirtyRegionRequest = false;
 
 			final List<SourceAndConverter<?>> sacs = sources;
 
@@ -558,6 +608,16 @@ public class MultiResolutionRendererGeneric<T>
 						renderTargetRoi,
 						interpolationForSource
 					);
+					currentProjectorNumPixels = Intervals.numElements(renderTargetRoi);
+					final double[] screenPosition = priorityScreenPosition.get();
+					if (screenPosition != null)
+					{
+						final double[] renderTargetPosition = new double[2];
+						Arrays.setAll(renderTargetPosition, d -> screenPosition[d] * renderTargetToScreenPixelRatio[d] - renderTargetPaddedInterval.min(d));
+						setPriorityPosition(renderTargetPosition);
+					}
+					if (metrics != null)
+						metrics.recordProjectorCreation(currentScreenScaleIndex, screenScale(currentScreenScaleIndex));
 
 					lastRenderedScreenInterval = repaintScreenInterval;
 					lastRenderTargetRealInterval = renderTargetRealInterval;
@@ -575,10 +635,11 @@ public class MultiResolutionRendererGeneric<T>
 
 		// try rendering
 		final boolean success = p.map(createProjector);
-//		final long rendertime = p.getLastFrameRenderNanoTime();
 
 		synchronized (this)
 		{
+			recordFrame(p, success);
+
 			// if rendering was not cancelled...
 			if (success)
 			{
@@ -593,34 +654,33 @@ public class MultiResolutionRendererGeneric<T>
 							renderIdQueue.add(id);
 					}
 
-					/**
-					 * TODO: design a better algorithm for adjusting maxScreenScaleIndex or remove and always use all screen scales.
-					 *
-					 * The current heuristic does not work well in the following cases:
-					 *
-					 * 1) With vastly different screen scale values such as [1.0, 0.1], it will switch between the two scales every frame.
-					 * At screen scale 0.1 rendering is fast, and after a frame is rendered, it switches maxScreenScaleIndex to 0.
-					 * However, at screen scale 1.0 rendering is slower than targetRenderNanos, so when the next frame is rendered, it switches maxScreenScaleIndex back to 1.
-					 * This causes annoying delays because when maxScreenScaleIndex is switched to 0, renderingMayBeCancelled is in turn set to false, and the algorithm has to wait
-					 * until the current high-res frame is fully rendered.
-					 *
-					 * 2) When the user starts painting, it re-renders only the affected interval which is usually very small compared to the size of the screen.
-					 * Usually rendering is very fast in this case, and maxScreenScaleIndex is quickly changed to 0.
-					 * When the user finishes painting and starts navigating again, there may be a delay in rendering the first few frames because
-					 * it starts from the highest available resolution and then gradually decreases the resolution until the rendertime is within the targetRenderNanos threshold.
+					/*
+					 * Adapt the screen scale at which rendering starts to the finest one that renders a full frame within targetRenderNanos.
+					 * Render times are averaged per pixel over multiple frames, such that small repaint intervals (e.g. while painting) do not
+					 * skew the estimate and a single slow frame does not switch back and forth between screen scales. Switching to a finer
+					 * screen scale requires a margin to the time budget, because rendering at maxScreenScaleIndex cannot be cancelled.
 					 */
-//					if (currentScreenScaleIndex == maxScreenScaleIndex)
-//					{
-//						if (rendertime > targetRenderNanos && maxScreenScaleIndex < screenScales.length - 1)
-//							maxScreenScaleIndex++;
-//						else if (rendertime < targetRenderNanos / 3 && maxScreenScaleIndex > 0)
-//							maxScreenScaleIndex--;
-//					}
-//					else if (currentScreenScaleIndex == maxScreenScaleIndex - 1)
-//						if (rendertime < targetRenderNanos && maxScreenScaleIndex > 0)
-//							maxScreenScaleIndex--;
+					if (adaptiveScreenScales && currentScreenScaleIndex < screenScales.length)
+					{
+						frameTimeEstimator.record(
+								currentScreenScaleIndex,
+								p.getLastFrameRenderNanoTime(),
+								currentProjectorNumPixels,
+								numFullFramePixels(currentScreenScaleIndex));
+						final long[] numFullFramePixels = new long[screenScales.length];
+						Arrays.setAll(numFullFramePixels, this::numFullFramePixels);
+						final int selectedScreenScaleIndex = frameTimeEstimator.selectScreenScaleIndex(numFullFramePixels, targetRenderNanos, maxScreenScaleIndex);
+						if (selectedScreenScaleIndex != maxScreenScaleIndex)
+						{
+							LOG.trace("Changing screen scale index at which rendering starts from {} to {}", maxScreenScaleIndex, selectedScreenScaleIndex);
+							maxScreenScaleIndex = selectedScreenScaleIndex;
+						}
+					}
 				}
 
+				if (coversScreen(lastRenderedScreenInterval))
+					displayedScreenScaleIndex = currentScreenScaleIndex;
+
 				if (currentScreenScaleIndex > 0)
 					requestRepaint(lastRenderedScreenInterval, currentScreenScaleIndex - 1);
 				else if (!p.isValid())
@@ -656,6 +716,150 @@ public class MultiResolutionRendererGeneric<T>
 		}
 	}
 
+	private boolean coversScreen(final Interval screenInterval)
+	{
+		return screenInterval.min(0) <= 0
+				&& screenInterval.min(1) <= 0
+				&& screenInterval.max(0) >= display.getWidth() - 1
+				&& screenInterval.max(1) >= display.getHeight() - 1;
+	}
+
+	/**
+	 * Render tiles around {@code priorityScreenPosition} first, e.g. the mouse pointer.
+	 *
+	 * @param priorityScreenPosition supplies position in screen coordinates, or {@code null} to render tiles close to
+	 * 		the center of the repaint interval first.
+	 */
+	public void setPriorityScreenPosition(final Supplier<double[]> priorityScreenPosition)
+	{
+		this.priorityScreenPosition = priorityScreenPosition == null ? () -> null : priorityScreenPosition;
+	}
+
+	private void setPriorityPosition(final double[] renderTargetPosition)
+	{
+		for (final VolatileProjector sourceProjector : currentSourceProjectors)
+		{
+			if (sourceProjector instanceof VolatileHierarchyProjector<?, ?>)
+				((VolatileHierarchyProjector<?, ?>) sourceProjector).setPriorityPosition(renderTargetPosition);
+			else if (sourceProjector instanceof VolatileHierarchyProjectorPreMultiply<?>)
+				((VolatileHierarchyProjectorPreMultiply<?>) sourceProjector).setPriorityPosition(renderTargetPosition);
+		}
+	}
+
+	/**
+	 * Fetch cells of sources and mipmap levels in the order given by {@code fetchPriorityPolicy}.
+	 *
+	 * @param fetchPriorityPolicy assigns queue priorities, or {@code null} to use the priorities of the mipmap ordering
+	 * 		of each source
+	 */
+	public void setFetchPriorityPolicy(final FetchPriorityPolicy fetchPriorityPolicy)
+	{
+		this.fetchPriorityPolicy = fetchPriorityPolicy;
+	}
+
+	/**
+	 * Adapt the screen scale at which rendering starts to measured render times, such that a full frame renders within
+	 * {@link #setTargetRenderNanos(long) target render nanos}.
+	 *
+	 * @param adaptiveScreenScales if {@code false}, always start rendering at the coarsest screen scale
+	 */
+	public synchronized void setAdaptiveScreenScales(final boolean adaptiveScreenScales)
+	{
+		if (this.adaptiveScreenScales == adaptiveScreenScales)
+			return;
+		this.adaptiveScreenScales = adaptiveScreenScales;
+		frameTimeEstimator.reset(screenScales.length);
+		maxScreenScaleIndex = screenScales.length - 1;
+	}
+
+	public synchronized boolean isAdaptiveScreenScales()
+	{
+		return adaptiveScreenScales;
+	}
+
+	/**
+	 *
+	 * @param targetRenderNanos time budget for rendering a frame at the screen scale at which rendering starts
+	 */
+	public synchronized void setTargetRenderNanos(final long targetRenderNanos)
+	{
+		this.targetRenderNanos = targetRenderNanos;
+	}
+
+	public synchronized long getTargetRenderNanos()
+	{
+		return targetRenderNanos;
+	}
+
+	/**
+	 * Record frame statistics into {@code metrics}.
+	 *
+	 * @param metrics record into this, or do not record if {@code null}
+	 */
+	public void setMetrics(final RenderMetrics metrics)
+	{
+		this.metrics = metrics;
+	}
+
+	public RenderMetrics getMetrics()
+	{
+		return metrics;
+	}
+
+	// must hold lock on this
+	private void recordFrame(final VolatileProjector p, final boolean success)
+	{
+		final RenderMetrics metrics = this.metrics;
+		if (metrics == null || currentScreenScaleIndex < 0)
+			return;
+
+		final double screenScale = screenScale(currentScreenScaleIndex);
+		if (!success)
+		{
+			metrics.recordCancelledFrame(currentScreenScaleIndex, screenScale);
+			return;
+		}
+
+		long ioNanos = 0;
+		long numInvalidPixels = 0;
+		long numPixels = 0;
+		for (final VolatileProjector sourceProjector : currentSourceProjectors)
+		{
+			if (sourceProjector instanceof VolatileHierarchyProjector<?, ?>)
+			{
+				final VolatileHierarchyProjector<?, ?> vhp = (VolatileHierarchyProjector<?, ?>) sourceProjector;
+				ioNanos += vhp.getLastFrameIoNanoTime();
+				numInvalidPixels += vhp.getLastFrameNumInvalidPixels();
+				numPixels += currentProjectorNumPixels;
+			}
+			else if (sourceProjector instanceof VolatileHierarchyProjectorPreMultiply<?>)
+			{
+				final VolatileHierarchyProjectorPreMultiply<?> vhp = (VolatileHierarchyProjectorPreMultiply<?>) sourceProjector;
+				ioNanos += vhp.getLastFrameIoNanoTime();
+				numInvalidPixels += vhp.getLastFrameNumInvalidPixels();
+				numPixels += currentProjectorNumPixels;
+			}
+		}
+		metrics.recordFrame(
+				currentScreenScaleIndex,
+				screenScale,
+				p.getLastFrameRenderNanoTime(),
+				ioNanos,
+				numPixels == 0 ? -1 : numInvalidPixels,
+				numPixels);
+	}
+
+	private long numFullFramePixels(final int screenScaleIndex)
+	{
+		final double screenScale = screenScales[screenScaleIndex];
+		return (long) Math.ceil(screenScale * display.getWidth()) * (long) Math.ceil(screenScale * display.getHeight());
+	}
+
+	private double screenScale(final int screenScaleIndex)
+	{
+		return screenScaleIndex >= 0 && screenScaleIndex < screenScales.length ? screenScales[screenScaleIndex] : Double.NaN;
+	}
+
 	public synchronized Interval getLastRenderedScreenInterval()
 	{
 		return lastRenderedScreenInterval;
@@ -672,9 +876,24 @@ public class MultiResolutionRendererGeneric<T>
 	public synchronized void requestRepaint(final Interval interval)
 	{
 		newFrameRequest = true;
+		displayedScreenScaleIndex = Integer.MAX_VALUE;
 		requestRepaint(interval, maxScreenScaleIndex);
 	}
 
+	/**
+	 * Request a repaint of a small display interval that changed, e.g. a brush stroke, without starting a new frame. The
+	 * interval is re-projected at the screen scale at which the rest of the screen is currently displayed, and the rest
+	 * of the frame is reused. Unlike {@link #requestRepaint(Interval)}, this does not clear the fetcher queue and does
+	 * not start over at the coarsest screen scale.
+	 */
+	public synchronized void requestIncrementalRepaint(final Interval interval)
+	{
+		if (Intervals.isEmpty(interval))
+			return;
+		dirtyRegionRequest = true;
+		requestRepaint(interval, Math.min(displayedScreenScaleIndex, maxScreenScaleIndex));
+	}
+
 	/**
 	 * Request a repaint of the given display interval from the painter thread. The painter thread will trigger a {@link #paint} as
 	 * soon as possible (that is, immediately or after the currently running {@link #paint} has completed).
@@ -720,6 +939,7 @@ public class MultiResolutionRendererGeneric<T>
 		//		CacheIoTiming.getIoTimeBudget().clear(); // clear time budget such that prefetching doesn't wait for
 		// loading blocks.
 		VolatileProjector projector;
+		currentSourceProjectors.clear();
 		if (sacs.isEmpty())
 			projector = new EmptyProjector<>(screenImage);
 		else if (sacs.size() == 1)
@@ -738,6 +958,7 @@ public class MultiResolutionRendererGeneric<T>
 					interpolation,
 					true
 			                                       );
+			currentSourceProjectors.add(projector);
 		}
 		else
 		{
@@ -764,6 +985,7 @@ public class MultiResolutionRendererGeneric<T>
 						false
 				                                                       );
 				sourceProjectors.add(p);
+				currentSourceProjectors.add(p);
 				sources.add(sac.getSpimSource());
 				sourceImages.add(renderImage);
 			}
@@ -913,12 +1135,23 @@ public class MultiResolutionRendererGeneric<T>
 		final MipmapHints hints  = ordering.getMipmapHints(screenTransform, t, previousTimepoint);
 		final List<Level> levels = hints.getLevels();
 
+		// rank of each mipmap level in render order, 0 for the finest visible level
+		final FetchPriorityPolicy fetchPriorityPolicy = this.fetchPriorityPolicy;
+		Collections.sort(levels, MipmapOrdering.renderOrderComparator);
+		final int[] renderRanks = new int[spimSource.getNumMipmapLevels()];
+		for (int rank = 0; rank < levels.size(); ++rank)
+			renderRanks[levels.get(rank).getMipmapLevel()] = rank;
+
 		if (prefetchCells)
 		{
 			Collections.sort(levels, MipmapOrdering.prefetchOrderComparator);
 			for (final Level l : levels)
 			{
-				final CacheHints cacheHints = l.getPrefetchCacheHints();
+				final CacheHints cacheHints = withQueuePriority(
+						l.getPrefetchCacheHints(),
+						fetchPriorityPolicy,
+						spimSource,
+						renderRanks[l.getMipmapLevel()]);
 				if (cacheHints == null || cacheHints.getLoadingStrategy() != LoadingStrategy.DONTLOAD)
 					prefetch(
 							spimSource,
@@ -941,7 +1174,7 @@ public class MultiResolutionRendererGeneric<T>
 					viewerTransform,
 					screenScaleTransform,
 					l.getMipmapLevel(),
-					l.getRenderCacheHints(),
+					withQueuePriority(l.getRenderCacheHints(), fetchPriorityPolicy, spimSource, renderRanks[l.getMipmapLevel()]),
 					interpolation
 			                                   ));
 
@@ -980,9 +1213,14 @@ public class MultiResolutionRendererGeneric<T>
 			final Interpolation interpolation)
 	{
 
-		final RandomAccessibleInterval<T> img = source.getSource(timepoint, mipmapIndex);
-		if (VolatileCachedCellImg.class.isInstance(img))
-			((VolatileCachedCellImg<?, ?>) img).setCacheHints(cacheHints);
+		if (source instanceof CacheHintsSource)
+			((CacheHintsSource) source).setCacheHints(timepoint, mipmapIndex, cacheHints);
+		else
+		{
+			final RandomAccessibleInterval<T> img = source.getSource(timepoint, mipmapIndex);
+			if (VolatileCachedCellImg.class.isInstance(img))
+				((VolatileCachedCellImg<?, ?>) img).setCacheHints(cacheHints);
+		}
 
 		final RealRandomAccessible<T> ipimg = source.getInterpolatedSource(timepoint, mipmapIndex, interpolation);
 
@@ -1008,6 +1246,20 @@ public class MultiResolutionRendererGeneric<T>
 		return RealViews.affine(ipimg, sourceToScreen);
 	}
 
+	private static CacheHints withQueuePriority(
+			final CacheHints hints,
+			final FetchPriorityPolicy fetchPriorityPolicy,
+			final Source<?> source,
+			final int renderRank)
+	{
+		if (hints == null || fetchPriorityPolicy == null)
+			return hints;
+		return new CacheHints(
+				hints.getLoadingStrategy(),
+				fetchPriorityPolicy.getQueuePriority(source, renderRank),
+				hints.isEnqueuToFront());
+	}
+
 	private static <T> void prefetch(
 			final Source<T> source,
 			final int timepoint,
@@ -1089,6 +1341,8 @@ public class MultiResolutionRendererGeneric<T>
 		pendingRepaintRequests = new Interval[screenScales.length];
 		maxScreenScaleIndex = screenScales.length - 1;
 		requestedScreenScaleIndex = maxScreenScaleIndex;
+		displayedScreenScaleIndex = Integer.MAX_VALUE;
+		frameTimeEstimator = new FrameTimeEstimator(screenScales.length);
 	}
 
 }
@@ -0,0 +1,358 @@
+package bdv.fx.viewer.render;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Frame statistics of a {@link MultiResolutionRendererGeneric}, aggregated per screen scale index. Frames are recorded
+ * from the painter thread, snapshots may be taken from any thread.
+ */
+public class RenderMetrics
+{
+
+	public static final String[] CSV_HEADER = {
+			"viewer",
+			"screenScaleIndex",
+			"screenScale",
+			"frames",
+			"cancelledFrames",
+			"projectorCreations",
+			"meanRenderMillis",
+			"maxRenderMillis",
+			"meanIoMillis",
+			"invalidPixelFraction",
+			"lastRenderMillis",
+			"lastIoMillis",
+			"lastInvalidPixelFraction"
+	};
+
+	private final List<Accumulator> accumulators = new ArrayList<>();
+
+	/**
+	 * Record a completed (not cancelled) frame.
+	 *
+	 * @param screenScaleIndex index of the rendered screen scale
+	 * @param screenScale rendered screen scale
+	 * @param renderNanos time spent rendering, excluding blocking IO
+	 * @param ioNanos time spent in blocking IO
+	 * @param numInvalidPixels number of pixels that could not be rendered at any mipmap level, negative if unknown
+	 * @param numPixels number of rendered pixels
+	 */
+	public synchronized void recordFrame(
+			final int screenScaleIndex,
+			final double screenScale,
+			final long renderNanos,
+			final long ioNanos,
+			final long numInvalidPixels,
+			final long numPixels)
+	{
+		final Accumulator accumulator = accumulator(screenScaleIndex, screenScale);
+		++accumulator.frames;
+		accumulator.renderNanos += Math.max(renderNanos, 0);
+		accumulator.maxRenderNanos = Math.max(accumulator.maxRenderNanos, renderNanos);
+		accumulator.ioNanos += Math.max(ioNanos, 0);
+		accumulator.lastRenderNanos = renderNanos;
+		accumulator.lastIoNanos = ioNanos;
+		if (numInvalidPixels >= 0 && numPixels > 0)
+		{
+			accumulator.numInvalidPixels += numInvalidPixels;
+			accumulator.numPixels += numPixels;
+			accumulator.lastInvalidPixelFraction = (double) numInvalidPixels / numPixels;
+		}
+	}
+
+	public synchronized void recordCancelledFrame(final int screenScaleIndex, final double screenScale)
+	{
+		++accumulator(screenScaleIndex, screenScale).cancelledFrames;
+	}
+
+	public synchronized void recordProjectorCreation(final int screenScaleIndex, final double screenScale)
+	{
+		++accumulator(screenScaleIndex, screenScale).projectorCreations;
+	}
+
+	public synchronized void reset()
+	{
+		accumulators.clear();
+	}
+
+	/**
+	 *
+	 * @return statistics for each screen scale index for which at least one event was recorded
+	 */
+	public synchronized List<ScaleStatistics> snapshot()
+	{
+		final List<ScaleStatistics> statistics = new ArrayList<>();
+		for (int index = 0; index < accumulators.size(); ++index)
+		{
+			final Accumulator accumulator = accumulators.get(index);
+			if (accumulator != null)
+				statistics.add(new ScaleStatistics(index, accumulator));
+		}
+		return Collections.unmodifiableList(statistics);
+	}
+
+	/**
+	 *
+	 * @param screenScaleIndex screen scale index
+	 * @return statistics for {@code screenScaleIndex} or {@code null} if nothing was recorded for it
+	 */
+	public synchronized ScaleStatistics get(final int screenScaleIndex)
+	{
+		final Accumulator accumulator = screenScaleIndex < accumulators.size() ? accumulators.get(screenScaleIndex) : null;
+		return accumulator == null ? null : new ScaleStatistics(screenScaleIndex, accumulator);
+	}
+
+	/**
+	 * Write statistics of multiple viewers as CSV with header {@link #CSV_HEADER}.
+	 *
+	 * @param metrics statistics by viewer name
+	 * @param writer write into this {@link Writer}
+	 * @throws IOException if writing fails
+	 */
+	public static void writeCsv(final Map<String, RenderMetrics> metrics, final Writer writer) throws IOException
+	{
+		writer.write(String.join(",", CSV_HEADER));
+		writer.write("\n");
+		for (final Map.Entry<String, RenderMetrics> entry : metrics.entrySet())
+			for (final ScaleStatistics s : entry.getValue().snapshot())
+			{
+				writer.write(String.join(
+						",",
+						entry.getKey(),
+						Integer.toString(s.getScreenScaleIndex()),
+						Double.toString(s.getScreenScale()),
+						Long.toString(s.getFrames()),
+						Long.toString(s.getCancelledFrames()),
+						Long.toString(s.getProjectorCreations()),
+						Double.toString(s.getMeanRenderMillis()),
+						Double.toString(s.getMaxRenderMillis()),
+						Double.toString(s.getMeanIoMillis()),
+						Double.toString(s.getInvalidPixelFraction()),
+						Double.toString(s.getLastRenderMillis()),
+						Double.toString(s.getLastIoMillis()),
+						Double.toString(s.getLastInvalidPixelFraction())));
+				writer.write("\n");
+			}
+	}
+
+	/**
+	 * Write statistics of multiple viewers as JSON object of viewer name to list of per screen scale statistics.
+	 *
+	 * @param metrics statistics by viewer name
+	 * @param writer write into this {@link Writer}
+	 */
+	public static void writeJson(final Map<String, RenderMetrics> metrics, final Writer writer)
+	{
+		final JsonObject json = new JsonObject();
+		for (final Map.Entry<String, RenderMetrics> entry : metrics.entrySet())
+		{
+			final JsonArray scales = new JsonArray();
+			for (final ScaleStatistics s : entry.getValue().snapshot())
+			{
+				final JsonObject scale = new JsonObject();
+				scale.addProperty(CSV_HEADER[1], s.getScreenScaleIndex());
+				scale.addProperty(CSV_HEADER[2], s.getScreenScale());
+				scale.addProperty(CSV_HEADER[3], s.getFrames());
+				scale.addProperty(CSV_HEADER[4], s.getCancelledFrames());
+				scale.addProperty(CSV_HEADER[5], s.getProjectorCreations());
+				scale.addProperty(CSV_HEADER[6], s.getMeanRenderMillis());
+				scale.addProperty(CSV_HEADER[7], s.getMaxRenderMillis());
+				scale.addProperty(CSV_HEADER[8], s.getMeanIoMillis());
+				scale.addProperty(CSV_HEADER[9], s.getInvalidPixelFraction());
+				scale.addProperty(CSV_HEADER[10], s.getLastRenderMillis());
+				scale.addProperty(CSV_HEADER[11], s.getLastIoMillis());
+				scale.addProperty(CSV_HEADER[12], s.getLastInvalidPixelFraction());
+				scales.add(scale);
+			}
+			json.add(entry.getKey(), scales);
+		}
+		new GsonBuilder().setPrettyPrinting().serializeSpecialFloatingPointValues().create().toJson(json, writer);
+	}
+
+	private Accumulator accumulator(final int screenScaleIndex, final double screenScale)
+	{
+		while (accumulators.size() <= screenScaleIndex)
+			accumulators.add(null);
+		Accumulator accumulator = accumulators.get(screenScaleIndex);
+		// screen scales were changed, previous statistics do not apply anymore
+		if (accumulator == null || Double.compare(accumulator.screenScale, screenScale) != 0)
+		{
+			accumulator = new Accumulator(screenScale);
+			accumulators.set(screenScaleIndex, accumulator);
+		}
+		return accumulator;
+	}
+
+	private static final class Accumulator
+	{
+		private final double screenScale;
+
+		private long frames = 0;
+
+		private long cancelledFrames = 0;
+
+		private long projectorCreations = 0;
+
+		private long renderNanos = 0;
+
+		private long maxRenderNanos = 0;
+
+		private long ioNanos = 0;
+
+		private long numInvalidPixels = 0;
+
+		private long numPixels = 0;
+
+		private long lastRenderNanos = 0;
+
+		private long lastIoNanos = 0;
+
+		private double lastInvalidPixelFraction = Double.NaN;
+
+		private Accumulator(final double screenScale)
+		{
+			this.screenScale = screenScale;
+		}
+	}
+
+	/**
+	 * Immutable statistics of a single screen scale.
+	 */
+	public static final class ScaleStatistics
+	{
+		private static final double NANOS_PER_MILLI = 1e6;
+
+		private final int screenScaleIndex;
+
+		private final double screenScale;
+
+		private final long frames;
+
+		private final long cancelledFrames;
+
+		private final long projectorCreations;
+
+		private final long renderNanos;
+
+		private final long maxRenderNanos;
+
+		private final long ioNanos;
+
+		private final long numInvalidPixels;
+
+		private final long numPixels;
+
+		private final long lastRenderNanos;
+
+		private final long lastIoNanos;
+
+		private final double lastInvalidPixelFraction;
+
+		private ScaleStatistics(final int screenScaleIndex, final Accumulator accumulator)
+		{
+			this.screenScaleIndex = screenScaleIndex;
+			this.screenScale = accumulator.screenScale;
+			this.frames = accumulator.frames;
+			this.cancelledFrames = accumulator.cancelledFrames;
+			this.projectorCreations = accumulator.projectorCreations;
+			this.renderNanos = accumulator.renderNanos;
+			this.maxRenderNanos = accumulator.maxRenderNanos;
+			this.ioNanos = accumulator.ioNanos;
+			this.numInvalidPixels = accumulator.numInvalidPixels;
+			this.numPixels = accumulator.numPixels;
+			this.lastRenderNanos = accumulator.lastRenderNanos;
+			this.lastIoNanos = accumulator.lastIoNanos;
+			this.lastInvalidPixelFraction = accumulator.lastInvalidPixelFraction;
+		}
+
+		public int getScreenScaleIndex()
+		{
+			return screenScaleIndex;
+		}
+
+		public double getScreenScale()
+		{
+			return screenScale;
+		}
+
+		public long getFrames()
+		{
+			return frames;
+		}
+
+		public long getCancelledFrames()
+		{
+			return cancelledFrames;
+		}
+
+		public long getProjectorCreations()
+		{
+			return projectorCreations;
+		}
+
+		public double getMeanRenderMillis()
+		{
+			return frames == 0 ? Double.NaN : renderNanos / NANOS_PER_MILLI / frames;
+		}
+
+		public double getMaxRenderMillis()
+		{
+			return maxRenderNanos / NANOS_PER_MILLI;
+		}
+
+		public double getMeanIoMillis()
+		{
+			return frames == 0 ? Double.NaN : ioNanos / NANOS_PER_MILLI / frames;
+		}
+
+		/**
+		 *
+		 * @return fraction of rendered pixels that could not be rendered at any mipmap level, {@link Double#NaN} if unknown
+		 */
+		public double getInvalidPixelFraction()
+		{
+			return numPixels == 0 ? Double.NaN : (double) numInvalidPixels / numPixels;
+		}
+
+		public double getLastRenderMillis()
+		{
+			return lastRenderNanos / NANOS_PER_MILLI;
+		}
+
+		public double getLastIoMillis()
+		{
+			return lastIoNanos / NANOS_PER_MILLI;
+		}
+
+		public double getLastInvalidPixelFraction()
+		{
+			return lastInvalidPixelFraction;
+		}
+
+		@Override
+		public String toString()
+		{
+			return String.format(
+					"{scale %d (%.3f): frames=%d, cancelled=%d, projectors=%d, render=%.2fms (max %.2fms), io=%.2fms, invalid=%.3f}",
+					screenScaleIndex,
+					screenScale,
+					frames,
+					cancelledFrames,
+					projectorCreations,
+					getMeanRenderMillis(),
+					getMaxRenderMillis(),
+					getMeanIoMillis(),
+					getInvalidPixelFraction());
+		}
+	}
+
+}
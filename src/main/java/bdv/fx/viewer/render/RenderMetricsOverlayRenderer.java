@@ -0,0 +1,99 @@
+package bdv.fx.viewer.render;
+
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Draw the {@link RenderMetrics frame statistics} of a viewer for each screen scale into the top left corner.
+ */
+public class RenderMetricsOverlayRenderer implements OverlayRendererGeneric<GraphicsContext>
+{
+
+	private static final Font FONT = Font.font("Monospaced", 12.0);
+
+	private static final double LINE_HEIGHT = 15.0;
+
+	private static final double MARGIN = 5.0;
+
+	private static final Color BACKGROUND = Color.BLACK.deriveColor(0.0, 1.0, 1.0, 0.6);
+
+	private static final Color FOREGROUND = Color.WHITE;
+
+	private final Supplier<RenderMetrics> metrics;
+
+	private final BooleanProperty isVisible = new SimpleBooleanProperty(false);
+
+	private int width = 0;
+
+	private int height = 0;
+
+	/**
+	 *
+	 * @param metrics supplies statistics to be drawn
+	 */
+	public RenderMetricsOverlayRenderer(final Supplier<RenderMetrics> metrics)
+	{
+		this.metrics = metrics;
+	}
+
+	public BooleanProperty isVisibleProperty()
+	{
+		return this.isVisible;
+	}
+
+	@Override
+	public void drawOverlays(final GraphicsContext g)
+	{
+		if (!isVisible.get() || width <= 0 || height <= 0)
+			return;
+
+		final RenderMetrics metrics = this.metrics.get();
+		if (metrics == null)
+			return;
+
+		final List<RenderMetrics.ScaleStatistics> statistics = metrics.snapshot();
+		final String[] lines = new String[statistics.size() + 1];
+		lines[0] = "scale   frames  cancel  proj  render[ms]  io[ms]  invalid";
+		for (int i = 0; i < statistics.size(); ++i)
+		{
+			final RenderMetrics.ScaleStatistics s = statistics.get(i);
+			lines[i + 1] = String.format(
+					"%5.3f %8d %7d %5d %7.1f/%-4.0f %6.1f  %6.1f%%",
+					s.getScreenScale(),
+					s.getFrames(),
+					s.getCancelledFrames(),
+					s.getProjectorCreations(),
+					s.getLastRenderMillis(),
+					s.getMaxRenderMillis(),
+					s.getLastIoMillis(),
+					100.0 * s.getLastInvalidPixelFraction());
+		}
+
+		g.save();
+		g.setFont(FONT);
+		g.setTextAlign(TextAlignment.LEFT);
+		g.setTextBaseline(VPos.TOP);
+		g.setFill(BACKGROUND);
+		g.fillRect(0, 0, Math.min(width, 480), lines.length * LINE_HEIGHT + 2 * MARGIN);
+		g.setFill(FOREGROUND);
+		for (int i = 0; i < lines.length; ++i)
+			g.fillText(lines[i], MARGIN, MARGIN + i * LINE_HEIGHT);
+		g.restore();
+	}
+
+	@Override
+	public void setCanvasSize(final int width, final int height)
+	{
+		this.width = width;
+		this.height = height;
+	}
+
+}
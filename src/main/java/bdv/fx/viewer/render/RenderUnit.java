@@ -56,7 +56,13 @@ public class RenderUnit implements PainterThread.Paintable {
 
 	private final CacheControl cacheControl;
 
-	private final long targetRenderNanos;
+	private long targetRenderNanos;
+
+	private boolean adaptiveScreenScales = false;
+
+	private Supplier<double[]> priorityScreenPosition = () -> null;
+
+	private FetchPriorityPolicy fetchPriorityPolicy;
 
 	private final int numRenderingThreads;
 
@@ -64,6 +70,8 @@ public class RenderUnit implements PainterThread.Paintable {
 
 	private final List<Runnable> updateListeners = new ArrayList<>();
 
+	private final RenderMetrics renderMetrics = new RenderMetrics();
+
 	public RenderUnit(
 			final ThreadGroup threadGroup,
 			final Supplier<ViewerState> viewerState,
@@ -138,6 +146,18 @@ public class RenderUnit implements PainterThread.Paintable {
 		renderer.requestRepaint(clampRepaintInterval(new FinalInterval(min, max)));
 	}
 
+	/**
+	 * Request incremental repaint of specified interval that changed, e.g. while painting, and reuse the rest of the
+	 * current frame. See {@link MultiResolutionRendererGeneric#requestIncrementalRepaint(Interval)}.
+	 *
+	 * @param min top left corner of interval
+	 * @param max bottom right corner of interval
+	 */
+	public synchronized void requestIncrementalRepaint(final long[] min, final long[] max)
+	{
+		renderer.requestIncrementalRepaint(clampRepaintInterval(new FinalInterval(min, max)));
+	}
+
 	private Interval clampRepaintInterval(final Interval interval)
 	{
 		return Intervals.intersect(interval, new FinalInterval(dimensions));
@@ -157,6 +177,48 @@ public class RenderUnit implements PainterThread.Paintable {
 			renderer.setScreenScales(screenScales);
 	}
 
+	/**
+	 * Adapt the screen scale at which rendering starts to measured render times.
+	 *
+	 * @param adaptiveScreenScales if {@code false}, always start rendering at the coarsest screen scale
+	 * @param targetRenderNanos time budget for rendering a full frame at the screen scale at which rendering starts
+	 */
+	public synchronized void setAdaptiveScreenScales(final boolean adaptiveScreenScales, final long targetRenderNanos)
+	{
+		this.adaptiveScreenScales = adaptiveScreenScales;
+		this.targetRenderNanos = targetRenderNanos;
+		if (renderer != null)
+		{
+			renderer.setTargetRenderNanos(targetRenderNanos);
+			renderer.setAdaptiveScreenScales(adaptiveScreenScales);
+		}
+	}
+
+	/**
+	 * Render tiles around {@code priorityScreenPosition} first, e.g. the mouse pointer.
+	 *
+	 * @param priorityScreenPosition supplies position in screen coordinates or {@code null}
+	 */
+	public synchronized void setPriorityScreenPosition(final Supplier<double[]> priorityScreenPosition)
+	{
+		this.priorityScreenPosition = priorityScreenPosition;
+		if (renderer != null)
+			renderer.setPriorityScreenPosition(priorityScreenPosition);
+	}
+
+	/**
+	 * Fetch cells of sources and mipmap levels in the order given by {@code fetchPriorityPolicy}.
+	 *
+	 * @param fetchPriorityPolicy assigns queue priorities, or {@code null} to use the priorities of the mipmap ordering
+	 * 		of each source
+	 */
+	public synchronized void setFetchPriorityPolicy(final FetchPriorityPolicy fetchPriorityPolicy)
+	{
+		this.fetchPriorityPolicy = fetchPriorityPolicy;
+		if (renderer != null)
+			renderer.setFetchPriorityPolicy(fetchPriorityPolicy);
+	}
+
 	private synchronized void update()
 	{
 		LOG.debug("Updating render unit");
@@ -185,6 +247,10 @@ public class RenderUnit implements PainterThread.Paintable {
 				accumulateProjectorFactory,
 				cacheControl
 		);
+		renderer.setMetrics(renderMetrics);
+		renderer.setAdaptiveScreenScales(adaptiveScreenScales);
+		renderer.setPriorityScreenPosition(priorityScreenPosition);
+		renderer.setFetchPriorityPolicy(fetchPriorityPolicy);
 
 		notifyUpdated();
 	}
@@ -194,6 +260,15 @@ public class RenderUnit implements PainterThread.Paintable {
 		return renderResultProperty;
 	}
 
+	/**
+	 *
+	 * @return frame statistics of this {@link RenderUnit}, kept across updates
+	 */
+	public RenderMetrics getRenderMetrics()
+	{
+		return renderMetrics;
+	}
+
 	public synchronized long[] getDimensions()
 	{
 		return dimensions;
@@ -32,7 +32,7 @@ import net.imglib2.type.numeric.integer.LongType;
 
 /**
  * A {@link RandomAccessible} that tracks all blocks that have been accessed by
- * random accesses.
+ * random accesses. Random accesses may be used concurrently from multiple threads.
  *
  * @author Philipp Hanslovsky
  */
@@ -63,17 +63,17 @@ public class AccessedBlocksRandomAccessible<T> extends AbstractWrappedInterval<R
 		this.blockGridDimensions = blockGridDimensions;
 	}
 
-	public void clear()
+	public synchronized void clear()
 	{
 		this.visitedBlocks.clear();
 	}
 
-	protected void addBlockId(final long id)
+	protected synchronized void addBlockId(final long id)
 	{
 		this.visitedBlocks.add(id);
 	}
 
-	public long[] listBlocks()
+	public synchronized long[] listBlocks()
 	{
 		return visitedBlocks.toArray();
 	}
@@ -100,6 +100,9 @@ public class AccessedBlocksRandomAccessible<T> extends AbstractWrappedInterval<R
 
 		private final long[] blockGridPosition;
 
+		// only report blocks that changed since the last access to avoid contention on visitedBlocks
+		private long lastBlockId = -1;
+
 		public TrackingRandomAccess(final RandomAccess<T> source)
 		{
 			super(source);
@@ -110,7 +113,12 @@ public class AccessedBlocksRandomAccessible<T> extends AbstractWrappedInterval<R
 		public T get()
 		{
 			Arrays.setAll(blockGridPosition, d -> source.getLongPosition(d) / blockSize[d]);
-			addBlockId(IntervalIndexer.positionToIndex(blockGridPosition, blockGridDimensions));
+			final long blockId = IntervalIndexer.positionToIndex(blockGridPosition, blockGridDimensions);
+			if (blockId != lastBlockId)
+			{
+				addBlockId(blockId);
+				lastBlockId = blockId;
+			}
 			return source.get();
 		}
 
@@ -2,6 +2,7 @@ package org.janelia.saalfeldlab.fx.ortho;
 
 import bdv.cache.CacheControl;
 import bdv.fx.viewer.ViewerPanelFX;
+import bdv.fx.viewer.render.FetchPriorityPolicy;
 import bdv.viewer.Interpolation;
 import bdv.viewer.Source;
 import bdv.viewer.SourceAndConverter;
@@ -20,7 +21,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -132,11 +135,32 @@ public class OrthogonalViews<BR extends Node>
 			final ViewerOptions optional,
 			final BR bottomRight,
 			final Function<Source<?>, Interpolation> interpolation)
+	{
+		this(manager, cacheControl, optional, bottomRight, interpolation, null);
+	}
+
+	/**
+	 *
+	 * @param manager manages the transform from world coordinates to shared viewer space and is shared by all {@link ViewerPanelFX viewers}.
+	 * @param cacheControl shared between all {@link ViewerPanelFX viewers}
+	 * @param optional Options for {@link ViewerPanelFX}
+	 * @param bottomRight bottom right child
+	 * @param interpolation {@link Interpolation interpolation} lookup for every {@link Source}
+	 * @param renderingExecutorService shared between all {@link ViewerPanelFX viewers} for rendering tiles. If {@code null},
+	 *                                 each viewer creates its own.
+	 */
+	public OrthogonalViews(
+			final GlobalTransformManager manager,
+			final CacheControl cacheControl,
+			final ViewerOptions optional,
+			final BR bottomRight,
+			final Function<Source<?>, Interpolation> interpolation,
+			final ExecutorService renderingExecutorService)
 	{
 		this.manager = manager;
-		this.topLeft = create(this.manager, cacheControl, optional, ViewerAxis.Z, interpolation);
-		this.topRight = create(this.manager, cacheControl, optional, ViewerAxis.X, interpolation);
-		this.bottomLeft = create(this.manager, cacheControl, optional, ViewerAxis.Y, interpolation);
+		this.topLeft = create(this.manager, cacheControl, optional, ViewerAxis.Z, interpolation, renderingExecutorService);
+		this.topRight = create(this.manager, cacheControl, optional, ViewerAxis.X, interpolation, renderingExecutorService);
+		this.bottomLeft = create(this.manager, cacheControl, optional, ViewerAxis.Y, interpolation, renderingExecutorService);
 		this.grid = new ResizableGridPane2x2<>(topLeft.viewer, topRight.viewer, bottomLeft.viewer, bottomRight);
 		this.queue = cacheControl;
 	}
@@ -183,6 +207,14 @@ public class OrthogonalViews<BR extends Node>
 		this.applyToAll(v -> v.requestRepaint(intervalInGlobalSpace));
 	}
 
+	/**
+	 * {@link ViewerPanelFX#requestIncrementalRepaint(RealInterval)} for all {@link ViewerPanelFX viewer children} (top left, top right, bottom left)
+	 */
+	public void requestIncrementalRepaint(final RealInterval intervalInGlobalSpace)
+	{
+		this.applyToAll(v -> v.requestIncrementalRepaint(intervalInGlobalSpace));
+	}
+
 	/**
 	 * {@link ViewerPanelFX#setAllSources(Collection)}} for all {@link ViewerPanelFX viewer children} (top left, top right, bottom left)
 	 *
@@ -257,20 +289,45 @@ public class OrthogonalViews<BR extends Node>
 			requestRepaint();
 	}
 
+	/**
+	 * {@link ViewerPanelFX#setAdaptiveScreenScales(boolean, long)} for all {@link ViewerPanelFX viewer children} (top left, top right, bottom left)
+	 *
+	 * @param adaptiveScreenScales if {@code false}, always start rendering at the coarsest screen scale
+	 * @param targetRenderNanos time budget for rendering a full frame at the screen scale at which rendering starts
+	 */
+	public void setAdaptiveScreenScales(final boolean adaptiveScreenScales, final long targetRenderNanos)
+	{
+		applyToAll(vp -> vp.setAdaptiveScreenScales(adaptiveScreenScales, targetRenderNanos));
+	}
+
+	/**
+	 * {@link ViewerPanelFX#setFetchPriorityPolicy(FetchPriorityPolicy)} for all {@link ViewerPanelFX viewer children} (top left, top right, bottom left)
+	 *
+	 * @param fetchPriorityPolicy assigns queue priorities, or {@code null} to use the priorities of the mipmap ordering
+	 * 		of each source
+	 */
+	public void setFetchPriorityPolicy(final FetchPriorityPolicy fetchPriorityPolicy)
+	{
+		applyToAll(vp -> vp.setFetchPriorityPolicy(fetchPriorityPolicy));
+	}
+
 	private static ViewerAndTransforms create(
 			final GlobalTransformManager manager,
 			final CacheControl cacheControl,
 			final ViewerOptions optional,
 			final ViewerAxis axis,
-			final Function<Source<?>, Interpolation> interpolation)
+			final Function<Source<?>, Interpolation> interpolation,
+			final ExecutorService renderingExecutorService)
 	{
 		final AffineTransform3D globalToViewer = ViewerAxis.globalToViewer(axis);
 		LOG.debug("Generating viewer, axis={}, globalToViewer={}", axis, globalToViewer);
 		final ViewerPanelFX viewer = new ViewerPanelFX(
+				new ArrayList<>(),
 				1,
 				cacheControl,
 				optional,
-				interpolation
+				interpolation,
+				renderingExecutorService
 		);
 		final AffineTransformWithListeners displayTransform        = new AffineTransformWithListeners();
 		final AffineTransformWithListeners globalToViewerTransform = new AffineTransformWithListeners(globalToViewer);
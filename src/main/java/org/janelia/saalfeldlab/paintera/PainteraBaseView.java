@@ -1,5 +1,6 @@
 package org.janelia.saalfeldlab.paintera;
 
+import bdv.fx.viewer.render.FetchPriorityPolicy;
 import bdv.util.volatiles.SharedQueue;
 import bdv.viewer.Interpolation;
 import bdv.viewer.SourceAndConverter;
@@ -45,6 +46,8 @@ import java.util.Comparator;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 
 /**
  * Contains all the things necessary to build a Paintera UI, most importantly:
@@ -100,7 +103,18 @@ public class PainteraBaseView
 
 	private final ExecutorService paintQueue = Executors.newFixedThreadPool(1);
 
-	private final ExecutorService propagationQueue = Executors.newFixedThreadPool(1);
+	private final ExecutorService renderingExecutorService = new ForkJoinPool(
+			Runtime.getRuntime().availableProcessors(),
+			pool -> {
+				final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+				thread.setDaemon(true);
+				thread.setName("paintera-rendering-" + thread.getPoolIndex());
+				return thread;
+			},
+			null,
+			true);
+
+	private final ExecutorService propagationQueue;
 
 	private final SharedQueue sharedQueue;
 
@@ -126,9 +140,27 @@ public class PainteraBaseView
 			final int numFetcherThreads,
 			final ViewerOptions viewerOptions,
 			final KeyAndMouseConfig keyAndMouseBindings)
+	{
+		this(numFetcherThreads, reasonableNumFetcherThreads(), viewerOptions, keyAndMouseBindings);
+	}
+
+	/**
+	 *
+	 * @param numFetcherThreads number of threads used for {@link net.imglib2.cache.queue.FetcherThreads}
+	 * @param numPropagationThreads number of threads used for down-/upsampling painted labels into all mipmap levels
+	 * @param viewerOptions options passed down to {@link OrthogonalViews viewers}
+	 */
+	public PainteraBaseView(
+			final int numFetcherThreads,
+			final int numPropagationThreads,
+			final ViewerOptions viewerOptions,
+			final KeyAndMouseConfig keyAndMouseBindings)
 	{
 		super();
 		this.sharedQueue = new SharedQueue(numFetcherThreads, 50);
+		this.propagationQueue = Executors.newFixedThreadPool(
+				numPropagationThreads,
+				new NamedThreadFactory("paintera-propagation-%d", true));
 		this.keyAndMouseBindings = keyAndMouseBindings;
 		this.viewerOptions = viewerOptions
 				.accumulateProjectorFactory(new CompositeProjectorPreMultiply.CompositeProjectorFactory(sourceInfo
@@ -136,13 +168,19 @@ public class PainteraBaseView
 				// .accumulateProjectorFactory( new
 				// ClearingCompositeProjector.ClearingCompositeProjectorFactory<>(
 				// sourceInfo.composites(), new ARGBType() ) )
-				.numRenderingThreads(Math.min(3, Math.max(1, Runtime.getRuntime().availableProcessors() / 3)));
+				.numRenderingThreads(Runtime.getRuntime().availableProcessors());
 		this.views = new OrthogonalViews<>(
 				manager,
 				this.sharedQueue,
 				this.viewerOptions,
 				viewer3D,
-				s -> Optional.ofNullable(sourceInfo.getState(s)).map(SourceState::interpolationProperty).map(ObjectProperty::get).orElse(Interpolation.NLINEAR));
+				s -> Optional.ofNullable(sourceInfo.getState(s)).map(SourceState::interpolationProperty).map(ObjectProperty::get).orElse(Interpolation.NLINEAR),
+				this.renderingExecutorService);
+		// fetch data of the active source before data of other sources
+		this.views.setFetchPriorityPolicy(new FetchPriorityPolicy(
+				this.sharedQueue.getNumPriorities(),
+				sourceInfo.currentSourceProperty()::get));
+		sourceInfo.currentSourceProperty().addListener((obs, oldv, newv) -> views.requestRepaint());
 		this.allowedActionsProperty = new SimpleObjectProperty<>(DEFAULT_ALLOWED_ACTIONS);
 		this.vsacUpdate = change -> views.setAllSources(visibleSourcesAndConverters);
 		visibleSourcesAndConverters.addListener(vsacUpdate);
@@ -413,7 +451,7 @@ public class PainteraBaseView
 
 	/**
 	 *
-	 * @return {@link ExecutorService} for down-/upsampling painted labels
+	 * @return {@link ExecutorService} for down-/upsampling blocks of painted labels in parallel
 	 */
 	public ExecutorService getPropagationQueue()
 	{
@@ -441,6 +479,7 @@ public class PainteraBaseView
 		this.orthogonalViews().topLeft().viewer().stop();
 		this.orthogonalViews().topRight().viewer().stop();
 		this.orthogonalViews().bottomLeft().viewer().stop();
+		this.renderingExecutorService.shutdown();
 	}
 
 	/**
@@ -25,6 +25,7 @@ import org.janelia.saalfeldlab.n5.DataType;
 import org.janelia.saalfeldlab.n5.DatasetAttributes;
 import org.janelia.saalfeldlab.n5.N5Reader;
 import org.janelia.saalfeldlab.n5.N5Writer;
+import org.janelia.saalfeldlab.paintera.cache.SharedCellCache;
 import org.janelia.saalfeldlab.paintera.composition.ARGBCompositeAlphaAdd;
 import org.janelia.saalfeldlab.paintera.data.DataSource;
 import org.janelia.saalfeldlab.paintera.data.n5.DataTypeNotSupported;
@@ -33,6 +34,7 @@ import org.janelia.saalfeldlab.paintera.data.n5.N5Meta;
 import org.janelia.saalfeldlab.paintera.data.n5.ReflectionException;
 import org.janelia.saalfeldlab.paintera.id.IdService;
 import org.janelia.saalfeldlab.paintera.id.N5IdService;
+import org.janelia.saalfeldlab.paintera.meshes.cache.DiskMeshCacheBudget;
 import org.janelia.saalfeldlab.paintera.state.ChannelSourceState;
 import org.janelia.saalfeldlab.paintera.state.SourceState;
 import org.janelia.saalfeldlab.paintera.state.label.ConnectomicsLabelState;
@@ -417,6 +419,16 @@ public class PainteraCommandLineArgs implements Callable<Boolean>
 			"all other screen scale options. If no scale option is specified, scales default to [1.0, 0.5, 0.25, 0.125, 0.0625].", arity = "1..*", split = ",")
 	private double[] screenScales;
 
+	@Option(names = "--cell-cache-size", paramLabel = "CELL_CACHE_SIZE", required = false, description = "Memory " +
+			"budget in MiB for data blocks of all sources. Least recently used blocks are evicted when the budget is exceeded. " +
+			"Defaults to a third of the maximum heap size.")
+	private Long cellCacheSizeInMiB;
+
+	@Option(names = "--mesh-cache-size", paramLabel = "MESH_CACHE_SIZE", required = false, description = "Disk " +
+			"budget in MiB for cached meshes of all label datasets. Least recently used meshes are evicted when the budget " +
+			"is exceeded. Defaults to 1024.")
+	private Long meshCacheSizeInMiB;
+
 	@Parameters(index = "0", paramLabel = "PROJECT", arity = "0..1", description = "Optional project N5 root (N5 or " +
 			"FileSystem).")
 	private String project;
@@ -466,6 +478,16 @@ public class PainteraCommandLineArgs implements Callable<Boolean>
 			checkScreenScales(screenScales);
 		}
 
+		if (cellCacheSizeInMiB != null && cellCacheSizeInMiB <= 0)
+			LOG.warn("Ignoring non-positive cell cache size {} MiB", cellCacheSizeInMiB);
+		else if (cellCacheSizeInMiB != null)
+			SharedCellCache.getInstance().setMaxSizeInBytes(cellCacheSizeInMiB << 20);
+
+		if (meshCacheSizeInMiB != null && meshCacheSizeInMiB < 0)
+			LOG.warn("Ignoring negative mesh cache size {} MiB", meshCacheSizeInMiB);
+		else if (meshCacheSizeInMiB != null)
+			DiskMeshCacheBudget.getInstance().setMaxSizeInBytes(meshCacheSizeInMiB << 20);
+
 		printErrorCodes = printErrorCodes == null ? false : printErrorCodes;
 		if (printErrorCodes)
 		{
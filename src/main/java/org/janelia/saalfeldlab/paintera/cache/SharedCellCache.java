@@ -0,0 +1,379 @@
+package org.janelia.saalfeldlab.paintera.cache;
+
+import net.imglib2.cache.CacheLoader;
+import net.imglib2.cache.LoaderCache;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+import net.imglib2.img.cell.Cell;
+import net.imglib2.type.label.VolatileLabelMultisetArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Memory budget for cell caches, shared across all sources that create their cache through
+ * {@link #createCellCache()}. Cells are held by strong references and evicted with the clock (second chance)
+ * algorithm once the total size of all cached cells exceeds {@link #getMaxSizeInBytes()}. Unlike soft reference
+ * caches, memory use is predictable and frequently accessed cells are not dropped when the JVM runs low on memory.
+ *
+ * Evicted cells remain valid for anyone that still holds a reference to them.
+ */
+public class SharedCellCache
+{
+
+	private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	public static final long DEFAULT_MAX_SIZE_IN_BYTES = Runtime.getRuntime().maxMemory() / 3;
+
+	private static final SharedCellCache INSTANCE = new SharedCellCache(DEFAULT_MAX_SIZE_IN_BYTES);
+
+	/**
+	 * @return cache shared by all sources opened through {@link org.janelia.saalfeldlab.util.n5.N5Data}
+	 */
+	public static SharedCellCache getInstance()
+	{
+		return INSTANCE;
+	}
+
+	private final Object lock = new Object();
+
+	// guarded by lock
+	private final ArrayDeque<Entry<?, ?>> clock = new ArrayDeque<>();
+
+	// guarded by lock
+	private long maxSizeInBytes;
+
+	// guarded by lock
+	private long sizeInBytes = 0;
+
+	// invalidated entries that are still in the clock, guarded by lock
+	private int numStaleEntries = 0;
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder evictions = new LongAdder();
+
+	public SharedCellCache(final long maxSizeInBytes)
+	{
+		this.maxSizeInBytes = maxSizeInBytes;
+	}
+
+	/**
+	 * Set the memory budget and evict cells if necessary.
+	 *
+	 * @param maxSizeInBytes budget for all cached cells
+	 */
+	public void setMaxSizeInBytes(final long maxSizeInBytes)
+	{
+		synchronized (lock)
+		{
+			LOG.info("Setting cell cache size to {} bytes", maxSizeInBytes);
+			this.maxSizeInBytes = maxSizeInBytes;
+			evictIfNecessary();
+		}
+	}
+
+	public long getMaxSizeInBytes()
+	{
+		synchronized (lock)
+		{
+			return maxSizeInBytes;
+		}
+	}
+
+	public long getSizeInBytes()
+	{
+		synchronized (lock)
+		{
+			return sizeInBytes;
+		}
+	}
+
+	public long getHits()
+	{
+		return hits.sum();
+	}
+
+	public long getMisses()
+	{
+		return misses.sum();
+	}
+
+	public long getEvictions()
+	{
+		return evictions.sum();
+	}
+
+	/**
+	 *
+	 * @param <K> key
+	 * @param <A> cell access
+	 * @return new cache that counts against the budget of this {@link SharedCellCache}
+	 */
+	public <K, A> LoaderCache<K, Cell<A>> createCellCache()
+	{
+		return createCache(SharedCellCache::sizeOf);
+	}
+
+	/**
+	 *
+	 * @param sizeOf estimated size of a value in bytes
+	 * @param <K> key
+	 * @param <V> value
+	 * @return new cache that counts against the budget of this {@link SharedCellCache}
+	 */
+	public <K, V> LoaderCache<K, V> createCache(final ToLongFunction<? super V> sizeOf)
+	{
+		return new BoundedLoaderCache<>(sizeOf);
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format(
+				"{%s: size=%d/%d bytes, hits=%d, misses=%d, evictions=%d}",
+				getClass().getSimpleName(),
+				getSizeInBytes(),
+				getMaxSizeInBytes(),
+				getHits(),
+				getMisses(),
+				getEvictions());
+	}
+
+	/**
+	 * Estimate the size of the data of a cell in bytes.
+	 *
+	 * @param cell cell
+	 * @return size of the data of {@code cell} in bytes
+	 */
+	public static long sizeOf(final Cell<?> cell)
+	{
+		final Object data = cell.getData();
+		long size = 0;
+		if (data instanceof ArrayDataAccess<?>)
+		{
+			final Object array = ((ArrayDataAccess<?>) data).getCurrentStorageArray();
+			size += (long) Array.getLength(array) * bytesPerElement(array.getClass().getComponentType());
+		}
+		else
+			size += cell.size() * Long.BYTES;
+		if (data instanceof VolatileLabelMultisetArray)
+			size += ((VolatileLabelMultisetArray) data).getListDataUsedSizeInBytes();
+		return size;
+	}
+
+	private static int bytesPerElement(final Class<?> type)
+	{
+		if (type == byte.class || type == boolean.class)
+			return Byte.BYTES;
+		if (type == short.class || type == char.class)
+			return Short.BYTES;
+		if (type == int.class || type == float.class)
+			return Integer.BYTES;
+		return Long.BYTES;
+	}
+
+	private void admit(final Entry<?, ?> entry)
+	{
+		synchronized (lock)
+		{
+			// entry was invalidated while loading
+			if (entry.isRemoved)
+				return;
+			entry.isAdmitted = true;
+			sizeInBytes += entry.sizeInBytes;
+			clock.addLast(entry);
+			evictIfNecessary();
+		}
+	}
+
+	private void release(final Entry<?, ?> entry)
+	{
+		synchronized (lock)
+		{
+			if (entry.isRemoved)
+				return;
+			entry.isRemoved = true;
+			if (entry.isAdmitted)
+			{
+				sizeInBytes -= entry.sizeInBytes;
+				++numStaleEntries;
+			}
+			// drop stale entries once they make up the majority of the clock
+			if (numStaleEntries > clock.size() / 2)
+			{
+				clock.removeIf(e -> e.isRemoved);
+				numStaleEntries = 0;
+			}
+		}
+	}
+
+	// must hold lock
+	private void evictIfNecessary()
+	{
+		while (sizeInBytes > maxSizeInBytes && !clock.isEmpty())
+		{
+			final Entry<?, ?> entry = clock.pollFirst();
+			if (entry.isRemoved)
+			{
+				--numStaleEntries;
+				continue;
+			}
+			if (entry.isReferenced)
+			{
+				entry.isReferenced = false;
+				clock.addLast(entry);
+				continue;
+			}
+			entry.isRemoved = true;
+			sizeInBytes -= entry.sizeInBytes;
+			entry.removeFromOwner();
+			evictions.increment();
+		}
+	}
+
+	private static final class Entry<K, V>
+	{
+		private final BoundedLoaderCache<K, V> owner;
+
+		private final K key;
+
+		private volatile V value = null;
+
+		private volatile boolean isReferenced = false;
+
+		// guarded by lock
+		private long sizeInBytes = 0;
+
+		// guarded by lock
+		private boolean isAdmitted = false;
+
+		// guarded by lock
+		private boolean isRemoved = false;
+
+		private Entry(final BoundedLoaderCache<K, V> owner, final K key)
+		{
+			this.owner = owner;
+			this.key = key;
+		}
+
+		private void removeFromOwner()
+		{
+			owner.map.remove(key, this);
+		}
+	}
+
+	private final class BoundedLoaderCache<K, V> implements LoaderCache<K, V>
+	{
+		private final ConcurrentHashMap<K, Entry<K, V>> map = new ConcurrentHashMap<>();
+
+		private final ToLongFunction<? super V> sizeOf;
+
+		private BoundedLoaderCache(final ToLongFunction<? super V> sizeOf)
+		{
+			this.sizeOf = sizeOf;
+		}
+
+		@Override
+		public V getIfPresent(final K key)
+		{
+			final Entry<K, V> entry = map.get(key);
+			return entry == null ? null : touch(entry);
+		}
+
+		@Override
+		public V get(final K key, final CacheLoader<? super K, ? extends V> loader) throws ExecutionException
+		{
+			Entry<K, V> entry = map.get(key);
+			if (entry == null)
+				entry = map.computeIfAbsent(key, k -> new Entry<>(this, k));
+
+			final V cached = touch(entry);
+			if (cached != null)
+			{
+				hits.increment();
+				return cached;
+			}
+
+			synchronized (entry)
+			{
+				if (entry.value == null)
+				{
+					misses.increment();
+					final V value;
+					try
+					{
+						value = loader.get(key);
+					} catch (final Exception e)
+					{
+						map.remove(key, entry);
+						throw new ExecutionException(e);
+					}
+					final long sizeInBytes = sizeOf.applyAsLong(value);
+					synchronized (lock)
+					{
+						entry.sizeInBytes = sizeInBytes;
+					}
+					entry.value = value;
+					admit(entry);
+				}
+				else
+					hits.increment();
+				return entry.value;
+			}
+		}
+
+		private V touch(final Entry<K, V> entry)
+		{
+			final V value = entry.value;
+			if (value != null && !entry.isReferenced)
+				entry.isReferenced = true;
+			return value;
+		}
+
+		public void persist(final K key)
+		{
+			// cells are read-only
+		}
+
+		public void persistIf(final Predicate<K> condition)
+		{
+			// cells are read-only
+		}
+
+		public void persistAll()
+		{
+			// cells are read-only
+		}
+
+		@Override
+		public void invalidate(final K key)
+		{
+			final Entry<K, V> entry = map.remove(key);
+			if (entry != null)
+				release(entry);
+		}
+
+		@Override
+		public void invalidateIf(final long parallelismThreshold, final Predicate<K> condition)
+		{
+			map.keySet().stream().filter(condition).forEach(this::invalidate);
+		}
+
+		@Override
+		public void invalidateAll(final long parallelismThreshold)
+		{
+			map.keySet().forEach(this::invalidate);
+		}
+	}
+
+}
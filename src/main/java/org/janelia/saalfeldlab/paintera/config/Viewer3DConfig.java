@@ -34,6 +34,10 @@ public class Viewer3DConfig
 	public static final long SCENE_UPDATE_DELAY_MSEC_MAX_VALUE = 1000;
 	public static final long SCENE_UPDATE_DELAY_MSEC_DEFAULT_VALUE = 250;
 
+	public static final long MAX_NUM_TRIANGLES_MIN_VALUE = 1_000_000;
+	public static final long MAX_NUM_TRIANGLES_MAX_VALUE = 64_000_000;
+	public static final long MAX_NUM_TRIANGLES_DEFAULT_VALUE = 16_000_000;
+
 	// TODO the Viewer3DFX and handler should probably hold an instance of this
 
 	private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
@@ -50,6 +54,8 @@ public class Viewer3DConfig
 
 	private final SimpleLongProperty sceneUpdateDelayMsec = new SimpleLongProperty(SCENE_UPDATE_DELAY_MSEC_DEFAULT_VALUE);
 
+	private final SimpleLongProperty maxNumTriangles = new SimpleLongProperty(MAX_NUM_TRIANGLES_DEFAULT_VALUE);
+
 	private final SimpleObjectProperty<Color> backgroundColor = new SimpleObjectProperty<>(Color.BLACK);
 
 	private final Affine affine = new Affine();
@@ -87,6 +93,11 @@ public class Viewer3DConfig
 		return this.sceneUpdateDelayMsec;
 	}
 
+	public LongProperty maxNumTrianglesProperty()
+	{
+		return this.maxNumTriangles;
+	}
+
 	public SimpleObjectProperty<Color> backgroundColorProperty() {
 		return backgroundColor;
 	}
@@ -99,6 +110,7 @@ public class Viewer3DConfig
 		viewer.numElementsPerFrameProperty().bind(this.numElementsPerFrame);
 		viewer.frameDelayMsecProperty().bind(this.frameDelayMsec);
 		viewer.sceneUpdateDelayMsecProperty().bind(this.sceneUpdateDelayMsec);
+		viewer.maxNumTrianglesProperty().bind(this.maxNumTriangles);
 
 		final Affine affineCopy = this.affine.clone();
 		final boolean wasAffineSet = this.wasAffineSet;
@@ -122,6 +134,7 @@ public class Viewer3DConfig
 		this.numElementsPerFrame.set(that.numElementsPerFrame.get());
 		this.frameDelayMsec.set(that.frameDelayMsec.get());
 		this.sceneUpdateDelayMsec.set(that.sceneUpdateDelayMsec.get());
+		this.maxNumTriangles.set(that.maxNumTriangles.get());
 		this.backgroundColor.set(that.backgroundColor.get());
 		if (that.wasAffineSet)
 			setAffine(that.affine);
@@ -36,6 +36,8 @@ public class Viewer3DConfigNode
 
 	private final NumericSliderWithField sceneUpdateDelayMsecSlider;
 
+	private final NumericSliderWithField maxNumTrianglesSlider;
+
 	private final ColorPicker backgroundColorPicker = new ColorPicker(Color.BLACK);
 
 	public Viewer3DConfigNode()
@@ -134,6 +136,25 @@ public class Viewer3DConfigNode
 		GridPane.setHgrow(sceneUpdateDelayMsecSlider.slider(), Priority.ALWAYS);
 		++row;
 
+		maxNumTrianglesSlider = new NumericSliderWithField(
+				Viewer3DConfig.MAX_NUM_TRIANGLES_MIN_VALUE,
+				Viewer3DConfig.MAX_NUM_TRIANGLES_MAX_VALUE,
+				Viewer3DConfig.MAX_NUM_TRIANGLES_DEFAULT_VALUE
+			);
+		grid.add(Labels.withTooltip("Triangle budget"), 0, row);
+		grid.add(maxNumTrianglesSlider.slider(), 1, row);
+		GridPane.setColumnSpan(maxNumTrianglesSlider.slider(), 2);
+		grid.add(maxNumTrianglesSlider.textField(), 3, row);
+		maxNumTrianglesSlider.slider().setShowTickLabels(false);
+		maxNumTrianglesSlider.slider().setShowTickMarks(true);
+		maxNumTrianglesSlider.slider().setMajorTickUnit((maxNumTrianglesSlider.slider().getMax() - maxNumTrianglesSlider.slider().getMin() + 1) / 4);
+		maxNumTrianglesSlider.slider().setMinorTickCount(0);
+		maxNumTrianglesSlider.slider().setTooltip(new Tooltip("Limits the estimated number of mesh triangles per source. Coarser scale levels are used where the limit is exceeded."));
+		maxNumTrianglesSlider.textField().setPrefWidth(PREF_CELL_WIDTH);
+		maxNumTrianglesSlider.textField().setMaxWidth(Control.USE_PREF_SIZE);
+		GridPane.setHgrow(maxNumTrianglesSlider.slider(), Priority.ALWAYS);
+		++row;
+
 		final Label backgroundColorLabel = Labels.withTooltip("Background", "Set background color of 3D viewer.");
 		grid.add(backgroundColorLabel, 0, row);
 		grid.add(backgroundColorPicker, 1, row);
@@ -162,6 +183,7 @@ public class Viewer3DConfigNode
 		numElementsPerFrameSlider.slider().valueProperty().bindBidirectional(config.numElementsPerFrameProperty());
 		frameDelayMsecSlider.slider().valueProperty().bindBidirectional(config.frameDelayMsecProperty());
 		sceneUpdateDelayMsecSlider.slider().valueProperty().bindBidirectional(config.sceneUpdateDelayMsecProperty());
+		maxNumTrianglesSlider.slider().valueProperty().bindBidirectional(config.maxNumTrianglesProperty());
 		backgroundColorPicker.valueProperty().bindBidirectional(config.backgroundColorProperty());
 	}
 
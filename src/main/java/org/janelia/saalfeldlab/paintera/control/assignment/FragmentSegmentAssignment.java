@@ -9,6 +9,7 @@ import gnu.trove.set.TLongSet;
 import org.janelia.saalfeldlab.paintera.control.assignment.action.AssignmentAction;
 import org.janelia.saalfeldlab.paintera.control.assignment.action.Detach;
 import org.janelia.saalfeldlab.paintera.control.assignment.action.Merge;
+import org.janelia.saalfeldlab.paintera.control.assignment.action.MergeAll;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,6 +47,24 @@ public interface FragmentSegmentAssignment
 		return Optional.empty();
 	}
 
+	/**
+	 * Merge all of {@code from} into the segment of {@code into} with a single action, e.g. when merging many
+	 * selected fragments. Applying the returned action updates the assignment and notifies listeners only once.
+	 *
+	 * @param from fragments to be merged
+	 * @param into fragment whose segment {@code from} will be merged into
+	 * @param newSegmentId supplies a segment id if {@code into} is not assigned to any segment yet
+	 *
+	 * @return merge action or empty if all of {@code from} are already in the segment of {@code into}
+	 */
+	public default Optional<MergeAll> getMergeAllAction(
+			final long[] from,
+			final long into,
+			final LongSupplier newSegmentId)
+	{
+		return Optional.empty();
+	}
+
 	public default Optional<Detach> getDetachAction(
 			final long fragmentId,
 			final long from)
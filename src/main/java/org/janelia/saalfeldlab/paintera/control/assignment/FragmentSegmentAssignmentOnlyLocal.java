@@ -3,21 +3,27 @@ package org.janelia.saalfeldlab.paintera.control.assignment;
 import com.google.gson.annotations.Expose;
 import gnu.trove.impl.Constants;
 import gnu.trove.iterator.TLongLongIterator;
+import gnu.trove.list.array.TLongArrayList;
 import gnu.trove.map.TLongLongMap;
 import gnu.trove.map.hash.TLongLongHashMap;
 import gnu.trove.map.hash.TLongObjectHashMap;
 import gnu.trove.set.TLongSet;
 import gnu.trove.set.hash.TLongHashSet;
+import javafx.beans.property.BooleanProperty;
 import javafx.util.Pair;
 import net.imglib2.type.label.Label;
 import org.janelia.saalfeldlab.paintera.control.assignment.action.AssignmentAction;
 import org.janelia.saalfeldlab.paintera.control.assignment.action.Detach;
 import org.janelia.saalfeldlab.paintera.control.assignment.action.Merge;
+import org.janelia.saalfeldlab.paintera.control.assignment.action.MergeAll;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.invoke.MethodHandles;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.LongSupplier;
 import java.util.function.Supplier;
@@ -28,6 +34,21 @@ public class FragmentSegmentAssignmentOnlyLocal extends FragmentSegmentAssignmen
 	public interface Persister
 	{
 		public void persist(long[] keys, long[] values) throws UnableToPersist;
+
+		/**
+		 * Persist only the assignments that changed since the last successful persist. Implementations that do not
+		 * support incremental updates persist the complete {@code lut}.
+		 *
+		 * @param changedKeys fragments whose assignment changed
+		 * @param changedValues segments of {@code changedKeys}. {@code changedValues[i] == changedKeys[i]} if
+		 *                      fragment {@code changedKeys[i]} is not assigned to any segment anymore.
+		 * @param lut complete fragment-segment lookup
+		 * @throws UnableToPersist if changes cannot be persisted
+		 */
+		public default void persistChanges(long[] changedKeys, long[] changedValues, TLongLongMap lut) throws UnableToPersist
+		{
+			persist(lut.keys(), lut.values());
+		}
 	}
 
 	public static class DoesNotPersist implements Persister
@@ -68,6 +89,63 @@ public class FragmentSegmentAssignmentOnlyLocal extends FragmentSegmentAssignmen
 
 	private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+	/**
+	 * Marks fragments that were not assigned to any segment in {@link Delta#previousSegments}.
+	 */
+	private static final long NOT_ASSIGNED = Label.TRANSPARENT;
+
+	/**
+	 * Publish changes as overlay over the previous {@link #lookup} while the overlay holds fewer entries than this or
+	 * than a fraction of all entries.
+	 */
+	private static final int MIN_LOOKUP_OVERLAY_SIZE = 1 << 12;
+
+	/**
+	 * Changes of a single applied action, sufficient to revert it without re-applying all other actions.
+	 */
+	private static class Delta
+	{
+		/**
+		 * Previous segment of each fragment whose segment changed, {@link #NOT_ASSIGNED} if it was not assigned.
+		 */
+		final TLongLongHashMap previousSegments = new TLongLongHashMap();
+
+		/**
+		 * Previous fragments of each segment whose fragments were replaced or removed as a whole, {@code null} if the
+		 * segment was not present.
+		 */
+		final TLongObjectHashMap<TLongHashSet> previousFragments = new TLongObjectHashMap<>();
+
+		/**
+		 * Fragments added to the fragments of each segment that were present before the action. Recorded instead of
+		 * a copy of the fragments such that merging into large segments does not require copying them.
+		 */
+		final TLongObjectHashMap<TLongHashSet> addedFragments = new TLongObjectHashMap<>();
+
+		/**
+		 * Fragments removed from the fragments of each segment that were present before the action.
+		 */
+		final TLongObjectHashMap<TLongHashSet> removedFragments = new TLongObjectHashMap<>();
+
+		void recordFragmentChange(final long segmentId, final long fragmentId, final boolean isAdded)
+		{
+			// changes to fragments that replaced the previous fragments are reverted with the replacement
+			if (previousFragments.containsKey(segmentId))
+				return;
+			final TLongHashSet inverse = (isAdded ? removedFragments : addedFragments).get(segmentId);
+			if (inverse != null && inverse.remove(fragmentId))
+				return;
+			final TLongObjectHashMap<TLongHashSet> changes = isAdded ? addedFragments : removedFragments;
+			TLongHashSet changed = changes.get(segmentId);
+			if (changed == null)
+			{
+				changed = new TLongHashSet();
+				changes.put(segmentId, changed);
+			}
+			changed.add(fragmentId);
+		}
+	}
+
 	private final TLongLongHashMap fragmentToSegmentMap = new TLongLongHashMap(
 			Constants.DEFAULT_CAPACITY,
 			Constants.DEFAULT_LOAD_FACTOR,
@@ -81,6 +159,38 @@ public class FragmentSegmentAssignmentOnlyLocal extends FragmentSegmentAssignmen
 			Label.TRANSPARENT
 	);
 
+	/**
+	 * Read-only view of {@link #fragmentToSegmentMap} for lock-free {@link #getSegment(long)}. Published
+	 * atomically (copy on write) whenever the assignment changes.
+	 */
+	private volatile FragmentSegmentLookupSnapshot lookup = FragmentSegmentLookupSnapshot.EMPTY;
+
+	/**
+	 * Fragments whose assignment may differ from the last persisted (initial) lut.
+	 */
+	private final TLongHashSet modifiedSinceLastPersist = new TLongHashSet();
+
+	/**
+	 * Fragments whose assignment may differ from the last published {@link #lookup}.
+	 */
+	private final TLongHashSet modifiedSinceLastPublish = new TLongHashSet();
+
+	/**
+	 * {@link Delta} of each applied action, by identity.
+	 */
+	private final Map<AssignmentAction, Delta> deltas = new IdentityHashMap<>();
+
+	/**
+	 * Records changes while an action is applied, {@code null} otherwise.
+	 */
+	private Delta currentDelta = null;
+
+	/**
+	 * Previous segment of fragments that {@link #getMergeAction(long, long, LongSupplier)} or
+	 * {@link #getMergeAllAction(long[], long, LongSupplier)} assigned to a new segment ahead of the merge. Recorded into the {@link Delta} of the merge when it is applied.
+	 */
+	private final TLongLongHashMap assignedOutsideOfAction = new TLongLongHashMap();
+
 	private final Persister persister;
 
 	private final Supplier<TLongLongMap> initialLut;
@@ -127,29 +237,168 @@ public class FragmentSegmentAssignmentOnlyLocal extends FragmentSegmentAssignmen
 			// TODO changes were loaded?
 			LOG.debug("Persisting assignment {}", this.fragmentToSegmentMap);
 			LOG.debug("Committing actions {}", this.actions);
-			this.persister.persist(this.fragmentToSegmentMap.keys(), this.fragmentToSegmentMap.values());
+			final long[] changedKeys = this.modifiedSinceLastPersist.toArray();
+			final long[] changedValues = new long[changedKeys.length];
+			for (int i = 0; i < changedKeys.length; ++i)
+				changedValues[i] = this.fragmentToSegmentMap.contains(changedKeys[i])
+						? this.fragmentToSegmentMap.get(changedKeys[i])
+						: changedKeys[i];
+			LOG.debug("Persisting {} changed assignments", changedKeys.length);
+			this.persister.persistChanges(changedKeys, changedValues, this.fragmentToSegmentMap);
+			this.modifiedSinceLastPersist.clear();
 			this.actions.clear();
+			this.deltas.clear();
 		} catch (final Exception e)
 		{
 			throw e instanceof UnableToPersist ? (UnableToPersist) e : new UnableToPersist(e);
 		}
 	}
 
+	/**
+	 * Lock-free: reads from the most recently published {@link FragmentSegmentLookupSnapshot}.
+	 *
+	 * @param fragmentId
+	 *
+	 * @return Segment id for a fragment. If fragment is not part of a segment, return fragmentId
+	 */
 	@Override
-	public synchronized long getSegment(final long fragmentId)
+	public long getSegment(final long fragmentId)
 	{
-		final long id;
-		final long segmentId = fragmentToSegmentMap.get(fragmentId);
-		if (segmentId == fragmentToSegmentMap.getNoEntryValue())
-		{
-			id = fragmentId;
-		}
+		final long id = lookup.getSegment(fragmentId);
+		LOG.trace("Returning {} for fragment {}: ", id, fragmentId);
+		return id;
+	}
+
+	/**
+	 * @return The current lookup snapshot. Callers that query many fragments, e.g. per pixel, can hold on to it
+	 * for a consistent view of the assignment.
+	 */
+	public FragmentSegmentLookupSnapshot getLookupSnapshot()
+	{
+		return lookup;
+	}
+
+	private synchronized void publishLookup()
+	{
+		final long version = this.lookup.version() + 1;
+		final int overlaySize = this.lookup.overlaySize() + modifiedSinceLastPublish.size();
+		final FragmentSegmentLookupSnapshot lookup;
+		if (overlaySize > Math.max(MIN_LOOKUP_OVERLAY_SIZE, fragmentToSegmentMap.size() / 8))
+			lookup = FragmentSegmentLookupSnapshot.fromMap(fragmentToSegmentMap, version);
 		else
 		{
-			id = segmentId;
+			final TLongArrayList changedKeys = new TLongArrayList();
+			final TLongArrayList changedValues = new TLongArrayList();
+			final TLongArrayList removedKeys = new TLongArrayList();
+			modifiedSinceLastPublish.forEach(fragment -> {
+				if (fragmentToSegmentMap.contains(fragment))
+				{
+					changedKeys.add(fragment);
+					changedValues.add(fragmentToSegmentMap.get(fragment));
+				}
+				else
+					removedKeys.add(fragment);
+				return true;
+			});
+			lookup = this.lookup.withChanges(changedKeys.toArray(), changedValues.toArray(), removedKeys.toArray(), version);
 		}
-		LOG.trace("Returning {} for fragment {}: ", id, fragmentId);
-		return id;
+		modifiedSinceLastPublish.clear();
+		LOG.debug("Publishing fragment-segment lookup version {} with {} entries", lookup.version(), lookup.size());
+		this.lookup = lookup;
+	}
+
+	private void putSegment(final long fragmentId, final long segmentId)
+	{
+		recordSegment(fragmentId);
+		fragmentToSegmentMap.put(fragmentId, segmentId);
+	}
+
+	private void removeSegment(final long fragmentId)
+	{
+		recordSegment(fragmentId);
+		fragmentToSegmentMap.remove(fragmentId);
+	}
+
+	private void recordSegment(final long fragmentId)
+	{
+		modifiedSinceLastPersist.add(fragmentId);
+		modifiedSinceLastPublish.add(fragmentId);
+		if (currentDelta != null && !currentDelta.previousSegments.containsKey(fragmentId))
+			currentDelta.previousSegments.put(
+					fragmentId,
+					fragmentToSegmentMap.contains(fragmentId) ? fragmentToSegmentMap.get(fragmentId) : NOT_ASSIGNED);
+	}
+
+	private void addFragment(final long segmentId, final TLongHashSet fragments, final long fragmentId)
+	{
+		if (fragments.add(fragmentId) && currentDelta != null)
+			currentDelta.recordFragmentChange(segmentId, fragmentId, true);
+	}
+
+	private void removeFragment(final long segmentId, final TLongHashSet fragments, final long fragmentId)
+	{
+		if (fragments.remove(fragmentId) && currentDelta != null)
+			currentDelta.recordFragmentChange(segmentId, fragmentId, false);
+	}
+
+	private void putFragments(final long segmentId, final TLongHashSet fragments)
+	{
+		final TLongHashSet previous = segmentToFragmentsMap.put(segmentId, fragments);
+		if (currentDelta != null && !currentDelta.previousFragments.containsKey(segmentId))
+			currentDelta.previousFragments.put(segmentId, previous);
+	}
+
+	private TLongHashSet removeFragments(final long segmentId)
+	{
+		final TLongHashSet fragments = segmentToFragmentsMap.remove(segmentId);
+		// removed fragments are not modified anymore and do not need to be copied
+		if (currentDelta != null && !currentDelta.previousFragments.containsKey(segmentId))
+			currentDelta.previousFragments.put(segmentId, fragments);
+		return fragments;
+	}
+
+	/**
+	 * Revert the changes of {@code action}. All actions that were applied after {@code action} must have been reverted
+	 * before.
+	 *
+	 * @return {@code false} if no changes were recorded for {@code action}
+	 */
+	private boolean revert(final AssignmentAction action)
+	{
+		final Delta delta = deltas.remove(action);
+		if (delta == null)
+			return false;
+		LOG.debug("Reverting {} with {} changed fragments", action, delta.previousSegments.size());
+		delta.previousSegments.forEachEntry((fragmentId, segmentId) -> {
+			if (segmentId == NOT_ASSIGNED)
+				fragmentToSegmentMap.remove(fragmentId);
+			else
+				fragmentToSegmentMap.put(fragmentId, segmentId);
+			modifiedSinceLastPersist.add(fragmentId);
+			modifiedSinceLastPublish.add(fragmentId);
+			return true;
+		});
+		delta.previousFragments.forEachEntry((segmentId, fragments) -> {
+			if (fragments == null)
+				segmentToFragmentsMap.remove(segmentId);
+			else
+				segmentToFragmentsMap.put(segmentId, fragments);
+			return true;
+		});
+		// in-place changes were made to the fragments that are present again now
+		delta.addedFragments.forEachEntry((segmentId, added) -> {
+			final TLongHashSet fragments = segmentToFragmentsMap.get(segmentId);
+			added.forEach(id -> {
+				fragments.remove(id);
+				return true;
+			});
+			return true;
+		});
+		delta.removedFragments.forEachEntry((segmentId, removed) -> {
+			segmentToFragmentsMap.get(segmentId).addAll(removed);
+			return true;
+		});
+		return true;
 	}
 
 	@Override
@@ -172,19 +421,19 @@ public class FragmentSegmentAssignmentOnlyLocal extends FragmentSegmentAssignmen
 		final long fragmentId   = detach.fragmentId;
 		final long fragmentFrom = detach.fragmentFrom;
 
-		this.fragmentToSegmentMap.remove(fragmentId);
+		removeSegment(fragmentId);
 		LOG.debug("Removed {} from {}", fragmentId, this.fragmentToSegmentMap);
 
 		LOG.debug("Removing fragment={} from segment={}", fragmentId, segmentFrom);
-		final TLongHashSet fragments = this.segmentToFragmentsMap.get(segmentFrom);
+		final TLongHashSet fragments = segmentToFragmentsMap.get(segmentFrom);
 		if (fragments != null)
 		{
-			fragments.remove(fragmentId);
+			removeFragment(segmentFrom, fragments, fragmentId);
 			LOG.debug("Removed {} from {}", fragmentId, fragments);
 			if (fragments.size() == 1)
 			{
-				this.fragmentToSegmentMap.remove(fragmentFrom);
-				this.segmentToFragmentsMap.remove(segmentFrom);
+				removeSegment(fragmentFrom);
+				removeFragments(segmentFrom);
 			}
 		}
 		LOG.debug("Fragment-to-segment map after detach: {}", this.fragmentToSegmentMap);
@@ -193,12 +442,20 @@ public class FragmentSegmentAssignmentOnlyLocal extends FragmentSegmentAssignmen
 
 	private void mergeFragmentsImpl(final Merge merge)
 	{
-
 		LOG.debug("Merging {}", merge);
+		mergeFragments(merge.fromFragmentId, merge.intoFragmentId, merge.segmentId);
+	}
+
+	private void mergeAllFragmentsImpl(final MergeAll mergeAll)
+	{
+		LOG.debug("Merging {}", mergeAll);
+		// fragments of segments that were merged already return early
+		for (final long from : mergeAll.fromFragmentIds)
+			mergeFragments(from, mergeAll.intoFragmentId, mergeAll.segmentId);
+	}
 
-		final long into        = merge.intoFragmentId;
-		final long from        = merge.fromFragmentId;
-		final long segmentInto = merge.segmentId;
+	private void mergeFragments(final long from, final long into, final long segmentInto)
+	{
 
 		LOG.trace("Current fragmentToSegmentMap {}", fragmentToSegmentMap);
 
@@ -213,14 +470,17 @@ public class FragmentSegmentAssignmentOnlyLocal extends FragmentSegmentAssignmen
 			return;
 		}
 
+		if (currentDelta != null && assignedOutsideOfAction.containsKey(into) && !currentDelta.previousSegments.containsKey(into))
+			currentDelta.previousSegments.put(into, assignedOutsideOfAction.remove(into));
+
 		final long         segmentFrom   = fragmentToSegmentMap.contains(from) ? fragmentToSegmentMap.get(from) : from;
-		final TLongHashSet fragmentsFrom = segmentToFragmentsMap.remove(segmentFrom);
+		final TLongHashSet fragmentsFrom = removeFragments(segmentFrom);
 		LOG.debug("From segment: {} To segment: {}", segmentFrom, segmentInto);
 
 		if (!fragmentToSegmentMap.contains(into))
 		{
 			LOG.debug("Adding segment {} to framgent {}", segmentInto, into);
-			fragmentToSegmentMap.put(into, segmentInto);
+			putSegment(into, segmentInto);
 		}
 
 		if (!segmentToFragmentsMap.contains(segmentInto))
@@ -228,51 +488,112 @@ public class FragmentSegmentAssignmentOnlyLocal extends FragmentSegmentAssignmen
 			final TLongHashSet fragmentOnly = new TLongHashSet();
 			fragmentOnly.add(into);
 			LOG.debug("Adding fragments {} for segmentInto {}", fragmentOnly, segmentInto);
-			segmentToFragmentsMap.put(segmentInto, fragmentOnly);
+			putFragments(segmentInto, fragmentOnly);
 		}
 		LOG.debug("Framgents for from segment: {}", fragmentsFrom);
 
+		final TLongHashSet fragmentsInto = segmentToFragmentsMap.get(segmentInto);
 		if (fragmentsFrom != null)
 		{
-			final TLongHashSet fragmentsInto = segmentToFragmentsMap.get(segmentInto);
 			LOG.debug("Fragments into {}", fragmentsInto);
-			fragmentsInto.addAll(fragmentsFrom);
-			Arrays.stream(fragmentsFrom.toArray()).forEach(id -> fragmentToSegmentMap.put(id, segmentInto));
+			fragmentsFrom.forEach(id -> {
+				addFragment(segmentInto, fragmentsInto, id);
+				putSegment(id, segmentInto);
+				return true;
+			});
 		}
 		else
 		{
-			segmentToFragmentsMap.get(segmentInto).add(from);
-			fragmentToSegmentMap.put(from, segmentInto);
+			addFragment(segmentInto, fragmentsInto, from);
+			putSegment(from, segmentInto);
 		}
 	}
 
-	private void resetLut()
+	private synchronized void resetLut()
 	{
 		fragmentToSegmentMap.clear();
 		fragmentToSegmentMap.putAll(initialLut.get());
+		modifiedSinceLastPersist.clear();
+		deltas.clear();
+		assignedOutsideOfAction.clear();
 		syncILut();
 
 		this.actions.stream().filter(p -> p.getValue().get()).map(Pair::getKey).forEach(this::applyImpl);
+		modifiedSinceLastPublish.clear();
+		this.lookup = FragmentSegmentLookupSnapshot.fromMap(fragmentToSegmentMap, this.lookup.version() + 1);
 
 	}
 
 	@Override
-	protected void applyImpl(final AssignmentAction action)
+	protected synchronized void applyImpl(final AssignmentAction action)
 	{
 		LOG.debug("Applying action {}", action);
-		switch (action.getType())
+		final Delta delta = new Delta();
+		currentDelta = delta;
+		try
+		{
+			switch (action.getType())
+			{
+				case MERGE:
+				{
+					LOG.debug("Applying merge {}", action);
+					mergeFragmentsImpl((Merge) action);
+					break;
+				}
+				case MERGE_ALL:
+				{
+					LOG.debug("Applying merge all {}", action);
+					mergeAllFragmentsImpl((MergeAll) action);
+					break;
+				}
+				case DETACH:
+					LOG.debug("Applying detach {}", action);
+					detachFragmentImpl((Detach) action);
+					break;
+			}
+		} finally
+		{
+			currentDelta = null;
+		}
+		deltas.put(action, delta);
+	}
+
+	/**
+	 * Revert and re-apply only {@code action} and the enabled actions that were applied after it, instead of
+	 * {@link #resetLut() re-loading the initial lut} and re-applying all actions. Undo and redo of the most recent
+	 * action take time proportional to the segments it changed.
+	 */
+	@Override
+	protected synchronized void toggleAction(final AssignmentAction action, final boolean isEnabled)
+	{
+		final List<AssignmentAction> laterActions = new ArrayList<>();
+		boolean isLater = false;
+		for (final Pair<AssignmentAction, BooleanProperty> p : this.actions)
+		{
+			if (isLater && p.getValue().get())
+				laterActions.add(p.getKey());
+			else if (p.getKey() == action)
+				isLater = true;
+		}
+
+		// revert newest first
+		for (int i = laterActions.size() - 1; i >= 0; --i)
 		{
-			case MERGE:
+			if (!revert(laterActions.get(i)))
 			{
-				LOG.debug("Applying merge {}", action);
-				mergeFragmentsImpl((Merge) action);
-				break;
+				LOG.debug("No changes recorded for {}, re-applying all actions", laterActions.get(i));
+				resetLut();
+				return;
 			}
-			case DETACH:
-				LOG.debug("Applying detach {}", action);
-				detachFragmentImpl((Detach) action);
-				break;
 		}
+
+		if (isEnabled && !deltas.containsKey(action))
+			applyImpl(action);
+		else if (!isEnabled && deltas.containsKey(action))
+			revert(action);
+
+		laterActions.forEach(this::applyImpl);
+		publishLookup();
 	}
 
 	@Override
@@ -281,6 +602,12 @@ public class FragmentSegmentAssignmentOnlyLocal extends FragmentSegmentAssignmen
 		resetLut();
 	}
 
+	@Override
+	protected void actionsApplied()
+	{
+		publishLookup();
+	}
+
 	private synchronized void syncILut()
 	{
 		segmentToFragmentsMap.clear();
@@ -336,15 +663,55 @@ public class FragmentSegmentAssignmentOnlyLocal extends FragmentSegmentAssignmen
 			return Optional.empty();
 		}
 
+		final Merge merge = new Merge(from, into, segmentForMerge(into, newSegmentId));
+		return Optional.of(merge);
+	}
+
+	@Override
+	public Optional<MergeAll> getMergeAllAction(
+			final long[] from,
+			final long into,
+			final LongSupplier newSegmentId)
+	{
+		final long segmentOfInto = getSegment(into);
+		final TLongHashSet fromSegments = new TLongHashSet();
+		final TLongArrayList fromFragments = new TLongArrayList();
+		for (final long id : from)
+		{
+			// one fragment per segment is sufficient, merges move all fragments of a segment
+			final long segment = getSegment(id);
+			if (id != into && segment != segmentOfInto && fromSegments.add(segment))
+				fromFragments.add(id);
+		}
+
+		if (fromFragments.size() == 0)
+		{
+			LOG.debug("all {} fragments are already in the same segment as {} -- no action necessary", from.length, into);
+			return Optional.empty();
+		}
+
+		final MergeAll mergeAll = new MergeAll(fromFragments.toArray(), into, segmentForMerge(into, newSegmentId));
+		return Optional.of(mergeAll);
+	}
+
+	/**
+	 * Assign {@code into} to a new segment if it is not assigned to any segment yet.
+	 *
+	 * @return segment that fragments merged into {@code into} will be assigned to
+	 */
+	private synchronized long segmentForMerge(final long into, final LongSupplier newSegmentId)
+	{
 		// TODO do not add to fragmentToSegmentMap here. Have the mergeImpl take
 		// care of it instead.
 		if (getSegment(into) == into)
 		{
-			fragmentToSegmentMap.put(into, newSegmentId.getAsLong());
+			// remember previous assignment such that undo of the merge also reverts this
+			if (!assignedOutsideOfAction.containsKey(into))
+				assignedOutsideOfAction.put(into, fragmentToSegmentMap.contains(into) ? fragmentToSegmentMap.get(into) : NOT_ASSIGNED);
+			putSegment(into, newSegmentId.getAsLong());
+			publishLookup();
 		}
-
-		final Merge merge = new Merge(from, into, fragmentToSegmentMap.get(into));
-		return Optional.of(merge);
+		return fragmentToSegmentMap.get(into);
 	}
 
 	@Override
@@ -33,6 +33,14 @@ public abstract class FragmentSegmentAssignmentStateWithActionTracker extends Ob
 
 	protected abstract void applyImpl(final AssignmentAction action);
 
+	/**
+	 * Called once after a single action or a batch of actions was applied and before listeners are notified.
+	 * Implementations can override this to publish derived state, e.g. lookup tables for concurrent readers.
+	 */
+	protected void actionsApplied()
+	{
+	}
+
 	private void removeDisabledActions()
 	{
 		List<Pair<AssignmentAction, BooleanProperty>> onlyEnabledActions = actions
@@ -53,11 +61,12 @@ public abstract class FragmentSegmentAssignmentStateWithActionTracker extends Ob
 	private void applyNoStateChange(final AssignmentAction action, final boolean isEnabled)
 	{
 		removeDisabledActions();
-		applyImpl(action);
+		if (isEnabled)
+			applyImpl(action);
 		Pair<AssignmentAction, BooleanProperty> toggleableAction = new Pair<>(
 				action,
 				new SimpleBooleanProperty(isEnabled));
-		toggleableAction.getValue().addListener(obs -> reapplyActionsAndNotify());
+		toggleableAction.getValue().addListener((obs, oldv, newv) -> toggleActionAndNotify(action, newv));
 		this.actions.add(toggleableAction);
 	}
 
@@ -66,6 +75,7 @@ public abstract class FragmentSegmentAssignmentStateWithActionTracker extends Ob
 	{
 		removeDisabledActions();
 		applyNoStateChange(action, true);
+		actionsApplied();
 		stateChanged();
 	}
 
@@ -74,12 +84,14 @@ public abstract class FragmentSegmentAssignmentStateWithActionTracker extends Ob
 	{
 		removeDisabledActions();
 		actions.forEach(this::applyNoStateChange);
+		actionsApplied();
 		stateChanged();
 	}
 
 	public void applyWithEnabledFlag(final Collection<? extends Pair<? extends AssignmentAction, Boolean>> actions) {
 		removeDisabledActions();
 		actions.forEach(p -> this.applyNoStateChange(p.getKey(), p.getValue()));
+		actionsApplied();
 		stateChanged();
 	}
 
@@ -93,12 +105,25 @@ public abstract class FragmentSegmentAssignmentStateWithActionTracker extends Ob
 		return readOnlyActions;
 	}
 
-	private void reapplyActionsAndNotify()
+	private void toggleActionAndNotify(final AssignmentAction action, final boolean isEnabled)
 	{
-		reapplyActions();
+		toggleAction(action, isEnabled);
 		stateChanged();
 	}
 
+	/**
+	 * Called after {@code action} was enabled or disabled, e.g. for undo and redo. Implementations that can revert
+	 * and re-apply individual actions should override this, the default implementation {@link #reapplyActions()
+	 * re-applies all actions}.
+	 *
+	 * @param action action that was toggled
+	 * @param isEnabled {@code true} if {@code action} was enabled, {@code false} if it was disabled
+	 */
+	protected void toggleAction(final AssignmentAction action, final boolean isEnabled)
+	{
+		reapplyActions();
+	}
+
 	protected abstract void reapplyActions();
 
 }
@@ -0,0 +1,287 @@
+package org.janelia.saalfeldlab.paintera.control.assignment;
+
+import gnu.trove.map.TLongLongMap;
+
+/**
+ * Immutable, primitive fragment-to-segment lookup table that can be read concurrently without locking.
+ * Writers never modify a published snapshot but build a new one and publish it atomically (copy on write),
+ * e.g. through a {@code volatile} field. Each snapshot carries a version that increases with every publication.
+ *
+ * Lookups use open addressing with linear probing on a power-of-two sized {@code long[]} table.
+ *
+ * Small changes can be published through {@link #withChanges(long[], long[], long[], long)} in time proportional to
+ * the changes: the new snapshot holds the changes in an overlay over the table of the previous snapshot, which is
+ * shared. Writers should build a new table from scratch once the {@link #overlaySize() overlay} grows large.
+ */
+public class FragmentSegmentLookupSnapshot
+{
+
+	private static final float LOAD_FACTOR = 0.5f;
+
+	private static final long EMPTY_KEY = 0L;
+
+	private static final int NOT_FOUND = -1;
+
+	private static final int EMPTY_KEY_INDEX = -2;
+
+	public static final FragmentSegmentLookupSnapshot EMPTY = new FragmentSegmentLookupSnapshot(new long[0], new long[0], 0L);
+
+	private final long[] keys;
+
+	private final long[] values;
+
+	private final int mask;
+
+	private final int size;
+
+	/**
+	 * Number of entries held in {@link #keys} and {@link #values}, excluding {@link #base}.
+	 */
+	private final int ownSize;
+
+	private final boolean hasEmptyKey;
+
+	private final long emptyKeyValue;
+
+	private final long version;
+
+	/**
+	 * Table that {@link #keys} and {@link #values} overlay, {@code null} if this snapshot is not layered.
+	 */
+	private final FragmentSegmentLookupSnapshot base;
+
+	/**
+	 * Keys of {@link #base} that are not present in this snapshot, {@code null} if this snapshot is not layered.
+	 */
+	private final FragmentSegmentLookupSnapshot removed;
+
+	/**
+	 * @param keys fragment ids
+	 * @param values segment ids, {@code values[i]} is the segment of {@code keys[i]}
+	 * @param version version of this snapshot
+	 */
+	public FragmentSegmentLookupSnapshot(final long[] keys, final long[] values, final long version)
+	{
+		this(keys, values, keys.length, version, null, null);
+	}
+
+	private FragmentSegmentLookupSnapshot(
+			final long[] keys,
+			final long[] values,
+			final int numEntries,
+			final long version,
+			final FragmentSegmentLookupSnapshot base,
+			final FragmentSegmentLookupSnapshot removed)
+	{
+		assert keys.length == values.length;
+		final int capacity = capacityFor(numEntries);
+		this.keys = new long[capacity];
+		this.values = new long[capacity];
+		this.mask = capacity - 1;
+		this.version = version;
+		this.base = base;
+		this.removed = removed;
+
+		boolean hasEmptyKey = false;
+		long emptyKeyValue = 0L;
+		int size = 0;
+		for (int i = 0; i < numEntries; ++i)
+		{
+			final long key = keys[i];
+			if (key == EMPTY_KEY)
+			{
+				hasEmptyKey = true;
+				emptyKeyValue = values[i];
+				continue;
+			}
+			int index = hash(key) & mask;
+			while (this.keys[index] != EMPTY_KEY && this.keys[index] != key)
+				index = (index + 1) & mask;
+			if (this.keys[index] == EMPTY_KEY)
+				++size;
+			this.keys[index] = key;
+			this.values[index] = values[i];
+		}
+		this.hasEmptyKey = hasEmptyKey;
+		this.emptyKeyValue = emptyKeyValue;
+		size += hasEmptyKey ? 1 : 0;
+		this.ownSize = size;
+
+		if (base != null)
+		{
+			// overlay entries that replace entries of base do not add to the size
+			int numReplaced = 0;
+			if (hasEmptyKey && base.indexOf(EMPTY_KEY) != NOT_FOUND)
+				++numReplaced;
+			for (final long key : this.keys)
+				if (key != EMPTY_KEY && base.indexOf(key) != NOT_FOUND)
+					++numReplaced;
+			size += base.size - removed.size - numReplaced;
+		}
+		this.size = size;
+	}
+
+	public static FragmentSegmentLookupSnapshot fromMap(final TLongLongMap map, final long version)
+	{
+		return new FragmentSegmentLookupSnapshot(map.keys(), map.values(), version);
+	}
+
+	/**
+	 * Create a new snapshot that shares the table of this snapshot and holds all changes in an overlay. Takes time
+	 * proportional to the number of changes and the {@link #overlaySize() overlay size} of this snapshot.
+	 *
+	 * @param changedKeys fragments with new or changed segment
+	 * @param changedValues segments of {@code changedKeys}
+	 * @param removedKeys fragments that are not assigned to a segment anymore
+	 * @param version version of the new snapshot
+	 * @return snapshot with changes applied
+	 */
+	public FragmentSegmentLookupSnapshot withChanges(
+			final long[] changedKeys,
+			final long[] changedValues,
+			final long[] removedKeys,
+			final long version)
+	{
+		assert changedKeys.length == changedValues.length;
+		final FragmentSegmentLookupSnapshot root = base == null ? this : base;
+		final FragmentSegmentLookupSnapshot changed = new FragmentSegmentLookupSnapshot(changedKeys, changedValues, 0L);
+		final FragmentSegmentLookupSnapshot newlyRemoved = new FragmentSegmentLookupSnapshot(removedKeys, removedKeys, 0L);
+
+		// previous overlay entries that are neither changed nor removed, followed by changes
+		final long[] overlayKeys = new long[changedKeys.length + (base == null ? 0 : ownSize)];
+		final long[] overlayValues = new long[overlayKeys.length];
+		int numOverlay = 0;
+		if (base != null)
+		{
+			if (hasEmptyKey && changed.indexOf(EMPTY_KEY) == NOT_FOUND && newlyRemoved.indexOf(EMPTY_KEY) == NOT_FOUND)
+			{
+				overlayKeys[numOverlay] = EMPTY_KEY;
+				overlayValues[numOverlay++] = emptyKeyValue;
+			}
+			for (int i = 0; i < keys.length; ++i)
+			{
+				final long key = keys[i];
+				if (key != EMPTY_KEY && changed.indexOf(key) == NOT_FOUND && newlyRemoved.indexOf(key) == NOT_FOUND)
+				{
+					overlayKeys[numOverlay] = key;
+					overlayValues[numOverlay++] = values[i];
+				}
+			}
+		}
+		for (int i = 0; i < changedKeys.length; ++i)
+		{
+			overlayKeys[numOverlay] = changedKeys[i];
+			overlayValues[numOverlay++] = changedValues[i];
+		}
+
+		// previously removed keys that were not added again, followed by newly removed keys of root
+		final long[] removedOut = new long[(removed == null ? 0 : removed.size) + removedKeys.length];
+		int numRemoved = 0;
+		if (removed != null)
+		{
+			if (removed.hasEmptyKey && changed.indexOf(EMPTY_KEY) == NOT_FOUND)
+				removedOut[numRemoved++] = EMPTY_KEY;
+			for (final long key : removed.keys)
+				if (key != EMPTY_KEY && changed.indexOf(key) == NOT_FOUND)
+					removedOut[numRemoved++] = key;
+		}
+		for (final long key : removedKeys)
+			if (root.indexOf(key) != NOT_FOUND && changed.indexOf(key) == NOT_FOUND)
+				removedOut[numRemoved++] = key;
+
+		return new FragmentSegmentLookupSnapshot(
+				overlayKeys,
+				overlayValues,
+				numOverlay,
+				version,
+				root,
+				new FragmentSegmentLookupSnapshot(removedOut, removedOut, numRemoved, 0L, null, null));
+	}
+
+	/**
+	 * @param fragmentId fragment id
+	 * @return segment id of {@code fragmentId} or {@code fragmentId} if no assignment is present.
+	 */
+	public long getSegment(final long fragmentId)
+	{
+		return get(fragmentId, fragmentId);
+	}
+
+	/**
+	 * @param key key
+	 * @param noEntryValue returned if {@code key} is not present
+	 * @return value for {@code key} or {@code noEntryValue} if not present
+	 */
+	public long get(final long key, final long noEntryValue)
+	{
+		final int index = indexOf(key);
+		if (index == EMPTY_KEY_INDEX)
+			return emptyKeyValue;
+		if (index != NOT_FOUND)
+			return values[index];
+		if (base == null || removed.indexOf(key) != NOT_FOUND)
+			return noEntryValue;
+		return base.get(key, noEntryValue);
+	}
+
+	public int size()
+	{
+		return this.size;
+	}
+
+	public long version()
+	{
+		return this.version;
+	}
+
+	/**
+	 *
+	 * @return number of entries that are held in an overlay over a shared table, {@code 0} if this snapshot is not
+	 * layered
+	 */
+	public int overlaySize()
+	{
+		return base == null ? 0 : ownSize + removed.size;
+	}
+
+	private int indexOf(final long key)
+	{
+		if (key == EMPTY_KEY)
+			return hasEmptyKey ? EMPTY_KEY_INDEX : NOT_FOUND;
+		final long[] keys = this.keys;
+		if (keys.length == 0)
+			return NOT_FOUND;
+		for (int index = hash(key) & mask; ; index = (index + 1) & mask)
+		{
+			final long k = keys[index];
+			if (k == key)
+				return index;
+			if (k == EMPTY_KEY)
+				return NOT_FOUND;
+		}
+	}
+
+	private static int capacityFor(final int numEntries)
+	{
+		if (numEntries == 0)
+			return 0;
+		final long minCapacity = (long) Math.ceil(numEntries / LOAD_FACTOR) + 1;
+		final long capacity = Long.highestOneBit(minCapacity - 1) << 1;
+		if (capacity > 1 << 30)
+			throw new IllegalArgumentException("Too many entries for lookup table: " + numEntries);
+		return (int) Math.max(capacity, 2);
+	}
+
+	private static int hash(final long key)
+	{
+		// murmur3 finalizer
+		long h = key;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return (int) h;
+	}
+
+}
@@ -8,7 +8,8 @@ public interface AssignmentAction
 	public enum Type
 	{
 		DETACH(Detach.class),
-		MERGE(Merge.class);
+		MERGE(Merge.class),
+		MERGE_ALL(MergeAll.class);
 
 		private final Class<? extends AssignmentAction> clazz;
 
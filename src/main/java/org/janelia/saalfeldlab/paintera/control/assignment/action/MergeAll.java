@@ -0,0 +1,36 @@
+package org.janelia.saalfeldlab.paintera.control.assignment.action;
+
+/**
+ * Merge many fragments into the segment of a single fragment at once. Equivalent to a {@link Merge} of each of
+ * {@link #fromFragmentIds} into {@link #intoFragmentId} but applied, undone, and redone as a single action.
+ */
+public class MergeAll implements AssignmentAction
+{
+
+	public final long[] fromFragmentIds;
+
+	public final long intoFragmentId;
+
+	public final long segmentId;
+
+	public MergeAll(final long[] fromFragmentIds, final long intoFragmentId, final long segmentId)
+	{
+		super();
+		this.fromFragmentIds = fromFragmentIds;
+		this.intoFragmentId = intoFragmentId;
+		this.segmentId = segmentId;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "from=" + fromFragmentIds.length + " fragments, into=" + intoFragmentId + ", segment=" + segmentId;
+	}
+
+	@Override
+	public Type getType()
+	{
+		return Type.MERGE_ALL;
+	}
+
+}
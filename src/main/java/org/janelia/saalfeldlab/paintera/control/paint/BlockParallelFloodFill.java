@@ -0,0 +1,348 @@
+package org.janelia.saalfeldlab.paintera.control.paint;
+
+import gnu.trove.iterator.TLongObjectIterator;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.set.TLongSet;
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.Localizable;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.cell.CellGrid;
+import net.imglib2.type.numeric.IntegerType;
+import net.imglib2.type.numeric.integer.UnsignedLongType;
+import net.imglib2.util.IntervalIndexer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.LongPredicate;
+
+/**
+ * Flood fill with 6-connectivity (face neighbors) that processes the blocks of a {@link CellGrid} in parallel.
+ *
+ * The fill proceeds in rounds: In each round, every block with pending seeds is filled by exactly one worker,
+ * starting from its seeds. Neighbors outside the block that satisfy the fill predicate are collected as seeds of
+ * the neighboring block for the next round. The fill is finished when no block has pending seeds. Each block is
+ * written by at most one worker at a time, so {@code output} only needs to support concurrent access to different
+ * blocks.
+ *
+ * If a set of allowed blocks is given, e.g. from a {@link org.janelia.saalfeldlab.labels.blocks.LabelBlockLookup},
+ * the fill does not enter any other blocks.
+ */
+public class BlockParallelFloodFill
+{
+
+	private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	@FunctionalInterface
+	public interface Progress
+	{
+		Progress NONE = (numProcessedBlocks, numFilledVoxels, numPendingBlocks) -> {};
+
+		/**
+		 * Called after each round.
+		 *
+		 * @param numProcessedBlocks number of blocks that were processed so far (blocks may be processed more than once)
+		 * @param numFilledVoxels number of voxels that were filled so far
+		 * @param numPendingBlocks number of blocks to be processed in the next round
+		 */
+		void update(long numProcessedBlocks, long numFilledVoxels, long numPendingBlocks);
+	}
+
+	private final RandomAccessible<? extends IntegerType<?>> input;
+
+	private final RandomAccessibleInterval<UnsignedLongType> output;
+
+	private final CellGrid grid;
+
+	private final LongPredicate isFillLabel;
+
+	private final TLongSet allowedBlocks;
+
+	private final long fillValue;
+
+	/**
+	 *
+	 * @param input labels
+	 * @param output fill into this image. Voxels that are not {@code 0} are not filled.
+	 * @param grid blocks of {@code output} that are processed in parallel
+	 * @param isFillLabel fill all connected voxels whose label satisfies this predicate. Must be thread-safe.
+	 * @param allowedBlocks linear indices of blocks in {@code grid} that the fill may enter, or {@code null}
+	 *                      for all blocks
+	 * @param fillValue write this value into {@code output}
+	 */
+	public BlockParallelFloodFill(
+			final RandomAccessible<? extends IntegerType<?>> input,
+			final RandomAccessibleInterval<UnsignedLongType> output,
+			final CellGrid grid,
+			final LongPredicate isFillLabel,
+			final TLongSet allowedBlocks,
+			final long fillValue)
+	{
+		this.input = input;
+		this.output = output;
+		this.grid = grid;
+		this.isFillLabel = isFillLabel;
+		this.allowedBlocks = allowedBlocks;
+		this.fillValue = fillValue;
+	}
+
+	/**
+	 *
+	 * @param seed start filling at this position
+	 * @param workers fill blocks on these workers
+	 * @param progress notified after each round
+	 * @return bounding box of all filled voxels or {@code null} if no voxel was filled
+	 * @throws InterruptedException if the calling thread is interrupted
+	 * @throws ExecutionException if filling any block throws an exception
+	 */
+	public Interval fill(
+			final Localizable seed,
+			final ExecutorService workers,
+			final Progress progress) throws InterruptedException, ExecutionException
+	{
+		final int numDimensions = grid.numDimensions();
+		final long[] seedPosition = new long[numDimensions];
+		seed.localize(seedPosition);
+		final long seedBlock = blockIndex(seedPosition);
+		if (seedBlock < 0)
+		{
+			LOG.debug("Seed {} is outside of grid {}", seedPosition, grid);
+			return null;
+		}
+
+		TLongObjectHashMap<TLongArrayList> pending = new TLongObjectHashMap<>();
+		pending.put(seedBlock, new TLongArrayList(seedPosition));
+
+		final long[] min = new long[numDimensions];
+		final long[] max = new long[numDimensions];
+		Arrays.fill(min, Long.MAX_VALUE);
+		Arrays.fill(max, Long.MIN_VALUE);
+		long numProcessedBlocks = 0;
+		long numFilledVoxels = 0;
+
+		while (!pending.isEmpty())
+		{
+			if (Thread.currentThread().isInterrupted())
+				throw new InterruptedException("Flood fill interrupted");
+
+			final List<Callable<BlockResult>> tasks = new ArrayList<>();
+			for (final TLongObjectIterator<TLongArrayList> it = pending.iterator(); it.hasNext(); )
+			{
+				it.advance();
+				final long blockIndex = it.key();
+				final long[] seeds = it.value().toArray();
+				tasks.add(() -> fillBlock(blockIndex, seeds));
+			}
+			LOG.debug("Filling {} blocks", tasks.size());
+
+			final TLongObjectHashMap<TLongArrayList> next = new TLongObjectHashMap<>();
+			for (final Future<BlockResult> future : workers.invokeAll(tasks))
+			{
+				final BlockResult result = future.get();
+				numFilledVoxels += result.numFilledVoxels;
+				for (int d = 0; d < numDimensions; ++d)
+				{
+					min[d] = Math.min(min[d], result.min[d]);
+					max[d] = Math.max(max[d], result.max[d]);
+				}
+				for (final TLongObjectIterator<TLongArrayList> it = result.frontier.iterator(); it.hasNext(); )
+				{
+					it.advance();
+					final TLongArrayList seeds = next.get(it.key());
+					if (seeds == null)
+						next.put(it.key(), it.value());
+					else
+						seeds.addAll(it.value());
+				}
+			}
+			numProcessedBlocks += tasks.size();
+			pending = next;
+			progress.update(numProcessedBlocks, numFilledVoxels, pending.size());
+		}
+
+		LOG.debug("Filled {} voxels in {} block fills", numFilledVoxels, numProcessedBlocks);
+		return numFilledVoxels == 0 ? null : new FinalInterval(min, max);
+	}
+
+	private long blockIndex(final long[] position)
+	{
+		final long[] gridDimensions = grid.getGridDimensions();
+		final long[] gridPosition = new long[position.length];
+		for (int d = 0; d < position.length; ++d)
+		{
+			if (position[d] < 0 || position[d] >= grid.imgDimension(d))
+				return -1;
+			gridPosition[d] = position[d] / grid.cellDimension(d);
+		}
+		return IntervalIndexer.positionToIndex(gridPosition, gridDimensions);
+	}
+
+	private BlockResult fillBlock(final long blockIndex, final long[] seeds)
+	{
+		final int numDimensions = grid.numDimensions();
+		final long[] blockMin = new long[numDimensions];
+		final int[] blockSize = new int[numDimensions];
+		final long[] gridPosition = new long[numDimensions];
+		grid.getCellGridPositionFlat(blockIndex, gridPosition);
+		grid.getCellDimensions(gridPosition, blockMin, blockSize);
+
+		final BlockResult result = new BlockResult(numDimensions);
+		final RandomAccess<? extends IntegerType<?>> inputAccess = input.randomAccess();
+		final RandomAccess<UnsignedLongType> outputAccess = output.randomAccess();
+		final CachedPredicate isFill = new CachedPredicate(isFillLabel);
+		final TIntArrayList queue = new TIntArrayList();
+		final long[] position = new long[numDimensions];
+		final int[] localPosition = new int[numDimensions];
+
+		for (int seedIndex = 0; seedIndex < seeds.length; seedIndex += numDimensions)
+		{
+			System.arraycopy(seeds, seedIndex, position, 0, numDimensions);
+			if (fillIfCandidate(position, inputAccess, outputAccess, isFill, result))
+			{
+				for (int d = 0; d < numDimensions; ++d)
+					localPosition[d] = (int) (position[d] - blockMin[d]);
+				queue.add(IntervalIndexer.positionToIndex(localPosition, blockSize));
+			}
+		}
+
+		for (int head = 0; head < queue.size(); ++head)
+		{
+			if (Thread.currentThread().isInterrupted())
+				break;
+
+			IntervalIndexer.indexToPosition(queue.getQuick(head), blockSize, localPosition);
+			for (int d = 0; d < numDimensions; ++d)
+				position[d] = blockMin[d] + localPosition[d];
+
+			for (int d = 0; d < numDimensions; ++d)
+			{
+				for (int step = -1; step <= 1; step += 2)
+				{
+					final int neighbor = localPosition[d] + step;
+					position[d] += step;
+					if (neighbor >= 0 && neighbor < blockSize[d])
+					{
+						if (fillIfCandidate(position, inputAccess, outputAccess, isFill, result))
+						{
+							localPosition[d] = neighbor;
+							queue.add(IntervalIndexer.positionToIndex(localPosition, blockSize));
+							localPosition[d] -= step;
+						}
+					}
+					else if (position[d] >= 0 && position[d] < grid.imgDimension(d))
+					{
+						// only pass on candidates to neighboring blocks, the neighbor block checks the output
+						inputAccess.setPosition(position);
+						if (isFill.test(inputAccess.get().getIntegerLong()))
+						{
+							final long neighborBlock = blockIndex(position);
+							if (allowedBlocks == null || allowedBlocks.contains(neighborBlock))
+							{
+								TLongArrayList neighborSeeds = result.frontier.get(neighborBlock);
+								if (neighborSeeds == null)
+								{
+									neighborSeeds = new TLongArrayList();
+									result.frontier.put(neighborBlock, neighborSeeds);
+								}
+								neighborSeeds.add(position);
+							}
+						}
+					}
+					position[d] -= step;
+				}
+			}
+		}
+		return result;
+	}
+
+	private boolean fillIfCandidate(
+			final long[] position,
+			final RandomAccess<? extends IntegerType<?>> inputAccess,
+			final RandomAccess<UnsignedLongType> outputAccess,
+			final CachedPredicate isFill,
+			final BlockResult result)
+	{
+		outputAccess.setPosition(position);
+		final UnsignedLongType out = outputAccess.get();
+		if (out.getIntegerLong() != 0)
+			return false;
+		inputAccess.setPosition(position);
+		if (!isFill.test(inputAccess.get().getIntegerLong()))
+			return false;
+		out.setInteger(fillValue);
+		result.add(position);
+		return true;
+	}
+
+	private static final class BlockResult
+	{
+		private final TLongObjectHashMap<TLongArrayList> frontier = new TLongObjectHashMap<>();
+
+		private final long[] min;
+
+		private final long[] max;
+
+		private long numFilledVoxels = 0;
+
+		private BlockResult(final int numDimensions)
+		{
+			this.min = new long[numDimensions];
+			this.max = new long[numDimensions];
+			Arrays.fill(min, Long.MAX_VALUE);
+			Arrays.fill(max, Long.MIN_VALUE);
+		}
+
+		private void add(final long[] position)
+		{
+			++numFilledVoxels;
+			for (int d = 0; d < position.length; ++d)
+			{
+				min[d] = Math.min(min[d], position[d]);
+				max[d] = Math.max(max[d], position[d]);
+			}
+		}
+	}
+
+	/**
+	 * Neighboring voxels usually share the same label: Remember the last result to avoid repeated lookups.
+	 */
+	private static final class CachedPredicate
+	{
+		private final LongPredicate predicate;
+
+		private boolean hasLast = false;
+
+		private long lastLabel;
+
+		private boolean lastResult;
+
+		private CachedPredicate(final LongPredicate predicate)
+		{
+			this.predicate = predicate;
+		}
+
+		private boolean test(final long label)
+		{
+			if (!hasLast || label != lastLabel)
+			{
+				lastLabel = label;
+				lastResult = predicate.test(label);
+				hasLast = true;
+			}
+			return lastResult;
+		}
+	}
+
+}
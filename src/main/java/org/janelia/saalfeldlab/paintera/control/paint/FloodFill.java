@@ -3,6 +3,9 @@ package org.janelia.saalfeldlab.paintera.control.paint;
 import bdv.fx.viewer.ViewerPanelFX;
 import bdv.fx.viewer.ViewerState;
 import bdv.viewer.Source;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
+import net.imglib2.FinalInterval;
 import net.imglib2.Interval;
 import net.imglib2.Localizable;
 import net.imglib2.Point;
@@ -12,22 +15,24 @@ import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.RealLocalizable;
 import net.imglib2.RealPoint;
 import net.imglib2.RealPositionable;
-import net.imglib2.algorithm.neighborhood.DiamondShape;
+import net.imglib2.img.cell.CellGrid;
 import net.imglib2.realtransform.AffineTransform3D;
 import net.imglib2.type.label.Label;
 import net.imglib2.type.label.LabelMultisetType;
 import net.imglib2.type.numeric.IntegerType;
 import net.imglib2.type.numeric.integer.UnsignedLongType;
-import net.imglib2.util.AccessBoxRandomAccessible;
 import net.imglib2.util.Intervals;
 import net.imglib2.util.Util;
 import net.imglib2.view.Views;
+import org.janelia.saalfeldlab.fx.util.InvokeOnJavaFXApplicationThread;
 import org.janelia.saalfeldlab.paintera.control.assignment.FragmentSegmentAssignment;
 import org.janelia.saalfeldlab.paintera.data.mask.Mask;
 import org.janelia.saalfeldlab.paintera.data.mask.MaskInfo;
 import org.janelia.saalfeldlab.paintera.data.mask.MaskedSource;
 import org.janelia.saalfeldlab.paintera.data.mask.exception.MaskInUse;
+import org.janelia.saalfeldlab.paintera.meshes.managed.GetBlockListFor;
 import org.janelia.saalfeldlab.paintera.state.FloodFillState;
+import org.janelia.saalfeldlab.util.grids.Grids;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,9 +42,11 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
-import java.util.function.BiPredicate;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
+import java.util.function.LongPredicate;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
@@ -60,6 +67,8 @@ public class FloodFill<T extends IntegerType<T>>
 
 	private final Consumer<FloodFillState> setFloodFillState;
 
+	private final GetBlockListFor<Long> blocksForSegment;
+
 	private static final class ForegroundCheck implements Predicate<UnsignedLongType>
 	{
 
@@ -80,6 +89,22 @@ public class FloodFill<T extends IntegerType<T>>
 			final Runnable requestRepaint,
 			final BooleanSupplier isVisible,
 			final Consumer<FloodFillState> setFloodFillState)
+	{
+		this(viewer, source, assignment, requestRepaint, isVisible, setFloodFillState, null);
+	}
+
+	/**
+	 *
+	 * @param blocksForSegment if not {@code null}, restrict the fill to the blocks that contain the filled segment
+	 */
+	public FloodFill(
+			final ViewerPanelFX viewer,
+			final MaskedSource<T, ?> source,
+			final FragmentSegmentAssignment assignment,
+			final Runnable requestRepaint,
+			final BooleanSupplier isVisible,
+			final Consumer<FloodFillState> setFloodFillState,
+			final GetBlockListFor<Long> blocksForSegment)
 	{
 		super();
 		Objects.requireNonNull(viewer);
@@ -95,6 +120,7 @@ public class FloodFill<T extends IntegerType<T>>
 		this.requestRepaint = requestRepaint;
 		this.isVisible = isVisible;
 		this.setFloodFillState = setFloodFillState;
+		this.blocksForSegment = blocksForSegment;
 	}
 
 	public void fillAt(final double x, final double y, final Supplier<Long> fillSupplier)
@@ -194,26 +220,46 @@ public class FloodFill<T extends IntegerType<T>>
 				new UnsignedLongType(fill)
 		);
 		final Mask<UnsignedLongType>  mask = source.generateMask(maskInfo, FOREGROUND_CHECK);
-		final AccessBoxRandomAccessible<UnsignedLongType> accessTracker = new AccessBoxRandomAccessible<>(Views
-				.extendValue(mask.mask, new UnsignedLongType(1)));
+		final CellGrid grid = source.getCellGrid(time, level);
+		final TLongSet allowedBlocks = allowedBlocks(grid, level, seed, seedLabel);
+		final Interval[] filledInterval = {null};
+		final FloodFillState[] state = {null};
+		final AtomicLong numFilledVoxels = new AtomicLong(-1);
+		final AtomicLong numProcessedBlocks = new AtomicLong(-1);
 
 		@SuppressWarnings("unchecked")
 		final Thread floodFillThread = new Thread(() -> {
 			try {
-				if (seedValue instanceof LabelMultisetType) {
-					fillMultisetType((RandomAccessibleInterval<LabelMultisetType>) data, accessTracker, seed, seedLabel, assignment);
-				} else {
-					fillPrimitiveType(data, accessTracker, seed, seedLabel, assignment);
-				}
-			} catch (final Exception e) {
+				final RandomAccessible<? extends IntegerType<?>> input = seedValue instanceof LabelMultisetType
+						? Views.extendValue((RandomAccessibleInterval<LabelMultisetType>) data, new LabelMultisetType())
+						: extendPrimitiveType(data);
+				final BlockParallelFloodFill floodFill = new BlockParallelFloodFill(
+						input,
+						mask.mask,
+						grid,
+						makePredicate(seedLabel, assignment),
+						allowedBlocks,
+						1);
+				// The propagation executor is shared by all masked sources (see PainteraBaseView#getPropagationQueue). Propagation
+				// of this source only starts when the mask is applied, but masks applied to other sources may propagate
+				// concurrently and compete with the fill for threads.
+				filledInterval[0] = floodFill.fill(seed, source.getPropagationExecutor(), (processedBlocks, filledVoxels, pendingBlocks) -> {
+					// published to the UI by the result checker thread
+					numFilledVoxels.set(filledVoxels);
+					numProcessedBlocks.set(processedBlocks);
+				});
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (final ExecutionException e) {
 				// got an exception, ignore it if the operation has been canceled, or re-throw otherwise
 				if (!Thread.currentThread().isInterrupted())
-					throw e;
+					throw new RuntimeException(e.getCause());
 			}
 			LOG.debug(Thread.currentThread().isInterrupted() ? "FloodFill has been interrupted" : "FloodFill has been completed");
 		});
 
 		final Thread floodFillResultCheckerThread = new Thread(() -> {
+			long lastNumProcessedBlocks = -1;
 			while (floodFillThread.isAlive())
 			{
 				try
@@ -228,11 +274,26 @@ public class FloodFill<T extends IntegerType<T>>
 				if (Thread.currentThread().isInterrupted())
 					break;
 
+				final long currentNumProcessedBlocks = numProcessedBlocks.get();
+				if (currentNumProcessedBlocks != lastNumProcessedBlocks)
+				{
+					lastNumProcessedBlocks = currentNumProcessedBlocks;
+					final long currentNumFilledVoxels = numFilledVoxels.get();
+					synchronized (state) {
+						final FloodFillState currentState = state[0];
+						if (currentState != null)
+							InvokeOnJavaFXApplicationThread.invoke(() -> currentState.setProgress(currentNumFilledVoxels, currentNumProcessedBlocks));
+					}
+				}
+
 				LOG.debug("Updating current view!");
 				requestRepaint.run();
 			}
 
-			resetFloodFillState(source);
+			synchronized (state) {
+				state[0] = null;
+				resetFloodFillState(source);
+			}
 
 			if (Thread.interrupted())
 			{
@@ -245,7 +306,7 @@ public class FloodFill<T extends IntegerType<T>>
 			}
 			else
 			{
-				final Interval interval = accessTracker.createAccessInterval();
+				final Interval interval = filledInterval[0] == null ? new FinalInterval(seed, seed) : filledInterval[0];
 				LOG.debug(
 						"Applying mask for interval {} {}",
 						Arrays.toString(Intervals.minAsLongArray(interval)),
@@ -257,47 +318,44 @@ public class FloodFill<T extends IntegerType<T>>
 			requestRepaint.run();
 		});
 
-		setFloodFillState(source, new FloodFillState(fill, floodFillResultCheckerThread::interrupt));
+		synchronized (state) {
+			state[0] = new FloodFillState(fill, floodFillResultCheckerThread::interrupt);
+			setFloodFillState(source, state[0]);
+		}
 
 		floodFillThread.start();
 		floodFillResultCheckerThread.start();
 	}
 
-	private static void fillMultisetType(
-			final RandomAccessibleInterval<LabelMultisetType> input,
-			final RandomAccessible<UnsignedLongType> output,
-			final Localizable seed,
-			final long seedLabel,
-			final FragmentSegmentAssignment assignment)
-	{
-		net.imglib2.algorithm.fill.FloodFill.fill(
-				Views.extendValue(input, new LabelMultisetType()),
-				output,
-				seed,
-				new UnsignedLongType(1),
-				new DiamondShape(1),
-				makePredicate(seedLabel, assignment)
-			);
-	}
-
-	private static <T extends IntegerType<T>> void fillPrimitiveType(
-			final RandomAccessibleInterval<T> input,
-			final RandomAccessible<UnsignedLongType> output,
-			final Localizable seed,
-			final long seedLabel,
-			final FragmentSegmentAssignment assignment)
+	private static <T extends IntegerType<T>> RandomAccessible<T> extendPrimitiveType(final RandomAccessibleInterval<T> input)
 	{
 		final T extension = Util.getTypeFromInterval(input).createVariable();
 		extension.setInteger(Label.OUTSIDE);
+		return Views.extendValue(input, extension);
+	}
 
-		net.imglib2.algorithm.fill.FloodFill.fill(
-				Views.extendValue(input, extension),
-				output,
-				seed,
-				new UnsignedLongType(1),
-				new DiamondShape(1),
-				makePredicate(seedLabel, assignment)
-			);
+	/**
+	 * @return linear indices of all blocks that contain fragments of {@code segment} according to
+	 * {@link #blocksForSegment}, or {@code null} if the fill cannot be restricted
+	 */
+	private TLongSet allowedBlocks(final CellGrid grid, final int level, final Localizable seed, final long segment)
+	{
+		if (blocksForSegment == null)
+			return null;
+		final Interval[] blocks = blocksForSegment.getBlocksFor(level, segment);
+		if (blocks == null)
+			return null;
+		final TLongSet allowedBlocks = new TLongHashSet();
+		for (final Interval block : blocks)
+			allowedBlocks.addAll(Grids.getIntersectingBlocks(block, grid));
+		final long[] seedBlock = Grids.getIntersectingBlocks(new FinalInterval(seed, seed), grid);
+		if (!allowedBlocks.containsAll(seedBlock))
+		{
+			LOG.warn("Label block lookup does not contain seed {} for segment {} -- will not restrict flood fill", new Point(seed), segment);
+			return null;
+		}
+		LOG.debug("Restricting flood fill for segment {} to {} blocks", segment, allowedBlocks.size());
+		return allowedBlocks;
 	}
 
 	private void setFloodFillState(final Source<?> source, final FloodFillState state)
@@ -310,9 +368,9 @@ public class FloodFill<T extends IntegerType<T>>
 		setFloodFillState(source, null);
 	}
 
-	private static <T extends IntegerType<T>> BiPredicate<T, UnsignedLongType> makePredicate(final long id, final FragmentSegmentAssignment assignment)
+	private static LongPredicate makePredicate(final long id, final FragmentSegmentAssignment assignment)
 	{
-		return (t, u) -> !Thread.currentThread().isInterrupted() && u.getInteger() == 0 && (assignment != null ? assignment.getSegment(t.getIntegerLong()) : t.getIntegerLong()) == id;
+		return label -> !Thread.currentThread().isInterrupted() && (assignment != null ? assignment.getSegment(label) : label) == id;
 	}
 
 	public static class RunAll implements Runnable
@@ -333,7 +333,7 @@ public class PaintClickOrDrag implements InstallAndRemove<Node> {
 		++this.fillLabel;
 
 		final RealInterval trackedIntervalInGlobalSpace = IntervalHelpers.extendAndTransformBoundingBox(trackedInterval, labelToGlobalTransform, 0.5);
-		this.paintera.orthogonalViews().requestRepaint(trackedIntervalInGlobalSpace);
+		this.paintera.orthogonalViews().requestIncrementalRepaint(trackedIntervalInGlobalSpace);
 
 	}
 
@@ -0,0 +1,185 @@
+package org.janelia.saalfeldlab.paintera.data.mask;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Compact encoding of the labels of a canvas cell. Cells that contain a single label are stored as that label only,
+ * all other cells as a sorted palette of the labels they contain and bit-packed palette indices. Painted cells rarely
+ * contain more than a handful of labels, such that a cell takes a small fraction of the 64 bits per voxel of the
+ * decoded cell.
+ */
+public class CompactCanvasCell
+{
+
+	private final int numEntities;
+
+	private final long[] palette;
+
+	private final int bitsPerIndex;
+
+	private final long[] packedIndices;
+
+	private CompactCanvasCell(final int numEntities, final long[] palette, final int bitsPerIndex, final long[] packedIndices)
+	{
+		this.numEntities = numEntities;
+		this.palette = palette;
+		this.bitsPerIndex = bitsPerIndex;
+		this.packedIndices = packedIndices;
+	}
+
+	/**
+	 *
+	 * @param data labels of the cell
+	 * @param numEntities number of voxels in the cell, at most {@code data.length}
+	 * @return compact encoding of the first {@code numEntities} entries of {@code data}
+	 */
+	public static CompactCanvasCell encode(final long[] data, final int numEntities)
+	{
+		if (numEntities == 0 || isUniform(data, numEntities))
+			return uniform(numEntities, numEntities == 0 ? 0 : data[0]);
+
+		final long[] sorted = Arrays.copyOf(data, numEntities);
+		Arrays.sort(sorted);
+		int paletteSize = 1;
+		for (int i = 1; i < numEntities; ++i)
+			if (sorted[i] != sorted[paletteSize - 1])
+				sorted[paletteSize++] = sorted[i];
+		final long[] palette = Arrays.copyOf(sorted, paletteSize);
+
+		final int bitsPerIndex = 64 - Long.numberOfLeadingZeros(paletteSize - 1);
+		final long[] packedIndices = new long[(int) (((long) numEntities * bitsPerIndex + 63) / 64)];
+		for (int i = 0; i < numEntities; ++i)
+			setBits(packedIndices, (long) i * bitsPerIndex, bitsPerIndex, Arrays.binarySearch(palette, data[i]));
+		return new CompactCanvasCell(numEntities, palette, bitsPerIndex, packedIndices);
+	}
+
+	/**
+	 *
+	 * @param numEntities number of voxels in the cell
+	 * @param value label of all voxels
+	 * @return encoding of a cell that contains only {@code value}
+	 */
+	public static CompactCanvasCell uniform(final int numEntities, final long value)
+	{
+		return new CompactCanvasCell(numEntities, new long[] {value}, 0, null);
+	}
+
+	/**
+	 * Decode into {@code target}.
+	 *
+	 * @param target receives the labels of the cell, must hold at least {@link #getNumEntities()} entries
+	 */
+	public void decodeInto(final long[] target)
+	{
+		if (isUniform())
+		{
+			Arrays.fill(target, 0, numEntities, palette[0]);
+			return;
+		}
+		for (int i = 0; i < numEntities; ++i)
+			target[i] = palette[getBits(packedIndices, (long) i * bitsPerIndex, bitsPerIndex)];
+	}
+
+	public int getNumEntities()
+	{
+		return numEntities;
+	}
+
+	/**
+	 *
+	 * @return {@code true} if all voxels of the cell have the same label
+	 */
+	public boolean isUniform()
+	{
+		return packedIndices == null;
+	}
+
+	/**
+	 *
+	 * @return label of all voxels if {@link #isUniform()}
+	 */
+	public long getUniformValue()
+	{
+		return palette[0];
+	}
+
+	/**
+	 *
+	 * @return approximate size of the encoded cell in bytes
+	 */
+	public long getSizeInBytes()
+	{
+		return Long.BYTES * (palette.length + (packedIndices == null ? 0 : packedIndices.length)) + 2 * Integer.BYTES;
+	}
+
+	/**
+	 * Write this encoding, e.g. to spill it to disk.
+	 *
+	 * @param out receives the encoding
+	 * @throws IOException if writing to {@code out} fails
+	 */
+	public void writeTo(final DataOutput out) throws IOException
+	{
+		out.writeInt(numEntities);
+		out.writeInt(bitsPerIndex);
+		out.writeInt(palette.length);
+		for (final long label : palette)
+			out.writeLong(label);
+		out.writeInt(packedIndices == null ? -1 : packedIndices.length);
+		if (packedIndices != null)
+			for (final long word : packedIndices)
+				out.writeLong(word);
+	}
+
+	/**
+	 *
+	 * @param in provides an encoding written by {@link #writeTo(DataOutput)}
+	 * @return encoding read from {@code in}
+	 * @throws IOException if reading from {@code in} fails
+	 */
+	public static CompactCanvasCell readFrom(final DataInput in) throws IOException
+	{
+		final int numEntities = in.readInt();
+		final int bitsPerIndex = in.readInt();
+		final long[] palette = new long[in.readInt()];
+		for (int i = 0; i < palette.length; ++i)
+			palette[i] = in.readLong();
+		final int numWords = in.readInt();
+		final long[] packedIndices = numWords < 0 ? null : new long[numWords];
+		for (int i = 0; i < numWords; ++i)
+			packedIndices[i] = in.readLong();
+		return new CompactCanvasCell(numEntities, palette, bitsPerIndex, packedIndices);
+	}
+
+	private static boolean isUniform(final long[] data, final int numEntities)
+	{
+		final long first = data[0];
+		for (int i = 1; i < numEntities; ++i)
+			if (data[i] != first)
+				return false;
+		return true;
+	}
+
+	private static void setBits(final long[] words, final long bitOffset, final int numBits, final long value)
+	{
+		final int word = (int) (bitOffset >>> 6);
+		final int shift = (int) (bitOffset & 63);
+		words[word] |= value << shift;
+		if (shift + numBits > 64)
+			words[word + 1] |= value >>> (64 - shift);
+	}
+
+	private static int getBits(final long[] words, final long bitOffset, final int numBits)
+	{
+		final int word = (int) (bitOffset >>> 6);
+		final int shift = (int) (bitOffset & 63);
+		long bits = words[word] >>> shift;
+		if (shift + numBits > 64)
+			bits |= words[word + 1] << (64 - shift);
+		return (int) (bits & ((1L << numBits) - 1));
+	}
+
+}
@@ -0,0 +1,604 @@
+package org.janelia.saalfeldlab.paintera.data.mask;
+
+import net.imglib2.cache.Cache;
+import net.imglib2.cache.img.CachedCellImg;
+import net.imglib2.img.basictypeaccess.volatiles.array.DirtyVolatileLongArray;
+import net.imglib2.img.cell.Cell;
+import net.imglib2.img.cell.CellGrid;
+import net.imglib2.type.label.Label;
+import net.imglib2.type.numeric.integer.UnsignedLongType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Storage for the cells of a canvas. A bounded number of recently used cells is held decoded. Cells that are
+ * evicted after they were painted into are kept as {@link CompactCanvasCell compact encodings} and decoded again
+ * on demand. Encodings that exceed their memory budget are spilled to files in a directory. Cells that were never
+ * painted into read from a single background array shared by all cells of the same size and never allocate storage
+ * of their own, see {@link CopyOnWriteDirtyVolatileLongArray}.
+ *
+ * Writers typically hold on to the access of a cell rather than the cell itself, e.g. through
+ * {@code type.updateContainer}. An evicted cell is therefore only encoded once its access is not referenced anymore
+ * and cannot receive any more writes. Until then, the same access is returned for its key.
+ *
+ * Lookups of resident cells do not lock: they only mark the cell as referenced for the clock (second chance)
+ * eviction. The cache is locked on misses, which also store the evicted cells whose accesses were collected.
+ */
+public class CompactCanvasCellCache implements Cache<Long, Cell<DirtyVolatileLongArray>>
+{
+
+	private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	public static final long DEFAULT_MAX_RESIDENT_BYTES = Runtime.getRuntime().maxMemory() / 10;
+
+	public static final long DEFAULT_MAX_ENCODED_BYTES = Runtime.getRuntime().maxMemory() / 20;
+
+	/**
+	 * Charged for cells that read from the shared background, to bound the number of resident cells.
+	 */
+	private static final long SHARED_CELL_SIZE_IN_BYTES = 256;
+
+	private final CellGrid grid;
+
+	private final long background;
+
+	private final long maxResidentBytes;
+
+	private final long maxEncodedBytes;
+
+	private final Path spillDirectory;
+
+	// modified while holding this
+	private final ConcurrentHashMap<Long, CellStorage> resident = new ConcurrentHashMap<>();
+
+	// resident cells in eviction order, may contain cells that are not resident anymore, guarded by this
+	private final ArrayDeque<CellStorage> clock = new ArrayDeque<>();
+
+	// guarded by this
+	private long residentBytes = 0;
+
+	// guarded by this
+	private final Map<Long, EvictedAccess> evicted = new HashMap<>();
+
+	private final ReferenceQueue<DirtyVolatileLongArray> collectedAccesses = new ReferenceQueue<>();
+
+	// values are either CompactCanvasCell or the Path of a spilled encoding, guarded by this
+	private final LinkedHashMap<Long, Object> encoded = new LinkedHashMap<>();
+
+	// guarded by this
+	private long encodedBytes = 0;
+
+	// guarded by this
+	private long numSpilledFiles = 0;
+
+	private final ConcurrentHashMap<Integer, long[]> sharedBackground = new ConcurrentHashMap<>();
+
+	/**
+	 *
+	 * @param grid cell grid of the canvas
+	 * @param background initial value of all voxels
+	 * @param maxResidentBytes evict decoded cells once they take more memory
+	 */
+	public CompactCanvasCellCache(final CellGrid grid, final long background, final long maxResidentBytes)
+	{
+		this(grid, background, maxResidentBytes, Long.MAX_VALUE, null);
+	}
+
+	/**
+	 *
+	 * @param grid cell grid of the canvas
+	 * @param background initial value of all voxels
+	 * @param maxResidentBytes evict decoded cells once they take more memory
+	 * @param maxEncodedBytes spill encoded cells to {@code spillDirectory} once they take more memory
+	 * @param spillDirectory receives encoded cells that exceed {@code maxEncodedBytes}, encoded cells are kept in
+	 * memory if {@code null}
+	 */
+	public CompactCanvasCellCache(
+			final CellGrid grid,
+			final long background,
+			final long maxResidentBytes,
+			final long maxEncodedBytes,
+			final Path spillDirectory)
+	{
+		this.grid = grid;
+		this.background = background;
+		this.maxResidentBytes = maxResidentBytes;
+		this.maxEncodedBytes = maxEncodedBytes;
+		this.spillDirectory = spillDirectory;
+	}
+
+	/**
+	 * Create a canvas that is initialized with {@link Label#INVALID}.
+	 *
+	 * @param dimensions dimensions of the canvas
+	 * @param blockSize cell size of the canvas
+	 * @param maxResidentBytes evict decoded cells once they take more memory
+	 * @return canvas backed by a {@link CompactCanvasCellCache}
+	 */
+	public static CachedCellImg<UnsignedLongType, DirtyVolatileLongArray> createCanvas(
+			final long[] dimensions,
+			final int[] blockSize,
+			final long maxResidentBytes)
+	{
+		return createCanvas(dimensions, blockSize, maxResidentBytes, Long.MAX_VALUE, null);
+	}
+
+	/**
+	 * Create a canvas that is initialized with {@link Label#INVALID}.
+	 *
+	 * @param dimensions dimensions of the canvas
+	 * @param blockSize cell size of the canvas
+	 * @param maxResidentBytes evict decoded cells once they take more memory
+	 * @param maxEncodedBytes spill encoded cells to {@code spillDirectory} once they take more memory
+	 * @param spillDirectory receives encoded cells that exceed {@code maxEncodedBytes}
+	 * @return canvas backed by a {@link CompactCanvasCellCache}
+	 */
+	public static CachedCellImg<UnsignedLongType, DirtyVolatileLongArray> createCanvas(
+			final long[] dimensions,
+			final int[] blockSize,
+			final long maxResidentBytes,
+			final long maxEncodedBytes,
+			final Path spillDirectory)
+	{
+		final CellGrid grid = new CellGrid(dimensions, blockSize);
+		final CompactCanvasCellCache cache = new CompactCanvasCellCache(grid, Label.INVALID, maxResidentBytes, maxEncodedBytes, spillDirectory);
+		return new CachedCellImg<>(grid, new UnsignedLongType(), cache, new DirtyVolatileLongArray(1, true));
+	}
+
+	/**
+	 *
+	 * @return number of cells that were painted into and evicted
+	 */
+	public synchronized int getNumEncodedCells()
+	{
+		return encoded.size();
+	}
+
+	/**
+	 *
+	 * @return approximate size of all encoded cells that are held in memory in bytes
+	 */
+	public synchronized long getEncodedSizeInBytes()
+	{
+		return encodedBytes;
+	}
+
+	@Override
+	public Cell<DirtyVolatileLongArray> getIfPresent(final Long key)
+	{
+		final Cell<DirtyVolatileLongArray> residentCell = getResident(key);
+		if (residentCell != null)
+			return residentCell;
+
+		synchronized (this)
+		{
+			storeCollectedCells();
+			return lookup(key);
+		}
+	}
+
+	@Override
+	public Cell<DirtyVolatileLongArray> get(final Long key)
+	{
+		final Cell<DirtyVolatileLongArray> residentCell = getResident(key);
+		if (residentCell != null)
+			return residentCell;
+
+		while (true)
+		{
+			final Object encoding;
+			synchronized (this)
+			{
+				storeCollectedCells();
+				final Cell<DirtyVolatileLongArray> cell = lookup(key);
+				if (cell != null)
+					return cell;
+				encoding = encoded.get(key);
+			}
+
+			// decode outside of lock
+			final CellStorage storage = new CellStorage(key, numEntities(key));
+			final Cell<DirtyVolatileLongArray> cell;
+			try
+			{
+				cell = createCell(key, decode(storage, encoding));
+			} catch (final UncheckedIOException e)
+			{
+				synchronized (this)
+				{
+					// spilled encoding was replaced or invalidated while decoding
+					if (encoded.get(key) != encoding)
+						continue;
+				}
+				throw e;
+			}
+
+			synchronized (this)
+			{
+				final Cell<DirtyVolatileLongArray> concurrentlyLoaded = lookup(key);
+				if (concurrentlyLoaded != null)
+					return concurrentlyLoaded;
+				// cell was evicted and stored with a newer encoding while decoding
+				if (encoded.get(key) != encoding)
+					continue;
+				admit(storage, cell);
+				return cell;
+			}
+		}
+	}
+
+	public void persist(final Long key)
+	{
+		// cells are held in memory
+	}
+
+	public void persistIf(final Predicate<Long> condition)
+	{
+		// cells are held in memory
+	}
+
+	public void persistAll()
+	{
+		// cells are held in memory
+	}
+
+	@Override
+	public void invalidate(final Long key)
+	{
+		synchronized (this)
+		{
+			final CellStorage storage = resident.remove(key);
+			if (storage != null)
+				residentBytes -= storage.chargedBytes;
+			evicted.remove(key);
+			removeEncoding(key);
+			removeStaleFromClock();
+		}
+	}
+
+	@Override
+	public void invalidateIf(final long parallelismThreshold, final Predicate<Long> condition)
+	{
+		synchronized (this)
+		{
+			for (final Iterator<CellStorage> it = resident.values().iterator(); it.hasNext(); )
+			{
+				final CellStorage storage = it.next();
+				if (condition.test(storage.key))
+				{
+					residentBytes -= storage.chargedBytes;
+					it.remove();
+				}
+			}
+			evicted.keySet().removeIf(condition);
+			for (final Long key : encoded.keySet().stream().filter(condition).toArray(Long[]::new))
+				removeEncoding(key);
+			removeStaleFromClock();
+		}
+	}
+
+	@Override
+	public void invalidateAll(final long parallelismThreshold)
+	{
+		synchronized (this)
+		{
+			resident.clear();
+			clock.forEach(storage -> storage.isInClock = false);
+			clock.clear();
+			residentBytes = 0;
+			evicted.clear();
+			for (final Long key : encoded.keySet().toArray(new Long[0]))
+				removeEncoding(key);
+		}
+	}
+
+	private Cell<DirtyVolatileLongArray> getResident(final Long key)
+	{
+		final CellStorage storage = resident.get(key);
+		if (storage == null)
+			return null;
+		// null if evicted concurrently
+		final Cell<DirtyVolatileLongArray> cell = storage.cell;
+		if (cell != null && !storage.isReferenced)
+			storage.isReferenced = true;
+		return cell;
+	}
+
+	// must hold lock
+	private Cell<DirtyVolatileLongArray> lookup(final Long key)
+	{
+		final Cell<DirtyVolatileLongArray> residentCell = getResident(key);
+		if (residentCell != null)
+			return residentCell;
+
+		final EvictedAccess ref = evicted.remove(key);
+		if (ref == null)
+			return null;
+
+		final DirtyVolatileLongArray stillReferenced = ref.get();
+		if (stillReferenced == null)
+		{
+			// cannot receive any more writes, store it before the stale encoding is decoded
+			store(ref.storage);
+			return null;
+		}
+		final Cell<DirtyVolatileLongArray> cell = createCell(key, stillReferenced);
+		admit(ref.storage, cell);
+		return cell;
+	}
+
+	// must hold lock
+	private void admit(final CellStorage storage, final Cell<DirtyVolatileLongArray> cell)
+	{
+		storage.cell = cell;
+		storage.chargedBytes = sizeInBytes(storage);
+		// give newly admitted cells a second chance
+		storage.isReferenced = true;
+		resident.put(storage.key, storage);
+		if (!storage.isInClock)
+		{
+			storage.isInClock = true;
+			clock.addLast(storage);
+		}
+		residentBytes += storage.chargedBytes;
+		evictIfNecessary();
+	}
+
+	// must hold lock
+	private void evictIfNecessary()
+	{
+		// keep at least one cell
+		while (residentBytes > maxResidentBytes && resident.size() > 1 && !clock.isEmpty())
+		{
+			final CellStorage storage = clock.pollFirst();
+			storage.isInClock = false;
+			if (resident.get(storage.key) != storage)
+				continue;
+			if (storage.isReferenced)
+			{
+				storage.isReferenced = false;
+				storage.isInClock = true;
+				clock.addLast(storage);
+				continue;
+			}
+			resident.remove(storage.key);
+			residentBytes -= storage.chargedBytes;
+			// the access may still be written to: store it only once it was garbage collected
+			evicted.put(storage.key, new EvictedAccess(storage, collectedAccesses));
+			storage.cell = null;
+		}
+	}
+
+	// must hold lock
+	private void removeStaleFromClock()
+	{
+		// drop invalidated cells once they make up the majority of the clock
+		if (clock.size() <= 2 * resident.size())
+			return;
+		clock.removeIf(storage -> {
+			final boolean isStale = resident.get(storage.key) != storage;
+			if (isStale)
+				storage.isInClock = false;
+			return isStale;
+		});
+	}
+
+	// must hold lock
+	private void storeCollectedCells()
+	{
+		for (Reference<? extends DirtyVolatileLongArray> ref; (ref = collectedAccesses.poll()) != null; )
+		{
+			final EvictedAccess evictedAccess = (EvictedAccess) ref;
+			// ignore accesses that were admitted again or invalidated
+			if (evicted.remove(evictedAccess.storage.key, evictedAccess))
+				store(evictedAccess.storage);
+		}
+	}
+
+	// must hold lock
+	private void store(final CellStorage storage)
+	{
+		if (storage.isShared)
+		{
+			removeEncoding(storage.key);
+			return;
+		}
+		final CompactCanvasCell encoding = CompactCanvasCell.encode(storage.data, storage.numEntities);
+		LOG.trace("Encoded canvas cell with {} voxels into {} bytes", storage.numEntities, encoding.getSizeInBytes());
+		removeEncoding(storage.key);
+		if (encoding.isUniform() && encoding.getUniformValue() == background)
+			return;
+		encoded.put(storage.key, encoding);
+		encodedBytes += encoding.getSizeInBytes();
+		spillIfNecessary();
+	}
+
+	// must hold lock
+	private void spillIfNecessary()
+	{
+		if (spillDirectory == null)
+			return;
+		for (final Iterator<Map.Entry<Long, Object>> it = encoded.entrySet().iterator(); encodedBytes > maxEncodedBytes && it.hasNext(); )
+		{
+			final Map.Entry<Long, Object> entry = it.next();
+			if (!(entry.getValue() instanceof CompactCanvasCell))
+				continue;
+			final CompactCanvasCell encoding = (CompactCanvasCell) entry.getValue();
+			// unique file names: a file may still be read by a concurrent decode after it was replaced
+			final Path file = spillDirectory.resolve(entry.getKey() + "-" + numSpilledFiles++);
+			try
+			{
+				Files.createDirectories(spillDirectory);
+				try (final OutputStream os = Files.newOutputStream(file); final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os)))
+				{
+					encoding.writeTo(out);
+				}
+			} catch (final IOException e)
+			{
+				LOG.warn("Unable to spill canvas cell {} to {}, keeping it in memory", entry.getKey(), file, e);
+				return;
+			}
+			entry.setValue(file);
+			encodedBytes -= encoding.getSizeInBytes();
+		}
+	}
+
+	// must hold lock
+	private void removeEncoding(final Long key)
+	{
+		final Object encoding = encoded.remove(key);
+		if (encoding instanceof CompactCanvasCell)
+			encodedBytes -= ((CompactCanvasCell) encoding).getSizeInBytes();
+		else if (encoding instanceof Path)
+			deleteSpilled((Path) encoding);
+	}
+
+	private static void deleteSpilled(final Path file)
+	{
+		try
+		{
+			Files.deleteIfExists(file);
+		} catch (final IOException e)
+		{
+			LOG.debug("Unable to delete spilled canvas cell {}", file, e);
+		}
+	}
+
+	private DirtyVolatileLongArray decode(final CellStorage storage, final Object encoding)
+	{
+		final CompactCanvasCell compactCell = encoding instanceof Path ? readSpilled((Path) encoding) : (CompactCanvasCell) encoding;
+		if (compactCell == null || compactCell.isUniform() && compactCell.getUniformValue() == background)
+		{
+			storage.data = sharedBackground.computeIfAbsent(storage.numEntities, this::backgroundArray);
+			storage.isShared = true;
+			return new CopyOnWriteDirtyVolatileLongArray(storage.data, true, copy -> copied(storage, copy));
+		}
+		final long[] data = new long[storage.numEntities];
+		compactCell.decodeInto(data);
+		storage.data = data;
+		storage.isShared = false;
+		return new DirtyVolatileLongArray(data, true);
+	}
+
+	private static CompactCanvasCell readSpilled(final Path file)
+	{
+		try (final InputStream is = Files.newInputStream(file); final DataInputStream in = new DataInputStream(new BufferedInputStream(is)))
+		{
+			return CompactCanvasCell.readFrom(in);
+		} catch (final IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private synchronized void copied(final CellStorage storage, final long[] copy)
+	{
+		storage.data = copy;
+		storage.isShared = false;
+		if (resident.get(storage.key) == storage)
+		{
+			final long size = sizeInBytes(storage);
+			residentBytes += size - storage.chargedBytes;
+			storage.chargedBytes = size;
+			evictIfNecessary();
+		}
+	}
+
+	private Cell<DirtyVolatileLongArray> createCell(final long index, final DirtyVolatileLongArray access)
+	{
+		final long[] cellMin = new long[grid.numDimensions()];
+		final int[] cellDims = new int[grid.numDimensions()];
+		grid.getCellDimensions(index, cellMin, cellDims);
+		return new Cell<>(cellDims, cellMin, access);
+	}
+
+	private int numEntities(final long index)
+	{
+		final long[] cellMin = new long[grid.numDimensions()];
+		final int[] cellDims = new int[grid.numDimensions()];
+		grid.getCellDimensions(index, cellMin, cellDims);
+		int numEntities = 1;
+		for (final int dim : cellDims)
+			numEntities *= dim;
+		return numEntities;
+	}
+
+	private long[] backgroundArray(final int numEntities)
+	{
+		final long[] data = new long[numEntities];
+		Arrays.fill(data, background);
+		return data;
+	}
+
+	private static long sizeInBytes(final CellStorage storage)
+	{
+		return storage.isShared ? SHARED_CELL_SIZE_IN_BYTES : (long) storage.numEntities * Long.BYTES;
+	}
+
+	/**
+	 * Storage of a cell that outlives its access, such that the cell can be encoded after its access was
+	 * garbage collected.
+	 */
+	private static final class CellStorage
+	{
+		private final long key;
+
+		private final int numEntities;
+
+		private volatile long[] data;
+
+		private volatile boolean isShared;
+
+		// set while holding the cache, only set while resident
+		private volatile Cell<DirtyVolatileLongArray> cell;
+
+		private volatile boolean isReferenced;
+
+		// guarded by cache
+		private boolean isInClock;
+
+		// guarded by cache
+		private long chargedBytes;
+
+		private CellStorage(final long key, final int numEntities)
+		{
+			this.key = key;
+			this.numEntities = numEntities;
+		}
+	}
+
+	private static final class EvictedAccess extends WeakReference<DirtyVolatileLongArray>
+	{
+		private final CellStorage storage;
+
+		private EvictedAccess(final CellStorage storage, final ReferenceQueue<DirtyVolatileLongArray> queue)
+		{
+			super(storage.cell.getData(), queue);
+			this.storage = storage;
+		}
+	}
+
+}
@@ -0,0 +1,77 @@
+package org.janelia.saalfeldlab.paintera.data.mask;
+
+import net.imglib2.img.basictypeaccess.volatiles.array.DirtyVolatileLongArray;
+
+import java.util.function.Consumer;
+
+/**
+ * {@link DirtyVolatileLongArray} that reads from an array shared with other cells, e.g. filled with background, and
+ * copies it on first write. Cells that are only read never allocate storage of their own.
+ */
+public class CopyOnWriteDirtyVolatileLongArray extends DirtyVolatileLongArray
+{
+
+	private volatile boolean isShared;
+
+	private final Consumer<long[]> onCopy;
+
+	/**
+	 *
+	 * @param sharedData shared with other accesses, will not be modified
+	 * @param isValid validity of the access
+	 */
+	public CopyOnWriteDirtyVolatileLongArray(final long[] sharedData, final boolean isValid)
+	{
+		this(sharedData, isValid, copy -> {});
+	}
+
+	/**
+	 *
+	 * @param sharedData shared with other accesses, will not be modified
+	 * @param isValid validity of the access
+	 * @param onCopy called with the copy of {@code sharedData} on first write, before the write
+	 */
+	public CopyOnWriteDirtyVolatileLongArray(final long[] sharedData, final boolean isValid, final Consumer<long[]> onCopy)
+	{
+		super(sharedData, isValid);
+		this.isShared = true;
+		this.onCopy = onCopy;
+	}
+
+	/**
+	 *
+	 * @return {@code true} if this access has not been written to and still reads from the shared array
+	 */
+	public boolean isShared()
+	{
+		return isShared;
+	}
+
+	@Override
+	public void setValue(final int index, final long value)
+	{
+		if (isShared)
+			copySharedData();
+		super.setValue(index, value);
+	}
+
+	@Override
+	public long[] getCurrentStorageArray()
+	{
+		// callers may write into the storage array directly
+		if (isShared)
+			copySharedData();
+		return super.getCurrentStorageArray();
+	}
+
+	private synchronized void copySharedData()
+	{
+		if (isShared)
+		{
+			data = data.clone();
+			isShared = false;
+			onCopy.accept(data);
+		}
+	}
+
+}
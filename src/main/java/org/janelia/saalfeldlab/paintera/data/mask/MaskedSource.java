@@ -1,5 +1,7 @@
 package org.janelia.saalfeldlab.paintera.data.mask;
 
+import bdv.fx.viewer.render.CacheHintsSource;
+import bdv.img.cache.VolatileCachedCellImg;
 import bdv.util.volatiles.SharedQueue;
 import bdv.util.volatiles.VolatileViews;
 import bdv.viewer.Interpolation;
@@ -40,7 +42,6 @@ import net.imglib2.RealRandomAccessibleRealInterval;
 import net.imglib2.algorithm.util.Grids;
 import net.imglib2.cache.Invalidate;
 import net.imglib2.cache.img.CachedCellImg;
-import net.imglib2.cache.img.CellLoader;
 import net.imglib2.cache.img.DiskCachedCellImg;
 import net.imglib2.cache.img.DiskCachedCellImgFactory;
 import net.imglib2.cache.img.DiskCachedCellImgOptions;
@@ -89,7 +90,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.invoke.MethodHandles;
-import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -98,7 +98,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.DoubleStream;
@@ -140,7 +143,7 @@ import java.util.stream.Stream;
  * @param <D> data type
  * @param <T> viewer type
  */
-public class MaskedSource<D extends Type<D>, T extends Type<T>> implements DataSource<D, T>
+public class MaskedSource<D extends Type<D>, T extends Type<T>> implements DataSource<D, T>, CacheHintsSource
 {
 	private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
@@ -152,7 +155,7 @@ public class MaskedSource<D extends Type<D>, T extends Type<T>> implements DataS
 
 	private final SharedQueue queue;
 
-	private final DiskCachedCellImg<UnsignedLongType, LongAccess>[] dataCanvases;
+	private final CachedCellImg<UnsignedLongType, LongAccess>[] dataCanvases;
 
 	private final TmpVolatileHelpers.RaiWithInvalidate<VolatileUnsignedLongType>[] canvases;
 
@@ -246,7 +249,7 @@ public class MaskedSource<D extends Type<D>, T extends Type<T>> implements DataS
 				.mapToObj(level -> Intervals.dimensionsAsLongArray(this.source.getSource(0, level)))
 				.toArray(long[][]::new);
 		this.blockSizes = blockSizes;
-		this.dataCanvases = new DiskCachedCellImg[source.getNumMipmapLevels()];
+		this.dataCanvases = new CachedCellImg[source.getNumMipmapLevels()];
 		this.canvases = new TmpVolatileHelpers.RaiWithInvalidate[source.getNumMipmapLevels()];
 		this.dMasks = new RealRandomAccessible[this.canvases.length];
 		this.tMasks = new RealRandomAccessible[this.canvases.length];
@@ -462,32 +465,32 @@ public class MaskedSource<D extends Type<D>, T extends Type<T>> implements DataS
 			LOG.debug("Added affected block: {}", affectedBlocksByLabel[maskInfo.level]);
 			this.affectedBlocks.addAll(paintedBlocksAtHighestResolution);
 
-			propagationExecutor.submit(() -> {
-				try {
-					propagateMask(
-							mask.mask,
-							affectedBlocks,
-							maskInfo.level,
-							maskInfo.value,
-							paintedInterval,
-							acceptAsPainted);
-					setMasksConstant();
-					synchronized (this) {
-						LOG.debug("Done applying mask!");
-						this.isApplyingMask.set(false);
-					}
-				} finally {
-					// free resources
-					if (currentMaskBeforePropagation != null) {
-						if (currentMaskBeforePropagation.shutdown != null)
-							currentMaskBeforePropagation.shutdown.run();
-						if (currentMaskBeforePropagation.invalidate != null)
-							currentMaskBeforePropagation.invalidate.invalidateAll();
-						if (currentMaskBeforePropagation.invalidateVolatile != null)
-							currentMaskBeforePropagation.invalidateVolatile.invalidateAll();
-					}
+			// blocks are propagated in parallel on the propagation executor, this thread only waits for
+			// levels to complete. Do not submit this to the propagation executor to avoid starving it.
+			try {
+				propagateMask(
+						mask.mask,
+						affectedBlocks,
+						maskInfo.level,
+						maskInfo.value,
+						paintedInterval,
+						acceptAsPainted);
+				setMasksConstant();
+				synchronized (this) {
+					LOG.debug("Done applying mask!");
+					this.isApplyingMask.set(false);
 				}
-			});
+			} finally {
+				// free resources
+				if (currentMaskBeforePropagation != null) {
+					if (currentMaskBeforePropagation.shutdown != null)
+						currentMaskBeforePropagation.shutdown.run();
+					if (currentMaskBeforePropagation.invalidate != null)
+						currentMaskBeforePropagation.invalidate.invalidateAll();
+					if (currentMaskBeforePropagation.invalidateVolatile != null)
+						currentMaskBeforePropagation.invalidateVolatile.invalidateAll();
+				}
+			}
 
 		}).start();
 
@@ -632,11 +635,14 @@ public class MaskedSource<D extends Type<D>, T extends Type<T>> implements DataS
 				}
 				try {
 					states.add("Persisting painted labels...");
-					final List<TLongObjectMap<PersistCanvas.BlockDiff>> blockDiffs = this.persistCanvas.persistCanvas(canvas, affectedBlocks);
+					final List<TLongObjectMap<PersistCanvas.BlockDiff>> blockDiffs = this.persistCanvas.persistCanvas(
+							canvas,
+							affectedBlocks,
+							progressAsLastState(states, "Persisting painted labels..."));
 					states.set(states.size() - 1, "Persisting painted labels...   Done");
 					if (this.persistCanvas.supportsLabelBlockLookupUpdate()) {
 						states.add("Updating label-to-block lookup...");
-						this.persistCanvas.updateLabelBlockLookup(blockDiffs);
+						this.persistCanvas.updateLabelBlockLookup(blockDiffs, progressAsLastState(states, "Updating label-to-block lookup..."));
 						states.set(states.size() - 1, "Updating label-to-block lookup...   Done");
 					}
 					if (clearCanvas) {
@@ -679,6 +685,19 @@ public class MaskedSource<D extends Type<D>, T extends Type<T>> implements DataS
 		return source.isPresent(t);
 	}
 
+	@Override
+	public void setCacheHints(final int t, final int level, final CacheHints hints)
+	{
+		if (source instanceof CacheHintsSource)
+			((CacheHintsSource) source).setCacheHints(t, level, hints);
+		else
+		{
+			final RandomAccessibleInterval<T> img = source.getSource(t, level);
+			if (img instanceof VolatileCachedCellImg<?, ?>)
+				((VolatileCachedCellImg<?, ?>) img).setCacheHints(hints);
+		}
+	}
+
 	@Override
 	public RandomAccessibleInterval<T> getSource(final int t, final int level)
 	{
@@ -823,27 +842,76 @@ public class MaskedSource<D extends Type<D>, T extends Type<T>> implements DataS
 			final int[] steps,
 			final Interval interval)
 	{
-		final BlockSpec blockSpec = new BlockSpec(img.getCellGrid());
-
-		final long[] intersectedCellMin = new long[blockSpec.grid.numDimensions()];
-		final long[] intersectedCellMax = new long[blockSpec.grid.numDimensions()];
+		LOG.debug("Initializing affected blocks: {}", affectedBlocks);
+		for (final TLongIterator it = affectedBlocks.iterator(); it.hasNext(); )
+			downsampleBlock(source, img, it.next(), steps, interval);
+	}
 
+	/**
+	 * Downsample affected blocks of img in parallel. Returns when all blocks are downsampled.
+	 * @param source
+	 * @param img
+	 * @param affectedBlocks
+	 * @param steps
+	 * @param interval
+	 * @param executor downsample blocks on this executor
+	 */
+	public static void downsampleBlocks(
+			final RandomAccessible<UnsignedLongType> source,
+			final CachedCellImg<UnsignedLongType, LongAccess> img,
+			final TLongSet affectedBlocks,
+			final int[] steps,
+			final Interval interval,
+			final ExecutorService executor)
+	{
 		LOG.debug("Initializing affected blocks: {}", affectedBlocks);
+		final List<Callable<Void>> tasks = new ArrayList<>();
 		for (final TLongIterator it = affectedBlocks.iterator(); it.hasNext(); )
 		{
 			final long blockId = it.next();
-			blockSpec.fromLinearIndex(blockId);
+			tasks.add(() -> {
+				downsampleBlock(source, img, blockId, steps, interval);
+				return null;
+			});
+		}
+		invokeAllAndWait(executor, tasks);
+	}
 
-			Arrays.setAll(intersectedCellMin, d -> blockSpec.min[d]);
-			Arrays.setAll(intersectedCellMax, d -> blockSpec.max[d]);
+	private static void downsampleBlock(
+			final RandomAccessible<UnsignedLongType> source,
+			final CachedCellImg<UnsignedLongType, LongAccess> img,
+			final long blockId,
+			final int[] steps,
+			final Interval interval)
+	{
+		final BlockSpec blockSpec = new BlockSpec(img.getCellGrid());
+		blockSpec.fromLinearIndex(blockId);
 
-			intersect(intersectedCellMin, intersectedCellMax, interval);
+		final long[] intersectedCellMin = blockSpec.min.clone();
+		final long[] intersectedCellMax = blockSpec.max.clone();
 
-			if (isNonEmpty(intersectedCellMin, intersectedCellMax))
-			{
-				LOG.trace("Downsampling for intersected min/max: {} {}", intersectedCellMin, intersectedCellMax);
-				downsample(source, Views.interval(img, intersectedCellMin, intersectedCellMax), steps);
-			}
+		intersect(intersectedCellMin, intersectedCellMax, interval);
+
+		if (isNonEmpty(intersectedCellMin, intersectedCellMax))
+		{
+			LOG.trace("Downsampling for intersected min/max: {} {}", intersectedCellMin, intersectedCellMax);
+			downsample(source, Views.interval(img, intersectedCellMin, intersectedCellMax), steps);
+		}
+	}
+
+	private static void invokeAllAndWait(final ExecutorService executor, final List<? extends Callable<Void>> tasks)
+	{
+		try
+		{
+			for (final Future<Void> future : executor.invokeAll(tasks))
+				future.get();
+		} catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (final ExecutionException e)
+		{
+			throw new RuntimeException(e.getCause());
 		}
 	}
 
@@ -920,6 +988,12 @@ public class MaskedSource<D extends Type<D>, T extends Type<T>> implements DataS
 				TLongHashSet::new);
 	}
 
+	/**
+	 * Propagate a mask that was painted at {@code paintedLevel} into the canvases of all other levels.
+	 * Blocks within a level are independent and processed in parallel on the propagation executor.
+	 * Upsampling into finer levels only depends on the mask and all levels are processed concurrently.
+	 * Downsampling into level {@code l} reads level {@code l - 1}, i.e. coarser levels are processed in order.
+	 */
 	private void propagateMask(
 			final RandomAccessibleInterval<UnsignedLongType> mask,
 			final TLongSet paintedBlocksAtPaintedScale,
@@ -929,57 +1003,7 @@ public class MaskedSource<D extends Type<D>, T extends Type<T>> implements DataS
 			final Predicate<UnsignedLongType> isPaintedForeground)
 	{
 
-		for (int level = paintedLevel + 1; level < getNumMipmapLevels(); ++level)
-		{
-			final int                                         levelAsFinal          = level;
-			final RandomAccessibleInterval<UnsignedLongType>  atLowerLevel          = dataCanvases[level - 1];
-			final CachedCellImg<UnsignedLongType, LongAccess> atHigherLevel         = dataCanvases[level];
-			final double[]                                    relativeScales        = DataSource.getRelativeScales(
-					this,
-					0,
-					level - 1,
-					level);
-			final Interval                                    intervalAtHigherLevel = scaleIntervalToLevel(
-					intervalAtPaintedScale,
-					paintedLevel,
-					levelAsFinal);
-
-			LOG.debug("Downsampling level {} of {}", level, getNumMipmapLevels());
-
-			if (DoubleStream.of(relativeScales).filter(d -> Math.round(d) != d).count() > 0)
-			{
-				LOG.error(
-						"Non-integer relative scales found for levels {} and {}: {} -- this does not make sense for " +
-								"label data -- aborting.",
-						level - 1,
-						level,
-						relativeScales
-				         );
-				throw new RuntimeException("Non-integer relative scales: " + Arrays.toString(relativeScales));
-			}
-			final TLongSet affectedBlocksAtHigherLevel = this.scaleBlocksToLevel(
-					paintedBlocksAtPaintedScale,
-					paintedLevel,
-					level);
-			LOG.debug("Affected blocks at level {}: {}", level, affectedBlocksAtHigherLevel);
-			this.affectedBlocksByLabel[level].computeIfAbsent(label.getIntegerLong(), key -> new TLongHashSet())
-					.addAll(
-					affectedBlocksAtHigherLevel);
-
-			LOG.debug("Interval at higher level: {} {}", Intervals.minAsLongArray(intervalAtHigherLevel), Intervals.maxAsLongArray(intervalAtHigherLevel));
-
-			// downsample
-			final int[] steps = DoubleStream.of(relativeScales).mapToInt(d -> (int) d).toArray();
-			LOG.debug("Downsample step size: {}", steps);
-			downsampleBlocks(
-					Views.extendValue(atLowerLevel, new UnsignedLongType(Label.INVALID)),
-					atHigherLevel,
-					affectedBlocksAtHigherLevel,
-					steps,
-					intervalAtHigherLevel);
-			LOG.debug("Downsampled level {}", level);
-		}
-
+		final List<Callable<Void>> upsamplingTasks = new ArrayList<>();
 		for (int level = paintedLevel - 1; level >= 0; --level)
 		{
 			LOG.debug("Upsampling for level={}", level);
@@ -988,12 +1012,6 @@ public class MaskedSource<D extends Type<D>, T extends Type<T>> implements DataS
 					paintedLevel,
 					level
 			                                                                                );
-			final double[] currentRelativeScaleFromTargetToPainted = DataSource.getRelativeScales(
-					this,
-					0,
-					level,
-					paintedLevel
-			                                                                                     );
 			this.affectedBlocksByLabel[level].computeIfAbsent(label.getIntegerLong(), key -> new TLongHashSet())
 					.addAll(
 					affectedBlocksAtLowerLevel);
@@ -1004,99 +1022,188 @@ public class MaskedSource<D extends Type<D>, T extends Type<T>> implements DataS
 					level
 			                                                                  );
 
-			// upsample
-			final CachedCellImg<UnsignedLongType, LongAccess> canvasAtTargetLevel = dataCanvases[level];
-			final CellGrid                                    gridAtTargetLevel   = canvasAtTargetLevel.getCellGrid();
-			final int[]                                       blockSize           = new int[gridAtTargetLevel
-					.numDimensions()];
-			gridAtTargetLevel.cellDimensions(blockSize);
-
-			final long[]                                 cellPosTarget  = new long[gridAtTargetLevel.numDimensions()];
-			final long[]                                 minTarget      = new long[gridAtTargetLevel.numDimensions()];
-			final long[]                                 maxTarget      = new long[gridAtTargetLevel.numDimensions()];
-			final long[]                                 stopTarget     = new long[gridAtTargetLevel.numDimensions()];
-			final long[]                                 minPainted     = new long[minTarget.length];
-			final long[]                                 maxPainted     = new long[minTarget.length];
-
-			final RealRandomAccessible<UnsignedLongType> scaledMask = this.dMasks[level];
-
+			final int                                    levelAsFinal = level;
+			final RealRandomAccessible<UnsignedLongType> scaledMask   = this.dMasks[level];
 			for (final TLongIterator blockIterator = affectedBlocksAtLowerLevel.iterator(); blockIterator.hasNext(); )
 			{
 				final long blockId = blockIterator.next();
-				gridAtTargetLevel.getCellGridPositionFlat(blockId, cellPosTarget);
-				Arrays.setAll(
-						minTarget,
-						d -> Math.min(cellPosTarget[d] * blockSize[d], gridAtTargetLevel.imgDimension(d) - 1)
-				             );
-				Arrays.setAll(
-						maxTarget,
-						d -> Math.min(minTarget[d] + blockSize[d], gridAtTargetLevel.imgDimension(d)) - 1
-				             );
-				Arrays.setAll(stopTarget, d -> maxTarget[d] + 1);
-				this.scalePositionToLevel(minTarget, level, paintedLevel, minPainted);
-				this.scalePositionToLevel(stopTarget, level, paintedLevel, maxPainted);
-				Arrays.setAll(minPainted, d -> Math.min(Math.max(minPainted[d], mask.min(d)), mask.max(d)));
-				Arrays.setAll(maxPainted, d -> Math.min(Math.max(maxPainted[d] - 1, mask.min(d)), mask.max(d)));
-
-				final long[] intersectionMin = minTarget.clone();
-				final long[] intersectionMax = maxTarget.clone();
-
-				intersect(intersectionMin, intersectionMax, paintedIntervalAtTargetLevel);
-
-				if (isNonEmpty(intersectionMin, intersectionMax))
-				{
-
-					LOG.debug("Intersected min={} max={}", intersectionMin, intersectionMax);
-
-					LOG.debug(
-							"Upsampling block: level={}, block min (target)={}, block max (target)={}, block min={}, " +
-									"block max={}, scale={}, mask min={}, mask max={}",
-							level,
-							minTarget,
-							maxTarget,
-							minPainted,
-							maxPainted,
-							currentRelativeScaleFromTargetToPainted,
-							Intervals.minAsLongArray(mask),
-							Intervals.maxAsLongArray(mask)
-					         );
+				upsamplingTasks.add(() -> {
+					upsampleBlock(
+							mask,
+							scaledMask,
+							blockId,
+							levelAsFinal,
+							paintedLevel,
+							paintedIntervalAtTargetLevel,
+							label,
+							isPaintedForeground);
+					return null;
+				});
+			}
+		}
+		final List<Future<Void>> upsampling = new ArrayList<>();
+		for (final Callable<Void> task : upsamplingTasks)
+			upsampling.add(propagationExecutor.submit(task));
 
-					final IntervalView<BoolType> relevantBlockAtPaintedResolution = Views.interval(
-							Converters.convert(mask, (s, t) -> t.set(isPaintedForeground.test(s)), new BoolType()),
-							minPainted,
-							maxPainted
-					                                                                              );
+		try
+		{
+			for (int level = paintedLevel + 1; level < getNumMipmapLevels(); ++level)
+			{
+				final int                                         levelAsFinal          = level;
+				final RandomAccessibleInterval<UnsignedLongType>  atLowerLevel          = dataCanvases[level - 1];
+				final CachedCellImg<UnsignedLongType, LongAccess> atHigherLevel         = dataCanvases[level];
+				final double[]                                    relativeScales        = DataSource.getRelativeScales(
+						this,
+						0,
+						level - 1,
+						level);
+				final Interval                                    intervalAtHigherLevel = scaleIntervalToLevel(
+						intervalAtPaintedScale,
+						paintedLevel,
+						levelAsFinal);
 
-					if (Intervals.numElements(relevantBlockAtPaintedResolution) == 0)
-					{
-						continue;
-					}
+				LOG.debug("Downsampling level {} of {}", level, getNumMipmapLevels());
 
-					LOG.debug(
-							"Upsampling for level {} and intersected intervals ({} {})",
+				if (DoubleStream.of(relativeScales).filter(d -> Math.round(d) != d).count() > 0)
+				{
+					LOG.error(
+							"Non-integer relative scales found for levels {} and {}: {} -- this does not make sense for " +
+									"label data -- aborting.",
+							level - 1,
 							level,
-							intersectionMin,
-							intersectionMax
+							relativeScales
 					         );
-					final Interval                 interval     = new FinalInterval(intersectionMin, intersectionMax);
-					final Cursor<UnsignedLongType> canvasCursor = Views.flatIterable(Views.interval(
-							canvasAtTargetLevel,
-							interval
-					                                                                               )).cursor();
-					final Cursor<UnsignedLongType> maskCursor   = Views.flatIterable(Views.interval(Views.raster(
-							scaledMask), interval)).cursor();
-					while (maskCursor.hasNext())
-					{
-						canvasCursor.fwd();
-						final boolean wasPainted = isPaintedForeground.test(maskCursor.next());
-						if (wasPainted)
-						{
-							canvasCursor.get().set(label);
-						}
-					}
+					throw new RuntimeException("Non-integer relative scales: " + Arrays.toString(relativeScales));
 				}
+				final TLongSet affectedBlocksAtHigherLevel = this.scaleBlocksToLevel(
+						paintedBlocksAtPaintedScale,
+						paintedLevel,
+						level);
+				LOG.debug("Affected blocks at level {}: {}", level, affectedBlocksAtHigherLevel);
+				this.affectedBlocksByLabel[level].computeIfAbsent(label.getIntegerLong(), key -> new TLongHashSet())
+						.addAll(
+						affectedBlocksAtHigherLevel);
+
+				LOG.debug("Interval at higher level: {} {}", Intervals.minAsLongArray(intervalAtHigherLevel), Intervals.maxAsLongArray(intervalAtHigherLevel));
+
+				// downsample
+				final int[] steps = DoubleStream.of(relativeScales).mapToInt(d -> (int) d).toArray();
+				LOG.debug("Downsample step size: {}", steps);
+				downsampleBlocks(
+						Views.extendValue(atLowerLevel, new UnsignedLongType(Label.INVALID)),
+						atHigherLevel,
+						affectedBlocksAtHigherLevel,
+						steps,
+						intervalAtHigherLevel,
+						propagationExecutor);
+				LOG.debug("Downsampled level {}", level);
 			}
 
+			for (final Future<Void> future : upsampling)
+				future.get();
+		} catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (final ExecutionException e)
+		{
+			throw new RuntimeException(e.getCause());
+		} finally
+		{
+			upsampling.forEach(future -> future.cancel(false));
+		}
+	}
+
+	private void upsampleBlock(
+			final RandomAccessibleInterval<UnsignedLongType> mask,
+			final RealRandomAccessible<UnsignedLongType> scaledMask,
+			final long blockId,
+			final int level,
+			final int paintedLevel,
+			final Interval paintedIntervalAtTargetLevel,
+			final UnsignedLongType label,
+			final Predicate<UnsignedLongType> isPaintedForeground)
+	{
+		final CachedCellImg<UnsignedLongType, LongAccess> canvasAtTargetLevel = dataCanvases[level];
+		final CellGrid                                    gridAtTargetLevel   = canvasAtTargetLevel.getCellGrid();
+		final int[]                                       blockSize           = new int[gridAtTargetLevel
+				.numDimensions()];
+		gridAtTargetLevel.cellDimensions(blockSize);
+
+		final long[]                                 cellPosTarget  = new long[gridAtTargetLevel.numDimensions()];
+		final long[]                                 minTarget      = new long[gridAtTargetLevel.numDimensions()];
+		final long[]                                 maxTarget      = new long[gridAtTargetLevel.numDimensions()];
+		final long[]                                 stopTarget     = new long[gridAtTargetLevel.numDimensions()];
+		final long[]                                 minPainted     = new long[minTarget.length];
+		final long[]                                 maxPainted     = new long[minTarget.length];
+
+		gridAtTargetLevel.getCellGridPositionFlat(blockId, cellPosTarget);
+		Arrays.setAll(
+				minTarget,
+				d -> Math.min(cellPosTarget[d] * blockSize[d], gridAtTargetLevel.imgDimension(d) - 1)
+		             );
+		Arrays.setAll(
+				maxTarget,
+				d -> Math.min(minTarget[d] + blockSize[d], gridAtTargetLevel.imgDimension(d)) - 1
+		             );
+		Arrays.setAll(stopTarget, d -> maxTarget[d] + 1);
+		this.scalePositionToLevel(minTarget, level, paintedLevel, minPainted);
+		this.scalePositionToLevel(stopTarget, level, paintedLevel, maxPainted);
+		Arrays.setAll(minPainted, d -> Math.min(Math.max(minPainted[d], mask.min(d)), mask.max(d)));
+		Arrays.setAll(maxPainted, d -> Math.min(Math.max(maxPainted[d] - 1, mask.min(d)), mask.max(d)));
+
+		final long[] intersectionMin = minTarget.clone();
+		final long[] intersectionMax = maxTarget.clone();
+
+		intersect(intersectionMin, intersectionMax, paintedIntervalAtTargetLevel);
+
+		if (!isNonEmpty(intersectionMin, intersectionMax))
+			return;
+
+		LOG.debug("Intersected min={} max={}", intersectionMin, intersectionMax);
+
+		LOG.debug(
+				"Upsampling block: level={}, block min (target)={}, block max (target)={}, block min={}, " +
+						"block max={}, mask min={}, mask max={}",
+				level,
+				minTarget,
+				maxTarget,
+				minPainted,
+				maxPainted,
+				Intervals.minAsLongArray(mask),
+				Intervals.maxAsLongArray(mask)
+		         );
+
+		final IntervalView<BoolType> relevantBlockAtPaintedResolution = Views.interval(
+				Converters.convert(mask, (s, t) -> t.set(isPaintedForeground.test(s)), new BoolType()),
+				minPainted,
+				maxPainted
+		                                                                              );
+
+		if (Intervals.numElements(relevantBlockAtPaintedResolution) == 0)
+			return;
+
+		LOG.debug(
+				"Upsampling for level {} and intersected intervals ({} {})",
+				level,
+				intersectionMin,
+				intersectionMax
+		         );
+		final Interval                 interval     = new FinalInterval(intersectionMin, intersectionMax);
+		final Cursor<UnsignedLongType> canvasCursor = Views.flatIterable(Views.interval(
+				canvasAtTargetLevel,
+				interval
+		                                                                               )).cursor();
+		final Cursor<UnsignedLongType> maskCursor   = Views.flatIterable(Views.interval(Views.raster(
+				scaledMask), interval)).cursor();
+		while (maskCursor.hasNext())
+		{
+			canvasCursor.fwd();
+			final boolean wasPainted = isPaintedForeground.test(maskCursor.next());
+			if (wasPainted)
+			{
+				canvasCursor.get().set(label);
+			}
 		}
 	}
 
@@ -1330,7 +1437,7 @@ public class MaskedSource<D extends Type<D>, T extends Type<T>> implements DataS
 
 		private final SharedQueue queue;
 
-		private final DiskCachedCellImg<UnsignedLongType, ?>[] dataCanvases;
+		private final CachedCellImg<UnsignedLongType, ?>[] dataCanvases;
 
 		private final TmpVolatileHelpers.RaiWithInvalidate<VolatileUnsignedLongType>[] canvases;
 
@@ -1340,7 +1447,7 @@ public class MaskedSource<D extends Type<D>, T extends Type<T>> implements DataS
 
 		public CanvasBaseDirChangeListener(
 				final SharedQueue queue,
-				final DiskCachedCellImg<UnsignedLongType, ?>[] dataCanvases,
+				final CachedCellImg<UnsignedLongType, ?>[] dataCanvases,
 				final TmpVolatileHelpers.RaiWithInvalidate<VolatileUnsignedLongType>[] canvases,
 				final long[][] dimensions,
 				final int[][] blockSizes)
@@ -1364,35 +1471,24 @@ public class MaskedSource<D extends Type<D>, T extends Type<T>> implements DataS
 			LOG.info("Updating cache directory: observable={} oldValue={} newValue={}", observable, oldValue,
 					newValue);
 
-			final DiskCachedCellImgOptions opts = DiskCachedCellImgOptions
-					.options()
-					.volatileAccesses(true)
-					.dirtyAccesses(true);
-
 			for (int level = 0; level < canvases.length; ++level)
 			{
 				if (newValue != null)
 				{
-					final Path cacheDir = Paths.get(newValue, String.format("%d", level));
-					final DiskCachedCellImgOptions o = opts
-							.volatileAccesses(true)
-							.dirtyAccesses(true)
-							.cacheDirectory(cacheDir)
-							.deleteCacheDirectoryOnExit(true)
-							.cellDimensions(blockSizes[level]);
-					final DiskCachedCellImgFactory<UnsignedLongType> f = new DiskCachedCellImgFactory<>(new UnsignedLongType(), o);
-					final CellLoader<UnsignedLongType> loader = img -> img.forEach(t -> t.set(Label.INVALID));
-					final DiskCachedCellImg<UnsignedLongType, ?> store  = f.create(dimensions[level], loader, o);
-					final TmpVolatileHelpers.RaiWithInvalidate<VolatileUnsignedLongType> vstore = TmpVolatileHelpers.createVolatileCachedCellImgWithInvalidate((
-							DiskCachedCellImg)store,
+					// painted cells are kept compactly encoded in memory and spilled to the canvas directory if necessary
+					final CachedCellImg<UnsignedLongType, ?> store = CompactCanvasCellCache.createCanvas(
+							dimensions[level],
+							blockSizes[level],
+							CompactCanvasCellCache.DEFAULT_MAX_RESIDENT_BYTES / canvases.length,
+							CompactCanvasCellCache.DEFAULT_MAX_ENCODED_BYTES / canvases.length,
+							Paths.get(newValue, "s" + level));
+					final TmpVolatileHelpers.RaiWithInvalidate<VolatileUnsignedLongType> vstore = TmpVolatileHelpers.createVolatileCachedCellImgWithInvalidate(
+							(CachedCellImg) store,
 							queue,
 							new CacheHints(LoadingStrategy.VOLATILE, canvases.length - 1 - level, true));
 
-					if (dataCanvases[level] != null) {
-						this.dataCanvases[level].shutdown();
+					if (dataCanvases[level] != null)
 						this.dataCanvases[level].getCache().invalidateAll();
-						this.dataCanvases[level].getCache().invalidateAll();
-					}
 					// TODO how to invalidate volatile canvases?
 					if (canvases[level] != null && canvases[level].getInvalidate() != null)
 						canvases[level].getInvalidate().invalidateAll();
@@ -1424,6 +1520,15 @@ public class MaskedSource<D extends Type<D>, T extends Type<T>> implements DataS
 		return this.persistCanvas;
 	}
 
+	/**
+	 * @return executor that propagates painted masks to lower resolution levels, typically shared by all
+	 * {@link MaskedSource}s of a viewer
+	 */
+	public ExecutorService getPropagationExecutor()
+	{
+		return this.propagationExecutor;
+	}
+
 	public CellGrid getCellGrid(final int t, final int level)
 	{
 		return ((AbstractCellImg<?, ?, ?, ?>) underlyingSource().getSource(t, level)).getCellGrid();
@@ -1440,6 +1545,15 @@ public class MaskedSource<D extends Type<D>, T extends Type<T>> implements DataS
 		return this.affectedBlocks.toArray();
 	}
 
+	/**
+	 * @return {@code true} if there are painted blocks that have not been committed, cheaper than
+	 * {@code getAffectedBlocks().length > 0}
+	 */
+	public boolean hasAffectedBlocks()
+	{
+		return !this.affectedBlocks.isEmpty();
+	}
+
 	public void addOnCanvasClearedListener(final Runnable listener)
 	{
 		this.canvasClearedListeners.add(listener);
@@ -1614,6 +1728,26 @@ public class MaskedSource<D extends Type<D>, T extends Type<T>> implements DataS
 		return Views.interpolate(ra, new NearestNeighborInterpolatorFactory<>());
 	}
 
+	/**
+	 * Show progress in the last entry of {@code states}. Updates are throttled to changes in percentage per stage.
+	 */
+	private static PersistCanvas.Progress progressAsLastState(final List<String> states, final String prefix)
+	{
+		final String[] lastStage = {null};
+		final long[] lastPercent = {-1};
+		return (stage, done, total) -> {
+			final long percent = total == 0 ? 100 : 100 * done / total;
+			synchronized (lastStage)
+			{
+				if (stage.equals(lastStage[0]) && percent == lastPercent[0])
+					return;
+				lastStage[0] = stage;
+				lastPercent[0] = percent;
+				states.set(states.size() - 1, String.format("%s   %s: %d/%d (%d%%)", prefix, stage, done, total, percent));
+			}
+		};
+	}
+
 	private static javafx.scene.control.Label[] asLabels(final List<? extends String> strings)
 	{
 		return strings.stream().map(javafx.scene.control.Label::new).toArray(javafx.scene.control.Label[]::new);
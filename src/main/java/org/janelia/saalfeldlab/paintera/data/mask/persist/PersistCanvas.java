@@ -10,6 +10,18 @@ import java.util.List;
 
 public interface PersistCanvas {
 
+	/**
+	 * Progress of a stage of {@link #persistCanvas(CachedCellImg, long[], Progress)} or
+	 * {@link #updateLabelBlockLookup(List, Progress)}. Not necessarily called on the JavaFX application thread.
+	 */
+	@FunctionalInterface
+	interface Progress
+	{
+		Progress NONE = (stage, done, total) -> {};
+
+		void update(String stage, long done, long total);
+	}
+
 	class BlockDiff
 	{
 
@@ -97,11 +109,26 @@ public interface PersistCanvas {
 
 	List<TLongObjectMap<BlockDiff>> persistCanvas(CachedCellImg<UnsignedLongType, ?> canvas, long[] blockIds) throws UnableToPersistCanvas;
 
+	default List<TLongObjectMap<BlockDiff>> persistCanvas(
+			final CachedCellImg<UnsignedLongType, ?> canvas,
+			final long[] blockIds,
+			final Progress progress) throws UnableToPersistCanvas
+	{
+		return persistCanvas(canvas, blockIds);
+	}
+
 	default void updateLabelBlockLookup(final List<TLongObjectMap<BlockDiff>> blockDiffs) throws UnableToUpdateLabelBlockLookup
 	{
 		throw new LabelBlockLookupUpdateNotSupported("");
 	}
 
+	default void updateLabelBlockLookup(
+			final List<TLongObjectMap<BlockDiff>> blockDiffs,
+			final Progress progress) throws UnableToUpdateLabelBlockLookup
+	{
+		updateLabelBlockLookup(blockDiffs);
+	}
+
 	default boolean supportsLabelBlockLookupUpdate()
 	{
 		return false;
@@ -40,12 +40,14 @@ import org.janelia.saalfeldlab.n5.DatasetAttributes;
 import org.janelia.saalfeldlab.n5.LongArrayDataBlock;
 import org.janelia.saalfeldlab.n5.N5Reader;
 import org.janelia.saalfeldlab.n5.N5Writer;
+import org.janelia.saalfeldlab.n5.hdf5.N5HDF5Writer;
 import org.janelia.saalfeldlab.n5.imglib2.N5LabelMultisets;
 import org.janelia.saalfeldlab.n5.imglib2.N5Utils;
 import org.janelia.saalfeldlab.paintera.data.mask.persist.PersistCanvas;
 import org.janelia.saalfeldlab.paintera.data.mask.persist.UnableToPersistCanvas;
 import org.janelia.saalfeldlab.paintera.data.mask.persist.UnableToUpdateLabelBlockLookup;
 import org.janelia.saalfeldlab.paintera.exception.PainteraException;
+import org.janelia.saalfeldlab.util.NamedThreadFactory;
 import org.janelia.saalfeldlab.util.math.ArrayMath;
 import org.janelia.saalfeldlab.util.n5.N5Helpers;
 import org.slf4j.Logger;
@@ -58,6 +60,13 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Supplier;
 
 public class CommitCanvasN5 implements PersistCanvas
@@ -75,10 +84,25 @@ public class CommitCanvasN5 implements PersistCanvas
 
 	private final boolean isLabelMultiset;
 
+	private final int numWorkers;
+
 	public CommitCanvasN5(final N5Writer n5, final String dataset) throws IOException {
+		this(n5, dataset, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 *
+	 * @param n5 container
+	 * @param dataset dataset
+	 * @param numWorkers number of threads used to compute block diffs and to downsample, serialize, and write blocks
+	 *                   (ignored for HDF5 containers, which are always written from a single thread)
+	 * @throws IOException if any N5 operation throws {@link IOException}
+	 */
+	public CommitCanvasN5(final N5Writer n5, final String dataset, final int numWorkers) throws IOException {
 		super();
 		this.n5 = n5;
 		this.dataset = dataset;
+		this.numWorkers = n5 instanceof N5HDF5Writer ? 1 : Math.max(numWorkers, 1);
 		this.isPainteraDataset = N5Helpers.isPainteraDataset(this.n5, this.dataset);
 		final String volumetricDataGroup = this.isPainteraDataset ? this.dataset + "/data" : this.dataset;
 		this.isMultiscale = N5Helpers.isMultiScale(this.n5, volumetricDataGroup);
@@ -107,8 +131,17 @@ public class CommitCanvasN5 implements PersistCanvas
 
 	@Override
 	public void updateLabelBlockLookup(final List<TLongObjectMap<BlockDiff>> blockDiffsByLevel) throws UnableToUpdateLabelBlockLookup
+	{
+		updateLabelBlockLookup(blockDiffsByLevel, Progress.NONE);
+	}
+
+	@Override
+	public void updateLabelBlockLookup(
+			final List<TLongObjectMap<BlockDiff>> blockDiffsByLevel,
+			final Progress progress) throws UnableToUpdateLabelBlockLookup
 	{
 		LOG.debug("Updating label block lookup with {}", blockDiffsByLevel);
+		final ExecutorService workers = createWorkers();
 		try {
 			final String uniqueLabelsPath = this.dataset + "/unique-labels";
 			LOG.debug("uniqueLabelsPath {}", uniqueLabelsPath);
@@ -126,7 +159,7 @@ public class CommitCanvasN5 implements PersistCanvas
 				final TLongObjectMap<TLongHashSet> removedById = new TLongObjectHashMap<>();
 				final TLongObjectMap<TLongHashSet> addedById = new TLongObjectHashMap<>();
 				final TLongObjectMap<BlockDiff> blockDiffs = blockDiffsByLevel.get(level);
-				final BlockSpec blockSpec = new BlockSpec(datasetUniqueLabels.grid);
+				final List<Callable<Void>> uniqueLabelsTasks = new ArrayList<>();
 
 				for (final TLongObjectIterator<BlockDiff> blockDiffIt = blockDiffs.iterator(); blockDiffIt.hasNext(); )
 				{
@@ -134,17 +167,19 @@ public class CommitCanvasN5 implements PersistCanvas
 					final long blockId = blockDiffIt.key();
 					final BlockDiff blockDiff = blockDiffIt.value();
 
-					blockSpec.fromLinearIndex(blockId);
-
-					LOG.trace("Unique labels for block ({}: {} {}): {}", blockId, blockSpec.min, blockSpec.max, blockDiff);
-
-					n5.writeBlock(
-							datasetUniqueLabels.dataset,
-							datasetUniqueLabels.attributes,
-							new LongArrayDataBlock(
-									Intervals.dimensionsAsIntArray(new FinalInterval(blockSpec.min, blockSpec.max)),
-									blockSpec.pos,
-									blockDiff.getNewUniqueIds()));
+					uniqueLabelsTasks.add(() -> {
+						final BlockSpec blockSpec = new BlockSpec(datasetUniqueLabels.grid);
+						blockSpec.fromLinearIndex(blockId);
+						LOG.trace("Unique labels for block ({}: {} {}): {}", blockId, blockSpec.min, blockSpec.max, blockDiff);
+						n5.writeBlock(
+								datasetUniqueLabels.dataset,
+								datasetUniqueLabels.attributes,
+								new LongArrayDataBlock(
+										Intervals.dimensionsAsIntArray(new FinalInterval(blockSpec.min, blockSpec.max)),
+										blockSpec.pos,
+										blockDiff.getNewUniqueIds()));
+						return null;
+					});
 
 					final long[] removedInBlock = blockDiff.getRemovedIds();
 					final long[] addedInBlock = blockDiff.getAddedIds();
@@ -156,47 +191,30 @@ public class CommitCanvasN5 implements PersistCanvas
 						computeIfAbsent(addedById, added, TLongHashSet::new).add(blockId);
 
 				}
+				invokeAll(workers, uniqueLabelsTasks, String.format("Writing unique labels (level %d)", level), progress);
 
 				final TLongSet modifiedIds = new TLongHashSet();
 				modifiedIds.addAll(removedById.keySet());
 				modifiedIds.addAll(addedById.keySet());
 				LOG.debug("Removed by id: {}", removedById);
 				LOG.debug("Added by id: {}", addedById);
-				for (final long modifiedId : modifiedIds.toArray())
-				{
-					final Interval[] blockList = labelBlockLoader.read(new LabelBlockLookupKey(level, modifiedId));
-					final TLongSet blockListLinearIndices = new TLongHashSet();
-					for (final Interval block : blockList)
-					{
-						blockSpec.fromInterval(block);
-						blockListLinearIndices.add(blockSpec.asLinearIndex());
-					}
-
-					final TLongSet removed = removedById.get(modifiedId);
-					final TLongSet added = addedById.get(modifiedId);
-
-					LOG.debug("Removed for id {}: {}", modifiedId, removed);
-					LOG.debug("Added for id {}: {}", modifiedId, added);
-
-					if (removed != null)
-						blockListLinearIndices.removeAll(removed);
-
-					if (added != null)
-						blockListLinearIndices.addAll(added);
-
-					final Interval[] updatedIntervals = new Interval[blockListLinearIndices.size()];
-					final TLongIterator blockIt = blockListLinearIndices.iterator();
-					for (int index = 0; blockIt.hasNext(); ++index)
-					{
-						final long blockId = blockIt.next();
-						blockSpec.fromLinearIndex(blockId);
-						final Interval interval = blockSpec.asInterval();
-						updatedIntervals[index] = interval;
-						LOG.trace("Added interval {} for linear index {} and block spec {}", interval, blockId, blockSpec);
-					}
-					labelBlockLoader.write(new LabelBlockLookupKey(level, modifiedId), updatedIntervals);
-				}
 
+				// reading and merging lookup entries is independent for each id. Writes are serialized,
+				// because the lookup may store multiple ids in the same file.
+				final int levelAsFinal = level;
+				final long[] modifiedIdsArray = modifiedIds.toArray();
+				final List<Callable<Interval[]>> lookupTasks = new ArrayList<>();
+				for (final long modifiedId : modifiedIdsArray)
+					lookupTasks.add(() -> updatedBlockList(
+							labelBlockLoader,
+							datasetUniqueLabels.grid,
+							levelAsFinal,
+							modifiedId,
+							removedById.get(modifiedId),
+							addedById.get(modifiedId)));
+				final List<Interval[]> updatedBlockLists = invokeAll(workers, lookupTasks, String.format("Updating label-to-block lookup (level %d)", level), progress);
+				for (int index = 0; index < modifiedIdsArray.length; ++index)
+					labelBlockLoader.write(new LabelBlockLookupKey(level, modifiedIdsArray[index]), updatedBlockLists.get(index));
 			}
 
 
@@ -205,13 +223,65 @@ public class CommitCanvasN5 implements PersistCanvas
 		{
 			throw new UnableToUpdateLabelBlockLookup("Unable to update label block lookup for " + this.dataset, e);
 		}
+		finally
+		{
+			workers.shutdown();
+		}
 		LOG.info("Finished updating label-block-lookup");
 	}
 
+	private static Interval[] updatedBlockList(
+			final LabelBlockLookup labelBlockLoader,
+			final CellGrid grid,
+			final int level,
+			final long modifiedId,
+			final TLongSet removed,
+			final TLongSet added) throws IOException
+	{
+		final BlockSpec blockSpec = new BlockSpec(grid);
+		final Interval[] blockList = labelBlockLoader.read(new LabelBlockLookupKey(level, modifiedId));
+		final TLongSet blockListLinearIndices = new TLongHashSet();
+		for (final Interval block : blockList)
+		{
+			blockSpec.fromInterval(block);
+			blockListLinearIndices.add(blockSpec.asLinearIndex());
+		}
+
+		LOG.debug("Removed for id {}: {}", modifiedId, removed);
+		LOG.debug("Added for id {}: {}", modifiedId, added);
+
+		if (removed != null)
+			blockListLinearIndices.removeAll(removed);
+
+		if (added != null)
+			blockListLinearIndices.addAll(added);
+
+		final Interval[] updatedIntervals = new Interval[blockListLinearIndices.size()];
+		final TLongIterator blockIt = blockListLinearIndices.iterator();
+		for (int index = 0; blockIt.hasNext(); ++index)
+		{
+			final long blockId = blockIt.next();
+			blockSpec.fromLinearIndex(blockId);
+			final Interval interval = blockSpec.asInterval();
+			updatedIntervals[index] = interval;
+			LOG.trace("Added interval {} for linear index {} and block spec {}", interval, blockId, blockSpec);
+		}
+		return updatedIntervals;
+	}
+
 	@Override
 	public List<TLongObjectMap<BlockDiff>> persistCanvas(final CachedCellImg<UnsignedLongType, ?> canvas, final long[] blocks) throws UnableToPersistCanvas {
-		LOG.info("Committing canvas: {} blocks", blocks.length);
+		return persistCanvas(canvas, blocks, Progress.NONE);
+	}
+
+	@Override
+	public List<TLongObjectMap<BlockDiff>> persistCanvas(
+			final CachedCellImg<UnsignedLongType, ?> canvas,
+			final long[] blocks,
+			final Progress progress) throws UnableToPersistCanvas {
+		LOG.info("Committing canvas: {} blocks with {} workers", blocks.length, numWorkers);
 		LOG.debug("Affected blocks in grid {}: {}", canvas.getCellGrid(), blocks);
+		final ExecutorService workers = createWorkers();
 		try
 		{
 			final String dataset = isPainteraDataset ? this.dataset + "/data" : this.dataset;
@@ -225,8 +295,6 @@ public class CommitCanvasN5 implements PersistCanvas
 
 			checkGridsCompatibleOrFail(canvasGrid, highestResolutionDataset.grid);
 
-			final BlockSpec highestResolutionBlockSpec = new BlockSpec(highestResolutionDataset.grid);
-
 			LOG.debug("Persisting canvas with grid={} into background with grid={}", canvasGrid, highestResolutionDataset.grid);
 
 			final List<TLongObjectMap<BlockDiff>> blockDiffs = new ArrayList<>();
@@ -234,9 +302,9 @@ public class CommitCanvasN5 implements PersistCanvas
 			blockDiffs.add(blockDiffsAtHighestLevel);
 
 			if (this.isLabelMultiset)
-				writeBlocksLabelMultisetType(canvas, blocks, highestResolutionDataset, highestResolutionBlockSpec, blockDiffsAtHighestLevel);
+				writeBlocksLabelMultisetType(canvas, blocks, highestResolutionDataset, blockDiffsAtHighestLevel, workers, progress);
 			else {
-				writeBlocksLabelIntegerType(canvas, blocks, highestResolutionDataset, highestResolutionBlockSpec, blockDiffsAtHighestLevel);
+				writeBlocksLabelIntegerType(canvas, blocks, highestResolutionDataset, blockDiffsAtHighestLevel, workers, progress);
 			}
 
 			if (isMultiscale)
@@ -270,31 +338,31 @@ public class CommitCanvasN5 implements PersistCanvas
 
 					LOG.debug("level={}: Got {} blocks", level, affectedBlocks.length);
 
-					final BlockSpec blockSpec = new BlockSpec(targetDataset.grid);
-
 					if (this.isLabelMultiset)
 						downsampleAndWriteBlocksLabelMultisetType(
 								affectedBlocks,
 								n5,
 								previousDataset,
 								targetDataset,
-								blockSpec,
 								targetToPrevious,
 								relativeFactors,
 								targetMaxNumEntries,
 								level,
-								blockDiffsAt);
+								blockDiffsAt,
+								workers,
+								progress);
 					else
 						downsampleAndWriteBlocksIntegerType(
 								affectedBlocks,
 								n5,
 								previousDataset,
 								targetDataset,
-								blockSpec,
 								targetToPrevious,
 								relativeFactors,
 								level,
-								blockDiffsAt);
+								blockDiffsAt,
+								workers,
+								progress);
 
 				}
 
@@ -307,6 +375,10 @@ public class CommitCanvasN5 implements PersistCanvas
 			LOG.error("Unable to commit canvas.", e);
 			throw new UnableToPersistCanvas("Unable to commit canvas.", e);
 		}
+		finally
+		{
+			workers.shutdown();
+		}
 	}
 
 	private static long[] readContainedLabels(
@@ -601,6 +673,65 @@ public class CommitCanvasN5 implements PersistCanvas
 		return blockDiff;
 	}
 
+	private ExecutorService createWorkers()
+	{
+		return Executors.newFixedThreadPool(numWorkers, new NamedThreadFactory("commit-canvas-%d", true));
+	}
+
+	/**
+	 * Run {@code tasks} on {@code workers} and wait for all of them to finish, reporting progress as tasks complete.
+	 *
+	 * @return results in the order of {@code tasks}
+	 */
+	private static <T> List<T> invokeAll(
+			final ExecutorService workers,
+			final List<? extends Callable<T>> tasks,
+			final String stage,
+			final Progress progress) throws IOException
+	{
+		final CompletionService<T> completionService = new ExecutorCompletionService<>(workers);
+		final List<Future<T>> futures = new ArrayList<>();
+		try
+		{
+			for (final Callable<T> task : tasks)
+				futures.add(completionService.submit(task));
+			progress.update(stage, 0, tasks.size());
+			for (int done = 1; done <= tasks.size(); ++done)
+			{
+				completionService.take().get();
+				progress.update(stage, done, tasks.size());
+			}
+			final List<T> results = new ArrayList<>();
+			for (final Future<T> future : futures)
+				results.add(future.get());
+			return results;
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IOException(String.format("Interrupted while %s", stage), e);
+		}
+		catch (final ExecutionException e)
+		{
+			final Throwable cause = e.getCause();
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			throw new IOException(cause);
+		}
+		finally
+		{
+			futures.forEach(f -> f.cancel(true));
+		}
+	}
+
+	private static void putAll(final TLongObjectMap<BlockDiff> blockDiffs, final long[] blockIds, final List<BlockDiff> diffs)
+	{
+		for (int index = 0; index < blockIds.length; ++index)
+			blockDiffs.put(blockIds[index], diffs.get(index));
+	}
+
 	private static <T> T computeIfAbsent(final TLongObjectMap<T> map, final long key, final Supplier<T> fallback)
 	{
 		T t = map.get(key);
@@ -617,18 +748,24 @@ public class CommitCanvasN5 implements PersistCanvas
 			final RandomAccessibleInterval<UnsignedLongType> canvas,
 			final long[] blocks,
 			final DatasetSpec datasetSpec,
-			final BlockSpec blockSpec,
-			final TLongObjectHashMap<BlockDiff> blockDiff) throws IOException {
+			final TLongObjectHashMap<BlockDiff> blockDiff,
+			final ExecutorService workers,
+			final Progress progress) throws IOException {
 		final RandomAccessibleInterval<LabelMultisetType> highestResolutionData = N5LabelMultisets.openLabelMultiset(datasetSpec.container, datasetSpec.dataset);
+		final List<Callable<BlockDiff>> tasks = new ArrayList<>();
 		for (final long blockId : blocks) {
-			blockSpec.fromLinearIndex(blockId);
-			final IntervalView<Pair<LabelMultisetType, UnsignedLongType>> backgroundWithCanvas = Views.interval(Views.pair(highestResolutionData, canvas), blockSpec.asInterval());
-			final int numElements = (int) Intervals.numElements(backgroundWithCanvas);
-			final byte[] byteData = LabelUtils.serializeLabelMultisetTypes(new BackgroundCanvasIterable(Views.flatIterable(backgroundWithCanvas)), numElements);
-			final ByteArrayDataBlock dataBlock = new ByteArrayDataBlock(Intervals.dimensionsAsIntArray(backgroundWithCanvas), blockSpec.pos, byteData);
-			datasetSpec.container.writeBlock(datasetSpec.dataset, datasetSpec.attributes, dataBlock);
-			blockDiff.put(blockId, createBlockDiffFromCanvas(backgroundWithCanvas));
+			tasks.add(() -> {
+				final BlockSpec blockSpec = new BlockSpec(datasetSpec.grid);
+				blockSpec.fromLinearIndex(blockId);
+				final IntervalView<Pair<LabelMultisetType, UnsignedLongType>> backgroundWithCanvas = Views.interval(Views.pair(highestResolutionData, canvas), blockSpec.asInterval());
+				final int numElements = (int) Intervals.numElements(backgroundWithCanvas);
+				final byte[] byteData = LabelUtils.serializeLabelMultisetTypes(new BackgroundCanvasIterable(Views.flatIterable(backgroundWithCanvas)), numElements);
+				final ByteArrayDataBlock dataBlock = new ByteArrayDataBlock(Intervals.dimensionsAsIntArray(backgroundWithCanvas), blockSpec.pos, byteData);
+				datasetSpec.container.writeBlock(datasetSpec.dataset, datasetSpec.attributes, dataBlock);
+				return createBlockDiffFromCanvas(backgroundWithCanvas);
+			});
 		}
+		putAll(blockDiff, blocks, invokeAll(workers, tasks, "Writing blocks (level 0)", progress));
 	}
 
 	// TODO the integer type implementation does not need to iterate over all pixels per block but could intersect with bounding box first
@@ -636,17 +773,23 @@ public class CommitCanvasN5 implements PersistCanvas
 			final RandomAccessibleInterval<UnsignedLongType> canvas,
 			final long[] blocks,
 			final DatasetSpec datasetSpec,
-			final BlockSpec blockSpec,
-			final TLongObjectHashMap<BlockDiff> blockDiff) throws IOException {
+			final TLongObjectHashMap<BlockDiff> blockDiff,
+			final ExecutorService workers,
+			final Progress progress) throws IOException {
 		final RandomAccessibleInterval<I> highestResolutionData = N5Utils.open(datasetSpec.container, datasetSpec.dataset);
 		final I i = Util.getTypeFromInterval(highestResolutionData).createVariable();
+		final List<Callable<BlockDiff>> tasks = new ArrayList<>();
 		for (final long blockId : blocks) {
-			blockSpec.fromLinearIndex(blockId);
-			final RandomAccessibleInterval<Pair<I, UnsignedLongType>> backgroundWithCanvas = Views.interval(Views.pair(highestResolutionData, canvas), blockSpec.asInterval());
-			final RandomAccessibleInterval<I> mergedData = Converters.convert(backgroundWithCanvas, (s, t) -> pickFirstIfSecondIsInvalid(s.getA(), s.getB(), t), i.createVariable());
-			N5Utils.saveBlock(mergedData, datasetSpec.container, datasetSpec.dataset, datasetSpec.attributes, blockSpec.pos);
-			blockDiff.put(blockId, createBlockDiffFromCanvasIntegerType(Views.iterable(backgroundWithCanvas)));
+			tasks.add(() -> {
+				final BlockSpec blockSpec = new BlockSpec(datasetSpec.grid);
+				blockSpec.fromLinearIndex(blockId);
+				final RandomAccessibleInterval<Pair<I, UnsignedLongType>> backgroundWithCanvas = Views.interval(Views.pair(highestResolutionData, canvas), blockSpec.asInterval());
+				final RandomAccessibleInterval<I> mergedData = Converters.convert(backgroundWithCanvas, (s, t) -> pickFirstIfSecondIsInvalid(s.getA(), s.getB(), t), i.createVariable());
+				N5Utils.saveBlock(mergedData, datasetSpec.container, datasetSpec.dataset, datasetSpec.attributes, blockSpec.pos);
+				return createBlockDiffFromCanvasIntegerType(Views.iterable(backgroundWithCanvas));
+			});
 		}
+		putAll(blockDiff, blocks, invokeAll(workers, tasks, "Writing blocks (level 0)", progress));
 	}
 
 	// TODO: switch to N5LabelMultisets for writing label multiset data
@@ -655,12 +798,13 @@ public class CommitCanvasN5 implements PersistCanvas
 			final N5Writer n5,
 			final DatasetSpec previousDataset,
 			final DatasetSpec targetDataset,
-			final BlockSpec blockSpec,
 			final Scale3D targetToPrevious,
 			final int[] relativeFactors,
 			final int targetMaxNumEntries,
 			final int level,
-			final TLongObjectHashMap<BlockDiff> blockDiffsAt
+			final TLongObjectHashMap<BlockDiff> blockDiffsAt,
+			final ExecutorService workers,
+			final Progress progress
 			) throws IOException {
 
 		// In older converted data the "isLabelMultiset" attribute may not be present in s1,s2,... datasets.
@@ -670,52 +814,55 @@ public class CommitCanvasN5 implements PersistCanvas
 
 		final RandomAccessibleInterval<LabelMultisetType>  previousData = N5LabelMultisets.openLabelMultiset(n5, previousDataset.dataset);
 
+		final List<Callable<BlockDiff>> tasks = new ArrayList<>();
 		for (final long targetBlock : affectedBlocks)
 		{
-			blockSpec.fromLinearIndex(targetBlock);
-			final double[] blockMinDouble = ArrayMath.asDoubleArray3(blockSpec.min);
-			final double[] blockMaxDouble = ArrayMath.asDoubleArray3(ArrayMath.add3(blockSpec.max, 1));
-			targetToPrevious.apply(blockMinDouble, blockMinDouble);
-			targetToPrevious.apply(blockMaxDouble, blockMaxDouble);
-
-			LOG.debug("level={}: blockMinDouble={} blockMaxDouble={}", level, blockMinDouble, blockMaxDouble);
-
-			final long[] blockMin = ArrayMath.minOf3(ArrayMath.asLong3(ArrayMath.floor3(blockMinDouble, blockMinDouble)), previousDataset.dimensions);
-			final long[] blockMax = ArrayMath.minOf3(ArrayMath.asLong3(ArrayMath.ceil3(blockMaxDouble, blockMaxDouble)), previousDataset.dimensions);
-			final int[] size = Intervals.dimensionsAsIntArray(new FinalInterval(blockSpec.min, blockSpec.max));
-
-			final long[] previousRelevantIntervalMin = blockMin.clone();
-			final long[] previousRelevantIntervalMax = ArrayMath.add3(blockMax, -1);
-
-			ArrayMath.divide3(blockMin, previousDataset.blockSize, blockMin);
-			ArrayMath.divide3(blockMax, previousDataset.blockSize, blockMax);
-			ArrayMath.add3(blockMax, -1, blockMax);
-			ArrayMath.minOf3(blockMax, blockMin, blockMax);
-
-			LOG.trace("Reading old access at position {} and size {}. ({} {})", blockSpec.pos, size, blockSpec.min, blockSpec.max);
-			final DataBlock<?> block = n5.readBlock(targetDataset.dataset, targetDataset.attributes, blockSpec.pos);
-			final VolatileLabelMultisetArray oldAccess = block != null && block.getData() instanceof byte[]
-					? LabelUtils.fromBytes(
-						(byte[]) block.getData(),
-						(int) Intervals.numElements(size))
-					: null;
-
-			final VolatileLabelMultisetArray newAccess = downsampleVolatileLabelMultisetArrayAndSerialize(
-					n5,
-					targetDataset.dataset,
-					targetDataset.attributes,
-					Views.interval(previousData, previousRelevantIntervalMin, previousRelevantIntervalMax),
-					relativeFactors,
-					targetMaxNumEntries,
-					size,
-					blockSpec.pos);
-			final int numElements = (int) Intervals.numElements(size);
-			blockDiffsAt.put(
-					targetBlock,
-					oldAccess == null
-							? createBlockDiffOldDoesNotExist(newAccess, numElements)
-							: createBlockDiff(oldAccess, newAccess, numElements));
+			tasks.add(() -> {
+				final BlockSpec blockSpec = new BlockSpec(targetDataset.grid);
+				blockSpec.fromLinearIndex(targetBlock);
+				final double[] blockMinDouble = ArrayMath.asDoubleArray3(blockSpec.min);
+				final double[] blockMaxDouble = ArrayMath.asDoubleArray3(ArrayMath.add3(blockSpec.max, 1));
+				targetToPrevious.apply(blockMinDouble, blockMinDouble);
+				targetToPrevious.apply(blockMaxDouble, blockMaxDouble);
+
+				LOG.debug("level={}: blockMinDouble={} blockMaxDouble={}", level, blockMinDouble, blockMaxDouble);
+
+				final long[] blockMin = ArrayMath.minOf3(ArrayMath.asLong3(ArrayMath.floor3(blockMinDouble, blockMinDouble)), previousDataset.dimensions);
+				final long[] blockMax = ArrayMath.minOf3(ArrayMath.asLong3(ArrayMath.ceil3(blockMaxDouble, blockMaxDouble)), previousDataset.dimensions);
+				final int[] size = Intervals.dimensionsAsIntArray(new FinalInterval(blockSpec.min, blockSpec.max));
+
+				final long[] previousRelevantIntervalMin = blockMin.clone();
+				final long[] previousRelevantIntervalMax = ArrayMath.add3(blockMax, -1);
+
+				ArrayMath.divide3(blockMin, previousDataset.blockSize, blockMin);
+				ArrayMath.divide3(blockMax, previousDataset.blockSize, blockMax);
+				ArrayMath.add3(blockMax, -1, blockMax);
+				ArrayMath.minOf3(blockMax, blockMin, blockMax);
+
+				LOG.trace("Reading old access at position {} and size {}. ({} {})", blockSpec.pos, size, blockSpec.min, blockSpec.max);
+				final DataBlock<?> block = n5.readBlock(targetDataset.dataset, targetDataset.attributes, blockSpec.pos);
+				final VolatileLabelMultisetArray oldAccess = block != null && block.getData() instanceof byte[]
+						? LabelUtils.fromBytes(
+							(byte[]) block.getData(),
+							(int) Intervals.numElements(size))
+						: null;
+
+				final VolatileLabelMultisetArray newAccess = downsampleVolatileLabelMultisetArrayAndSerialize(
+						n5,
+						targetDataset.dataset,
+						targetDataset.attributes,
+						Views.interval(previousData, previousRelevantIntervalMin, previousRelevantIntervalMax),
+						relativeFactors,
+						targetMaxNumEntries,
+						size,
+						blockSpec.pos);
+				final int numElements = (int) Intervals.numElements(size);
+				return oldAccess == null
+						? createBlockDiffOldDoesNotExist(newAccess, numElements)
+						: createBlockDiff(oldAccess, newAccess, numElements);
+			});
 		}
+		putAll(blockDiffsAt, affectedBlocks, invokeAll(workers, tasks, String.format("Downsampling blocks (level %d)", level), progress));
 	}
 
 	private static <I extends IntegerType<I> & NativeType<I>> void downsampleAndWriteBlocksIntegerType(
@@ -723,51 +870,57 @@ public class CommitCanvasN5 implements PersistCanvas
 			final N5Writer n5,
 			final DatasetSpec previousDataset,
 			final DatasetSpec targetDataset,
-			final BlockSpec blockSpec,
 			final Scale3D targetToPrevious,
 			final int[] relativeFactors,
 			final int level,
-			final TLongObjectHashMap<BlockDiff> blockDiffsAt
+			final TLongObjectHashMap<BlockDiff> blockDiffsAt,
+			final ExecutorService workers,
+			final Progress progress
 	) throws IOException {
 
 		final RandomAccessibleInterval<I> previousData = N5Utils.open(n5, previousDataset.dataset);
 
+		final List<Callable<BlockDiff>> tasks = new ArrayList<>();
 		for (final long targetBlock : affectedBlocks)
 		{
-			blockSpec.fromLinearIndex(targetBlock);
-			final double[] blockMinDouble = ArrayMath.asDoubleArray3(blockSpec.min);
-			final double[] blockMaxDouble = ArrayMath.asDoubleArray3(ArrayMath.add3(blockSpec.max, 1));
-			targetToPrevious.apply(blockMinDouble, blockMinDouble);
-			targetToPrevious.apply(blockMaxDouble, blockMaxDouble);
-
-			LOG.debug("level={}: blockMinDouble={} blockMaxDouble={}", level, blockMinDouble, blockMaxDouble);
-
-			final long[] blockMin = ArrayMath.minOf3(ArrayMath.asLong3(ArrayMath.floor3(blockMinDouble, blockMinDouble)), previousDataset.dimensions);
-			final long[] blockMax = ArrayMath.minOf3(ArrayMath.asLong3(ArrayMath.ceil3(blockMaxDouble, blockMaxDouble)), previousDataset.dimensions);
-			final Interval targetInterval = new FinalInterval(blockSpec.min, blockSpec.max);
-			final int[] size = Intervals.dimensionsAsIntArray(targetInterval);
-
-			final long[] previousRelevantIntervalMin = blockMin.clone();
-			final long[] previousRelevantIntervalMax = ArrayMath.add3(blockMax, -1);
-
-			ArrayMath.divide3(blockMin, previousDataset.blockSize, blockMin);
-			ArrayMath.divide3(blockMax, previousDataset.blockSize, blockMax);
-			ArrayMath.add3(blockMax, -1, blockMax);
-			ArrayMath.minOf3(blockMax, blockMin, blockMax);
-
-			LOG.trace("Reading old access at position {} and size {}. ({} {})", blockSpec.pos, size, blockSpec.min, blockSpec.max);
-
-			final BlockDiff blockDiff = downsampleIntegerTypeAndSerialize(
-					n5,
-					targetDataset.dataset,
-					targetDataset.attributes,
-					Views.interval(previousData, previousRelevantIntervalMin, previousRelevantIntervalMax),
-					relativeFactors,
-					size,
-					targetInterval,
-					blockSpec.pos);
-			blockDiffsAt.put(targetBlock, blockDiff);
+			tasks.add(() -> {
+				final BlockSpec blockSpec = new BlockSpec(targetDataset.grid);
+				blockSpec.fromLinearIndex(targetBlock);
+				final double[] blockMinDouble = ArrayMath.asDoubleArray3(blockSpec.min);
+				final double[] blockMaxDouble = ArrayMath.asDoubleArray3(ArrayMath.add3(blockSpec.max, 1));
+				targetToPrevious.apply(blockMinDouble, blockMinDouble);
+				targetToPrevious.apply(blockMaxDouble, blockMaxDouble);
+
+				LOG.debug("level={}: blockMinDouble={} blockMaxDouble={}", level, blockMinDouble, blockMaxDouble);
+
+				final long[] blockMin = ArrayMath.minOf3(ArrayMath.asLong3(ArrayMath.floor3(blockMinDouble, blockMinDouble)), previousDataset.dimensions);
+				final long[] blockMax = ArrayMath.minOf3(ArrayMath.asLong3(ArrayMath.ceil3(blockMaxDouble, blockMaxDouble)), previousDataset.dimensions);
+				final Interval targetInterval = new FinalInterval(blockSpec.min, blockSpec.max);
+				final int[] size = Intervals.dimensionsAsIntArray(targetInterval);
+
+				final long[] previousRelevantIntervalMin = blockMin.clone();
+				final long[] previousRelevantIntervalMax = ArrayMath.add3(blockMax, -1);
+
+				ArrayMath.divide3(blockMin, previousDataset.blockSize, blockMin);
+				ArrayMath.divide3(blockMax, previousDataset.blockSize, blockMax);
+				ArrayMath.add3(blockMax, -1, blockMax);
+				ArrayMath.minOf3(blockMax, blockMin, blockMax);
+
+				LOG.trace("Reading old access at position {} and size {}. ({} {})", blockSpec.pos, size, blockSpec.min, blockSpec.max);
+
+				final BlockDiff blockDiff = downsampleIntegerTypeAndSerialize(
+						n5,
+						targetDataset.dataset,
+						targetDataset.attributes,
+						Views.interval(previousData, previousRelevantIntervalMin, previousRelevantIntervalMax),
+						relativeFactors,
+						size,
+						targetInterval,
+						blockSpec.pos);
+				return blockDiff;
+			});
 		}
+		putAll(blockDiffsAt, affectedBlocks, invokeAll(workers, tasks, String.format("Downsampling blocks (level %d)", level), progress));
 	}
 
 	private static <I extends IntegerType<I>, C extends IntegerType<C>> void pickFirstIfSecondIsInvalid(final I s1, final C s2, final I t) {
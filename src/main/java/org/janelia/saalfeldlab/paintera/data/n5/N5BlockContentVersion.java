@@ -0,0 +1,157 @@
+package org.janelia.saalfeldlab.paintera.data.n5;
+
+import net.imglib2.Interval;
+import net.imglib2.img.cell.CellGrid;
+import org.janelia.saalfeldlab.n5.N5FSReader;
+import org.janelia.saalfeldlab.n5.N5Reader;
+import org.janelia.saalfeldlab.n5.hdf5.N5HDF5Reader;
+import org.janelia.saalfeldlab.paintera.data.DataSource;
+import org.janelia.saalfeldlab.paintera.data.mask.MaskedSource;
+import org.janelia.saalfeldlab.paintera.meshes.cache.DiskMeshCache;
+import org.janelia.saalfeldlab.util.n5.N5Helpers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Content version of N5 datasets for {@link DiskMeshCache}:
+ * <ul>
+ *     <li>For N5 file system containers, the version of an interval is derived from the modification times of all
+ *     blocks that contain the interval, padded by one voxel in each direction (marching cubes reads one voxel
+ *     beyond the block).</li>
+ *     <li>For HDF5 containers, the version is derived from the modification time and size of the file.</li>
+ * </ul>
+ * No version is available while the source has canvas modifications that are not committed.
+ */
+public class N5BlockContentVersion implements DiskMeshCache.ContentVersion
+{
+
+	private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	private final N5Reader container;
+
+	private final String[] levelDatasets;
+
+	private final CellGrid[] grids;
+
+	private final BooleanSupplier hasUncommittedChanges;
+
+	private N5BlockContentVersion(
+			final N5Reader container,
+			final String[] levelDatasets,
+			final CellGrid[] grids,
+			final BooleanSupplier hasUncommittedChanges)
+	{
+		this.container = container;
+		this.levelDatasets = levelDatasets;
+		this.grids = grids;
+		this.hasUncommittedChanges = hasUncommittedChanges;
+	}
+
+	/**
+	 * @param container N5 container
+	 * @param group dataset, multi-scale group, or paintera dataset
+	 * @param source source of {@code group}, may be a {@link MaskedSource}
+	 * @return content version for {@code group} or {@code null} if not supported for {@code container}
+	 * or the scale levels of {@code group} do not match {@code source}
+	 */
+	public static N5BlockContentVersion create(
+			final N5Reader container,
+			final String group,
+			final DataSource<?, ?> source)
+	{
+		if (!(container instanceof N5FSReader || container instanceof N5HDF5Reader))
+			return null;
+		try
+		{
+			final String dataGroup = N5Helpers.volumetricDataGroup(group, N5Helpers.isPainteraDataset(container, group));
+			final String[] levelDatasets = N5Helpers.isMultiScale(container, dataGroup)
+					? Arrays.stream(N5Helpers.listAndSortScaleDatasets(container, dataGroup)).map(s -> dataGroup + "/" + s).toArray(String[]::new)
+					: new String[] {dataGroup};
+			if (levelDatasets.length != source.getNumMipmapLevels())
+			{
+				LOG.debug("Number of levels in {} does not match source {}", group, source);
+				return null;
+			}
+			final CellGrid[] grids = new CellGrid[levelDatasets.length];
+			for (int level = 0; level < grids.length; ++level)
+				grids[level] = N5Helpers.getGrid(container, levelDatasets[level]);
+			final BooleanSupplier hasUncommittedChanges = source instanceof MaskedSource<?, ?>
+					? () -> ((MaskedSource<?, ?>) source).hasAffectedBlocks()
+					: () -> false;
+			return new N5BlockContentVersion(container, levelDatasets, grids, hasUncommittedChanges);
+		} catch (final IOException e)
+		{
+			LOG.debug("Unable to create content version for {}: {}", group, e.getMessage());
+			return null;
+		}
+	}
+
+	@Override
+	public String versionOf(final int level, final Interval interval) throws IOException
+	{
+		if (hasUncommittedChanges.getAsBoolean())
+			return null;
+
+		if (container instanceof N5HDF5Reader)
+		{
+			final File file = ((N5HDF5Reader) container).getFilename();
+			return file.lastModified() + "-" + file.length();
+		}
+
+		final CellGrid grid = grids[level];
+		final int numDimensions = grid.numDimensions();
+		final long[] gridDimensions = grid.getGridDimensions();
+		final long[] cellMin = new long[numDimensions];
+		final long[] cellMax = new long[numDimensions];
+		for (int d = 0; d < numDimensions; ++d)
+		{
+			final int cellSize = grid.cellDimension(d);
+			cellMin[d] = Math.max(interval.min(d) - 1, 0) / cellSize;
+			cellMax[d] = Math.min(Math.min(interval.max(d) + 1, grid.imgDimension(d) - 1) / cellSize, gridDimensions[d] - 1);
+			if (cellMax[d] < cellMin[d])
+				return null;
+		}
+
+		final Path datasetPath = Paths.get(((N5FSReader) container).getBasePath(), levelDatasets[level]);
+		final StringBuilder version = new StringBuilder();
+		final long[] position = cellMin.clone();
+		final String[] pathComponents = new String[numDimensions];
+		while (true)
+		{
+			for (int d = 0; d < numDimensions; ++d)
+				pathComponents[d] = Long.toString(position[d]);
+			final Path blockPath = datasetPath.resolve(String.join(File.separator, pathComponents));
+			long lastModified;
+			try
+			{
+				lastModified = Files.getLastModifiedTime(blockPath).toMillis();
+			} catch (final NoSuchFileException e)
+			{
+				lastModified = -1;
+			}
+			version.append(lastModified).append(',');
+
+			int d = 0;
+			for (; d < numDimensions; ++d)
+			{
+				if (++position[d] <= cellMax[d])
+					break;
+				position[d] = cellMin[d];
+			}
+			if (d == numDimensions)
+				break;
+		}
+		return version.toString();
+	}
+
+}
@@ -1,25 +1,60 @@
 package org.janelia.saalfeldlab.paintera.id;
 
 import java.io.IOException;
+import java.lang.invoke.MethodHandles;
 import java.util.stream.LongStream;
 
 import org.janelia.saalfeldlab.n5.N5Writer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+/**
+ * {@link IdService} that persists the {@code "maxId"} attribute of an N5 dataset.
+ *
+ * Ids are leased in blocks of {@code leaseSize}: {@code "maxId"} is only written when the ids handed out
+ * exceed the current lease, and then set to the end of a new lease. The persisted {@code "maxId"} is always
+ * larger than any id handed out, so no id is reused after a crash or restart at the cost of skipping the
+ * remainder of the last lease. Use {@code leaseSize = 0} to write {@code "maxId"} on every allocation.
+ */
 public class N5IdService implements IdService
 {
 
+	private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	public static final long DEFAULT_LEASE_SIZE = 10_000;
+
 	private final N5Writer n5;
 
 	private final String dataset;
 
+	private final long leaseSize;
+
 	private long next;
 
+	private long leaseEnd;
+
 	public N5IdService(final N5Writer n5, final String dataset, final long next)
+	{
+		this(n5, dataset, next, DEFAULT_LEASE_SIZE);
+	}
+
+	/**
+	 *
+	 * @param n5 container
+	 * @param dataset {@code "maxId"} is stored in the attributes of this dataset
+	 * @param next next id
+	 * @param leaseSize number of ids to reserve with each write of {@code "maxId"}
+	 */
+	public N5IdService(final N5Writer n5, final String dataset, final long next, final long leaseSize)
 	{
 		super();
+		if (leaseSize < 0)
+			throw new IllegalArgumentException("Lease size must be non-negative but got " + leaseSize);
 		this.n5 = n5;
 		this.dataset = dataset;
+		this.leaseSize = leaseSize;
 		this.next = next;
+		this.leaseEnd = next;
 	}
 
 	public N5Writer getWriter() {
@@ -30,22 +65,22 @@ public class N5IdService implements IdService
 		return dataset;
 	}
 
+	public long getLeaseSize() {
+		return leaseSize;
+	}
+
 	@Override
 	public synchronized void invalidate(final long id)
 	{
-		final long oldNext = next;
 		next = IdService.max(next, id + 1);
-		if (next != oldNext)
-		{
-			serializeMaxId();
-		}
+		ensureLeased();
 	}
 
 	@Override
 	public synchronized long next()
 	{
 		++next;
-		serializeMaxId();
+		ensureLeased();
 		return next;
 	}
 
@@ -54,15 +89,40 @@ public class N5IdService implements IdService
 	{
 		final long[] ids = LongStream.range(next, next + n).toArray();
 		next += n;
-		serializeMaxId();
+		ensureLeased();
 		return ids;
 	}
 
-	private void serializeMaxId()
+	/**
+	 * Write {@code "maxId"} for the ids that were actually handed out and release the remainder of the current lease,
+	 * e.g. when closing the dataset.
+	 */
+	public synchronized void releaseLease()
+	{
+		if (leaseEnd != next)
+		{
+			leaseEnd = next;
+			serializeMaxId(leaseEnd);
+		}
+	}
+
+	private void ensureLeased()
+	{
+		if (leaseSize > 0 && next < leaseEnd)
+			return;
+		if (leaseSize == 0 && next == leaseEnd)
+			return;
+		final long newLeaseEnd = next + leaseSize;
+		LOG.debug("Leasing ids up to {} for dataset {}", newLeaseEnd, dataset);
+		serializeMaxId(newLeaseEnd);
+		leaseEnd = newLeaseEnd;
+	}
+
+	private void serializeMaxId(final long maxId)
 	{
 		try
 		{
-			n5.setAttribute(dataset, "maxId", next);
+			n5.setAttribute(dataset, "maxId", maxId);
 		} catch (final IOException e)
 		{
 			throw new RuntimeException(e);
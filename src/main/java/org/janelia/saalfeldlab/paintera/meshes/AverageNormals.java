@@ -99,4 +99,74 @@ public class AverageNormals
 			normals[vertex + 2] = (float) nn[2];
 		}
 	}
+
+	/**
+	 * Calculate vertex normals of an indexed triangle mesh as the average of the normals of all triangles that share
+	 * a vertex.
+	 *
+	 * @param vertices vertex coordinates, three per vertex
+	 * @param indices vertex indices, three per triangle
+	 * @param normals output, three per vertex
+	 */
+	public static void averagedNormals(final float[] vertices, final int[] indices, final float[] normals)
+	{
+
+		LOG.debug("Averaging normals for {} vertices and {} triangles", vertices.length / 3, indices.length / 3);
+
+		assert indices.length % 3 == 0;
+		assert vertices.length == normals.length;
+
+		final double[] sums = new double[vertices.length];
+		final int[] counts = new int[vertices.length / 3];
+
+		for (int triangle = 0; triangle < indices.length; triangle += 3)
+		{
+			final int o1 = 3 * indices[triangle], o2 = 3 * indices[triangle + 1], o3 = 3 * indices[triangle + 2];
+
+			final double diff11 = vertices[o2] - vertices[o1];
+			final double diff12 = vertices[o2 + 1] - vertices[o1 + 1];
+			final double diff13 = vertices[o2 + 2] - vertices[o1 + 2];
+
+			final double diff21 = vertices[o3] - vertices[o1];
+			final double diff22 = vertices[o3 + 1] - vertices[o1 + 1];
+			final double diff23 = vertices[o3 + 2] - vertices[o1 + 2];
+
+			double n1 = diff12 * diff23 - diff13 * diff22;
+			double n2 = diff13 * diff21 - diff11 * diff23;
+			double n3 = diff11 * diff22 - diff12 * diff21;
+			final double norm = Math.sqrt(n1 * n1 + n2 * n2 + n3 * n3);
+			if (norm == 0.0)
+				continue;
+			n1 /= norm;
+			n2 /= norm;
+			n3 /= norm;
+
+			addNormal(sums, counts, o1, n1, n2, n3);
+			addNormal(sums, counts, o2, n1, n2, n3);
+			addNormal(sums, counts, o3, n1, n2, n3);
+		}
+
+		for (int vertex = 0; vertex < counts.length; ++vertex)
+		{
+			final int o = 3 * vertex;
+			final double c = counts[vertex] == 0 ? 0.0 : 1.0 / counts[vertex];
+			normals[o] = (float) (sums[o] * c);
+			normals[o + 1] = (float) (sums[o + 1] * c);
+			normals[o + 2] = (float) (sums[o + 2] * c);
+		}
+	}
+
+	private static void addNormal(
+			final double[] sums,
+			final int[] counts,
+			final int offset,
+			final double n1,
+			final double n2,
+			final double n3)
+	{
+		sums[offset] += n1;
+		sums[offset + 1] += n2;
+		sums[offset + 2] += n3;
+		++counts[offset / 3];
+	}
 }
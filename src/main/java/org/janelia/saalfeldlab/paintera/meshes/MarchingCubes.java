@@ -1,6 +1,9 @@
 package org.janelia.saalfeldlab.paintera.meshes;
 
+import gnu.trove.impl.Constants;
 import gnu.trove.list.array.TFloatArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TLongIntHashMap;
 import net.imglib2.Cursor;
 import net.imglib2.FinalInterval;
 import net.imglib2.Interval;
@@ -9,6 +12,8 @@ import net.imglib2.realtransform.AffineTransform3D;
 import net.imglib2.realtransform.Translation;
 import net.imglib2.type.BooleanType;
 import net.imglib2.util.Intervals;
+import net.imglib2.util.Pair;
+import net.imglib2.util.ValuePair;
 import net.imglib2.view.SubsampleIntervalView;
 import net.imglib2.view.Views;
 import org.slf4j.Logger;
@@ -428,9 +433,33 @@ public class MarchingCubes<B extends BooleanType<B>> {
 	/**
 	 * Creates the mesh using the information directly from the RAI structure
 	 *
+	 * @return triangle soup, i.e. three vertices (nine coordinates) per triangle
 	 */
 	public float[] generateMesh() {
-		final Interval interval = Intervals.expand(this.interval, 1L);
+		final Pair<float[], int[]> mesh = generateIndexedMesh();
+		final float[] vertices = mesh.getA();
+		final int[] indices = mesh.getB();
+		final float[] vertexArray = new float[indices.length * 3];
+		for (int i = 0, k = 0; i < indices.length; ++i) {
+			final int v = 3 * indices[i];
+			vertexArray[k++] = vertices[v];
+			vertexArray[k++] = vertices[v + 1];
+			vertexArray[k++] = vertices[v + 2];
+		}
+		return vertexArray;
+	}
+
+	/**
+	 * Creates an indexed mesh using the information directly from the RAI structure. Vertices are shared between
+	 * adjacent triangles: Each vertex lies on the mid point of a grid edge and is identified by that edge.
+	 *
+	 * @return (vertices, indices): three coordinates per vertex and three vertex indices per triangle
+	 */
+	public Pair<float[], int[]> generateIndexedMesh() {
+		final Interval interval = occupiedCubes(input, Intervals.expand(this.interval, 1L));
+		if (interval == null)
+			return new ValuePair<>(new float[0], new int[0]);
+
 		final Cursor<B> cursor0 = Views.flatIterable(Views.interval(input, interval)).localizingCursor();
 		final Cursor<B> cursor1 = Views.flatIterable(Views.interval(input, Intervals.translate(interval, 1, 0, 0))).cursor();
 		final Cursor<B> cursor2 = Views.flatIterable(Views.interval(input, Intervals.translate(interval,  0, 1, 0))).cursor();
@@ -440,10 +469,7 @@ public class MarchingCubes<B extends BooleanType<B>> {
 		final Cursor<B> cursor6 = Views.flatIterable(Views.interval(input, Intervals.translate(interval, 0, 1, 1))).cursor();
 		final Cursor<B> cursor7 = Views.flatIterable(Views.interval(input, Intervals.translate(interval, 1, 1, 1))).cursor();
 
-		final TFloatArrayList vertices = new TFloatArrayList();
-		final double[] p = new double[3];
-
-		final float[][] interpolationPoints = new float[12][3];
+		final IndexedMeshBuilder mesh = new IndexedMeshBuilder(interval);
 
 		while (cursor0.hasNext()) {
 
@@ -498,25 +524,134 @@ public class MarchingCubes<B extends BooleanType<B>> {
 					cursor0.getLongPosition(0),
 					cursor0.getLongPosition(1),
 					cursor0.getLongPosition(2),
-					vertices,
-					interpolationPoints
+					mesh
 			);
 
 		}
 
-		final float[] vertexArray = new float[vertices.size()];
+		return mesh.build(transform);
+	}
+
+	/**
+	 * Only cubes with both foreground and background corners intersect the surface. Scans the voxels read for
+	 * {@code cubes} once and shrinks {@code cubes} to the bounding box of cubes with a foreground corner, so that
+	 * the full marching cubes pass only visits the part of the block that contains the segment.
+	 *
+	 * @param input foreground mask
+	 * @param cubes min corners of the cubes to be triangulated
+	 * @return min corners of the cubes that contain foreground voxels, or {@code null} if none of the cubes
+	 * intersect the surface, i.e. all voxels are either foreground or background
+	 */
+	static <B extends BooleanType<B>> Interval occupiedCubes(final RandomAccessible<B> input, final Interval cubes) {
+		final long[] min = Intervals.minAsLongArray(cubes);
+		final long[] max = Intervals.maxAsLongArray(cubes);
+		final long[] voxelsMax = max.clone();
+		for (int d = 0; d < voxelsMax.length; ++d)
+			++voxelsMax[d];
+		final Interval voxels = new FinalInterval(min, voxelsMax);
+		final long sizeX = voxels.dimension(0);
+		final long sizeY = voxels.dimension(1);
+
+		final long[] foregroundMin = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+		final long[] foregroundMax = {Long.MIN_VALUE, Long.MIN_VALUE, Long.MIN_VALUE};
+		long numForegroundVoxels = 0;
+		// track the position instead of localizing the cursor: flat iteration order is x fastest, then y, then z
+		final Cursor<B> cursor = Views.flatIterable(Views.interval(input, voxels)).cursor();
+		for (long x = 0, y = 0, z = 0; cursor.hasNext(); ) {
+			if (cursor.next().get()) {
+				++numForegroundVoxels;
+				foregroundMin[0] = Math.min(foregroundMin[0], x);
+				foregroundMin[1] = Math.min(foregroundMin[1], y);
+				foregroundMin[2] = Math.min(foregroundMin[2], z);
+				foregroundMax[0] = Math.max(foregroundMax[0], x);
+				foregroundMax[1] = Math.max(foregroundMax[1], y);
+				foregroundMax[2] = Math.max(foregroundMax[2], z);
+			}
+			if (++x == sizeX) {
+				x = 0;
+				if (++y == sizeY) {
+					y = 0;
+					++z;
+				}
+			}
+		}
+
+		if (numForegroundVoxels == 0 || numForegroundVoxels == Intervals.numElements(voxels))
+			return null;
 
-		for (int i = 0; i < vertexArray.length; i += 3) {
-			p[0] = vertices.get(i);
-			p[1] = vertices.get(i + 1);
-			p[2] = vertices.get(i + 2);
-			transform.apply(p, p);
-			vertexArray[i]     = (float) p[0];
-			vertexArray[i + 1] = (float) p[1];
-			vertexArray[i + 2] = (float) p[2];
+		// a cube with min corner c contains the voxels in [c, c + 1]
+		for (int d = 0; d < min.length; ++d) {
+			final long occupiedMin = min[d] + foregroundMin[d] - 1;
+			final long occupiedMax = min[d] + foregroundMax[d];
+			min[d] = Math.max(min[d], occupiedMin);
+			max[d] = Math.min(max[d], occupiedMax);
 		}
+		return new FinalInterval(min, max);
+	}
 
-		return vertexArray;
+	/**
+	 * Collects vertices and triangle indices. Vertices are deduplicated by the grid edge they lie on, stored as
+	 * twice the edge mid point (the sum of the edge end points) relative to the min of the interval.
+	 */
+	private static final class IndexedMeshBuilder {
+
+		private final long minX, minY, minZ;
+
+		private final long strideY, strideZ;
+
+		private final TLongIntHashMap edgeToVertex = new TLongIntHashMap(
+				Constants.DEFAULT_CAPACITY,
+				Constants.DEFAULT_LOAD_FACTOR,
+				-1L,
+				-1);
+
+		private final TFloatArrayList vertices = new TFloatArrayList();
+
+		private final TIntArrayList indices = new TIntArrayList();
+
+		private final int[] edgeVertices = new int[12];
+
+		private final long[] edgeSum = new long[3];
+
+		private IndexedMeshBuilder(final Interval interval) {
+			this.minX = interval.min(0);
+			this.minY = interval.min(1);
+			this.minZ = interval.min(2);
+			// doubled coordinates relative to min are in [0, 2 * (dimension + 1)]
+			this.strideY = 2 * (interval.dimension(0) + 1) + 1;
+			this.strideZ = strideY * (2 * (interval.dimension(1) + 1) + 1);
+		}
+
+		private int vertexFor(final long[] edgeSum) {
+			final long x2 = edgeSum[0] - 2 * minX;
+			final long y2 = edgeSum[1] - 2 * minY;
+			final long z2 = edgeSum[2] - 2 * minZ;
+			final long key = x2 + strideY * y2 + strideZ * z2;
+			final int existing = edgeToVertex.get(key);
+			if (existing != edgeToVertex.getNoEntryValue())
+				return existing;
+			final int index = vertices.size() / 3;
+			vertices.add((float) (0.5 * edgeSum[0]));
+			vertices.add((float) (0.5 * edgeSum[1]));
+			vertices.add((float) (0.5 * edgeSum[2]));
+			edgeToVertex.put(key, index);
+			return index;
+		}
+
+		private Pair<float[], int[]> build(final AffineTransform3D transform) {
+			final float[] vertexArray = vertices.toArray();
+			final double[] p = new double[3];
+			for (int i = 0; i < vertexArray.length; i += 3) {
+				p[0] = vertexArray[i];
+				p[1] = vertexArray[i + 1];
+				p[2] = vertexArray[i + 2];
+				transform.apply(p, p);
+				vertexArray[i]     = (float) p[0];
+				vertexArray[i + 1] = (float) p[1];
+				vertexArray[i + 2] = (float) p[2];
+			}
+			return new ValuePair<>(vertexArray, indices.toArray());
+		}
 	}
 
 	/**
@@ -528,14 +663,14 @@ public class MarchingCubes<B extends BooleanType<B>> {
 	 * @param cursorX      position on x
 	 * @param cursorY      position on y
 	 * @param cursorZ      position on z
+	 * @param mesh         collects vertices and triangles
 	 */
 	private void triangulation(
 			final int vertexValues,
 			final long cursorX,
 			final long cursorY,
 			final long cursorZ,
-			final TFloatArrayList vertices,
-			final float[][] interpolationPoints) {
+			final IndexedMeshBuilder mesh) {
 		// @formatter:off
 		// this algorithm (based on http://paulbourke.net/geometry/polygonise/)
 		// considers the vertices of the cube in this order:
@@ -572,63 +707,66 @@ public class MarchingCubes<B extends BooleanType<B>> {
 		final int McEdge = MC_EDGE_TABLE[tableIndex];
 		if (McEdge != 0) {
 			if ((McEdge & 1) != 0)
-				calculateIntersection(cursorX, cursorY, cursorZ, 0, interpolationPoints[0]);
+				mesh.edgeVertices[0] = intersectionVertex(cursorX, cursorY, cursorZ, 0, mesh);
 
 			if ((McEdge & 2) != 0)
-				calculateIntersection(cursorX, cursorY, cursorZ, 1, interpolationPoints[1]);
+				mesh.edgeVertices[1] = intersectionVertex(cursorX, cursorY, cursorZ, 1, mesh);
 
 			if ((McEdge & 4) != 0)
-				calculateIntersection(cursorX, cursorY, cursorZ, 2, interpolationPoints[2]);
+				mesh.edgeVertices[2] = intersectionVertex(cursorX, cursorY, cursorZ, 2, mesh);
 
 			if ((McEdge & 8) != 0)
-				calculateIntersection(cursorX, cursorY, cursorZ, 3, interpolationPoints[3]);
+				mesh.edgeVertices[3] = intersectionVertex(cursorX, cursorY, cursorZ, 3, mesh);
 
 			if ((McEdge & 16) != 0)
-				calculateIntersection(cursorX, cursorY, cursorZ, 4, interpolationPoints[4]);
+				mesh.edgeVertices[4] = intersectionVertex(cursorX, cursorY, cursorZ, 4, mesh);
 
 			if ((McEdge & 32) != 0)
-				calculateIntersection(cursorX, cursorY, cursorZ, 5, interpolationPoints[5]);
+				mesh.edgeVertices[5] = intersectionVertex(cursorX, cursorY, cursorZ, 5, mesh);
 
 			if ((McEdge & 64) != 0)
-				calculateIntersection(cursorX, cursorY, cursorZ, 6, interpolationPoints[6]);
+				mesh.edgeVertices[6] = intersectionVertex(cursorX, cursorY, cursorZ, 6, mesh);
 
 			if ((McEdge & 128) != 0)
-				calculateIntersection(cursorX, cursorY, cursorZ, 7, interpolationPoints[7]);
+				mesh.edgeVertices[7] = intersectionVertex(cursorX, cursorY, cursorZ, 7, mesh);
 
 			if ((McEdge & 256) != 0)
-				calculateIntersection(cursorX, cursorY, cursorZ, 8, interpolationPoints[8]);
+				mesh.edgeVertices[8] = intersectionVertex(cursorX, cursorY, cursorZ, 8, mesh);
 
 			if ((McEdge & 512) != 0)
-				calculateIntersection(cursorX, cursorY, cursorZ, 9, interpolationPoints[9]);
+				mesh.edgeVertices[9] = intersectionVertex(cursorX, cursorY, cursorZ, 9, mesh);
 
 			if ((McEdge & 1024) != 0)
-				calculateIntersection(cursorX, cursorY, cursorZ, 10, interpolationPoints[10]);
+				mesh.edgeVertices[10] = intersectionVertex(cursorX, cursorY, cursorZ, 10, mesh);
 
 			if ((McEdge & 2048) != 0)
-				calculateIntersection(cursorX, cursorY, cursorZ, 11, interpolationPoints[11]);
+				mesh.edgeVertices[11] = intersectionVertex(cursorX, cursorY, cursorZ, 11, mesh);
 
 			final int[] McTri = MC_TRI_TABLE[tableIndex];
 
 			for (int i = 0; McTri[i] != INVALID; i += 3) {
-				final float[] v1 = interpolationPoints[McTri[i]];
-				final float[] v2 = interpolationPoints[McTri[i + 1]];
-				final float[] v3 = interpolationPoints[McTri[i + 2]];
-
-				vertices.add(v1[0]);
-				vertices.add(v1[1]);
-				vertices.add(v1[2]);
-
-				vertices.add(v2[0]);
-				vertices.add(v2[1]);
-				vertices.add(v2[2]);
-
-				vertices.add(v3[0]);
-				vertices.add(v3[1]);
-				vertices.add(v3[2]);
+				mesh.indices.add(mesh.edgeVertices[McTri[i]]);
+				mesh.indices.add(mesh.edgeVertices[McTri[i + 1]]);
+				mesh.indices.add(mesh.edgeVertices[McTri[i + 2]]);
 			}
 		}
 	}
 
+	/**
+	 * Given the position on the volume and the intersected edge, finds or adds the vertex at the intersection point.
+	 *
+	 * @param cursorX         position on x
+	 * @param cursorY         position on y
+	 * @param cursorZ         position on z
+	 * @param intersectedEdge intersected edge
+	 * @param mesh            collects vertices
+	 * @return index of the vertex at the intersection point
+	 */
+	private int intersectionVertex(final long cursorX, final long cursorY, final long cursorZ, final int intersectedEdge, final IndexedMeshBuilder mesh) {
+		calculateIntersection(cursorX, cursorY, cursorZ, intersectedEdge, mesh.edgeSum);
+		return mesh.vertexFor(mesh.edgeSum);
+	}
+
 	/**
 	 * Given the position on the volume and the intersected edge, calculates the intersection point. The intersection
 	 * point is going to be in the middle of the intersected edge. In this method also the offset is applied.
@@ -637,8 +775,9 @@ public class MarchingCubes<B extends BooleanType<B>> {
 	 * @param cursorY         position on y
 	 * @param cursorZ         position on z
 	 * @param intersectedEdge intersected edge
+	 * @param edgeSum         sum of the end points of the intersected edge, i.e. twice the intersection point
 	 */
-	private void calculateIntersection(final long cursorX, final long cursorY, final long cursorZ, final int intersectedEdge, final float[] intersection) {
+	private void calculateIntersection(final long cursorX, final long cursorY, final long cursorZ, final int intersectedEdge, final long[] edgeSum) {
 		LOGGER.trace("cursor position: " + cursorX + " " + cursorY + " " + cursorZ);
 		long v1x = cursorX, v1y = cursorY, v1z = cursorZ;
 		long v2x = cursorX, v2y = cursorY, v2z = cursorZ;
@@ -765,8 +904,8 @@ public class MarchingCubes<B extends BooleanType<B>> {
 				break;
 		}
 
-		intersection[0] = (float) (0.5 * (v1x + v2x));
-		intersection[1] = (float) (0.5 * (v1y + v2y));
-		intersection[2] = (float) (0.5 * (v1z + v2z));
+		edgeSum[0] = v1x + v2x;
+		edgeSum[1] = v1y + v2y;
+		edgeSum[2] = v1z + v2z;
 	}
 }
@@ -0,0 +1,359 @@
+package org.janelia.saalfeldlab.paintera.meshes;
+
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableDoubleValue;
+import javafx.collections.ListChangeListener;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.TriangleMesh;
+import javafx.scene.shape.VertexFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Merges the visible block meshes of a mesh generator into a few large batch meshes per scale level, such that the
+ * scene contains a few nodes per segment instead of one node per block.
+ *
+ * Block meshes are added to and removed from a source {@link Group} that is not part of the scene, and shown or hidden
+ * through their {@link Node#visibleProperty() visibility}. Only the batches that contain changed blocks are rebuilt, at
+ * most once per pulse. Blocks are batched by scale level because all blocks of a level are replaced together when the
+ * level of detail changes.
+ *
+ * All methods must be called on the FX application thread, except for {@link #setLevel(MeshView, int)}.
+ */
+public class MeshBatcher
+{
+	private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	/**
+	 * Blocks are added to a batch until it holds this many vertices. Smaller batches are cheaper to rebuild, larger
+	 * batches result in fewer nodes.
+	 */
+	public static final int MAX_VERTICES_PER_BATCH = 1 << 16;
+
+	private static final String LEVEL_KEY = MeshBatcher.class.getName() + ".level";
+
+	private static final class Batch
+	{
+		final int level;
+
+		final Set<MeshView> blocks = new LinkedHashSet<>();
+
+		int numVertices = 0;
+
+		MeshView view = null;
+
+		Batch(final int level)
+		{
+			this.level = level;
+		}
+	}
+
+	private final Group source;
+
+	private final Group target;
+
+	private final Supplier<MeshView> createBatchView;
+
+	private final Consumer<MeshView> releaseBatchView;
+
+	private final ObservableDoubleValue inflate;
+
+	private final Map<Integer, List<Batch>> batchesPerLevel = new HashMap<>();
+
+	private final Map<MeshView, Batch> blockBatches = new HashMap<>();
+
+	private final Map<MeshView, ChangeListener<Boolean>> visibilityListeners = new HashMap<>();
+
+	private final Set<Batch> dirtyBatches = new LinkedHashSet<>();
+
+	private final ListChangeListener<Node> sourceListener = this::handleSourceChange;
+
+	private final InvalidationListener inflateListener = obs -> {
+		batchesPerLevel.values().forEach(dirtyBatches::addAll);
+		scheduleRebuild();
+	};
+
+	private boolean isRebuildScheduled = false;
+
+	/**
+	 * @param source holds the block meshes, must not be part of the scene
+	 * @param target batch meshes are added to this group
+	 * @param createBatchView creates a view for a new batch mesh, e.g. with material and draw mode bound to settings
+	 * @param releaseBatchView called when a batch view is removed from {@code target}
+	 * @param inflate block meshes are scaled by this factor around their centers
+	 */
+	public MeshBatcher(
+			final Group source,
+			final Group target,
+			final Supplier<MeshView> createBatchView,
+			final Consumer<MeshView> releaseBatchView,
+			final ObservableDoubleValue inflate)
+	{
+		this.source = source;
+		this.target = target;
+		this.createBatchView = createBatchView;
+		this.releaseBatchView = releaseBatchView;
+		this.inflate = inflate;
+		this.source.getChildren().forEach(this::addBlock);
+		this.source.getChildren().addListener(sourceListener);
+		this.inflate.addListener(inflateListener);
+	}
+
+	/**
+	 * Blocks of the same scale level are merged into the same batches.
+	 *
+	 * @param block block mesh
+	 * @param level scale level of {@code block}
+	 */
+	public static void setLevel(final MeshView block, final int level)
+	{
+		block.getProperties().put(LEVEL_KEY, level);
+	}
+
+	/**
+	 * Stop listening to the source group and the inflate factor, and remove all batches from the target group.
+	 */
+	public void dispose()
+	{
+		source.getChildren().removeListener(sourceListener);
+		inflate.removeListener(inflateListener);
+		visibilityListeners.forEach((block, listener) -> block.visibleProperty().removeListener(listener));
+		visibilityListeners.clear();
+		blockBatches.clear();
+		dirtyBatches.clear();
+		batchesPerLevel.values().forEach(batches -> batches.stream().filter(batch -> batch.view != null).forEach(batch -> {
+			target.getChildren().remove(batch.view);
+			releaseBatchView.accept(batch.view);
+		}));
+		batchesPerLevel.clear();
+	}
+
+	private void handleSourceChange(final ListChangeListener.Change<? extends Node> change)
+	{
+		while (change.next())
+		{
+			change.getRemoved().forEach(this::removeBlock);
+			change.getAddedSubList().forEach(this::addBlock);
+		}
+	}
+
+	private void addBlock(final Node node)
+	{
+		if (!(node instanceof MeshView) || !isBatchable(((MeshView) node).getMesh()))
+		{
+			LOG.warn("Unable to batch {}, only triangle meshes with vertex format {} are supported", node, VertexFormat.POINT_NORMAL_TEXCOORD);
+			return;
+		}
+
+		final MeshView block = (MeshView) node;
+		final ChangeListener<Boolean> visibilityListener = (obs, oldv, newv) -> {
+			if (newv)
+				addToBatch(block);
+			else
+				removeFromBatch(block);
+		};
+		block.visibleProperty().addListener(visibilityListener);
+		visibilityListeners.put(block, visibilityListener);
+		if (block.isVisible())
+			addToBatch(block);
+	}
+
+	private void removeBlock(final Node node)
+	{
+		if (!(node instanceof MeshView))
+			return;
+		final MeshView block = (MeshView) node;
+		final ChangeListener<Boolean> visibilityListener = visibilityListeners.remove(block);
+		if (visibilityListener != null)
+			block.visibleProperty().removeListener(visibilityListener);
+		removeFromBatch(block);
+	}
+
+	private void addToBatch(final MeshView block)
+	{
+		if (blockBatches.containsKey(block))
+			return;
+
+		final Object levelProperty = block.getProperties().get(LEVEL_KEY);
+		final int level = levelProperty instanceof Integer ? (Integer) levelProperty : -1;
+		final List<Batch> batches = batchesPerLevel.computeIfAbsent(level, k -> new ArrayList<>());
+		final int numVertices = ((TriangleMesh) block.getMesh()).getPoints().size() / 3;
+		Batch batch = batches.isEmpty() ? null : batches.get(batches.size() - 1);
+		if (batch == null || batch.numVertices > 0 && batch.numVertices + numVertices > MAX_VERTICES_PER_BATCH)
+		{
+			batch = new Batch(level);
+			batches.add(batch);
+		}
+
+		batch.blocks.add(block);
+		batch.numVertices += numVertices;
+		blockBatches.put(block, batch);
+		dirtyBatches.add(batch);
+		scheduleRebuild();
+	}
+
+	private void removeFromBatch(final MeshView block)
+	{
+		final Batch batch = blockBatches.remove(block);
+		if (batch == null)
+			return;
+
+		batch.blocks.remove(block);
+		batch.numVertices -= ((TriangleMesh) block.getMesh()).getPoints().size() / 3;
+		dirtyBatches.add(batch);
+		scheduleRebuild();
+	}
+
+	private void scheduleRebuild()
+	{
+		if (isRebuildScheduled)
+			return;
+		isRebuildScheduled = true;
+		// coalesce all changes within the same pulse, e.g. all blocks added by the mesh view update queue
+		Platform.runLater(this::rebuildDirtyBatches);
+	}
+
+	private void rebuildDirtyBatches()
+	{
+		isRebuildScheduled = false;
+		LOG.debug("Rebuilding {} batches", dirtyBatches.size());
+		dirtyBatches.forEach(this::rebuild);
+		dirtyBatches.clear();
+	}
+
+	private void rebuild(final Batch batch)
+	{
+		if (batch.blocks.isEmpty())
+		{
+			final List<Batch> batches = batchesPerLevel.get(batch.level);
+			batches.remove(batch);
+			if (batches.isEmpty())
+				batchesPerLevel.remove(batch.level);
+			if (batch.view != null)
+			{
+				target.getChildren().remove(batch.view);
+				releaseBatchView.accept(batch.view);
+				batch.view = null;
+			}
+			return;
+		}
+
+		int numPoints = 0, numNormals = 0, numTexCoords = 0, numFaces = 0;
+		for (final MeshView block : batch.blocks)
+		{
+			final TriangleMesh mesh = (TriangleMesh) block.getMesh();
+			numPoints += mesh.getPoints().size();
+			numNormals += mesh.getNormals().size();
+			numTexCoords += mesh.getTexCoords().size();
+			numFaces += mesh.getFaces().size();
+		}
+
+		final float[] points = new float[numPoints];
+		final float[] normals = new float[numNormals];
+		final float[] texCoords = new float[numTexCoords];
+		final int[] faces = new int[numFaces];
+		final double inflate = this.inflate.get();
+		int pointOffset = 0, normalOffset = 0, texCoordOffset = 0, faceOffset = 0;
+		for (final MeshView block : batch.blocks)
+		{
+			final TriangleMesh mesh = (TriangleMesh) block.getMesh();
+			final int blockNumPoints = mesh.getPoints().size();
+			final int blockNumFaces = mesh.getFaces().size();
+			mesh.getPoints().copyTo(0, points, pointOffset, blockNumPoints);
+			mesh.getNormals().copyTo(0, normals, normalOffset, mesh.getNormals().size());
+			mesh.getTexCoords().copyTo(0, texCoords, texCoordOffset, mesh.getTexCoords().size());
+			mesh.getFaces().copyTo(0, faces, faceOffset, blockNumFaces);
+			if (inflate != 1.0)
+				inflate(points, pointOffset, pointOffset + blockNumPoints, inflate);
+			offsetFaces(faces, faceOffset, faceOffset + blockNumFaces, pointOffset / 3, normalOffset / 3, texCoordOffset / 2);
+			pointOffset += blockNumPoints;
+			normalOffset += mesh.getNormals().size();
+			texCoordOffset += mesh.getTexCoords().size();
+			faceOffset += blockNumFaces;
+		}
+
+		if (batch.view == null)
+		{
+			batch.view = createBatchView.get();
+			batch.view.setMesh(new TriangleMesh(VertexFormat.POINT_NORMAL_TEXCOORD));
+			target.getChildren().add(batch.view);
+		}
+		final TriangleMesh batchMesh = (TriangleMesh) batch.view.getMesh();
+		batchMesh.getPoints().setAll(points);
+		batchMesh.getNormals().setAll(normals);
+		batchMesh.getTexCoords().setAll(texCoords);
+		batchMesh.getFaces().setAll(faces);
+	}
+
+	private static boolean isBatchable(final Object mesh)
+	{
+		return mesh instanceof TriangleMesh && ((TriangleMesh) mesh).getVertexFormat() == VertexFormat.POINT_NORMAL_TEXCOORD;
+	}
+
+	/**
+	 * Scale points around the center of their bounding box, consistent with {@link Node#scaleXProperty() scaling}
+	 * of a node around the center of its bounds.
+	 *
+	 * @param points xyz coordinates
+	 * @param from index of first coordinate, inclusive
+	 * @param to index of last coordinate, exclusive
+	 * @param factor scale factor
+	 */
+	static void inflate(final float[] points, final int from, final int to, final double factor)
+	{
+		final float[] min = {Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY};
+		final float[] max = {Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY};
+		for (int i = from; i < to; ++i)
+		{
+			min[i % 3] = Math.min(min[i % 3], points[i]);
+			max[i % 3] = Math.max(max[i % 3], points[i]);
+		}
+		for (int i = from; i < to; ++i)
+		{
+			final double center = 0.5 * (min[i % 3] + max[i % 3]);
+			points[i] = (float) (center + (points[i] - center) * factor);
+		}
+	}
+
+	/**
+	 * Offset point, normal, and texture coordinate indices of faces with vertex format
+	 * {@link VertexFormat#POINT_NORMAL_TEXCOORD}.
+	 *
+	 * @param faces face indices
+	 * @param from index of first face index, inclusive
+	 * @param to index of last face index, exclusive
+	 * @param pointOffset added to point indices
+	 * @param normalOffset added to normal indices
+	 * @param texCoordOffset added to texture coordinate indices
+	 */
+	static void offsetFaces(
+			final int[] faces,
+			final int from,
+			final int to,
+			final int pointOffset,
+			final int normalOffset,
+			final int texCoordOffset)
+	{
+		for (int i = from; i < to; i += 3)
+		{
+			faces[i + 0] += pointOffset;
+			faces[i + 1] += normalOffset;
+			faces[i + 2] += texCoordOffset;
+		}
+	}
+
+}
@@ -82,6 +82,7 @@ public abstract class MeshExporter<T>
 				verticesAndNormals = getMeshFor.getMeshFor(key);
 				if (verticesAndNormals == null)
 					continue;
+				verticesAndNormals = verticesAndNormals.asTriangleSoup();
 				assert verticesAndNormals.getVertices().length == verticesAndNormals.getNormals().length : "Vertices and normals must have the same size.";
 				try
 				{
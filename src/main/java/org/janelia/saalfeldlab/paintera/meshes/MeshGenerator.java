@@ -23,6 +23,7 @@ import net.imglib2.img.cell.CellGrid;
 import net.imglib2.realtransform.AffineTransform3D;
 import net.imglib2.util.Pair;
 import net.imglib2.util.ValuePair;
+import org.janelia.saalfeldlab.fx.util.InvokeOnJavaFXApplicationThread;
 import org.janelia.saalfeldlab.paintera.meshes.managed.GetBlockListFor;
 import org.janelia.saalfeldlab.paintera.meshes.managed.GetMeshFor;
 import org.janelia.saalfeldlab.util.concurrent.HashPriorityQueueBasedTaskExecutor;
@@ -88,6 +89,7 @@ public class MeshGenerator<T>
 		final BlockTree<BlockTreeFlatKey, BlockTreeNode<BlockTreeFlatKey>> sceneBlockTree;
 		final CellGrid[] rendererGrids;
 		final int meshSimplificationIterations;
+		final double meshSimplificationRatio;
 		final double smoothingLambda;
 		final int smoothingIterations;
 		final double minLabelRatio;
@@ -96,6 +98,7 @@ public class MeshGenerator<T>
 				final BlockTree<BlockTreeFlatKey, BlockTreeNode<BlockTreeFlatKey>> sceneBlockTree,
 				final CellGrid[] rendererGrids,
 				final int meshSimplificationIterations,
+				final double meshSimplificationRatio,
 				final double smoothingLambda,
 				final int smoothingIterations,
 				final double minLabelRatio)
@@ -103,6 +106,7 @@ public class MeshGenerator<T>
 			this.sceneBlockTree = sceneBlockTree;
 			this.rendererGrids = rendererGrids;
 			this.meshSimplificationIterations = meshSimplificationIterations;
+			this.meshSimplificationRatio = meshSimplificationRatio;
 			this.smoothingLambda = smoothingLambda;
 			this.smoothingIterations = smoothingIterations;
 			this.minLabelRatio = minLabelRatio;
@@ -119,6 +123,8 @@ public class MeshGenerator<T>
 
 	private final Group blocksGroup;
 
+	private final MeshBatcher meshBatcher;
+
 	private final MeshGeneratorJobManager<T> manager;
 
 	private final State state;
@@ -173,6 +179,7 @@ public class MeshGenerator<T>
 						sceneUpdateParameters != null ? sceneUpdateParameters.sceneBlockTree : null,
 						sceneUpdateParameters != null ? sceneUpdateParameters.rendererGrids : null,
 						this.state.settings.getSimplificationIterations(),// this.meshSimplificationIterations.get(),
+						this.state.settings.getSimplificationRatio(),
 						this.state.settings.getSmoothingLambda(),//this.smoothingLambda.get(),
 						this.state.settings.getSmoothingIterations(),//this.smoothingIterations.get(),
 						this.state.settings.getMinLabelRatio()//this.minLabelRatio.get()
@@ -182,6 +189,7 @@ public class MeshGenerator<T>
 		};
 
 		this.state.settings.simplificationIterationsProperty().addListener(updateInvalidationListener);
+		this.state.settings.simplificationRatioProperty().addListener(updateInvalidationListener);
 		this.state.settings.smoothingLambdaProperty().addListener(updateInvalidationListener);
 		this.state.settings.smoothingIterationsProperty().addListener(updateInvalidationListener);
 		this.state.settings.minLabelRatioProperty().addListener(updateInvalidationListener);
@@ -189,9 +197,17 @@ public class MeshGenerator<T>
 		// initialize
 		updateInvalidationListener.invalidated(null);
 
+		// block meshes are not added to the scene but merged into batches
 		this.meshesGroup = new Group();
 		this.blocksGroup = new Group();
-		this.root = new Group(meshesGroup);
+		final Group batchesGroup = new Group();
+		this.root = new Group(batchesGroup);
+		this.meshBatcher = new MeshBatcher(
+				meshesGroup,
+				batchesGroup,
+				this::createBatchView,
+				this::releaseBatchView,
+				this.state.settings.inflateProperty());
 
 		this.showBlockBoundariesListener = (obs, oldv, newv) -> {
 			if (newv)
@@ -300,6 +316,7 @@ public class MeshGenerator<T>
 				sceneBlockTree,
 				rendererGrids,
 				sceneUpdateParameters.meshSimplificationIterations,
+				sceneUpdateParameters.meshSimplificationRatio,
 				sceneUpdateParameters.smoothingLambda,
 				sceneUpdateParameters.smoothingIterations,
 				sceneUpdateParameters.minLabelRatio);
@@ -320,10 +337,31 @@ public class MeshGenerator<T>
 		manager.interrupt();
 
 		this.state.settings.simplificationIterationsProperty().removeListener(updateInvalidationListener);
+		this.state.settings.simplificationRatioProperty().removeListener(updateInvalidationListener);
 		this.state.settings.smoothingLambdaProperty().removeListener(updateInvalidationListener);
 		this.state.settings.smoothingIterationsProperty().removeListener(updateInvalidationListener);
 		this.state.settings.minLabelRatioProperty().removeListener(updateInvalidationListener);
 		this.state.showBlockBoundariesProperty().removeListener(showBlockBoundariesListener);
+		InvokeOnJavaFXApplicationThread.invoke(meshBatcher::dispose);
+	}
+
+	private MeshView createBatchView()
+	{
+		final PhongMaterial material = Meshes.painteraPhongMaterial();
+		material.diffuseColorProperty().bind(this.state.premultipliedColor);
+		final MeshView batchView = new MeshView();
+		batchView.setOpacity(1.0);
+		batchView.setMaterial(material);
+		batchView.drawModeProperty().bind(this.state.settings.drawModeProperty());
+		batchView.cullFaceProperty().bind(this.state.settings.cullFaceProperty());
+		return batchView;
+	}
+
+	private void releaseBatchView(final MeshView batchView)
+	{
+		((PhongMaterial) batchView.getMaterial()).diffuseColorProperty().unbind();
+		batchView.drawModeProperty().unbind();
+		batchView.cullFaceProperty().unbind();
 	}
 
 	private synchronized void updateMeshes()
@@ -344,6 +382,7 @@ public class MeshGenerator<T>
 				sceneUpdateParameters.sceneBlockTree,
 				sceneUpdateParameters.rendererGrids,
 				sceneUpdateParameters.meshSimplificationIterations,
+				sceneUpdateParameters.meshSimplificationRatio,
 				sceneUpdateParameters.smoothingLambda,
 				sceneUpdateParameters.smoothingIterations,
 				sceneUpdateParameters.minLabelRatio);
@@ -67,6 +67,7 @@ public class MeshGeneratorJobManager<T>
 		final BlockTree<BlockTreeFlatKey, BlockTreeNode<BlockTreeFlatKey>> sceneBlockTree;
 		final CellGrid[] rendererGrids;
 		final int simplificationIterations;
+		final double simplificationRatio;
 		final double smoothingLambda;
 		final int smoothingIterations;
 		final double minLabelRatio;
@@ -75,6 +76,7 @@ public class MeshGeneratorJobManager<T>
 			final BlockTree<BlockTreeFlatKey, BlockTreeNode<BlockTreeFlatKey>> sceneBlockTree,
 			final CellGrid[] rendererGrids,
 			final int simplificationIterations,
+			final double simplificationRatio,
 			final double smoothingLambda,
 			final int smoothingIterations,
 			final double minLabelRatio)
@@ -82,6 +84,7 @@ public class MeshGeneratorJobManager<T>
 			this.sceneBlockTree = sceneBlockTree;
 			this.rendererGrids = rendererGrids;
 			this.simplificationIterations = simplificationIterations;
+			this.simplificationRatio = simplificationRatio;
 			this.smoothingLambda = smoothingLambda;
 			this.smoothingIterations = smoothingIterations;
 			this.minLabelRatio = minLabelRatio;
@@ -111,6 +114,7 @@ public class MeshGeneratorJobManager<T>
 				return
 						sameBlockSize &&
 						simplificationIterations == other.simplificationIterations &&
+						simplificationRatio == other.simplificationRatio &&
 						smoothingLambda == other.smoothingLambda &&
 						smoothingIterations == other.smoothingIterations &&
 						minLabelRatio == other.minLabelRatio;
@@ -293,6 +297,7 @@ public class MeshGeneratorJobManager<T>
 			final BlockTree<BlockTreeFlatKey, BlockTreeNode<BlockTreeFlatKey>> sceneBlockTree,
 			final CellGrid[] rendererGrids,
 			final int simplificationIterations,
+			final double simplificationRatio,
 			final double smoothingLambda,
 			final int smoothingIterations,
 			final double minLabelRatio)
@@ -304,6 +309,7 @@ public class MeshGeneratorJobManager<T>
 				sceneBlockTree,
 				rendererGrids,
 				simplificationIterations,
+				simplificationRatio,
 				smoothingLambda,
 				smoothingIterations,
 				minLabelRatio
@@ -647,6 +653,8 @@ public class MeshGeneratorJobManager<T>
 
 		final boolean nonEmptyMesh = triangleMesh.isNotEmpty();
 		final MeshView mv = nonEmptyMesh ? makeMeshView(triangleMesh) : null;
+		if (mv != null)
+			MeshBatcher.setLevel(mv, key.scaleIndex());
 		final Node blockShape = nonEmptyMesh ? createBlockShape(key) : null;
 		final Pair<MeshView, Node> meshAndBlock = new ValuePair<>(mv, blockShape);
 		LOG.debug("Found {}/3 vertices and {}/3 normals", triangleMesh.getVertices(), triangleMesh.getNormals());
@@ -1073,6 +1081,7 @@ public class MeshGeneratorJobManager<T>
 				identifier,
 				scaleLevel,
 				sceneUpdateParameters.simplificationIterations,
+				sceneUpdateParameters.simplificationRatio,
 				sceneUpdateParameters.smoothingLambda,
 				sceneUpdateParameters.smoothingIterations,
 				sceneUpdateParameters.minLabelRatio,
@@ -1085,16 +1094,20 @@ public class MeshGeneratorJobManager<T>
 	{
 		final float[]      vertices = verticesAndNormals.getVertices();
 		final float[]      normals  = verticesAndNormals.getNormals();
+		final int[]        indices  = verticesAndNormals.getIndices();
 		final TriangleMesh mesh     = new TriangleMesh();
 		mesh.getPoints().addAll(vertices);
 		mesh.getNormals().addAll(normals);
 		mesh.getTexCoords().addAll(0, 0);
 		mesh.setVertexFormat(VertexFormat.POINT_NORMAL_TEXCOORD);
-		final int[] faceIndices = new int[vertices.length];
+		// point and normal share the same index, the single texture coordinate has index 0
+		final int numFaceVertices = indices == null ? vertices.length / 3 : indices.length;
+		final int[] faceIndices = new int[numFaceVertices * 3];
 		for (int i = 0, k = 0; i < faceIndices.length; i += 3, ++k)
 		{
-			faceIndices[i + 0] = k;
-			faceIndices[i + 1] = k;
+			final int index = indices == null ? k : indices[k];
+			faceIndices[i + 0] = index;
+			faceIndices[i + 1] = index;
 			faceIndices[i + 2] = 0;
 		}
 		mesh.getFaces().addAll(faceIndices);
@@ -6,6 +6,7 @@ import net.imglib2.Interval;
 import net.imglib2.img.cell.CellGrid;
 import net.imglib2.realtransform.AffineTransform3D;
 import net.imglib2.util.Intervals;
+import org.janelia.saalfeldlab.paintera.config.Viewer3DConfig;
 import org.janelia.saalfeldlab.paintera.data.DataSource;
 import org.janelia.saalfeldlab.paintera.viewer3d.ViewFrustum;
 import org.janelia.saalfeldlab.paintera.viewer3d.ViewFrustumCulling;
@@ -16,7 +17,6 @@ import org.slf4j.LoggerFactory;
 import java.lang.invoke.MethodHandles;
 import java.util.*;
 import java.util.function.BooleanSupplier;
-import java.util.stream.LongStream;
 
 public class SceneBlockTree
 {
@@ -30,6 +30,12 @@ public class SceneBlockTree
 		Arrays.setAll(levelOfDetailMaxPixels, i -> Math.pow(2, levelOfDetailMaxPixels.length - 1 - i));
 	}
 
+	/**
+	 * Default upper bound for the estimated number of triangles of all meshes generated from a scene block tree.
+	 * Refinement stops once it would be exceeded, except for levels coarser than the coarsest scale level.
+	 */
+	public static final long DEFAULT_MAX_NUM_TRIANGLES = Viewer3DConfig.MAX_NUM_TRIANGLES_DEFAULT_VALUE;
+
 	private SceneBlockTree() {}
 
 	public static BlockTree<BlockTreeFlatKey, BlockTreeNode<BlockTreeFlatKey>> createSceneBlockTree(
@@ -62,13 +68,50 @@ public class SceneBlockTree
 			final int finestScaleLevel,
 			final CellGrid[] rendererGrids,
 			final BooleanSupplier wasInterrupted)
+	{
+		return createSceneBlockTree(
+				source,
+				viewFrustum,
+				eyeToWorldTransform,
+				levelOfDetail,
+				coarsestScaleLevel,
+				finestScaleLevel,
+				DEFAULT_MAX_NUM_TRIANGLES,
+				1,
+				rendererGrids,
+				wasInterrupted
+			);
+	}
+
+	/**
+	 * Creates the tree of blocks to be rendered for the current view. Blocks are refined in the order of their
+	 * screen-space error, i.e. the number of pixels covered by the smallest voxel edge of their scale level at their
+	 * distance from the camera. A block is refined if its screen-space error exceeds the threshold for
+	 * {@code levelOfDetail} and the estimated number of triangles stays within {@code maxNumTriangles}.
+	 * This way, the finest scale level is requested only where it changes pixels, and the blocks that are most
+	 * visibly coarse are refined first when the budget runs out.
+	 *
+	 * @param maxNumTriangles budget for the estimated number of triangles of all meshes generated from this tree
+	 * @param numMeshes number of meshes that are generated from this tree, every block counts once per mesh
+	 */
+	public static BlockTree<BlockTreeFlatKey, BlockTreeNode<BlockTreeFlatKey>> createSceneBlockTree(
+			final DataSource<?, ?> source,
+			final ViewFrustum viewFrustum,
+			final AffineTransform3D eyeToWorldTransform,
+			final int levelOfDetail,
+			final int coarsestScaleLevel,
+			final int finestScaleLevel,
+			final long maxNumTriangles,
+			final int numMeshes,
+			final CellGrid[] rendererGrids,
+			final BooleanSupplier wasInterrupted)
 	{
 		final int numScaleLevels = source.getNumMipmapLevels();
 
 		final double maxPixelsInProjectedVoxel = levelOfDetailMaxPixels[
 				Math.max(0, Math.min(levelOfDetail - MeshSettings.Defaults.Values.getMinLevelOfDetail(), levelOfDetailMaxPixels.length - 1))
 			];
-		LOG.debug("levelOfDetail={}, maxPixelsInProjectedVoxel={}", levelOfDetail, maxPixelsInProjectedVoxel);
+		LOG.debug("levelOfDetail={}, maxPixelsInProjectedVoxel={}, maxNumTriangles={}, numMeshes={}", levelOfDetail, maxPixelsInProjectedVoxel, maxNumTriangles, numMeshes);
 
 		final ViewFrustumCulling[] viewFrustumCullingInSourceSpace = new ViewFrustumCulling[numScaleLevels];
 		final double[] minMipmapPixelSize = new double[numScaleLevels];
@@ -91,66 +134,167 @@ public class SceneBlockTree
 		Arrays.setAll(sourceScales, i -> DataSource.getScale(source, 0, i));
 
 		final BlockTree<BlockTreeFlatKey, BlockTreeNode<BlockTreeFlatKey>> blockTree = new BlockTree<>();
-		final LinkedHashMap<BlockTreeFlatKey, BlockTreeFlatKey> blockAndParentQueue = new LinkedHashMap<>();
+		final PriorityQueue<QueuedBlock> blockQueue = new PriorityQueue<>(Comparator.comparingDouble((QueuedBlock block) -> block.priority).reversed());
+		final Set<BlockTreeFlatKey> queuedKeys = new HashSet<>();
 
-		// start with all blocks at the lowest resolution
+		// start with all visible blocks at the lowest resolution, these are always included
 		final int lowestResolutionScaleLevel = numScaleLevels - 1;
 		final CellGrid rendererGridAtLowestResolution = rendererGrids[lowestResolutionScaleLevel];
 		final long numBlocksAtLowestResolution = Intervals.numElements(rendererGridAtLowestResolution.getGridDimensions());
-		LongStream.range(0, numBlocksAtLowestResolution).forEach(blockIndex -> blockAndParentQueue.put(new BlockTreeFlatKey(lowestResolutionScaleLevel, blockIndex), null));
+		long estimatedNumTriangles = 0;
+		for (long blockIndex = 0; blockIndex < numBlocksAtLowestResolution; ++blockIndex)
+		{
+			final QueuedBlock block = createQueuedBlock(
+					new BlockTreeFlatKey(lowestResolutionScaleLevel, blockIndex),
+					null,
+					viewFrustum,
+					viewFrustumCullingInSourceSpace,
+					minMipmapPixelSize,
+					numMeshes,
+					coarsestScaleLevel,
+					rendererGrids);
+			if (block != null)
+			{
+				blockQueue.add(block);
+				estimatedNumTriangles += block.estimatedNumTriangles;
+			}
+		}
 
-		while (!blockAndParentQueue.isEmpty() && !wasInterrupted.getAsBoolean())
+		while (!blockQueue.isEmpty() && !wasInterrupted.getAsBoolean())
 		{
-			final Iterator<Map.Entry<BlockTreeFlatKey, BlockTreeFlatKey>> it = blockAndParentQueue.entrySet().iterator();
-			final Map.Entry<BlockTreeFlatKey, BlockTreeFlatKey> entry = it.next();
-			it.remove();
+			final QueuedBlock block = blockQueue.poll();
+			final BlockTreeFlatKey key = block.key;
+			final BlockTreeFlatKey parentKey = block.parentKey;
+			final int scaleLevel = key.scaleLevel;
+			LOG.debug("scaleIndex={}, distanceFromCamera={}, screenSpaceError={}", scaleLevel, block.distanceFromCamera, block.screenSpaceError);
 
-			final BlockTreeFlatKey key = entry.getKey();
-			final BlockTreeFlatKey parentKey = entry.getValue();
+			final BlockTreeNode<BlockTreeFlatKey> treeNode = new BlockTreeNode<>(parentKey, new HashSet<>(), block.distanceFromCamera);
+			blockTree.nodes.put(key, treeNode);
+			if (parentKey != null)
+				blockTree.nodes.get(parentKey).children.add(key);
 
-			final int scaleLevel = key.scaleLevel;
-			final Interval blockInterval = Grids.getCellInterval(rendererGrids[scaleLevel], key.blockIndex);
+			// check if needed to subdivide the block
+			final boolean isCoarserThanAllowed = scaleLevel > coarsestScaleLevel;
+			if (!isCoarserThanAllowed && (scaleLevel <= finestScaleLevel || block.screenSpaceError <= maxPixelsInProjectedVoxel))
+				continue;
+
+			final int nextScaleLevel = scaleLevel - 1;
+			final CellGrid rendererNextLevelGrid = rendererGrids[nextScaleLevel];
+
+			final double[] relativeScales = new double[3];
+			Arrays.setAll(relativeScales, d -> sourceScales[scaleLevel][d] / sourceScales[nextScaleLevel][d]);
+
+			final double[] nextScaleLevelBlockMin = new double[3], nextScaleLevelBlockMax = new double[3];
+			for (int d = 0; d < 3; ++d)
+			{
+				nextScaleLevelBlockMin[d] = block.interval.min(d) * relativeScales[d];
+				nextScaleLevelBlockMax[d] = (block.interval.max(d) + 1) * relativeScales[d] - 1;
+			}
+			final Interval nextLevelBlockInterval = Intervals.smallestContainingInterval(new FinalRealInterval(nextScaleLevelBlockMin, nextScaleLevelBlockMax));
+
+			// find out what visible blocks at higher resolution intersect with this block
+			final List<QueuedBlock> children = new ArrayList<>();
+			long childrenEstimatedNumTriangles = 0;
+			for (final long intersectingNextLevelBlockIndex : Grids.getIntersectingBlocks(nextLevelBlockInterval, rendererNextLevelGrid))
+			{
+				final BlockTreeFlatKey childKey = new BlockTreeFlatKey(nextScaleLevel, intersectingNextLevelBlockIndex);
+				if (queuedKeys.contains(childKey))
+					continue;
+				final QueuedBlock child = createQueuedBlock(
+						childKey,
+						key,
+						viewFrustum,
+						viewFrustumCullingInSourceSpace,
+						minMipmapPixelSize,
+						numMeshes,
+						coarsestScaleLevel,
+						rendererGrids);
+				if (child != null)
+				{
+					children.add(child);
+					childrenEstimatedNumTriangles += child.estimatedNumTriangles;
+				}
+			}
 
-			if (viewFrustumCullingInSourceSpace[scaleLevel].intersects(blockInterval))
+			// the children replace this block in the scene
+			final long refinedEstimatedNumTriangles = estimatedNumTriangles - block.estimatedNumTriangles + childrenEstimatedNumTriangles;
+			if (isCoarserThanAllowed || refinedEstimatedNumTriangles <= maxNumTriangles)
 			{
-				final double distanceFromCamera = viewFrustumCullingInSourceSpace[scaleLevel].distanceFromCamera(blockInterval);
-				final double screenSizeToViewPlaneRatio = viewFrustum.screenSizeToViewPlaneRatio(distanceFromCamera);
-				final double screenPixelSize = screenSizeToViewPlaneRatio * minMipmapPixelSize[scaleLevel];
-				LOG.debug("scaleIndex={}, screenSizeToViewPlaneRatio={}, screenPixelSize={}", scaleLevel, screenSizeToViewPlaneRatio, screenPixelSize);
-
-				final BlockTreeNode<BlockTreeFlatKey> treeNode = new BlockTreeNode<>(parentKey, new HashSet<>(), distanceFromCamera);
-				blockTree.nodes.put(key, treeNode);
-				if (parentKey != null)
-					blockTree.nodes.get(parentKey).children.add(key);
-
-				// check if needed to subdivide the block
-				if (scaleLevel > coarsestScaleLevel || (scaleLevel > finestScaleLevel && screenPixelSize > maxPixelsInProjectedVoxel))
+				estimatedNumTriangles = refinedEstimatedNumTriangles;
+				for (final QueuedBlock child : children)
 				{
-					final int nextScaleLevel = scaleLevel - 1;
-					final CellGrid rendererNextLevelGrid = rendererGrids[nextScaleLevel];
-
-					final double[] relativeScales = new double[3];
-					Arrays.setAll(relativeScales, d -> sourceScales[scaleLevel][d] / sourceScales[nextScaleLevel][d]);
-
-					final double[] nextScaleLevelBlockMin = new double[3], nextScaleLevelBlockMax = new double[3];
-					for (int d = 0; d < 3; ++d)
-					{
-						nextScaleLevelBlockMin[d] = blockInterval.min(d) * relativeScales[d];
-						nextScaleLevelBlockMax[d] = (blockInterval.max(d) + 1) * relativeScales[d] - 1;
-					}
-					final Interval nextLevelBlockInterval = Intervals.smallestContainingInterval(new FinalRealInterval(nextScaleLevelBlockMin, nextScaleLevelBlockMax));
-
-					// find out what blocks at higher resolution intersect with this block
-					final long[] intersectingNextLevelBlockIndices = Grids.getIntersectingBlocks(nextLevelBlockInterval, rendererNextLevelGrid);
-					for (final long intersectingNextLevelBlockIndex : intersectingNextLevelBlockIndices)
-					{
-						final BlockTreeFlatKey childKey = new BlockTreeFlatKey(nextScaleLevel, intersectingNextLevelBlockIndex);
-						blockAndParentQueue.put(childKey, key);
-					}
+					queuedKeys.add(child.key);
+					blockQueue.add(child);
 				}
 			}
 		}
+		LOG.debug("Created scene block tree with {} blocks and an estimated number of {} triangles", blockTree.nodes.size(), estimatedNumTriangles);
 
 		return !wasInterrupted.getAsBoolean() ? blockTree : null;
 	}
+
+	/**
+	 * @return block with its screen-space error, or {@code null} if the block is outside of the view frustum
+	 */
+	private static QueuedBlock createQueuedBlock(
+			final BlockTreeFlatKey key,
+			final BlockTreeFlatKey parentKey,
+			final ViewFrustum viewFrustum,
+			final ViewFrustumCulling[] viewFrustumCullingInSourceSpace,
+			final double[] minMipmapPixelSize,
+			final int numMeshes,
+			final int coarsestScaleLevel,
+			final CellGrid[] rendererGrids)
+	{
+		final int scaleLevel = key.scaleLevel;
+		final Interval blockInterval = Grids.getCellInterval(rendererGrids[scaleLevel], key.blockIndex);
+		if (!viewFrustumCullingInSourceSpace[scaleLevel].intersects(blockInterval))
+			return null;
+
+		final double distanceFromCamera = viewFrustumCullingInSourceSpace[scaleLevel].distanceFromCamera(blockInterval);
+		final double screenSpaceError = viewFrustum.projectedSizeInPixels(minMipmapPixelSize[scaleLevel], distanceFromCamera);
+		// blocks coarser than the coarsest scale level are always refined first
+		final double priority = scaleLevel > coarsestScaleLevel ? Double.POSITIVE_INFINITY : screenSpaceError;
+		return new QueuedBlock(key, parentKey, blockInterval, distanceFromCamera, screenSpaceError, priority, numMeshes * estimateNumTriangles(blockInterval));
+	}
+
+	/**
+	 * Rough estimate for the number of triangles of a mesh in {@code blockInterval}: marching cubes generates
+	 * about two triangles per voxel crossed by a surface, and a surface crosses about as many voxels as the
+	 * largest cross-section of the block.
+	 */
+	static long estimateNumTriangles(final Interval blockInterval)
+	{
+		final long[] dims = Intervals.dimensionsAsLongArray(blockInterval);
+		return 2 * Math.max(dims[0] * dims[1], Math.max(dims[0] * dims[2], dims[1] * dims[2]));
+	}
+
+	private static final class QueuedBlock
+	{
+		final BlockTreeFlatKey key;
+		final BlockTreeFlatKey parentKey;
+		final Interval interval;
+		final double distanceFromCamera;
+		final double screenSpaceError;
+		final double priority;
+		final long estimatedNumTriangles;
+
+		QueuedBlock(
+				final BlockTreeFlatKey key,
+				final BlockTreeFlatKey parentKey,
+				final Interval interval,
+				final double distanceFromCamera,
+				final double screenSpaceError,
+				final double priority,
+				final long estimatedNumTriangles)
+		{
+			this.key = key;
+			this.parentKey = parentKey;
+			this.interval = interval;
+			this.distanceFromCamera = distanceFromCamera;
+			this.screenSpaceError = screenSpaceError;
+			this.priority = priority;
+			this.estimatedNumTriangles = estimatedNumTriangles;
+		}
+	}
 }
@@ -17,6 +17,8 @@ public class ShapeKey<T>
 
 	private final int simplificationIterations;
 
+	private final double simplificationRatio;
+
 	private final double smoothingLambda;
 
 	private final int smoothingIterations;
@@ -44,6 +46,29 @@ public class ShapeKey<T>
 				shapeId,
 				scaleIndex,
 				simplificationIterations,
+				Simplify.DEFAULT_TARGET_RATIO,
+				smoothingLambda,
+				smoothingIterations,
+				minLabelRatio,
+				min,
+				max);
+	}
+
+	public ShapeKey(
+			final T shapeId,
+			final int scaleIndex,
+			final int simplificationIterations,
+			final double simplificationRatio,
+			final double smoothingLambda,
+			final int smoothingIterations,
+			final double minLabelRatio,
+			final long[] min,
+			final long[] max) {
+		this(
+				shapeId,
+				scaleIndex,
+				simplificationIterations,
+				simplificationRatio,
 				smoothingLambda,
 				smoothingIterations,
 				minLabelRatio,
@@ -64,10 +89,38 @@ public class ShapeKey<T>
 			final long[] max,
 			final ToIntFunction<T> shapeIdHashCode,
 			final BiPredicate<T, Object> shapeIdEquals)
+	{
+		this(
+				shapeId,
+				scaleIndex,
+				simplificationIterations,
+				Simplify.DEFAULT_TARGET_RATIO,
+				smoothingLambda,
+				smoothingIterations,
+				minLabelRatio,
+				min,
+				max,
+				shapeIdHashCode,
+				shapeIdEquals);
+	}
+
+	public ShapeKey(
+			final T shapeId,
+			final int scaleIndex,
+			final int simplificationIterations,
+			final double simplificationRatio,
+			final double smoothingLambda,
+			final int smoothingIterations,
+			final double minLabelRatio,
+			final long[] min,
+			final long[] max,
+			final ToIntFunction<T> shapeIdHashCode,
+			final BiPredicate<T, Object> shapeIdEquals)
 	{
 		this.shapeId = shapeId;
 		this.scaleIndex = scaleIndex;
 		this.simplificationIterations = simplificationIterations;
+		this.simplificationRatio = simplificationRatio;
 		this.smoothingLambda = smoothingLambda;
 		this.smoothingIterations = smoothingIterations;
 		this.minLabelRatio = minLabelRatio;
@@ -81,10 +134,11 @@ public class ShapeKey<T>
 	public String toString()
 	{
 		return String.format(
-				"{shapeId=%s, scaleIndex=%d, simplifications=%d, smoothingLambda=%.2f, smoothings=%d, minLabelRatio=%.2f, min=%s, max=%s}",
+				"{shapeId=%s, scaleIndex=%d, simplifications=%d, simplificationRatio=%.2f, smoothingLambda=%.2f, smoothings=%d, minLabelRatio=%.2f, min=%s, max=%s}",
 				shapeId,
 				scaleIndex,
 				simplificationIterations,
+				simplificationRatio,
 				smoothingLambda,
 				smoothingIterations,
 				minLabelRatio,
@@ -99,6 +153,7 @@ public class ShapeKey<T>
 		// shapeId may be null, e.g. when using Void as shape Key
 		result = 31 * result + shapeIdHashCode.applyAsInt(shapeId);
 		result = 31 * result + simplificationIterations;
+		result = 31 * result + Double.hashCode(simplificationRatio);
 		result = 31 * result + Double.hashCode(smoothingLambda);
 		result = 31 * result + smoothingIterations;
 		result = 31 * result + Double.hashCode(minLabelRatio);
@@ -120,6 +175,7 @@ public class ShapeKey<T>
 					shapeIdEquals.test(shapeId, other.shapeId) &&
 					scaleIndex == other.scaleIndex &&
 					simplificationIterations == other.simplificationIterations &&
+					simplificationRatio == other.simplificationRatio &&
 					smoothingLambda == other.smoothingLambda &&
 					smoothingIterations == other.smoothingIterations &&
 					minLabelRatio == other.minLabelRatio &&
@@ -145,6 +201,14 @@ public class ShapeKey<T>
 		return simplificationIterations;
 	}
 
+	/**
+	 * @return Fraction of triangles that is kept after mesh simplification. No simplification for values {@code >= 1}.
+	 */
+	public double simplificationRatio()
+	{
+		return simplificationRatio;
+	}
+
 	public double smoothingLambda()
 	{
 		return smoothingLambda;
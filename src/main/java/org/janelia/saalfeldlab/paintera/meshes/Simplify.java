@@ -1,12 +1,21 @@
 package org.janelia.saalfeldlab.paintera.meshes;
 
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.set.hash.TIntHashSet;
 import net.imglib2.util.Pair;
 import net.imglib2.util.ValuePair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
 /**
- * Calculate and assign surface normals of a triangle mesh.
+ * Decimate a triangle mesh through quadric error metric edge collapses (Garland and Heckbert, 1997).
+ *
+ * Vertices on the mesh boundary are never moved or removed. Meshes are generated per block and the boundary of
+ * a block mesh is shared with the meshes of the neighboring blocks, so locking the boundary keeps the block meshes
+ * free of cracks. Collapses that would fold over a triangle or create non-manifold edges are rejected.
  *
  * @author Philipp Hanslovsky
  */
@@ -17,10 +26,508 @@ public class Simplify
 	 */
 	private static final Logger LOG = LoggerFactory.getLogger(Simplify.class);
 
-	public static Pair<float[], float[]> simplify(final float[] vertices, final float[] normals)
+	public static final double DEFAULT_TARGET_RATIO = 1.0;
+
+	/**
+	 * Minimum cosine between the normal of a triangle before and after a collapse. Smaller values are treated as a fold
+	 * over.
+	 */
+	private static final double MIN_NORMAL_COSINE = 0.2;
+
+	/**
+	 * @param triangles triangle soup, nine coordinates per triangle
+	 * @param targetRatio fraction of triangles to keep, in {@code (0, 1]}
+	 * @return decimated triangle soup
+	 */
+	public static float[] simplify(final float[] triangles, final double targetRatio)
+	{
+		assert triangles.length % 9 == 0;
+		if (targetRatio >= 1.0 || triangles.length == 0)
+			return triangles;
+
+		final Pair<float[], int[]> indexed = index(triangles);
+		final Pair<float[], int[]> simplified = simplify(indexed.getA(), indexed.getB(), targetRatio);
+		final float[] vertices = simplified.getA();
+		final int[] indices = simplified.getB();
+		final float[] result = new float[indices.length * 3];
+		for (int i = 0, k = 0; i < indices.length; ++i)
+		{
+			final int v = indices[i] * 3;
+			result[k++] = vertices[v + 0];
+			result[k++] = vertices[v + 1];
+			result[k++] = vertices[v + 2];
+		}
+		LOG.debug("Simplified {} triangles to {} triangles", triangles.length / 9, result.length / 9);
+		return result;
+	}
+
+	/**
+	 * @param vertices vertex coordinates, three per vertex
+	 * @param indices vertex indices, three per triangle
+	 * @param targetRatio fraction of triangles to keep, in {@code (0, 1]}
+	 * @return decimated (vertices, indices). Unreferenced vertices are removed.
+	 */
+	public static Pair<float[], int[]> simplify(final float[] vertices, final int[] indices, final double targetRatio)
 	{
+		assert vertices.length % 3 == 0;
+		assert indices.length % 3 == 0;
+
+		final int numTriangles = indices.length / 3;
+		final int targetTriangles = (int) Math.ceil(Math.max(targetRatio, 0.0) * numTriangles);
+		LOG.debug("Simplifying {} vertices and {} triangles to {} triangles", vertices.length / 3, numTriangles, targetTriangles);
+		if (targetTriangles >= numTriangles)
+			return new ValuePair<>(vertices, indices);
+
+		return new Decimation(vertices, indices).run(targetTriangles);
+	}
+
+	/**
+	 * Merge identical vertices of a triangle soup.
+	 *
+	 * @param triangles triangle soup, nine coordinates per triangle
+	 * @return (vertices, indices)
+	 */
+	public static Pair<float[], int[]> index(final float[] triangles)
+	{
+		final int numVertices = triangles.length / 3;
+		int capacity = Integer.highestOneBit(Math.max(numVertices, 1)) << 2;
+		final int mask = capacity - 1;
+		final int[] table = new int[capacity];
+		Arrays.fill(table, -1);
+
+		final float[] vertices = new float[triangles.length];
+		final int[] indices = new int[numVertices];
+		int count = 0;
+		for (int i = 0; i < numVertices; ++i)
+		{
+			final int o = 3 * i;
+			final float x = triangles[o], y = triangles[o + 1], z = triangles[o + 2];
+			// vertices are compared with ==, so 0.0f and -0.0f need to have the same hash
+			int h = Float.hashCode(x == 0.0f ? 0.0f : x);
+			h = 31 * h + Float.hashCode(y == 0.0f ? 0.0f : y);
+			h = 31 * h + Float.hashCode(z == 0.0f ? 0.0f : z);
+			h ^= h >>> 16;
+			int slot = h & mask;
+			while (true)
+			{
+				final int candidate = table[slot];
+				if (candidate == -1)
+				{
+					table[slot] = count;
+					vertices[3 * count] = x;
+					vertices[3 * count + 1] = y;
+					vertices[3 * count + 2] = z;
+					indices[i] = count++;
+					break;
+				}
+				final int c = 3 * candidate;
+				if (vertices[c] == x && vertices[c + 1] == y && vertices[c + 2] == z)
+				{
+					indices[i] = candidate;
+					break;
+				}
+				slot = (slot + 1) & mask;
+			}
+		}
+		final float[] compact = new float[3 * count];
+		System.arraycopy(vertices, 0, compact, 0, compact.length);
+		return new ValuePair<>(compact, indices);
+	}
+
+	private static final class Collapse implements Comparable<Collapse>
+	{
+		final int from;
+
+		final int into;
+
+		final int fromVersion;
+
+		final int intoVersion;
+
+		final double error;
+
+		final double x, y, z;
+
+		Collapse(
+				final int from,
+				final int into,
+				final int fromVersion,
+				final int intoVersion,
+				final double error,
+				final double x,
+				final double y,
+				final double z)
+		{
+			this.from = from;
+			this.into = into;
+			this.fromVersion = fromVersion;
+			this.intoVersion = intoVersion;
+			this.error = error;
+			this.x = x;
+			this.y = y;
+			this.z = z;
+		}
+
+		@Override
+		public int compareTo(final Collapse other)
+		{
+			return Double.compare(error, other.error);
+		}
+	}
+
+	private static final class Decimation
+	{
+
+		private final double[] positions;
+
+		private final int[] triangles;
+
+		private final boolean[] isTriangleRemoved;
+
+		private final boolean[] isVertexRemoved;
+
+		private final boolean[] isBoundary;
+
+		private final int[] versions;
+
+		private final double[] quadrics;
+
+		private final TIntArrayList[] vertexTriangles;
+
+		private final PriorityQueue<Collapse> queue = new PriorityQueue<>();
+
+		private final TIntHashSet neighborsScratch = new TIntHashSet();
+
+		private final TIntHashSet otherNeighborsScratch = new TIntHashSet();
+
+		private int numActiveTriangles;
+
+		Decimation(final float[] vertices, final int[] indices)
+		{
+			final int numVertices = vertices.length / 3;
+			final int numTriangles = indices.length / 3;
+			this.positions = new double[vertices.length];
+			for (int i = 0; i < vertices.length; ++i)
+				this.positions[i] = vertices[i];
+			this.triangles = indices.clone();
+			this.isTriangleRemoved = new boolean[numTriangles];
+			this.isVertexRemoved = new boolean[numVertices];
+			this.isBoundary = new boolean[numVertices];
+			this.versions = new int[numVertices];
+			this.quadrics = new double[10 * numVertices];
+			this.vertexTriangles = new TIntArrayList[numVertices];
+			this.numActiveTriangles = numTriangles;
+
+			for (int v = 0; v < numVertices; ++v)
+				vertexTriangles[v] = new TIntArrayList(6);
+
+			final double[] plane = new double[4];
+			for (int t = 0; t < numTriangles; ++t)
+			{
+				final int o = 3 * t;
+				final int v1 = triangles[o], v2 = triangles[o + 1], v3 = triangles[o + 2];
+				if (v1 == v2 || v2 == v3 || v1 == v3)
+				{
+					isTriangleRemoved[t] = true;
+					--numActiveTriangles;
+					continue;
+				}
+				vertexTriangles[v1].add(t);
+				vertexTriangles[v2].add(t);
+				vertexTriangles[v3].add(t);
+				final double area = plane(t, plane);
+				addPlaneQuadric(v1, plane, area);
+				addPlaneQuadric(v2, plane, area);
+				addPlaneQuadric(v3, plane, area);
+			}
+
+			markBoundaryVertices();
+		}
+
+		Pair<float[], int[]> run(final int targetTriangles)
+		{
+			for (int v = 0; v < isVertexRemoved.length; ++v)
+				pushCollapsesFor(v);
+			LOG.trace("Queued {} candidate collapses", queue.size());
+
+			while (numActiveTriangles > targetTriangles && !queue.isEmpty())
+			{
+				final Collapse collapse = queue.poll();
+				if (isVertexRemoved[collapse.from] || isVertexRemoved[collapse.into])
+					continue;
+				if (versions[collapse.from] != collapse.fromVersion || versions[collapse.into] != collapse.intoVersion)
+					continue;
+				if (!isValid(collapse))
+					continue;
+				apply(collapse);
+			}
+
+			return compact();
+		}
+
+		private void markBoundaryVertices()
+		{
+			// an edge is a boundary edge if it is adjacent to exactly one triangle
+			for (int v = 0; v < vertexTriangles.length; ++v)
+			{
+				final TIntArrayList ts = vertexTriangles[v];
+				neighborsScratch.clear();
+				for (int i = 0; i < ts.size(); ++i)
+				{
+					final int o = 3 * ts.getQuick(i);
+					for (int k = 0; k < 3; ++k)
+					{
+						final int w = triangles[o + k];
+						if (w == v)
+							continue;
+						// a neighbor that is seen an odd number of times shares a boundary (or non-manifold) edge
+						if (!neighborsScratch.add(w))
+							neighborsScratch.remove(w);
+					}
+				}
+				isBoundary[v] = !neighborsScratch.isEmpty() || ts.isEmpty();
+			}
+		}
+
+		private void pushCollapsesFor(final int v)
+		{
+			if (isVertexRemoved[v] || isBoundary[v])
+				return;
+			final TIntArrayList ts = vertexTriangles[v];
+			for (int i = 0; i < ts.size(); ++i)
+			{
+				final int o = 3 * ts.getQuick(i);
+				for (int k = 0; k < 3; ++k)
+				{
+					final int w = triangles[o + k];
+					if (w != v && !isBoundary[w])
+						pushCollapse(v, w);
+				}
+			}
+		}
+
+		private void pushCollapse(final int v1, final int v2)
+		{
+			final double[] q = new double[10];
+			for (int i = 0; i < 10; ++i)
+				q[i] = quadrics[10 * v1 + i] + quadrics[10 * v2 + i];
+
+			final int o1 = 3 * v1, o2 = 3 * v2;
+			final double x1 = positions[o1], y1 = positions[o1 + 1], z1 = positions[o1 + 2];
+			final double x2 = positions[o2], y2 = positions[o2 + 1], z2 = positions[o2 + 2];
+			final double xm = 0.5 * (x1 + x2), ym = 0.5 * (y1 + y2), zm = 0.5 * (z1 + z2);
+
+			final double e1 = error(q, x1, y1, z1);
+			final double e2 = error(q, x2, y2, z2);
+			final double em = error(q, xm, ym, zm);
+
+			if (em <= e1 && em <= e2)
+				queue.add(new Collapse(v2, v1, versions[v2], versions[v1], em, xm, ym, zm));
+			else if (e1 <= e2)
+				queue.add(new Collapse(v2, v1, versions[v2], versions[v1], e1, x1, y1, z1));
+			else
+				queue.add(new Collapse(v1, v2, versions[v1], versions[v2], e2, x2, y2, z2));
+		}
+
+		private boolean isValid(final Collapse collapse)
+		{
+			final int from = collapse.from;
+			final int into = collapse.into;
+
+			// link condition: the end points of an interior manifold edge share exactly two neighbors
+			collectNeighbors(from, neighborsScratch);
+			collectNeighbors(into, otherNeighborsScratch);
+			if (!neighborsScratch.contains(into))
+				return false;
+			neighborsScratch.retainAll(otherNeighborsScratch);
+			if (neighborsScratch.size() != 2)
+				return false;
+
+			return !hasFoldOver(from, into, collapse) && !hasFoldOver(into, from, collapse);
+		}
+
+		private boolean hasFoldOver(final int moved, final int other, final Collapse collapse)
+		{
+			final TIntArrayList ts = vertexTriangles[moved];
+			for (int i = 0; i < ts.size(); ++i)
+			{
+				final int t = ts.getQuick(i);
+				final int o = 3 * t;
+				final int a = triangles[o], b = triangles[o + 1], c = triangles[o + 2];
+				if (a == other || b == other || c == other)
+					continue;
+
+				final double[] pa = position(a, moved, collapse);
+				final double[] pb = position(b, moved, collapse);
+				final double[] pc = position(c, moved, collapse);
+				final double[] nNew = cross(pa, pb, pc);
+				final double[] nOld = cross(position(a), position(b), position(c));
+				final double lNew = norm(nNew), lOld = norm(nOld);
+				if (lNew == 0.0 || lOld == 0.0)
+					return true;
+				final double cos = (nNew[0] * nOld[0] + nNew[1] * nOld[1] + nNew[2] * nOld[2]) / (lNew * lOld);
+				if (cos < MIN_NORMAL_COSINE)
+					return true;
+			}
+			return false;
+		}
+
+		private void apply(final Collapse collapse)
+		{
+			final int from = collapse.from;
+			final int into = collapse.into;
+
+			final TIntArrayList fromTriangles = vertexTriangles[from];
+			for (int i = 0; i < fromTriangles.size(); ++i)
+			{
+				final int t = fromTriangles.getQuick(i);
+				final int o = 3 * t;
+				if (triangles[o] == into || triangles[o + 1] == into || triangles[o + 2] == into)
+				{
+					isTriangleRemoved[t] = true;
+					--numActiveTriangles;
+					for (int k = 0; k < 3; ++k)
+					{
+						final int w = triangles[o + k];
+						if (w != from)
+							vertexTriangles[w].remove(t);
+					}
+				}
+				else
+				{
+					for (int k = 0; k < 3; ++k)
+						if (triangles[o + k] == from)
+							triangles[o + k] = into;
+					vertexTriangles[into].add(t);
+				}
+			}
+			fromTriangles.clear();
+			isVertexRemoved[from] = true;
+
+			final int o = 3 * into;
+			positions[o] = collapse.x;
+			positions[o + 1] = collapse.y;
+			positions[o + 2] = collapse.z;
+			for (int i = 0; i < 10; ++i)
+				quadrics[10 * into + i] += quadrics[10 * from + i];
+
+			// invalidate all queued collapses of the end points and re-queue the edges of the merged vertex
+			++versions[from];
+			++versions[into];
+			pushCollapsesFor(into);
+		}
+
+		private Pair<float[], int[]> compact()
+		{
+			final int[] newIndex = new int[isVertexRemoved.length];
+			Arrays.fill(newIndex, -1);
+			final TIntArrayList indices = new TIntArrayList(3 * numActiveTriangles);
+			int count = 0;
+			for (int t = 0; t < isTriangleRemoved.length; ++t)
+			{
+				if (isTriangleRemoved[t])
+					continue;
+				for (int k = 0; k < 3; ++k)
+				{
+					final int v = triangles[3 * t + k];
+					if (newIndex[v] == -1)
+						newIndex[v] = count++;
+					indices.add(newIndex[v]);
+				}
+			}
+			final float[] vertices = new float[3 * count];
+			for (int v = 0; v < newIndex.length; ++v)
+			{
+				final int n = newIndex[v];
+				if (n == -1)
+					continue;
+				vertices[3 * n] = (float) positions[3 * v];
+				vertices[3 * n + 1] = (float) positions[3 * v + 1];
+				vertices[3 * n + 2] = (float) positions[3 * v + 2];
+			}
+			return new ValuePair<>(vertices, indices.toArray());
+		}
+
+		private void collectNeighbors(final int v, final TIntHashSet neighbors)
+		{
+			neighbors.clear();
+			final TIntArrayList ts = vertexTriangles[v];
+			for (int i = 0; i < ts.size(); ++i)
+			{
+				final int o = 3 * ts.getQuick(i);
+				for (int k = 0; k < 3; ++k)
+					if (triangles[o + k] != v)
+						neighbors.add(triangles[o + k]);
+			}
+		}
+
+		private double[] position(final int v)
+		{
+			return new double[] {positions[3 * v], positions[3 * v + 1], positions[3 * v + 2]};
+		}
+
+		private double[] position(final int v, final int moved, final Collapse collapse)
+		{
+			return v == moved ? new double[] {collapse.x, collapse.y, collapse.z} : position(v);
+		}
+
+		/**
+		 * @return triangle area; the normalized plane equation is written into {@code plane}
+		 */
+		private double plane(final int t, final double[] plane)
+		{
+			final int o = 3 * t;
+			final double[] n = cross(position(triangles[o]), position(triangles[o + 1]), position(triangles[o + 2]));
+			final double length = norm(n);
+			if (length == 0.0)
+			{
+				plane[0] = plane[1] = plane[2] = plane[3] = 0.0;
+				return 0.0;
+			}
+			plane[0] = n[0] / length;
+			plane[1] = n[1] / length;
+			plane[2] = n[2] / length;
+			final int p = 3 * triangles[o];
+			plane[3] = -(plane[0] * positions[p] + plane[1] * positions[p + 1] + plane[2] * positions[p + 2]);
+			return 0.5 * length;
+		}
+
+		private void addPlaneQuadric(final int v, final double[] p, final double weight)
+		{
+			final int o = 10 * v;
+			quadrics[o + 0] += weight * p[0] * p[0];
+			quadrics[o + 1] += weight * p[0] * p[1];
+			quadrics[o + 2] += weight * p[0] * p[2];
+			quadrics[o + 3] += weight * p[0] * p[3];
+			quadrics[o + 4] += weight * p[1] * p[1];
+			quadrics[o + 5] += weight * p[1] * p[2];
+			quadrics[o + 6] += weight * p[1] * p[3];
+			quadrics[o + 7] += weight * p[2] * p[2];
+			quadrics[o + 8] += weight * p[2] * p[3];
+			quadrics[o + 9] += weight * p[3] * p[3];
+		}
+
+		private static double error(final double[] q, final double x, final double y, final double z)
+		{
+			return q[0] * x * x + 2 * q[1] * x * y + 2 * q[2] * x * z + 2 * q[3] * x
+					+ q[4] * y * y + 2 * q[5] * y * z + 2 * q[6] * y
+					+ q[7] * z * z + 2 * q[8] * z
+					+ q[9];
+		}
+
+		private static double[] cross(final double[] a, final double[] b, final double[] c)
+		{
+			final double d1x = b[0] - a[0], d1y = b[1] - a[1], d1z = b[2] - a[2];
+			final double d2x = c[0] - a[0], d2y = c[1] - a[1], d2z = c[2] - a[2];
+			return new double[] {
+					d1y * d2z - d1z * d2y,
+					d1z * d2x - d1x * d2z,
+					d1x * d2y - d1y * d2x};
+		}
 
-		LOG.debug("Simplifying {} vertices and {} normals", vertices.length, normals.length);
-		return new ValuePair<>(vertices, normals);
+		private static double norm(final double[] v)
+		{
+			return Math.sqrt(v[0] * v[0] + v[1] * v[1] + v[2] * v[2]);
+		}
 	}
 }
@@ -1,10 +1,13 @@
 package org.janelia.saalfeldlab.paintera.meshes;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import gnu.trove.list.array.TFloatArrayList;
+import gnu.trove.iterator.TLongIntIterator;
 import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TLongIntHashMap;
 import gnu.trove.set.hash.TIntHashSet;
 import net.imglib2.util.Triple;
 import org.slf4j.Logger;
@@ -153,4 +156,103 @@ public class Smooth
 
 		return Convert.convertFromLUT(TFloatArrayList.wrap(vertexCoordinates1), triangleVertexLUT);
 	}
+
+	/**
+	 * Smooth an indexed triangle mesh: Each vertex that is not on the boundary of the mesh is moved towards the mean
+	 * of its neighbors by a factor of {@code lambda} in each iteration.
+	 *
+	 * @param vertices vertex coordinates, three per vertex
+	 * @param indices vertex indices, three per triangle
+	 * @param lambda smoothing factor
+	 * @param iterations number of iterations
+	 * @return smoothed vertex coordinates, indices are unchanged
+	 */
+	public static float[] smooth(final float[] vertices, final int[] indices, final double lambda, final int iterations)
+	{
+		LOG.debug("Smoothing {} vertices and {} triangles with lambda={} and iterations={}", vertices.length / 3, indices.length / 3, lambda, iterations);
+		final int numVertices = vertices.length / 3;
+
+		// count how many triangles share each edge, boundary edges are part of a single triangle
+		final TLongIntHashMap edgeCounts = new TLongIntHashMap(indices.length);
+		for (int t = 0; t < indices.length; t += 3)
+		{
+			edgeCounts.adjustOrPutValue(edgeKey(indices[t], indices[t + 1]), 1, 1);
+			edgeCounts.adjustOrPutValue(edgeKey(indices[t + 1], indices[t + 2]), 1, 1);
+			edgeCounts.adjustOrPutValue(edgeKey(indices[t + 2], indices[t]), 1, 1);
+		}
+
+		// vertex neighborhoods in compressed sparse row layout
+		final boolean[] boundaryVertices = new boolean[numVertices];
+		final int[] offsets = new int[numVertices + 1];
+		final TLongIntIterator countIt = edgeCounts.iterator();
+		while (countIt.hasNext())
+		{
+			countIt.advance();
+			final int v1 = (int) (countIt.key() >>> 32);
+			final int v2 = (int) countIt.key();
+			++offsets[v1 + 1];
+			++offsets[v2 + 1];
+			if (countIt.value() < 2)
+			{
+				boundaryVertices[v1] = true;
+				boundaryVertices[v2] = true;
+			}
+		}
+		for (int v = 0; v < numVertices; ++v)
+			offsets[v + 1] += offsets[v];
+		final int[] neighbors = new int[offsets[numVertices]];
+		final int[] fill = Arrays.copyOf(offsets, numVertices);
+		final TLongIntIterator edgeIt = edgeCounts.iterator();
+		while (edgeIt.hasNext())
+		{
+			edgeIt.advance();
+			final int v1 = (int) (edgeIt.key() >>> 32);
+			final int v2 = (int) edgeIt.key();
+			neighbors[fill[v1]++] = v2;
+			neighbors[fill[v2]++] = v1;
+		}
+
+		float[] vertexCoordinates1 = vertices.clone();
+		float[] vertexCoordinates2 = new float[vertices.length];
+		for (int iteration = 0; iteration < iterations; ++iteration)
+		{
+			for (int vertexIndex = 0; vertexIndex < numVertices; ++vertexIndex)
+			{
+				final int o = 3 * vertexIndex;
+				final int start = offsets[vertexIndex];
+				final int stop = offsets[vertexIndex + 1];
+				if (boundaryVertices[vertexIndex] || start == stop)
+				{
+					vertexCoordinates2[o] = vertexCoordinates1[o];
+					vertexCoordinates2[o + 1] = vertexCoordinates1[o + 1];
+					vertexCoordinates2[o + 2] = vertexCoordinates1[o + 2];
+					continue;
+				}
+				double x = 0.0, y = 0.0, z = 0.0;
+				for (int n = start; n < stop; ++n)
+				{
+					final int on = 3 * neighbors[n];
+					x += vertexCoordinates1[on];
+					y += vertexCoordinates1[on + 1];
+					z += vertexCoordinates1[on + 2];
+				}
+				final double c = 1.0 / (stop - start);
+				vertexCoordinates2[o] = (float) ((x * c - vertexCoordinates1[o]) * lambda + vertexCoordinates1[o]);
+				vertexCoordinates2[o + 1] = (float) ((y * c - vertexCoordinates1[o + 1]) * lambda + vertexCoordinates1[o + 1]);
+				vertexCoordinates2[o + 2] = (float) ((z * c - vertexCoordinates1[o + 2]) * lambda + vertexCoordinates1[o + 2]);
+			}
+			final float[] tmp = vertexCoordinates1;
+			vertexCoordinates1 = vertexCoordinates2;
+			vertexCoordinates2 = tmp;
+		}
+
+		return vertexCoordinates1;
+	}
+
+	private static long edgeKey(final int v1, final int v2)
+	{
+		return v1 < v2
+				? ((long) v1 << 32) | (v2 & 0xffffffffL)
+				: ((long) v2 << 32) | (v1 & 0xffffffffL);
+	}
 }
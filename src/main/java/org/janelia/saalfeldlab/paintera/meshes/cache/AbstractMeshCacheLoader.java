@@ -7,7 +7,6 @@ import net.imglib2.converter.Converters;
 import net.imglib2.realtransform.AffineTransform3D;
 import net.imglib2.type.logic.BoolType;
 import net.imglib2.util.Pair;
-import net.imglib2.util.ValuePair;
 import net.imglib2.view.Views;
 import org.janelia.saalfeldlab.paintera.meshes.*;
 import org.slf4j.Logger;
@@ -22,7 +21,7 @@ import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 public abstract class AbstractMeshCacheLoader<T, K>
-		implements CacheLoader<ShapeKey<K>, Pair<float[], float[]>>
+		implements CacheLoader<ShapeKey<K>, PainteraTriangleMesh>
 {
 	private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
@@ -45,14 +44,9 @@ public abstract class AbstractMeshCacheLoader<T, K>
 	}
 
 	@Override
-	public Pair<float[], float[]> get(final ShapeKey<K> key) throws Exception
+	public PainteraTriangleMesh get(final ShapeKey<K> key) throws Exception
 	{
 
-		//		if ( key.meshSimplificationIterations() > 0 )
-		//		{
-		// TODO deal with mesh simplification
-		//		}
-
 		LOG.debug("key={}, getMaskGenerator={}", key, getMaskGenerator);
 		final RandomAccessibleInterval<BoolType> mask = Converters.convert(
 				data.get(),
@@ -60,22 +54,24 @@ public abstract class AbstractMeshCacheLoader<T, K>
 				new BoolType(false)
 			);
 
-		final float[] mesh = new MarchingCubes<>(
+		final Pair<float[], int[]> mesh = new MarchingCubes<>(
 				Views.extendZero(mask),
 				key.interval(),
-				transform).generateMesh();
-		final float[] normals = new float[mesh.length];
-		if (key.smoothingIterations() > 0)
-		{
-			final float[] smoothMesh = Smooth.smooth(mesh, key.smoothingLambda(), key.smoothingIterations());
-			System.arraycopy(smoothMesh, 0, mesh, 0, mesh.length);
-		}
-		Normals.normals(mesh, normals);
-		AverageNormals.averagedNormals(mesh, normals);
+				transform).generateIndexedMesh();
+		// blocks that do not contain the segment or are completely inside of it need no further processing
+		if (mesh.getB().length == 0)
+			return new PainteraTriangleMesh(new float[0], new float[0], new int[0]);
+
+		final float[] vertices = key.smoothingIterations() > 0
+				? Smooth.smooth(mesh.getA(), mesh.getB(), key.smoothingLambda(), key.smoothingIterations())
+				: mesh.getA();
+		final Pair<float[], int[]> simplified = Simplify.simplify(vertices, mesh.getB(), key.simplificationRatio());
+		final float[] normals = new float[simplified.getA().length];
+		AverageNormals.averagedNormals(simplified.getA(), simplified.getB(), normals);
 
 		for (int i = 0; i < normals.length; ++i)
 			normals[i] *= -1;
 
-		return new ValuePair<>(mesh, normals);
+		return new PainteraTriangleMesh(simplified.getA(), normals, simplified.getB());
 	}
 }
@@ -0,0 +1,580 @@
+package org.janelia.saalfeldlab.paintera.meshes.cache;
+
+import gnu.trove.set.hash.TLongHashSet;
+import net.imglib2.Interval;
+import net.imglib2.cache.CacheLoader;
+import org.janelia.saalfeldlab.paintera.meshes.PainteraTriangleMesh;
+import org.janelia.saalfeldlab.paintera.meshes.ShapeKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Disk-backed second tier for mesh caches. Meshes are stored as one file per {@link ShapeKey} in a directory
+ * that is specific to a dataset, e.g. inside the project directory. File names are digests of the
+ * {@link ShapeKey} parameters (level, smoothing, simplification, interval, shape id) and a content version
+ * of the underlying data, so entries for modified data are never read again and eventually evicted.
+ * Total size on disk is bounded by a {@link DiskMeshCacheBudget}, which may be shared with the caches of other
+ * datasets, and least recently used entries are evicted first.
+ *
+ * Use {@link #withLoader(CacheLoader)} to put this cache in front of a mesh generating {@link CacheLoader}.
+ * All failures to read or write are logged and treated as cache misses.
+ *
+ * @param <K> shape id
+ */
+public class DiskMeshCache<K>
+{
+
+	private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	public static final String MESH_CACHE_DIRECTORY = "mesh-cache";
+
+	private static final String SUFFIX = ".mesh";
+
+	private static final String TMP_SUFFIX = ".tmp";
+
+	private static final int MAGIC = 0x504d4331;
+
+	private static final int HEADER_SIZE_IN_BYTES = 3 * Integer.BYTES;
+
+	private static final int NOT_INDEXED = -1;
+
+	private static final int NUM_MEMOIZED_SHAPE_IDS = 64;
+
+	/**
+	 * Version of the data that a mesh is generated from.
+	 */
+	@FunctionalInterface
+	public interface ContentVersion
+	{
+		/**
+		 * @param level scale level of {@code interval}
+		 * @param interval interval of the mesh block in {@code level} coordinates
+		 * @return version of the data in {@code interval} or {@code null} if meshes for {@code interval}
+		 * should not be persisted, e.g. because the data has unsaved modifications.
+		 * @throws IOException if the version cannot be determined
+		 */
+		String versionOf(int level, Interval interval) throws IOException;
+	}
+
+	private final Path directory;
+
+	private final DiskMeshCacheBudget budget;
+
+	private final Function<K, String> shapeIdToString;
+
+	private final ContentVersion contentVersion;
+
+	// shapeIdToString is O(segment size) but every block of a segment shares the same shape id instance
+	private final MemoizedShapeId<K>[] memoizedShapeIds;
+
+	private int nextMemoizedShapeId = 0;
+
+	// guarded by budget
+	private LinkedHashMap<String, IndexEntry> index = null;
+
+	// guarded by budget
+	private long sizeInBytes = 0;
+
+	/**
+	 * @param directory store meshes in this directory, will be created if it does not exist
+	 * @param maxSizeInBytes least recently used meshes are evicted when total size exceeds this limit
+	 * @param shapeIdToString unique string representation of shape ids, memoized per shape id instance:
+	 * shape ids must not be modified after they are passed to this cache
+	 * @param contentVersion version of the data that meshes are generated from
+	 */
+	public DiskMeshCache(
+			final Path directory,
+			final long maxSizeInBytes,
+			final Function<K, String> shapeIdToString,
+			final ContentVersion contentVersion)
+	{
+		this(directory, new DiskMeshCacheBudget(maxSizeInBytes), shapeIdToString, contentVersion);
+	}
+
+	/**
+	 * @param directory store meshes in this directory, will be created if it does not exist
+	 * @param budget least recently used meshes of all caches that share {@code budget} are evicted when their total
+	 * size exceeds the budget
+	 * @param shapeIdToString unique string representation of shape ids, memoized per shape id instance:
+	 * shape ids must not be modified after they are passed to this cache
+	 * @param contentVersion version of the data that meshes are generated from
+	 */
+	public DiskMeshCache(
+			final Path directory,
+			final DiskMeshCacheBudget budget,
+			final Function<K, String> shapeIdToString,
+			final ContentVersion contentVersion)
+	{
+		this.directory = directory;
+		this.budget = budget;
+		this.shapeIdToString = shapeIdToString;
+		this.contentVersion = contentVersion;
+		@SuppressWarnings("unchecked") final MemoizedShapeId<K>[] memoizedShapeIds = new MemoizedShapeId[NUM_MEMOIZED_SHAPE_IDS];
+		this.memoizedShapeIds = memoizedShapeIds;
+		budget.register(this);
+	}
+
+	/**
+	 * @param loader generate meshes that are not present on disk
+	 * @return {@link CacheLoader} that reads meshes from disk if present and generates and stores them otherwise
+	 */
+	public CacheLoader<ShapeKey<K>, PainteraTriangleMesh> withLoader(final CacheLoader<ShapeKey<K>, PainteraTriangleMesh> loader)
+	{
+		return key -> {
+			final String fileName = fileNameFor(key);
+			if (fileName == null)
+				return loader.get(key);
+			final PainteraTriangleMesh cached = read(fileName);
+			if (cached != null)
+			{
+				LOG.trace("Read mesh for key {} from disk cache {}", key, directory);
+				return cached;
+			}
+			final PainteraTriangleMesh mesh = loader.get(key);
+			if (mesh != null)
+				write(fileName, mesh);
+			return mesh;
+		};
+	}
+
+	public Path getDirectory()
+	{
+		return this.directory;
+	}
+
+	public long getSizeInBytes()
+	{
+		synchronized (budget)
+		{
+			return sizeInBytesWithinBudget();
+		}
+	}
+
+	/**
+	 * Remove all meshes from disk.
+	 */
+	public void clear()
+	{
+		synchronized (budget)
+		{
+			ensureIndex();
+			for (final String fileName : this.index.keySet())
+				deleteQuietly(directory.resolve(fileName));
+			this.index.clear();
+			this.sizeInBytes = 0;
+		}
+	}
+
+	/**
+	 * @param root typically the project directory
+	 * @param datasetIdentifier uniquely identifies a dataset, e.g. container and dataset path
+	 * @return directory for the mesh cache of {@code datasetIdentifier} inside {@code root}
+	 */
+	public static Path directoryFor(final Path root, final String datasetIdentifier)
+	{
+		return root.resolve(MESH_CACHE_DIRECTORY).resolve(digest(datasetIdentifier));
+	}
+
+	/**
+	 * @param fragments fragment ids of a segment
+	 * @return digest of the sorted {@code fragments}
+	 */
+	public static String fragmentsDigest(final TLongHashSet fragments)
+	{
+		final long[] sorted = fragments.toArray();
+		Arrays.sort(sorted);
+		final MessageDigest digest = sha256();
+		final int chunkSize = 1024;
+		final ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES * chunkSize);
+		for (int start = 0; start < sorted.length; start += chunkSize)
+		{
+			final int length = Math.min(chunkSize, sorted.length - start);
+			buffer.clear();
+			buffer.asLongBuffer().put(sorted, start, length);
+			buffer.limit(Long.BYTES * length);
+			digest.update(buffer);
+		}
+		return toHex(digest.digest());
+	}
+
+	private String shapeIdString(final K shapeId)
+	{
+		synchronized (memoizedShapeIds)
+		{
+			for (final MemoizedShapeId<K> memoized : memoizedShapeIds)
+				if (memoized != null && memoized.get() == shapeId)
+					return memoized.string;
+		}
+		final String string = shapeIdToString.apply(shapeId);
+		synchronized (memoizedShapeIds)
+		{
+			memoizedShapeIds[nextMemoizedShapeId] = new MemoizedShapeId<>(shapeId, string);
+			nextMemoizedShapeId = (nextMemoizedShapeId + 1) % memoizedShapeIds.length;
+		}
+		return string;
+	}
+
+	private String fileNameFor(final ShapeKey<K> key)
+	{
+		final String version;
+		try
+		{
+			version = contentVersion.versionOf(key.scaleIndex(), key.interval());
+		} catch (final IOException e)
+		{
+			LOG.debug("Unable to determine content version for key {}: {}", key, e.getMessage());
+			return null;
+		}
+		if (version == null)
+			return null;
+		final String keyString = String.join(
+				";",
+				Integer.toString(key.scaleIndex()),
+				Integer.toString(key.simplificationIterations()),
+				Double.toString(key.simplificationRatio()),
+				Double.toString(key.smoothingLambda()),
+				Integer.toString(key.smoothingIterations()),
+				Double.toString(key.minLabelRatio()),
+				Arrays.toString(key.min()),
+				Arrays.toString(key.max()),
+				shapeIdString(key.shapeId()),
+				version);
+		return digest(keyString) + SUFFIX;
+	}
+
+	private PainteraTriangleMesh read(final String fileName)
+	{
+		final Path path = directory.resolve(fileName);
+		final ByteBuffer buffer;
+		try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			final long size = channel.size();
+			if (size < HEADER_SIZE_IN_BYTES || size > Integer.MAX_VALUE)
+				throw new IOException("Unexpected file size " + size);
+			buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+			while (buffer.hasRemaining())
+				if (channel.read(buffer) < 0)
+					throw new IOException("Unexpected end of file");
+			buffer.flip();
+		} catch (final NoSuchFileException e)
+		{
+			return null;
+		} catch (final IOException e)
+		{
+			LOG.debug("Unable to read cached mesh {}: {}", path, e.getMessage());
+			invalidate(fileName);
+			return null;
+		}
+
+		final PainteraTriangleMesh mesh = decode(buffer);
+		if (mesh == null)
+		{
+			LOG.debug("Invalid cached mesh {}", path);
+			invalidate(fileName);
+			return null;
+		}
+		touch(fileName, path);
+		return mesh;
+	}
+
+	private void write(final String fileName, final PainteraTriangleMesh mesh)
+	{
+		final ByteBuffer buffer = encode(mesh);
+		final Path path = directory.resolve(fileName);
+		final Path tmp = directory.resolve(fileName + TMP_SUFFIX);
+		try
+		{
+			Files.createDirectories(directory);
+			try (final FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+			{
+				while (buffer.hasRemaining())
+					channel.write(buffer);
+			}
+			try
+			{
+				Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (final AtomicMoveNotSupportedException e)
+			{
+				Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (final IOException e)
+		{
+			LOG.debug("Unable to write cached mesh {}: {}", path, e.getMessage());
+			deleteQuietly(tmp);
+			return;
+		}
+		added(fileName, buffer.capacity());
+	}
+
+	private void touch(final String fileName, final Path path)
+	{
+		synchronized (budget)
+		{
+			ensureIndex();
+			final IndexEntry entry = index.get(fileName);
+			if (entry == null)
+				return;
+			entry.lastAccess = budget.nextAccess();
+			try
+			{
+				Files.setLastModifiedTime(path, FileTime.fromMillis(entry.lastAccess));
+			} catch (final IOException e)
+			{
+				LOG.trace("Unable to update modification time of {}: {}", path, e.getMessage());
+			}
+		}
+	}
+
+	private void added(final String fileName, final long size)
+	{
+		synchronized (budget)
+		{
+			ensureIndex();
+			final IndexEntry previous = index.put(fileName, new IndexEntry(size, budget.nextAccess()));
+			sizeInBytes += size - (previous == null ? 0 : previous.size);
+			budget.evictIfNecessary(this, fileName);
+		}
+	}
+
+	private void invalidate(final String fileName)
+	{
+		synchronized (budget)
+		{
+			ensureIndex();
+			final IndexEntry entry = index.remove(fileName);
+			if (entry != null)
+				sizeInBytes -= entry.size;
+			deleteQuietly(directory.resolve(fileName));
+		}
+	}
+
+	// must hold budget
+	long sizeInBytesWithinBudget()
+	{
+		ensureIndex();
+		return sizeInBytes;
+	}
+
+	/**
+	 * Must hold budget.
+	 *
+	 * @param keepFileName is not considered for eviction, may be {@code null}
+	 * @return last access of the least recently used mesh or {@link Long#MAX_VALUE} if there is none
+	 */
+	long eldestAccessWithinBudget(final String keepFileName)
+	{
+		ensureIndex();
+		for (final Map.Entry<String, IndexEntry> entry : index.entrySet())
+			if (!entry.getKey().equals(keepFileName))
+				return entry.getValue().lastAccess;
+		return Long.MAX_VALUE;
+	}
+
+	/**
+	 * Must hold budget.
+	 *
+	 * @param keepFileName is not evicted, may be {@code null}
+	 * @return size of the evicted mesh in bytes
+	 */
+	long evictEldestWithinBudget(final String keepFileName)
+	{
+		ensureIndex();
+		for (final Iterator<Map.Entry<String, IndexEntry>> it = index.entrySet().iterator(); it.hasNext(); )
+		{
+			final Map.Entry<String, IndexEntry> eldest = it.next();
+			if (eldest.getKey().equals(keepFileName))
+				continue;
+			LOG.trace("Evicting {} from disk mesh cache {}", eldest.getKey(), directory);
+			deleteQuietly(directory.resolve(eldest.getKey()));
+			sizeInBytes -= eldest.getValue().size;
+			it.remove();
+			return eldest.getValue().size;
+		}
+		return 0;
+	}
+
+	// must hold budget
+	private void ensureIndex()
+	{
+		if (index != null)
+			return;
+		// access order: iteration starts at least recently used entry
+		index = new LinkedHashMap<>(16, 0.75f, true);
+		sizeInBytes = 0;
+		if (!Files.isDirectory(directory))
+			return;
+
+		final List<Path> files = new ArrayList<>();
+		try (final DirectoryStream<Path> stream = Files.newDirectoryStream(directory))
+		{
+			for (final Path file : stream)
+			{
+				final String name = file.getFileName().toString();
+				if (name.endsWith(SUFFIX))
+					files.add(file);
+				else if (name.endsWith(TMP_SUFFIX))
+					deleteQuietly(file);
+			}
+		} catch (final IOException e)
+		{
+			LOG.warn("Unable to list disk mesh cache {}: {}", directory, e.getMessage());
+			return;
+		}
+
+		final Map<Path, Long> lastModified = new LinkedHashMap<>();
+		for (final Path file : files)
+		{
+			try
+			{
+				lastModified.put(file, Files.getLastModifiedTime(file).toMillis());
+			} catch (final IOException e)
+			{
+				lastModified.put(file, 0L);
+			}
+		}
+		files.sort(Comparator.comparingLong(lastModified::get));
+		for (final Path file : files)
+		{
+			try
+			{
+				final long size = Files.size(file);
+				index.put(file.getFileName().toString(), new IndexEntry(size, lastModified.get(file)));
+				sizeInBytes += size;
+			} catch (final IOException e)
+			{
+				LOG.trace("Ignoring {}: {}", file, e.getMessage());
+			}
+		}
+		LOG.debug("Found {} meshes ({} bytes) in disk mesh cache {}", index.size(), sizeInBytes, directory);
+	}
+
+	static ByteBuffer encode(final PainteraTriangleMesh mesh)
+	{
+		final float[] vertices = mesh.getVertices();
+		final float[] normals = mesh.getNormals();
+		final int[] indices = mesh.getIndices();
+		final int numIndices = indices == null ? 0 : indices.length;
+		final ByteBuffer buffer = ByteBuffer
+				.allocate(HEADER_SIZE_IN_BYTES + Float.BYTES * (vertices.length + normals.length) + Integer.BYTES * numIndices)
+				.order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC);
+		buffer.putInt(vertices.length);
+		buffer.putInt(indices == null ? NOT_INDEXED : indices.length);
+		buffer.asFloatBuffer().put(vertices).put(normals);
+		buffer.position(buffer.position() + Float.BYTES * (vertices.length + normals.length));
+		if (indices != null)
+			buffer.asIntBuffer().put(indices);
+		buffer.rewind();
+		return buffer;
+	}
+
+	static PainteraTriangleMesh decode(final ByteBuffer buffer)
+	{
+		if (buffer.remaining() < HEADER_SIZE_IN_BYTES || buffer.getInt() != MAGIC)
+			return null;
+		final int numVertexEntries = buffer.getInt();
+		final int numIndices = buffer.getInt();
+		final long expectedRemaining = Float.BYTES * 2L * numVertexEntries + Integer.BYTES * (long) Math.max(numIndices, 0);
+		if (numVertexEntries < 0 || numIndices < NOT_INDEXED || buffer.remaining() != expectedRemaining)
+			return null;
+		final float[] vertices = new float[numVertexEntries];
+		final float[] normals = new float[numVertexEntries];
+		buffer.asFloatBuffer().get(vertices).get(normals);
+		buffer.position(buffer.position() + Float.BYTES * 2 * numVertexEntries);
+		if (numIndices == NOT_INDEXED)
+			return new PainteraTriangleMesh(vertices, normals);
+		final int[] indices = new int[numIndices];
+		buffer.asIntBuffer().get(indices);
+		return new PainteraTriangleMesh(vertices, normals, indices);
+	}
+
+	private static void deleteQuietly(final Path path)
+	{
+		try
+		{
+			Files.deleteIfExists(path);
+		} catch (final IOException e)
+		{
+			LOG.trace("Unable to delete {}: {}", path, e.getMessage());
+		}
+	}
+
+	private static String digest(final String string)
+	{
+		return toHex(sha256().digest(string.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private static MessageDigest sha256()
+	{
+		try
+		{
+			return MessageDigest.getInstance("SHA-256");
+		} catch (final NoSuchAlgorithmException e)
+		{
+			// every Java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String toHex(final byte[] bytes)
+	{
+		final StringBuilder sb = new StringBuilder(2 * bytes.length);
+		for (final byte b : bytes)
+			sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		return sb.toString();
+	}
+
+	private static class IndexEntry
+	{
+		private final long size;
+
+		// milliseconds since epoch
+		private long lastAccess;
+
+		private IndexEntry(final long size, final long lastAccess)
+		{
+			this.size = size;
+			this.lastAccess = lastAccess;
+		}
+	}
+
+	private static class MemoizedShapeId<K> extends WeakReference<K>
+	{
+
+		private final String string;
+
+		private MemoizedShapeId(final K shapeId, final String string)
+		{
+			super(shapeId);
+			this.string = string;
+		}
+
+	}
+
+}
@@ -0,0 +1,117 @@
+package org.janelia.saalfeldlab.paintera.meshes.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Disk budget for {@link DiskMeshCache}s, shared across all label datasets that create their cache with
+ * {@link #getInstance()}. Once the total size of all caches exceeds {@link #getMaxSizeInBytes()}, the least
+ * recently used mesh of any cache is evicted first.
+ */
+public class DiskMeshCacheBudget
+{
+
+	private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	public static final long DEFAULT_MAX_SIZE_IN_BYTES = 1L << 30;
+
+	private static final DiskMeshCacheBudget INSTANCE = new DiskMeshCacheBudget(DEFAULT_MAX_SIZE_IN_BYTES);
+
+	/**
+	 * @return budget shared by the disk mesh caches of all label datasets
+	 */
+	public static DiskMeshCacheBudget getInstance()
+	{
+		return INSTANCE;
+	}
+
+	// caches by directory, a cache replaces a previous cache for the same directory, guarded by this
+	private final Map<Path, DiskMeshCache<?>> caches = new LinkedHashMap<>();
+
+	// guarded by this
+	private long maxSizeInBytes;
+
+	// guarded by this
+	private long lastAccess = 0;
+
+	public DiskMeshCacheBudget(final long maxSizeInBytes)
+	{
+		this.maxSizeInBytes = maxSizeInBytes;
+	}
+
+	/**
+	 * Set the budget and evict meshes if necessary.
+	 *
+	 * @param maxSizeInBytes budget for all cached meshes
+	 */
+	public synchronized void setMaxSizeInBytes(final long maxSizeInBytes)
+	{
+		LOG.info("Setting disk mesh cache size to {} bytes", maxSizeInBytes);
+		this.maxSizeInBytes = maxSizeInBytes;
+		evictIfNecessary(null, null);
+	}
+
+	public synchronized long getMaxSizeInBytes()
+	{
+		return maxSizeInBytes;
+	}
+
+	/**
+	 * @return total size of all caches that count against this budget
+	 */
+	public synchronized long getSizeInBytes()
+	{
+		long sizeInBytes = 0;
+		for (final DiskMeshCache<?> cache : caches.values())
+			sizeInBytes += cache.sizeInBytesWithinBudget();
+		return sizeInBytes;
+	}
+
+	/**
+	 * @return current time in milliseconds since epoch, strictly increasing to order accesses across caches
+	 */
+	synchronized long nextAccess()
+	{
+		lastAccess = Math.max(System.currentTimeMillis(), lastAccess + 1);
+		return lastAccess;
+	}
+
+	synchronized void register(final DiskMeshCache<?> cache)
+	{
+		caches.put(cache.getDirectory(), cache);
+	}
+
+	/**
+	 * Evict the least recently used meshes of all caches until the total size is within budget.
+	 *
+	 * @param keep do not evict {@code keepFileName} of this cache
+	 * @param keepFileName file name of the mesh that was just added to {@code keep}
+	 */
+	synchronized void evictIfNecessary(final DiskMeshCache<?> keep, final String keepFileName)
+	{
+		long sizeInBytes = getSizeInBytes();
+		while (sizeInBytes > maxSizeInBytes)
+		{
+			DiskMeshCache<?> leastRecentlyUsed = null;
+			long leastRecentAccess = Long.MAX_VALUE;
+			for (final DiskMeshCache<?> cache : caches.values())
+			{
+				final long access = cache.eldestAccessWithinBudget(cache == keep ? keepFileName : null);
+				if (access < leastRecentAccess)
+				{
+					leastRecentAccess = access;
+					leastRecentlyUsed = cache;
+				}
+			}
+			if (leastRecentlyUsed == null)
+				return;
+			sizeInBytes -= leastRecentlyUsed.evictEldestWithinBudget(leastRecentlyUsed == keep ? keepFileName : null);
+		}
+	}
+
+}
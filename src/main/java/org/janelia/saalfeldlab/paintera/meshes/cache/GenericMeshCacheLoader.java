@@ -5,13 +5,12 @@ import net.imglib2.cache.CacheLoader;
 import net.imglib2.realtransform.AffineTransform3D;
 import net.imglib2.type.BooleanType;
 import net.imglib2.util.Pair;
-import net.imglib2.util.ValuePair;
 import net.imglib2.view.Views;
 import org.janelia.saalfeldlab.paintera.meshes.AverageNormals;
 import org.janelia.saalfeldlab.paintera.meshes.MarchingCubes;
-import org.janelia.saalfeldlab.paintera.meshes.Normals;
 import org.janelia.saalfeldlab.paintera.meshes.PainteraTriangleMesh;
 import org.janelia.saalfeldlab.paintera.meshes.ShapeKey;
+import org.janelia.saalfeldlab.paintera.meshes.Simplify;
 import org.janelia.saalfeldlab.paintera.meshes.Smooth;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,22 +49,25 @@ public class GenericMeshCacheLoader<K, B extends BooleanType<B>>
 		final RandomAccessibleInterval<B> mask = data.apply(key.scaleIndex());
 		final AffineTransform3D transform = this.transform.apply(key.scaleIndex());
 
-		final float[] mesh = new MarchingCubes<>(
+		final Pair<float[], int[]> mesh = new MarchingCubes<>(
 				Views.extendZero(mask),
 				key.interval(),
-				transform).generateMesh();
-		final float[] normals = new float[mesh.length];
-		if (key.smoothingIterations() > 0) {
-			final float[] smoothMesh = Smooth.smooth(mesh, key.smoothingLambda(), key.smoothingIterations());
-			System.arraycopy(smoothMesh, 0, mesh, 0, mesh.length);
-		}
-		Normals.normals(mesh, normals);
-		AverageNormals.averagedNormals(mesh, normals);
+				transform).generateIndexedMesh();
+		// nothing to smooth or simplify if the block does not intersect the surface
+		if (mesh.getB().length == 0)
+			return new PainteraTriangleMesh(new float[0], new float[0], new int[0]);
+
+		final float[] vertices = key.smoothingIterations() > 0
+				? Smooth.smooth(mesh.getA(), mesh.getB(), key.smoothingLambda(), key.smoothingIterations())
+				: mesh.getA();
+		final Pair<float[], int[]> simplified = Simplify.simplify(vertices, mesh.getB(), key.simplificationRatio());
+		final float[] normals = new float[simplified.getA().length];
+		AverageNormals.averagedNormals(simplified.getA(), simplified.getB(), normals);
 
 		// TODO should this even happen? Probably not!
 		for (int i = 0; i < normals.length; ++i) {
 			normals[i] *= -1;
 		}
-		return new PainteraTriangleMesh(mesh, normals);
+		return new PainteraTriangleMesh(simplified.getA(), normals, simplified.getB());
 	}
 }
@@ -23,6 +23,10 @@ public class ScreenScalesConfigSerializer implements PainteraSerialization.Paint
 
 	public static final String SCALES_KEY = "scales";
 
+	public static final String ADAPTIVE_KEY = "adaptive";
+
+	public static final String TARGET_FRAMES_PER_SECOND_KEY = "targetFramesPerSecond";
+
 	@Override
 	public ScreenScalesConfig deserialize(
 			JsonElement jsonElement,
@@ -41,6 +45,14 @@ public class ScreenScalesConfigSerializer implements PainteraSerialization.Paint
 				.map(el -> (double[]) jsonDeserializationContext.deserialize(el, double[].class))
 				.map(ScreenScalesConfig.ScreenScales::new)
 				.ifPresent(config.screenScalesProperty()::set);
+		Optional
+				.ofNullable(obj.get(ADAPTIVE_KEY))
+				.map(JsonElement::getAsBoolean)
+				.ifPresent(config.adaptiveProperty()::set);
+		Optional
+				.ofNullable(obj.get(TARGET_FRAMES_PER_SECOND_KEY))
+				.map(JsonElement::getAsDouble)
+				.ifPresent(config.targetFramesPerSecondProperty()::set);
 		return config;
 	}
 
@@ -52,6 +64,10 @@ public class ScreenScalesConfigSerializer implements PainteraSerialization.Paint
 				.ofNullable(screenScalesConfig.screenScalesProperty().get())
 				.map(scales -> scales.getScalesCopy())
 				.ifPresent(scales -> obj.add(SCALES_KEY, jsonSerializationContext.serialize(scales)));
+		if (screenScalesConfig.adaptiveProperty().get() != ScreenScalesConfig.DEFAULT_ADAPTIVE)
+			obj.addProperty(ADAPTIVE_KEY, screenScalesConfig.adaptiveProperty().get());
+		if (screenScalesConfig.targetFramesPerSecondProperty().get() != ScreenScalesConfig.DEFAULT_TARGET_FRAMES_PER_SECOND)
+			obj.addProperty(TARGET_FRAMES_PER_SECOND_KEY, screenScalesConfig.targetFramesPerSecondProperty().get());
 		return obj;
 	}
 
@@ -34,6 +34,8 @@ public class Viewer3DConfigSerializer implements PainteraSerialization.PainteraA
 
 	private static final String SCENE_UPDATE_DELAY_MSEC_KEY = "sceneUpdateDelayMsec";
 
+	private static final String MAX_NUM_TRIANGLES_KEY = "maxNumTriangles";
+
 	@Override
 	public Viewer3DConfig deserialize(
 			final JsonElement json,
@@ -57,6 +59,8 @@ public class Viewer3DConfigSerializer implements PainteraSerialization.PainteraA
 			config.frameDelayMsecProperty().set(map.get(FRAME_DELAY_MSEC_KEY).getAsLong());
 		if (map.has(SCENE_UPDATE_DELAY_MSEC_KEY))
 			config.sceneUpdateDelayMsecProperty().set(map.get(SCENE_UPDATE_DELAY_MSEC_KEY).getAsLong());
+		if (map.has(MAX_NUM_TRIANGLES_KEY))
+			config.maxNumTrianglesProperty().set(map.get(MAX_NUM_TRIANGLES_KEY).getAsLong());
 		return config;
 	}
 
@@ -75,6 +79,7 @@ public class Viewer3DConfigSerializer implements PainteraSerialization.PainteraA
 		map.addProperty(NUM_ELEMENTS_PER_FRAME_KEY, config.numElementsPerFrameProperty().get());
 		map.addProperty(FRAME_DELAY_MSEC_KEY, config.frameDelayMsecProperty().get());
 		map.addProperty(SCENE_UPDATE_DELAY_MSEC_KEY, config.sceneUpdateDelayMsecProperty().get());
+		map.addProperty(MAX_NUM_TRIANGLES_KEY, config.maxNumTrianglesProperty().get());
 		return map;
 	}
 
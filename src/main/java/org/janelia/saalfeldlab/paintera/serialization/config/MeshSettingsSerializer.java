@@ -28,6 +28,8 @@ public class MeshSettingsSerializer implements PainteraSerialization.PainteraAda
 
 	private static final String SIMPLIFICATION_ITERATIONS_KEY = "simplificationIterations";
 
+	private static final String SIMPLIFICATION_RATIO_KEY = "simplificationRatio";
+
 	private static final String SMOOTHING_LAMBDA_KEY = "smoothingLambda";
 
 	private static final String SMOOTHING_ITERATIONS_KEY = "smoothingIterations";
@@ -51,6 +53,7 @@ public class MeshSettingsSerializer implements PainteraSerialization.PainteraAda
 		Optional.ofNullable(map.get(COARSEST_SCALE_LEVEL_KEY)).map(JsonElement::getAsInt).ifPresent(settings::setCoarsetsScaleLevel);
 		Optional.ofNullable(map.get(FINEST_SCALE_LEVEL_KEY)).map(JsonElement::getAsInt).ifPresent(settings::setFinestScaleLevel);
 		Optional.ofNullable(map.get(SIMPLIFICATION_ITERATIONS_KEY)).map(JsonElement::getAsInt).ifPresent(settings::setSimplificationIterations);
+		Optional.ofNullable(map.get(SIMPLIFICATION_RATIO_KEY)).map(JsonElement::getAsDouble).ifPresent(settings::setSimplificationRatio);
 		Optional.ofNullable(map.get(SMOOTHING_ITERATIONS_KEY)).map(JsonElement::getAsInt).ifPresent(settings::setSmoothingIterations);
 		Optional.ofNullable(map.get(SMOOTHING_LAMBDA_KEY)).map(JsonElement::getAsDouble).ifPresent(settings::setSmoothingLambda);
 		Optional.ofNullable(map.get(OPACITY_KEY)).map(JsonElement::getAsDouble).ifPresent(settings::setOpacity);
@@ -95,6 +98,9 @@ public class MeshSettingsSerializer implements PainteraSerialization.PainteraAda
 		if (defaults.getSimplificationIterations() != src.simplificationIterationsProperty().get())
 			map.addProperty(SIMPLIFICATION_ITERATIONS_KEY, src.simplificationIterationsProperty().get());
 
+		if (defaults.getSimplificationRatio() != src.getSimplificationRatio())
+			map.addProperty(SIMPLIFICATION_RATIO_KEY, src.getSimplificationRatio());
+
 		if (defaults.getSmoothingLambda() != src.getSmoothingLambda())
 			map.addProperty(SMOOTHING_LAMBDA_KEY, src.getSmoothingLambda());
 
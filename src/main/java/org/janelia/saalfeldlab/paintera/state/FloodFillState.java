@@ -1,13 +1,34 @@
 package org.janelia.saalfeldlab.paintera.state;
 
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
+
 public class FloodFillState {
 
     public final long labelId;
     public final Runnable interrupt;
 
+    private final ReadOnlyStringWrapper progressDescription = new ReadOnlyStringWrapper("");
+
     public FloodFillState(final long labelId, final Runnable interrupt)
     {
         this.labelId = labelId;
         this.interrupt = interrupt;
     }
+
+    /**
+     * @return description of the progress, or an empty string if no progress is available
+     */
+    public ReadOnlyStringProperty progressDescriptionProperty()
+    {
+        return progressDescription.getReadOnlyProperty();
+    }
+
+    /**
+     * Must be called on the JavaFX application thread.
+     */
+    public void setProgress(final long numFilledVoxels, final long numProcessedBlocks)
+    {
+        progressDescription.set(String.format(" (%d voxels, %d blocks processed)", numFilledVoxels, numProcessedBlocks));
+    }
 }
@@ -197,6 +197,7 @@ public class IntersectingSourceState
 					key.shapeId().getFragments(),
 					key.scaleIndex(),
 					key.simplificationIterations(),
+					key.simplificationRatio(),
 					key.smoothingLambda(),
 					key.smoothingIterations(),
 					key.minLabelRatio(),
@@ -252,7 +253,7 @@ public class IntersectingSourceState
 				() -> getDataSource().getDataSource(0, d),
 				getMaskGenerator,
 				getDataSource().getSourceTransformCopy(0, d)));
-		final GetMeshFor.FromCache<TLongHashSet> getMeshFor = GetMeshFor.FromCache.fromPairLoaders(loaders);
+		final GetMeshFor.FromCache<TLongHashSet> getMeshFor = GetMeshFor.FromCache.fromLoaders(loaders);
 
 		this.fragmentsInSelectedSegments = new FragmentsInSelectedSegments(labels.getSelectedSegments());
 
@@ -278,6 +279,7 @@ public class IntersectingSourceState
 		this.meshManager.getRendererSettings().frameDelayMsecProperty().bind(segmentMeshManager.getRendererSettings().frameDelayMsecProperty());
 		this.meshManager.getRendererSettings().numElementsPerFrameProperty().bind(segmentMeshManager.getRendererSettings().numElementsPerFrameProperty());
 		this.meshManager.getRendererSettings().sceneUpdateDelayMsecProperty().bind(segmentMeshManager.getRendererSettings().sceneUpdateDelayMsecProperty());
+		this.meshManager.getRendererSettings().maxNumTrianglesProperty().bind(segmentMeshManager.getRendererSettings().maxNumTrianglesProperty());
 
 		thresholded.getThreshold().minValue().addListener((obs, oldv, newv) -> {
 			getMeshFor.invalidateAll();
@@ -329,7 +331,7 @@ public class IntersectingSourceState
 				() -> getDataSource().getDataSource(0, d),
 				getMaskGenerator,
 				getDataSource().getSourceTransformCopy(0, d)));
-		final GetMeshFor.FromCache<TLongHashSet> getMeshFor = GetMeshFor.FromCache.fromPairLoaders(loaders);
+		final GetMeshFor.FromCache<TLongHashSet> getMeshFor = GetMeshFor.FromCache.fromLoaders(loaders);
 
 		final FragmentSegmentAssignmentState assignment                  = labels.assignment();
 		final SelectedSegments               selectedSegments            = new SelectedSegments(selectedIds, assignment);
@@ -357,6 +359,7 @@ public class IntersectingSourceState
 		this.meshManager.getRendererSettings().frameDelayMsecProperty().bind(segmentMeshManager.getRendererSettings().frameDelayMsecProperty());
 		this.meshManager.getRendererSettings().numElementsPerFrameProperty().bind(segmentMeshManager.getRendererSettings().numElementsPerFrameProperty());
 		this.meshManager.getRendererSettings().sceneUpdateDelayMsecProperty().bind(segmentMeshManager.getRendererSettings().sceneUpdateDelayMsecProperty());
+		this.meshManager.getRendererSettings().maxNumTrianglesProperty().bind(segmentMeshManager.getRendererSettings().maxNumTrianglesProperty());
 
 		thresholded.getThreshold().minValue().addListener((obs, oldv, newv) -> {
 			getMeshFor.invalidateAll();
@@ -513,6 +513,7 @@ public class LabelSourceState<D extends IntegerType<D>, T>
 		meshManager.getRendererSettings().numElementsPerFrameProperty().bind(paintera.viewer3D().numElementsPerFrameProperty());
 		meshManager.getRendererSettings().frameDelayMsecProperty().bind(paintera.viewer3D().frameDelayMsecProperty());
 		meshManager.getRendererSettings().sceneUpdateDelayMsecProperty().bind(paintera.viewer3D().sceneUpdateDelayMsecProperty());
+		meshManager.getRendererSettings().maxNumTrianglesProperty().bind(paintera.viewer3D().maxNumTrianglesProperty());
 	}
 
 	@Override
@@ -604,7 +605,10 @@ public class LabelSourceState<D extends IntegerType<D>, T>
 			InvokeOnJavaFXApplicationThread.invoke(() -> {
 				if (newv != null) {
 					paintingProgressIndicator.setVisible(true);
-					paintingProgressIndicatorTooltip.setText("Flood-filling, label ID: " + newv.labelId);
+					final String description = "Flood-filling, label ID: " + newv.labelId;
+					paintingProgressIndicatorTooltip.setText(description);
+					// progress is pushed on the application thread and stops before the state is reset
+					newv.progressDescriptionProperty().addListener((obsProgress, oldProgress, newProgress) -> paintingProgressIndicatorTooltip.setText(description + newProgress));
 
 					final MenuItem floodFillContextMenuCancelItem = new MenuItem("Cancel");
 					if (newv.interrupt != null) {
@@ -34,10 +34,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.invoke.MethodHandles;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.function.LongPredicate;
@@ -160,14 +158,7 @@ public class LabelSourceStateMergeDetachHandler {
 			}
 		}
 
-		final List<Merge> merges = new ArrayList<>();
-		for (final long id : ids)
-		{
-			final Optional<Merge> action = assignment.getMergeAction(id, into, idService::next);
-			if (action.isPresent())
-				merges.add(action.get());
-		}
-		assignment.apply(merges);
+		assignment.getMergeAllAction(ids, into, idService::next).ifPresent(assignment::apply);
 	}
 
 	private class MergeFragments implements Consumer<MouseEvent> {
@@ -30,6 +30,7 @@ import org.janelia.saalfeldlab.paintera.control.paint.PaintClickOrDrag;
 import org.janelia.saalfeldlab.paintera.control.paint.RestrictPainting;
 import org.janelia.saalfeldlab.paintera.control.selection.SelectedIds;
 import org.janelia.saalfeldlab.paintera.data.mask.MaskedSource;
+import org.janelia.saalfeldlab.paintera.meshes.managed.GetBlockListFor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -110,6 +111,8 @@ public class LabelSourceStatePaintHandler<T extends IntegerType<T>> {
 
 	private final LongFunction<Converter<T, BoolType>> maskForLabel;
 
+	private final GetBlockListFor<Long> blocksForSegment;
+
 	public LabelSourceStatePaintHandler(
 			final MaskedSource<T, ?> source,
 			final FragmentSegmentAssignment fragmentSegmentAssignment,
@@ -117,12 +120,28 @@ public class LabelSourceStatePaintHandler<T extends IntegerType<T>> {
 			final Consumer<FloodFillState> floodFillStateUpdate,
 			final SelectedIds selectedIds,
 			final LongFunction<Converter<T, BoolType>> maskForLabel) {
+		this(source, fragmentSegmentAssignment, isVisible, floodFillStateUpdate, selectedIds, maskForLabel, null);
+	}
+
+	/**
+	 *
+	 * @param blocksForSegment blocks that contain a segment, used to restrict 3D flood fill. May be {@code null}.
+	 */
+	public LabelSourceStatePaintHandler(
+			final MaskedSource<T, ?> source,
+			final FragmentSegmentAssignment fragmentSegmentAssignment,
+			final BooleanSupplier isVisible,
+			final Consumer<FloodFillState> floodFillStateUpdate,
+			final SelectedIds selectedIds,
+			final LongFunction<Converter<T, BoolType>> maskForLabel,
+			final GetBlockListFor<Long> blocksForSegment) {
 		this.source = source;
 		this.fragmentSegmentAssignment = fragmentSegmentAssignment;
 		this.isVisible = isVisible;
 		this.floodFillStateUpdate = floodFillStateUpdate;
 		this.selectedIds = selectedIds;
 		this.maskForLabel = maskForLabel;
+		this.blocksForSegment = blocksForSegment;
 	}
 
 	public EventHandler<Event> viewerHandler(final PainteraBaseView paintera, final KeyTracker keyTracker) {
@@ -174,7 +193,7 @@ public class LabelSourceStatePaintHandler<T extends IntegerType<T>> {
 
 		painters.put(t, paint2D);
 
-		final FloodFill<T> fill = new FloodFill<>(t, source, fragmentSegmentAssignment, paintera.orthogonalViews()::requestRepaint, isVisible, floodFillStateUpdate);
+		final FloodFill<T> fill = new FloodFill<>(t, source, fragmentSegmentAssignment, paintera.orthogonalViews()::requestRepaint, isVisible, floodFillStateUpdate, blocksForSegment);
 		final FloodFill2D<T> fill2D = new FloodFill2D<>(t, source, fragmentSegmentAssignment, paintera.orthogonalViews()::requestRepaint, isVisible);
 		fill2D.fillDepthProperty().bindBidirectional(this.brushProperties.brushDepth);
 		final Fill2DOverlay fill2DOverlay = new Fill2DOverlay(t);
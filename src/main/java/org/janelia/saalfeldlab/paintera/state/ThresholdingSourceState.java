@@ -323,6 +323,7 @@ public class ThresholdingSourceState<D extends RealType<D>, T extends AbstractVo
 		this.meshes.getRendererSettings().frameDelayMsecProperty().bind(paintera.viewer3D().frameDelayMsecProperty());
 		this.meshes.getRendererSettings().numElementsPerFrameProperty().bind(paintera.viewer3D().numElementsPerFrameProperty());
 		this.meshes.getRendererSettings().sceneUpdateDelayMsecProperty().bind(paintera.viewer3D().sceneUpdateDelayMsecProperty());
+		this.meshes.getRendererSettings().maxNumTrianglesProperty().bind(paintera.viewer3D().maxNumTrianglesProperty());
 		this.meshes.colorProperty().bind(this.color);
 		setMeshId();
 	}
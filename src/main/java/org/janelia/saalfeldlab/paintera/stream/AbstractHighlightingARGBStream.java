@@ -14,16 +14,19 @@
 package org.janelia.saalfeldlab.paintera.stream;
 
 import java.lang.invoke.MethodHandles;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.janelia.saalfeldlab.fx.ObservableWithListenersList;
 import org.janelia.saalfeldlab.paintera.control.lock.LockedSegments;
 import org.janelia.saalfeldlab.paintera.control.selection.SelectedSegments;
+import org.janelia.saalfeldlab.util.ConcurrentLongIntCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import gnu.trove.impl.Constants;
 import gnu.trove.map.TLongIntMap;
 import gnu.trove.map.hash.TLongIntHashMap;
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import net.imglib2.type.label.Label;
@@ -31,6 +34,9 @@ import net.imglib2.type.label.Label;
 /**
  * Generates and caches a stream of colors.
  *
+ * The cache holds the final color of each fragment, including selection, lock and alpha state. It is cleared
+ * whenever any of these change, so rendering a cached fragment is a single lookup.
+ *
  * @author Stephan Saalfeld
  * @author Philipp Hanslovsky
  *
@@ -72,24 +78,30 @@ public abstract class AbstractHighlightingARGBStream extends ObservableWithListe
 
 	private final BooleanProperty colorFromSegmentId = new SimpleBooleanProperty();
 
+	/**
+	 * Guarded by itself: Read on cache misses from rendering threads.
+	 */
 	protected final TLongIntHashMap explicitlySpecifiedColors = new TLongIntHashMap();
 
+	/**
+	 * Final color of each fragment, keyed by fragment id.
+	 */
+	protected final ConcurrentLongIntCache argbCache = new ConcurrentLongIntCache(Label.TRANSPARENT);
+
+	private final AtomicInteger cacheGeneration = new AtomicInteger();
+
+	private final InvalidationListener clearCacheOnChange = obs -> clearArgbCache();
+
 	public AbstractHighlightingARGBStream(
 			final SelectedSegments selectedSegments,
 			final LockedSegments lockedSegments)
 	{
 		this.selectedSegments = selectedSegments;
 		this.lockedSegments = lockedSegments;
-		this.colorFromSegmentId.addListener((obs, oldv, newv) -> stateChanged());
+		listenTo(selectedSegments, lockedSegments);
+		this.colorFromSegmentId.addListener((obs, oldv, newv) -> invalidate());
 	}
 
-	protected TLongIntHashMap argbCache = new TLongIntHashMap(
-			Constants.DEFAULT_CAPACITY,
-			Constants.DEFAULT_LOAD_FACTOR,
-			Label.TRANSPARENT,
-			0
-	);
-
 	//	public void highlight( final TLongHashSet highlights )
 	//	{
 	//		this.highlights.clear();
@@ -147,7 +159,7 @@ public abstract class AbstractHighlightingARGBStream extends ObservableWithListe
 		if (this.seed != seed)
 		{
 			this.seed = seed;
-			stateChanged();
+			invalidate();
 		}
 	}
 
@@ -186,7 +198,7 @@ public abstract class AbstractHighlightingARGBStream extends ObservableWithListe
 		if (getAlpha() != alpha)
 		{
 			this.alpha = (alpha & 0xff) << 24;
-			stateChanged();
+			invalidate();
 		}
 	}
 
@@ -201,7 +213,7 @@ public abstract class AbstractHighlightingARGBStream extends ObservableWithListe
 		if (getActiveSegmentAlpha() != alpha)
 		{
 			this.activeSegmentAlpha = (alpha & 0xff) << 24;
-			stateChanged();
+			invalidate();
 		}
 	}
 
@@ -210,7 +222,7 @@ public abstract class AbstractHighlightingARGBStream extends ObservableWithListe
 		if (getInvalidSegmentAlpha() != alpha)
 		{
 			this.invalidSegmentAlpha = (alpha & 0xff) << 24;
-			stateChanged();
+			invalidate();
 		}
 	}
 
@@ -219,7 +231,7 @@ public abstract class AbstractHighlightingARGBStream extends ObservableWithListe
 		if (getActiveFragmentAlpha() != alpha)
 		{
 			this.activeFragmentAlpha = (alpha & 0xff) << 24;
-			stateChanged();
+			invalidate();
 		}
 	}
 
@@ -245,20 +257,53 @@ public abstract class AbstractHighlightingARGBStream extends ObservableWithListe
 
 	public void clearCache()
 	{
-		LOG.debug("Before clearing cache: {}", argbCache);
-		synchronized (argbCache)
-		{
-			argbCache.clear();
-			argbCache.putAll(this.explicitlySpecifiedColors);
-		}
-		LOG.debug("After clearing cache: {}", argbCache);
+		LOG.debug("Clearing cache with {} entries", argbCache.size());
 		// TODO is this stateChanged bad here?
 		// stateChanged() probably triggers a re-render, which calls clearCache,
 		// which calls stateChanged, which ...
 		// need to check if this is true
+		invalidate();
+	}
+
+	/**
+	 * Clear the cache before notifying listeners, so re-rendering picks up the new state.
+	 */
+	private void invalidate()
+	{
+		clearArgbCache();
 		stateChanged();
 	}
 
+	private void clearArgbCache()
+	{
+		argbCache.clear();
+		cacheGeneration.incrementAndGet();
+	}
+
+	/**
+	 * Colors derived from this stream can be memoized as long as the generation does not change.
+	 *
+	 * @return generation of cached colors, changes whenever cached colors are invalidated
+	 */
+	public int getCacheGeneration()
+	{
+		return cacheGeneration.get();
+	}
+
+	private void listenTo(final SelectedSegments selectedSegments, final LockedSegments lockedSegments)
+	{
+		selectedSegments.addListener(clearCacheOnChange);
+		if (lockedSegments instanceof Observable)
+			((Observable) lockedSegments).addListener(clearCacheOnChange);
+	}
+
+	private void stopListeningTo(final SelectedSegments selectedSegments, final LockedSegments lockedSegments)
+	{
+		selectedSegments.removeListener(clearCacheOnChange);
+		if (lockedSegments instanceof Observable)
+			((Observable) lockedSegments).removeListener(clearCacheOnChange);
+	}
+
 	public void setColorFromSegmentId(final boolean fromSegmentId)
 	{
 		this.colorFromSegmentId.set(fromSegmentId);
@@ -276,22 +321,22 @@ public abstract class AbstractHighlightingARGBStream extends ObservableWithListe
 
 	public void setSelectedSegments(final SelectedSegments selectedSegments)
 	{
-		this.selectedSegments = selectedSegments;
-		clearCache();
+		setSelectedAndLockedSegments(selectedSegments, this.lockedSegments);
 	}
 
 	public void setLockedSegments(final LockedSegments lockedSegments)
 	{
-		this.lockedSegments = lockedSegments;
-		clearCache();
+		setSelectedAndLockedSegments(this.selectedSegments, lockedSegments);
 	}
 
 	public void setSelectedAndLockedSegments(
 			final SelectedSegments selectedSegments,
 			final LockedSegments lockedSegments)
 	{
+		stopListeningTo(this.selectedSegments, this.lockedSegments);
 		this.selectedSegments = selectedSegments;
 		this.lockedSegments = lockedSegments;
+		listenTo(selectedSegments, lockedSegments);
 		clearCache();
 	}
 
@@ -300,7 +345,7 @@ public abstract class AbstractHighlightingARGBStream extends ObservableWithListe
 		if (hideLockedSegments != this.hideLockedSegments)
 		{
 			this.hideLockedSegments = hideLockedSegments;
-			stateChanged();
+			invalidate();
 		}
 	}
 
@@ -311,16 +356,22 @@ public abstract class AbstractHighlightingARGBStream extends ObservableWithListe
 
 	public void specifyColorExplicitly(final long segmentId, final int color)
 	{
-		this.explicitlySpecifiedColors.put(segmentId, color);
+		synchronized (explicitlySpecifiedColors)
+		{
+			this.explicitlySpecifiedColors.put(segmentId, color);
+		}
 		clearCache();
 	}
 
 	public void specifyColorsExplicitly(final long[] segmentIds, final int[] colors)
 	{
 		LOG.debug("Specifying segmentIds {} and colors {}", segmentIds, colors);
-		for (int i = 0; i < segmentIds.length; ++i)
+		synchronized (explicitlySpecifiedColors)
 		{
-			this.explicitlySpecifiedColors.put(segmentIds[i], colors[i]);
+			for (int i = 0; i < segmentIds.length; ++i)
+			{
+				this.explicitlySpecifiedColors.put(segmentIds[i], colors[i]);
+			}
 		}
 		clearCache();
 	}
@@ -328,10 +379,15 @@ public abstract class AbstractHighlightingARGBStream extends ObservableWithListe
 	public void removeExplicitColor(final long segmentId)
 	{
 		LOG.debug("Removing color {} from {}", segmentId, this.explicitlySpecifiedColors);
-		if (this.explicitlySpecifiedColors.contains(segmentId))
+		final boolean removed;
+		synchronized (explicitlySpecifiedColors)
 		{
-			LOG.debug("Map contains colors: Removing color {} from {}", segmentId, this.explicitlySpecifiedColors);
+			removed = this.explicitlySpecifiedColors.contains(segmentId);
 			this.explicitlySpecifiedColors.remove(segmentId);
+		}
+		if (removed)
+		{
+			LOG.debug("Map contained color: Removed color {}", segmentId);
 			clearCache();
 		}
 	}
@@ -339,12 +395,15 @@ public abstract class AbstractHighlightingARGBStream extends ObservableWithListe
 	public void removeExplicitColors(final long[] segmentIds)
 	{
 		boolean notifyStateChanged = false;
-		for (final long id : segmentIds)
+		synchronized (explicitlySpecifiedColors)
 		{
-			if (this.explicitlySpecifiedColors.contains(id))
+			for (final long id : segmentIds)
 			{
-				this.explicitlySpecifiedColors.remove(id);
-				notifyStateChanged = true;
+				if (this.explicitlySpecifiedColors.contains(id))
+				{
+					this.explicitlySpecifiedColors.remove(id);
+					notifyStateChanged = true;
+				}
 			}
 		}
 		if (notifyStateChanged)
@@ -355,7 +414,10 @@ public abstract class AbstractHighlightingARGBStream extends ObservableWithListe
 
 	public TLongIntMap getExplicitlySpecifiedColorsCopy()
 	{
-		return new TLongIntHashMap(this.explicitlySpecifiedColors);
+		synchronized (explicitlySpecifiedColors)
+		{
+			return new TLongIntHashMap(this.explicitlySpecifiedColors);
+		}
 	}
 
 	public SelectedSegments getSelectedSegments() {
@@ -13,6 +13,8 @@
  */
 package org.janelia.saalfeldlab.paintera.stream;
 
+import java.util.function.LongToIntFunction;
+
 import org.janelia.saalfeldlab.paintera.control.lock.LockedSegments;
 import org.janelia.saalfeldlab.paintera.control.selection.SelectedSegments;
 
@@ -39,12 +41,26 @@ abstract public class AbstractSaturatedHighlightingARGBStream extends AbstractHi
 		return (int) ((v * xs[k] + u * xs[l]) * 255.0 + 0.5);
 	}
 
+	private final LongToIntFunction computeArgb = fragmentId -> computeArgb(fragmentId, getColorFromSegmentId());
+
 	@Override
 	protected int argbImpl(final long fragmentId, final boolean colorFromSegmentId)
 	{
-		final boolean isActiveSegment = isActiveSegment(fragmentId);
-		final long    assigned        = colorFromSegmentId ? selectedSegments.getAssignment().getSegment(fragmentId) : fragmentId;
-		if (!argbCache.contains(assigned))
+		// the cache is cleared when colorFromSegmentId changes
+		return argbCache.computeIfAbsent(fragmentId, computeArgb);
+	}
+
+	private int computeArgb(final long fragmentId, final boolean colorFromSegmentId)
+	{
+		final long assigned = colorFromSegmentId ? selectedSegments.getAssignment().getSegment(fragmentId) : fragmentId;
+		final boolean hasExplicitColor;
+		int argb;
+		synchronized (explicitlySpecifiedColors)
+		{
+			hasExplicitColor = explicitlySpecifiedColors.containsKey(assigned);
+			argb = explicitlySpecifiedColors.get(assigned);
+		}
+		if (!hasExplicitColor)
 		{
 			double x = getDouble(seed + assigned);
 			x *= 6.0;
@@ -57,15 +73,9 @@ abstract public class AbstractSaturatedHighlightingARGBStream extends AbstractHi
 			final int g = interpolate(gs, k, l, u, v);
 			final int b = interpolate(bs, k, l, u, v);
 
-			final int argb = argb(r, g, b, alpha);
-
-			synchronized (argbCache)
-			{
-				argbCache.put(assigned, argb);
-			}
+			argb = argb(r, g, b, alpha);
 		}
 
-		int argb = argbCache.get(assigned);
 		if (Label.INVALID == fragmentId)
 		{
 			argb = argb & 0x00ffffff | invalidSegmentAlpha;
@@ -76,9 +86,9 @@ abstract public class AbstractSaturatedHighlightingARGBStream extends AbstractHi
 		}
 		else
 		{
-			argb = argb & 0x00ffffff | (isActiveSegment ? isActiveFragment(fragmentId)
-			                                              ? activeFragmentAlpha
-			                                              : activeSegmentAlpha : alpha);
+			argb = argb & 0x00ffffff | (isActiveSegment(fragmentId) ? isActiveFragment(fragmentId)
+			                                                          ? activeFragmentAlpha
+			                                                          : activeSegmentAlpha : alpha);
 		}
 
 		return argb;
@@ -7,9 +7,22 @@ import net.imglib2.type.label.LabelMultisetType.Entry;
 import net.imglib2.type.label.VolatileLabelMultisetType;
 import net.imglib2.type.numeric.ARGBType;
 
+/**
+ * Blends the colors of all entries of a {@link net.imglib2.type.label.LabelMultisetType}, weighted by count and alpha.
+ *
+ * Neighboring pixels usually hold the same multiset. The blended color is memoized per multiset, i.e. per sequence
+ * of ids and counts, so repeated multisets cost one walk over their entries instead of one color lookup per entry.
+ * Memoized colors are discarded when the {@link AbstractHighlightingARGBStream#getCacheGeneration() cache generation}
+ * of the stream changes.
+ */
 public class HighlightingStreamConverterLabelMultisetType extends HighlightingStreamConverter<VolatileLabelMultisetType>
 {
-	final static private double ONE_OVER_255 = 1.0 / 255.0;
+
+	private static final int MEMO_SIZE = 1 << 10;
+
+	private static final int MAX_MEMOIZED_ENTRIES = 8;
+
+	private final ThreadLocal<Memo> memos = ThreadLocal.withInitial(Memo::new);
 
 	public HighlightingStreamConverterLabelMultisetType(final AbstractHighlightingARGBStream stream)
 	{
@@ -19,42 +32,146 @@ public class HighlightingStreamConverterLabelMultisetType extends HighlightingSt
 	@Override
 	public void convert(final VolatileLabelMultisetType input, final ARGBType output)
 	{
-		// TODO this needs to use all LabelMultisetType, not just first
 		final boolean isValid = input.isValid();
 		if (!isValid) { return; }
-		// entry
+
 		final Set<Entry<Label>> entries = input.get().entrySet();
-		if (entries.size() == 0)
+		final int size = entries.size();
+		if (size == 0)
 		{
 			output.set(stream.argb(Label.INVALID));
+			return;
+		}
+
+		final Memo memo = memos.get();
+		if (size > MAX_MEMOIZED_ENTRIES)
+		{
+			output.set(blend(entries));
+			return;
+		}
+
+		final long[] ids = memo.ids;
+		final int[] counts = memo.counts;
+		int hash = size;
+		int i = 0;
+		for (final Entry<Label> entry : entries)
+		{
+			ids[i] = entry.getElement().id();
+			counts[i] = entry.getCount();
+			hash = (hash * 31 + Long.hashCode(ids[i])) * 31 + counts[i];
+			++i;
+		}
+
+		final int generation = stream.getCacheGeneration();
+		final int slot = Memo.slot(hash);
+		if (memo.matches(slot, size, generation))
+		{
+			output.set(memo.colors[slot]);
+			return;
+		}
+
+		final int argb = blend(ids, counts, size);
+		memo.store(slot, size, generation, argb);
+		output.set(argb);
+	}
+
+	private int blend(final Set<Entry<Label>> entries)
+	{
+		final Blend blend = new Blend();
+		for (final Entry<Label> entry : entries)
+			blend.add(stream.argb(entry.getElement().id()), entry.getCount());
+		return blend.get();
+	}
+
+	private int blend(final long[] ids, final int[] counts, final int size)
+	{
+		final Blend blend = new Blend();
+		for (int i = 0; i < size; ++i)
+			blend.add(stream.argb(ids[i]), counts[i]);
+		return blend.get();
+	}
+
+	/**
+	 * Weights are alpha * count, accumulated in integer arithmetic.
+	 */
+	private static final class Blend
+	{
+		private long a              = 0;
+		private long r              = 0;
+		private long g              = 0;
+		private long b              = 0;
+		private long alphaCountSize = 0;
+
+		private void add(final int argb, final int count)
+		{
+			final int  alpha      = ARGBType.alpha(argb);
+			final long alphaCount = (long) alpha * count;
+			a += alphaCount * alpha;
+			r += alphaCount * ARGBType.red(argb);
+			g += alphaCount * ARGBType.green(argb);
+			b += alphaCount * ARGBType.blue(argb);
+			alphaCountSize += alphaCount;
+		}
+
+		private int get()
+		{
+			if (alphaCountSize == 0)
+				return 0;
+			final int aInt = (int) Math.min(255, a / alphaCountSize);
+			final int rInt = (int) Math.min(255, r / alphaCountSize);
+			final int gInt = (int) Math.min(255, g / alphaCountSize);
+			final int bInt = (int) Math.min(255, b / alphaCountSize);
+			return ((aInt << 8 | rInt) << 8 | gInt) << 8 | bInt;
+		}
+	}
+
+	/**
+	 * Direct-mapped memo of blended colors by ids and counts of the multiset, one per rendering thread.
+	 */
+	private static final class Memo
+	{
+		// entries of the current multiset
+		private final long[] ids = new long[MAX_MEMOIZED_ENTRIES];
+
+		private final int[] counts = new int[MAX_MEMOIZED_ENTRIES];
+
+		private final long[] memoizedIds = new long[MEMO_SIZE * MAX_MEMOIZED_ENTRIES];
+
+		private final int[] memoizedCounts = new int[MEMO_SIZE * MAX_MEMOIZED_ENTRIES];
+
+		// 0 for empty slots
+		private final int[] sizes = new int[MEMO_SIZE];
+
+		private final int[] generations = new int[MEMO_SIZE];
+
+		private final int[] colors = new int[MEMO_SIZE];
+
+		private static int slot(final int hash)
+		{
+			final int h = hash * 0x9e3779b9;
+			return (h ^ h >>> 16) & (MEMO_SIZE - 1);
+		}
+
+		private boolean matches(final int slot, final int size, final int generation)
+		{
+			if (sizes[slot] != size || generations[slot] != generation)
+				return false;
+			final int offset = slot * MAX_MEMOIZED_ENTRIES;
+			for (int i = 0; i < size; ++i)
+				if (memoizedIds[offset + i] != ids[i] || memoizedCounts[offset + i] != counts[i])
+					return false;
+			return true;
+		}
+
+		private void store(final int slot, final int size, final int generation, final int color)
+		{
+			final int offset = slot * MAX_MEMOIZED_ENTRIES;
+			System.arraycopy(ids, 0, memoizedIds, offset, size);
+			System.arraycopy(counts, 0, memoizedCounts, offset, size);
+			sizes[slot] = size;
+			generations[slot] = generation;
+			colors[slot] = color;
 		}
-		else
-		{
-			double a              = 0;
-			double r              = 0;
-			double g              = 0;
-			double b              = 0;
-			double alphaCountSize = 0;
-			for (final Entry<Label> entry : entries)
-			{
-				final int    argb       = stream.argb(entry.getElement().id());
-				final double alpha      = ARGBType.alpha(argb);
-				final double alphaCount = alpha * ONE_OVER_255 * entry.getCount();
-				a += alphaCount * alpha;
-				r += alphaCount * ARGBType.red(argb);
-				g += alphaCount * ARGBType.green(argb);
-				b += alphaCount * ARGBType.blue(argb);
-				alphaCountSize += alphaCount;
-			}
-			final double iAlphaCountSize = 1.0 / alphaCountSize;
-			final int    aInt            = Math.min(255, (int) (a * iAlphaCountSize));
-			final int    rInt            = Math.min(255, (int) (r * iAlphaCountSize));
-			final int    gInt            = Math.min(255, (int) (g * iAlphaCountSize));
-			final int    bInt            = Math.min(255, (int) (b * iAlphaCountSize));
-			output.set(((aInt << 8 | rInt) << 8 | gInt) << 8 | bInt);
-		}
-		//		final Iterator< LabelMultiset.Entry< Label > > it = input.get().entrySet().iterator();
-		//		output.set( stream.argb( it.hasNext() ? considerMaxUnsignedInt( it.next().getElement().id() ) : Label.INVALID ) );
 	}
 
 }
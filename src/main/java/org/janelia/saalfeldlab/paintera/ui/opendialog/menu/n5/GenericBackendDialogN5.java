@@ -77,6 +77,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -202,7 +203,27 @@ public class GenericBackendDialogN5 implements Closeable
 					final AtomicBoolean discardDatasetList = new AtomicBoolean(false);
 					try
 					{
-						final List<String> datasets = N5Helpers.discoverDatasets(newv, keepLooking::get);
+						// show datasets as they are found, batched to avoid updating the choices for every single dataset
+						final ConcurrentLinkedQueue<String> found = new ConcurrentLinkedQueue<>();
+						final AtomicBoolean isUpdatePending = new AtomicBoolean(false);
+						InvokeOnJavaFXApplicationThread.invoke(datasetChoices::clear);
+						final List<String> datasets = N5Helpers.discoverDatasets(newv, keepLooking::get, dataset -> {
+							found.add(dataset);
+							if (isUpdatePending.compareAndSet(false, true))
+								InvokeOnJavaFXApplicationThread.invoke(() -> {
+									isUpdatePending.set(false);
+									final List<String> batch = new ArrayList<>();
+									for (String d; (d = found.poll()) != null; )
+										batch.add(d);
+									if (keepLooking.get() && !batch.isEmpty())
+									{
+										final List<String> choices = new ArrayList<>(datasetChoices);
+										choices.addAll(batch);
+										Collections.sort(choices);
+										datasetChoices.setAll(choices);
+									}
+								});
+						});
 						if (!Thread.currentThread().isInterrupted() && !discardDatasetList.get() && keepLooking.get())
 						{
 							LOG.debug("Found these datasets: {}", datasets);
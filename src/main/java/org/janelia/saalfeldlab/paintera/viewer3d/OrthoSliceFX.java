@@ -6,14 +6,12 @@ import bdv.fx.viewer.render.RenderUnit;
 import com.sun.javafx.image.PixelUtils;
 import javafx.beans.InvalidationListener;
 import javafx.beans.property.*;
-import javafx.scene.image.PixelReader;
-import javafx.scene.image.PixelWriter;
+import javafx.scene.image.PixelFormat;
 import javafx.scene.transform.Affine;
 import net.imglib2.*;
 import net.imglib2.realtransform.AffineTransform3D;
 import net.imglib2.type.numeric.ARGBType;
 import net.imglib2.util.Intervals;
-import net.imglib2.view.Views;
 import org.janelia.saalfeldlab.fx.ObservableWithListenersList;
 import org.janelia.saalfeldlab.fx.util.InvokeOnJavaFXApplicationThread;
 import org.janelia.saalfeldlab.util.NamedThreadFactory;
@@ -21,31 +19,55 @@ import org.janelia.saalfeldlab.util.concurrent.PriorityLatestTaskExecutor;
 import org.janelia.saalfeldlab.util.fx.Transforms;
 
 import java.lang.reflect.InvocationTargetException;
-import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 public class OrthoSliceFX extends ObservableWithListenersList
 {
 	private static class Texture
 	{
-		final BufferExposingWritableImage originalImage;
 		final BufferExposingWritableImage selfIlluminationMapImage;
 		final BufferExposingWritableImage diffuseMapImage;
 
+		// rendered image before applying opacity and shading
+		final int[] unshaded;
+
+		// set if opacity or shading changed since the texture images were last shaded
+		boolean needsShading = false;
+
 		Texture(final int width, final int height)
 		{
+			unshaded = new int[width * height];
 			try {
-				originalImage = new BufferExposingWritableImage(width, height);
 				selfIlluminationMapImage = new BufferExposingWritableImage(width, height);
 				diffuseMapImage = new BufferExposingWritableImage(width, height);
 			} catch (final NoSuchMethodException | NoSuchFieldException | IllegalAccessException | InvocationTargetException e) {
 				throw new RuntimeException(e);
 			}
 		}
+
+		int getWidth()
+		{
+			return (int) selfIlluminationMapImage.getWidth();
+		}
+
+		int getHeight()
+		{
+			return (int) selfIlluminationMapImage.getHeight();
+		}
+
+		void setPixelsDirty()
+		{
+			selfIlluminationMapImage.setPixelsDirty();
+			diffuseMapImage.setPixelsDirty();
+		}
 	}
 
 	// this delay is used to avoid blinking when switching between different resolutions of the texture
 	private static final long textureUpdateDelayNanoSec = 1000000 * 50; // 50 msec
 
+	private static final int NUM_SCRATCH_BUFFERS = 2;
+
 	private final ViewerPanelFX viewer;
 
 	private final AffineTransform3D worldTransform = new AffineTransform3D();
@@ -58,11 +80,12 @@ public class OrthoSliceFX extends ObservableWithListenersList
 
 	private int currentTextureScreenScaleIndex = -1;
 
-	private double[] screenScales;
+	// accessed on the FX application thread only
+	private Texture displayedTexture;
 
-	private Texture[] textures;
+	private double[] screenScales;
 
-	private Interval[] updateIntervals;
+	private volatile Texture[] textures;
 
 	private long[] dimensions;
 
@@ -72,6 +95,9 @@ public class OrthoSliceFX extends ObservableWithListenersList
 
 	private final DoubleProperty shading = new SimpleDoubleProperty(0.1);
 
+	// buffers for passing updated parts of rendered images from the painter thread to the FX application thread
+	private final BlockingQueue<int[]> scratchBuffers = new ArrayBlockingQueue<>(NUM_SCRATCH_BUFFERS);
+
 	public OrthoSliceFX(final ViewerPanelFX viewer)
 	{
 		this.viewer = viewer;
@@ -89,21 +115,20 @@ public class OrthoSliceFX extends ObservableWithListenersList
 		orthoslicesMesh.addListener(obs -> stateChanged());
 		isVisible.addListener(obs -> stateChanged());
 
-		final InvalidationListener textureColorUpdateListener = obs -> {
-			// Change textures for all scale levels.
-			// If painting is initiated after this, partial updates will be consistent with the rest of the texture image.
+		final InvalidationListener textureColorUpdateListener = obs -> InvokeOnJavaFXApplicationThread.invoke(() -> {
+			// Re-shade the displayed texture right away, the other textures are re-shaded once they are displayed.
+			final Texture[] textures = this.textures;
 			if (textures == null)
 				return;
-			delayedTextureUpdateExecutor.cancel();
-			for (final Texture texture : textures) {
-				if (texture != null) {
-					final Interval interval = new FinalInterval(
-							(long) texture.originalImage.getWidth(),
-							(long) texture.originalImage.getHeight());
-					setTextureOpacityAndShading(texture, interval);
-				}
+			for (final Texture texture : textures)
+				if (texture != null)
+					texture.needsShading = true;
+			if (displayedTexture != null && isDisplayed(displayedTexture))
+			{
+				displayedTexture.needsShading = true;
+				shadeIfNecessary(displayedTexture);
 			}
-		};
+		});
 
 		this.opacity.addListener(textureColorUpdateListener);
 		this.shading.addListener(textureColorUpdateListener);
@@ -136,7 +161,6 @@ public class OrthoSliceFX extends ObservableWithListenersList
 		if (screenScales != null)
 		{
 			textures = new Texture[screenScales.length];
-			updateIntervals = new Interval[screenScales.length];
 		}
 	}
 
@@ -145,52 +169,87 @@ public class OrthoSliceFX extends ObservableWithListenersList
 		if (newv.getImage() == null || newv.getScreenScaleIndex() == -1)
 			return;
 
-		// FIXME: there is a race condition that sometimes may cause an ArrayIndexOutOfBounds exception:
-		// Screen scales are first initialized with the default setting (see RenderUnit),
-		// then the project metadata is loaded, and the screen scales are changed to the saved configuration.
-		// If the project screen scales are [1.0], sometimes the renderer receives a request to re-render the screen at screen scale 1, which results in the exception.
-		if (newv.getScreenScaleIndex() >= textures.length)
-			return;
-
 		final int[] textureImageSize = {(int) newv.getImage().getWidth(), (int) newv.getImage().getHeight()};
-		final Texture texture = getTexture(newv.getScreenScaleIndex(), textureImageSize);
-
 		final Interval interval = Intervals.intersect(
 			Intervals.smallestContainingInterval(newv.getRenderTargetRealInterval()),
 			new FinalInterval(new FinalDimensions(textureImageSize))
 		);
+		if (Intervals.isEmpty(interval))
+			return;
 
-		// copy relevant part of the rendered image into the first texture image
-		final PixelReader pixelReader = newv.getImage().getPixelReader();
-		final PixelWriter pixelWriter = texture.originalImage.getPixelWriter();
-		pixelWriter.setPixels(
-			(int) interval.min(0), // dst x
-			(int) interval.min(1), // dst y
-			(int) interval.dimension(0), // w
-			(int) interval.dimension(1),	// h
-			pixelReader, // src
-			(int) interval.min(0), // src x
-			(int) interval.min(1)  // src y
-		);
+		// This is called on the painter thread. Copy the updated part of the rendered image, it will be rendered into again,
+		// and update the textures on the FX application thread where they are read by the renderer of the 3D scene.
+		final int width = (int) interval.dimension(0);
+		final int height = (int) interval.dimension(1);
+		final int[] updated = takeScratchBuffer(width * height);
+		if (newv.getImage() instanceof BufferExposingWritableImage)
+		{
+			final int[] src = ((BufferExposingWritableImage) newv.getImage()).getBuffer();
+			for (int y = 0; y < height; ++y)
+				System.arraycopy(src, (int) ((interval.min(1) + y) * textureImageSize[0] + interval.min(0)), updated, y * width, width);
+		}
+		else
+		{
+			newv.getImage().getPixelReader().getPixels(
+				(int) interval.min(0),
+				(int) interval.min(1),
+				width,
+				height,
+				PixelFormat.getIntArgbInstance(),
+				updated,
+				0,
+				width
+			);
+		}
+
+		final int screenScaleIndex = newv.getScreenScaleIndex();
+		InvokeOnJavaFXApplicationThread.invoke(() -> updateTexture(screenScaleIndex, textureImageSize, interval, updated));
+	}
+
+	private void updateTexture(
+			final int newScreenScaleIndex,
+			final int[] textureImageSize,
+			final Interval interval,
+			final int[] updated)
+	{
+		// FIXME: there is a race condition that sometimes may cause an ArrayIndexOutOfBounds exception:
+		// Screen scales are first initialized with the default setting (see RenderUnit),
+		// then the project metadata is loaded, and the screen scales are changed to the saved configuration.
+		// If the project screen scales are [1.0], sometimes the renderer receives a request to re-render the screen at screen scale 1, which results in the exception.
+		final Texture[] textures = this.textures;
+		if (textures == null || newScreenScaleIndex >= textures.length)
+		{
+			scratchBuffers.offer(updated);
+			return;
+		}
 
-		if (updateIntervals[newv.getScreenScaleIndex()] == null)
-			updateIntervals[newv.getScreenScaleIndex()] = interval;
+		final Texture texture = getTexture(textures, newScreenScaleIndex, textureImageSize);
+		final int width = (int) interval.dimension(0);
+		if (texture.needsShading)
+		{
+			for (int y = 0; y < interval.dimension(1); ++y)
+				System.arraycopy(updated, y * width, texture.unshaded, (int) ((interval.min(1) + y) * textureImageSize[0] + interval.min(0)), width);
+			shadeIfNecessary(texture);
+		}
 		else
-			updateIntervals[newv.getScreenScaleIndex()] = Intervals.union(interval, updateIntervals[newv.getScreenScaleIndex()]);
+			setTextureOpacityAndShading(texture, interval, updated, width);
+		scratchBuffers.offer(updated);
 
-		// set up a task for updating the texture of the mesh
-		final int newScreenScaleIndex = newv.getScreenScaleIndex();
+		if (newScreenScaleIndex == currentTextureScreenScaleIndex && isDisplayed(texture))
+		{
+			// texture is already displayed, update it right away
+			texture.setPixelsDirty();
+			return;
+		}
+
+		// set up a task for switching the texture of the mesh
 		final Runnable updateTextureTask = () -> InvokeOnJavaFXApplicationThread.invoke(
 			() -> {
-				if (newScreenScaleIndex >= textures.length || textures[newScreenScaleIndex] != texture)
+				if (this.textures != textures || textures[newScreenScaleIndex] != texture)
 					return;
 
-				final Interval textureImageInterval = new FinalInterval(textureImageSize[0], textureImageSize[1]);
-				final Interval updateInterval = updateIntervals[newScreenScaleIndex] != null
-						? Intervals.intersect(updateIntervals[newScreenScaleIndex], textureImageInterval)
-						: textureImageInterval;
-				setTextureOpacityAndShading(texture, updateInterval);
-				updateIntervals[newScreenScaleIndex] = null;
+				shadeIfNecessary(texture);
+				texture.setPixelsDirty();
 
 				// calculate new texture coordinates depending on the ratio between the screen size and the rendered image
 				final RealPoint texCoordMin = new RealPoint(2), texCoordMax = new RealPoint(2);
@@ -205,54 +264,92 @@ public class OrthoSliceFX extends ObservableWithListenersList
 				}
 
 				this.currentTextureScreenScaleIndex = newScreenScaleIndex;
+				this.displayedTexture = texture;
 			}
 		);
 
 		// prioritize higher resolution texture to minimize blinking because of switching between low-res and high-res
-		final int priority = -newv.getScreenScaleIndex();
+		final int priority = -newScreenScaleIndex;
 		delayedTextureUpdateExecutor.schedule(updateTextureTask, priority);
 	}
 
-	private void setTextureOpacityAndShading(final Texture texture, final Interval interval)
+	private boolean isDisplayed(final Texture texture)
+	{
+		return orthoslicesMesh.get() != null && orthoslicesMesh.get().getMaterial().getDiffuseMap() == texture.diffuseMapImage;
+	}
+
+	private void shadeIfNecessary(final Texture texture)
+	{
+		if (!texture.needsShading)
+			return;
+		texture.needsShading = false;
+		setTextureOpacityAndShading(texture, new FinalInterval(texture.getWidth(), texture.getHeight()), texture.unshaded, texture.getWidth());
+		texture.setPixelsDirty();
+	}
+
+	private int[] takeScratchBuffer(final int size)
+	{
+		final int[] buffer = scratchBuffers.poll();
+		return buffer != null && buffer.length >= size ? buffer : new int[size];
+	}
+
+	/**
+	 * Compute self-illumination and diffuse map of {@code interval} in a single pass over {@code src},
+	 * and copy {@code src} into the unshaded image of the texture unless it is the unshaded image.
+	 * Must be called on the FX application thread.
+	 *
+	 * @param texture target texture
+	 * @param interval updated interval in texture coordinates
+	 * @param src unshaded pixels of {@code interval}, starting at index 0
+	 * @param srcStride row length of {@code src}
+	 */
+	private void setTextureOpacityAndShading(
+			final Texture texture,
+			final Interval interval,
+			final int[] src,
+			final int srcStride)
 	{
 		// NOTE: the opacity property of the MeshView object does not have any effect.
 		// But the transparency can still be controlled by modifying the alpha channel in the texture images.
 
-		final double alpha = this.opacity.get();
+		final double alpha = this.opacity.get() * 255;
 		final double shading = this.shading.get();
-		final BufferExposingWritableImage[] targetImages = {texture.selfIlluminationMapImage, texture.diffuseMapImage};
-		final double[] brightnessFactors = {1 - shading, shading};
+		final double selfIlluminationFactor = 1 - shading;
 
-		final RandomAccessibleInterval<ARGBType> src = Views.interval(texture.originalImage.asArrayImg(), interval);
+		final int[] unshaded = texture.unshaded;
+		final boolean copy = src != unshaded;
+		final int[] selfIllumination = texture.selfIlluminationMapImage.getBuffer();
+		final int[] diffuse = texture.diffuseMapImage.getBuffer();
+		final int textureWidth = texture.getWidth();
+		final int width = (int) interval.dimension(0);
+		final int height = (int) interval.dimension(1);
 
-		for (int i = 0; i < 2; ++i)
+		for (int y = 0; y < height; ++y)
 		{
-			final BufferExposingWritableImage targetImage = targetImages[i];
-			final double brightnessFactor = brightnessFactors[i];
-
-			final RandomAccessibleInterval<ARGBType> dst = Views.interval(targetImage.asArrayImg(), interval);
-			final Cursor<ARGBType> srcCursor = Views.flatIterable(src).cursor();
-			final Cursor<ARGBType> dstCursor = Views.flatIterable(dst).cursor();
-
-			while (dstCursor.hasNext())
+			int index = (int) ((interval.min(1) + y) * textureWidth + interval.min(0));
+			int srcIndex = y * srcStride;
+			for (int x = 0; x < width; ++x, ++index, ++srcIndex)
 			{
-				final int srcArgb = srcCursor.next().get();
-				final int dstArgb = ARGBType.rgba(
-						ARGBType.red(srcArgb) * brightnessFactor,
-						ARGBType.green(srcArgb) * brightnessFactor,
-						ARGBType.blue(srcArgb) * brightnessFactor,
-						alpha * 255);
-				dstCursor.next().set(PixelUtils.NonPretoPre(dstArgb));
+				final int argb = src[srcIndex];
+				if (copy)
+					unshaded[index] = argb;
+				final int r = ARGBType.red(argb);
+				final int g = ARGBType.green(argb);
+				final int b = ARGBType.blue(argb);
+				selfIllumination[index] = PixelUtils.NonPretoPre(ARGBType.rgba(
+						r * selfIlluminationFactor,
+						g * selfIlluminationFactor,
+						b * selfIlluminationFactor,
+						alpha));
+				diffuse[index] = PixelUtils.NonPretoPre(ARGBType.rgba(r * shading, g * shading, b * shading, alpha));
 			}
 		}
-
-		Arrays.stream(targetImages).forEach(BufferExposingWritableImage::setPixelsDirty);
 	}
 
-	private Texture getTexture(final int screenScaleIndex, final int[] size)
+	private static Texture getTexture(final Texture[] textures, final int screenScaleIndex, final int[] size)
 	{
 		Texture texture = textures[screenScaleIndex];
-		final boolean create = texture == null || (int) texture.originalImage.getWidth() != size[0] || (int) texture.originalImage.getHeight() != size[1];
+		final boolean create = texture == null || texture.getWidth() != size[0] || texture.getHeight() != size[1];
 		if (create)
 		{
 			texture = new Texture(size[0], size[1]);
@@ -128,4 +128,15 @@ public class ViewFrustum
 		final double viewPlaneWidth = tanHalfFov[0] * z * 2;
 		return screenSize[0] / viewPlaneWidth;
 	}
+
+	/**
+	 * @param size extent parallel to the view plane in camera space
+	 * @param z distance from the camera
+	 *
+	 * @return number of screen pixels covered by {@code size} at distance {@code z}
+	 */
+	public double projectedSizeInPixels(final double size, final double z)
+	{
+		return size * screenSizeToViewPlaneRatio(z);
+	}
 }
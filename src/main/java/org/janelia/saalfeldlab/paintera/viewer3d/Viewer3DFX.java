@@ -81,6 +81,8 @@ public class Viewer3DFX extends Pane
 
 	private final LongProperty sceneUpdateDelayMsec = new SimpleLongProperty();
 
+	private final LongProperty maxNumTriangles = new SimpleLongProperty();
+
 	private final ObjectProperty<Color> backgroundFill = new SimpleObjectProperty<>(Color.BLACK);
 
 	public Viewer3DFX(final double width, final double height)
@@ -202,6 +204,11 @@ public class Viewer3DFX extends Pane
 		return this.sceneUpdateDelayMsec;
 	}
 
+	public LongProperty maxNumTrianglesProperty()
+	{
+		return this.maxNumTriangles;
+	}
+
 	public void setAffine(final Affine affine, final Duration duration) {
 		if (duration.toMillis() == 0.0) {
 			setAffine(affine);
@@ -0,0 +1,171 @@
+package org.janelia.saalfeldlab.util;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongToIntFunction;
+
+/**
+ * Open addressing (linear probing) cache of primitive {@code long} keys to {@code int} values that is safe for
+ * concurrent readers and writers without locking. Lookups of cached keys are a single probe sequence over primitive
+ * arrays without any allocation.
+ *
+ * As a cache, it may drop entries that are inserted concurrently to growing or {@link #clear() clearing} the table,
+ * in which case they are computed again on the next lookup. A value that was computed before {@link #clear()} is
+ * never inserted into the table that replaces the cleared one.
+ */
+public class ConcurrentLongIntCache
+{
+
+	private static final int MIN_CAPACITY = 1 << 10;
+
+	private static final long PRESENT = 1L << 32;
+
+	private final long noEntryKey;
+
+	private final AtomicReference<Table> table = new AtomicReference<>();
+
+	/**
+	 *
+	 * @param noEntryKey marks empty slots. This key is never cached.
+	 */
+	public ConcurrentLongIntCache(final long noEntryKey)
+	{
+		this.noEntryKey = noEntryKey;
+		this.table.set(new Table(MIN_CAPACITY, noEntryKey));
+	}
+
+	/**
+	 *
+	 * @param key look up value for this key
+	 * @param compute compute value for {@code key} if not present. Must be thread-safe.
+	 * @return cached value for {@code key} or the value computed by {@code compute}
+	 */
+	public int computeIfAbsent(final long key, final LongToIntFunction compute)
+	{
+		if (key == noEntryKey)
+			return compute.applyAsInt(key);
+
+		// insert into the table that was current before computing, so values computed from stale state
+		// are discarded along with the table when cleared concurrently
+		final Table table = this.table.get();
+		final long packed = table.get(key);
+		if (packed != 0)
+			return (int) packed;
+
+		final int value = compute.applyAsInt(key);
+		if (table.put(key, value))
+			grow(table);
+		return value;
+	}
+
+	/**
+	 * Remove all entries.
+	 */
+	public void clear()
+	{
+		table.set(new Table(MIN_CAPACITY, noEntryKey));
+	}
+
+	/**
+	 *
+	 * @return number of cached entries
+	 */
+	public int size()
+	{
+		return table.get().size.get();
+	}
+
+	private void grow(final Table table)
+	{
+		if (!table.isGrowing.compareAndSet(false, true))
+			return;
+		final Table grown = new Table(2 * table.keys.length(), noEntryKey);
+		for (int i = 0; i < table.keys.length(); ++i)
+		{
+			final long key = table.keys.get(i);
+			final long packed = table.values.get(i);
+			if (key != noEntryKey && packed != 0)
+				grown.put(key, (int) packed);
+		}
+		// fails if cleared in the meantime
+		this.table.compareAndSet(table, grown);
+	}
+
+	private static int index(final long key, final int mask)
+	{
+		final long hash = key * 0x9e3779b97f4a7c15L;
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+	private static final class Table
+	{
+		private final long noEntryKey;
+
+		private final AtomicLongArray keys;
+
+		// value | PRESENT, 0 while the value of a claimed slot is not yet written
+		private final AtomicLongArray values;
+
+		private final int mask;
+
+		private final int threshold;
+
+		private final AtomicInteger size = new AtomicInteger();
+
+		private final AtomicBoolean isGrowing = new AtomicBoolean(false);
+
+		private Table(final int capacity, final long noEntryKey)
+		{
+			this.noEntryKey = noEntryKey;
+			this.keys = new AtomicLongArray(capacity);
+			this.values = new AtomicLongArray(capacity);
+			this.mask = capacity - 1;
+			this.threshold = capacity / 2;
+			if (noEntryKey != 0)
+				for (int i = 0; i < capacity; ++i)
+					keys.lazySet(i, noEntryKey);
+		}
+
+		private long get(final long key)
+		{
+			for (int i = index(key, mask), probes = 0; probes <= mask; i = (i + 1) & mask, ++probes)
+			{
+				final long k = keys.get(i);
+				if (k == key)
+					return values.get(i);
+				if (k == noEntryKey)
+					return 0;
+			}
+			return 0;
+		}
+
+		/**
+		 * @return {@code true} if this table exceeds its load factor and should grow
+		 */
+		private boolean put(final long key, final int value)
+		{
+			for (int i = index(key, mask), probes = 0; probes <= mask; i = (i + 1) & mask, ++probes)
+			{
+				long k = keys.get(i);
+				if (k == noEntryKey)
+				{
+					if (keys.compareAndSet(i, noEntryKey, key))
+					{
+						values.set(i, PRESENT | (value & 0xffffffffL));
+						return size.incrementAndGet() > threshold;
+					}
+					k = keys.get(i);
+				}
+				if (k == key)
+				{
+					values.set(i, PRESENT | (value & 0xffffffffL));
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+}
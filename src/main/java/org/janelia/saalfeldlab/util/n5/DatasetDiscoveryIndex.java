@@ -0,0 +1,256 @@
+package org.janelia.saalfeldlab.util.n5;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import org.janelia.saalfeldlab.n5.N5FSReader;
+import org.janelia.saalfeldlab.n5.N5Reader;
+import org.janelia.saalfeldlab.util.PainteraCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent index of the result of {@link N5Helpers#discoverDatasets dataset discovery} for each group of a file
+ * system container. An entry is valid for as long as the modification times of the group directory and its
+ * attributes file do not change, such that repeated discovery only needs to check modification times instead of
+ * reading and parsing attributes of every group.
+ *
+ * The index for a container is stored in the {@link PainteraCache paintera cache directory}.
+ */
+public class DatasetDiscoveryIndex
+{
+
+	private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	private static final Gson GSON = new GsonBuilder().create();
+
+	private static final String ATTRIBUTES_FILE = "attributes.json";
+
+	/**
+	 * Groups modified more recently are not indexed: changes within the modification time resolution of the file
+	 * system would go unnoticed.
+	 */
+	private static final long MIN_AGE_MILLIS = 2000;
+
+	/**
+	 * Discovery result for a single group.
+	 */
+	public static class Entry
+	{
+		private final long directoryModified;
+
+		private final long attributesModified;
+
+		private final boolean isDataset;
+
+		private final String[] children;
+
+		private Entry(final long[] stamp, final boolean isDataset, final String[] children)
+		{
+			this.directoryModified = stamp[0];
+			this.attributesModified = stamp[1];
+			this.isDataset = isDataset;
+			this.children = children;
+		}
+
+		public boolean isDataset()
+		{
+			return isDataset;
+		}
+
+		/**
+		 *
+		 * @return children of the group, or {@code null} if the group is a dataset
+		 */
+		public String[] getChildren()
+		{
+			return children == null ? null : children.clone();
+		}
+	}
+
+	private final Path containerPath;
+
+	private final Path indexFile;
+
+	private final Map<String, Entry> entries;
+
+	private volatile boolean isModified = false;
+
+	private DatasetDiscoveryIndex(final Path containerPath, final Path indexFile, final Map<String, Entry> entries)
+	{
+		this.containerPath = containerPath;
+		this.indexFile = indexFile;
+		this.entries = entries;
+	}
+
+	/**
+	 *
+	 * @param n5 container
+	 * @return index for {@code n5} if it is a file system container
+	 */
+	public static Optional<DatasetDiscoveryIndex> forContainer(final N5Reader n5)
+	{
+		if (!(n5 instanceof N5FSReader))
+			return Optional.empty();
+		final Path containerPath = Paths.get(((N5FSReader) n5).getBasePath()).toAbsolutePath().normalize();
+		return Optional.of(load(containerPath, PainteraCache.getCacheFile(DatasetDiscoveryIndex.class, indexFileName(containerPath))));
+	}
+
+	/**
+	 * Load index from {@code indexFile}, or create an empty index if {@code indexFile} does not exist or cannot be
+	 * read.
+	 *
+	 * @param containerPath root of the container
+	 * @param indexFile index file
+	 * @return index for {@code containerPath}
+	 */
+	public static DatasetDiscoveryIndex load(final Path containerPath, final Path indexFile)
+	{
+		final Map<String, Entry> entries = new ConcurrentHashMap<>();
+		if (Files.isRegularFile(indexFile))
+		{
+			try (final Reader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8))
+			{
+				final Map<String, Entry> stored = GSON.fromJson(reader, new TypeToken<Map<String, Entry>>() {}.getType());
+				if (stored != null)
+					entries.putAll(stored);
+				LOG.debug("Loaded {} dataset discovery entries for {} from {}", entries.size(), containerPath, indexFile);
+			} catch (final IOException | JsonParseException e)
+			{
+				LOG.debug("Unable to read dataset discovery index {}, starting empty", indexFile, e);
+			}
+		}
+		return new DatasetDiscoveryIndex(containerPath, indexFile, entries);
+	}
+
+	/**
+	 * Capture modification times of {@code group} <em>before</em> inspecting it, such that changes while inspecting
+	 * invalidate the entry.
+	 *
+	 * @param group group relative to the container root
+	 * @return modification times of the group directory and its attributes file
+	 */
+	public long[] stamp(final String group)
+	{
+		final Path directory = directory(group);
+		return new long[] {lastModified(directory), lastModified(directory.resolve(ATTRIBUTES_FILE))};
+	}
+
+	/**
+	 *
+	 * @param group group relative to the container root
+	 * @param stamp current {@link #stamp(String) modification times} of {@code group}
+	 * @return entry of {@code group} if present and still valid for {@code stamp}
+	 */
+	public Entry get(final String group, final long[] stamp)
+	{
+		final Entry entry = entries.get(normalize(group));
+		if (entry == null)
+			return null;
+		if (stamp[0] < 0 || entry.directoryModified != stamp[0] || entry.attributesModified != stamp[1])
+		{
+			entries.remove(normalize(group), entry);
+			isModified = true;
+			return null;
+		}
+		return entry;
+	}
+
+	/**
+	 *
+	 * @param group group relative to the container root
+	 * @param stamp {@link #stamp(String) modification times} of {@code group} before it was inspected
+	 * @param isDataset whether {@code group} was discovered as dataset
+	 * @param children children of {@code group} if it is not a dataset
+	 */
+	public void put(final String group, final long[] stamp, final boolean isDataset, final String[] children)
+	{
+		if (stamp[0] < 0 || System.currentTimeMillis() - Math.max(stamp[0], stamp[1]) < MIN_AGE_MILLIS)
+			return;
+		entries.put(normalize(group), new Entry(stamp, isDataset, isDataset ? null : children));
+		isModified = true;
+	}
+
+	public int size()
+	{
+		return entries.size();
+	}
+
+	/**
+	 * Write index to disk if it was modified since it was loaded or last saved.
+	 */
+	public void save()
+	{
+		if (!isModified)
+			return;
+		isModified = false;
+		try
+		{
+			Files.createDirectories(indexFile.getParent());
+			final Path tmp = Files.createTempFile(indexFile.getParent(), indexFile.getFileName().toString(), ".tmp");
+			try (final Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8))
+			{
+				GSON.toJson(entries, writer);
+			}
+			Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING);
+			LOG.debug("Wrote {} dataset discovery entries for {} to {}", entries.size(), containerPath, indexFile);
+		} catch (final IOException e)
+		{
+			LOG.debug("Unable to write dataset discovery index {}", indexFile, e);
+		}
+	}
+
+	private Path directory(final String group)
+	{
+		final String relative = normalize(group);
+		return relative.isEmpty() ? containerPath : containerPath.resolve(relative);
+	}
+
+	private static String normalize(final String group)
+	{
+		return group.replaceAll("^/+", "").replaceAll("/+$", "");
+	}
+
+	private static long lastModified(final Path path)
+	{
+		try
+		{
+			return Files.getLastModifiedTime(path).toMillis();
+		} catch (final IOException e)
+		{
+			return -1;
+		}
+	}
+
+	private static String indexFileName(final Path containerPath)
+	{
+		try
+		{
+			final byte[] digest = MessageDigest.getInstance("SHA-1").digest(containerPath.toString().getBytes(StandardCharsets.UTF_8));
+			final StringBuilder name = new StringBuilder();
+			for (final byte b : digest)
+				name.append(String.format("%02x", b));
+			return name.append(".json").toString();
+		} catch (final NoSuchAlgorithmException e)
+		{
+			return Integer.toHexString(containerPath.hashCode()) + ".json";
+		}
+	}
+
+}
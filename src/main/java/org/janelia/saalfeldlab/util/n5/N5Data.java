@@ -9,12 +9,13 @@ import net.imglib2.RandomAccessible;
 import net.imglib2.Volatile;
 import net.imglib2.cache.Cache;
 import net.imglib2.cache.img.CachedCellImg;
-import net.imglib2.cache.ref.SoftRefLoaderCache;
+import net.imglib2.cache.img.LoadedCellCacheLoader;
 import net.imglib2.cache.volatiles.CacheHints;
 import net.imglib2.cache.volatiles.LoadingStrategy;
 import net.imglib2.cache.volatiles.UncheckedVolatileCache;
 import net.imglib2.img.NativeImg;
 import net.imglib2.img.basictypeaccess.AccessFlags;
+import net.imglib2.img.basictypeaccess.ArrayDataAccessFactory;
 import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
 import net.imglib2.img.cell.Cell;
 import net.imglib2.img.cell.CellGrid;
@@ -34,8 +35,10 @@ import org.janelia.saalfeldlab.n5.DatasetAttributes;
 import org.janelia.saalfeldlab.n5.GzipCompression;
 import org.janelia.saalfeldlab.n5.N5FSWriter;
 import org.janelia.saalfeldlab.n5.N5Reader;
+import org.janelia.saalfeldlab.n5.imglib2.N5CellLoader;
 import org.janelia.saalfeldlab.n5.imglib2.N5LabelMultisetCacheLoader;
 import org.janelia.saalfeldlab.n5.imglib2.N5Utils;
+import org.janelia.saalfeldlab.paintera.cache.SharedCellCache;
 import org.janelia.saalfeldlab.paintera.cache.WeakRefVolatileCache;
 import org.janelia.saalfeldlab.paintera.data.DataSource;
 import org.janelia.saalfeldlab.paintera.data.n5.N5DataSource;
@@ -55,6 +58,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -245,7 +249,8 @@ public class N5Data {
 	 * @param reader container
 	 * @param dataset dataset
 	 * @param transform transforms voxel data into real world coordinates
-	 * @param priority in fetching queue
+	 * @param priority default priority in fetching queue. Renderers override it per mipmap level, see
+	 * {@link bdv.fx.viewer.render.FetchPriorityPolicy}.
 	 * @param <T> data type
 	 * @param <V> viewer type
 	 * @return image data with cache invalidation
@@ -258,10 +263,10 @@ public class N5Data {
 			final String dataset,
 			final AffineTransform3D transform,
 			final SharedQueue queue,
-			final int priority /* TODO use priority, probably in wrapAsVolatile? */) throws IOException {
+			final int priority) throws IOException {
 
 		try {
-			final CachedCellImg<T, ?> raw = N5Utils.openVolatile(reader, dataset);
+			final CachedCellImg<T, A> raw = openCached(reader, dataset);
 			final TmpVolatileHelpers.RaiWithInvalidate<V> vraw = TmpVolatileHelpers.createVolatileCachedCellImgWithInvalidate(
 					(CachedCellImg) raw,
 					queue,
@@ -274,6 +279,41 @@ public class N5Data {
 		}
 	}
 
+	/**
+	 * Open {@code dataset} as a {@link CachedCellImg} whose cells count against the memory budget of the
+	 * {@link SharedCellCache}. Falls back to {@link N5Utils#openVolatile(N5Reader, String)} for data types that are
+	 * not supported by {@link N5Types#type(DataType)}.
+	 *
+	 * @param reader container
+	 * @param dataset dataset
+	 * @param <T> data type
+	 * @param <A> access type
+	 * @return image backed by the {@link SharedCellCache}
+	 * @throws IOException if any N5 operation throws {@link IOException}
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T extends NativeType<T>, A extends ArrayDataAccess<A>> CachedCellImg<T, A> openCached(
+			final N5Reader reader,
+			final String dataset) throws IOException
+	{
+		final DatasetAttributes attrs = reader.getDatasetAttributes(dataset);
+		final T type = N5Types.type(attrs.getDataType());
+		if (type == null)
+		{
+			LOG.debug("Data type {} of dataset {} not supported by shared cell cache", attrs.getDataType(), dataset);
+			return (CachedCellImg<T, A>) N5Utils.<T>openVolatile(reader, dataset);
+		}
+		final CellGrid grid = new CellGrid(attrs.getDimensions(), attrs.getBlockSize());
+		final Set<AccessFlags> flags = AccessFlags.setOf(AccessFlags.VOLATILE);
+		final LoadedCellCacheLoader<T, A> cacheLoader = LoadedCellCacheLoader.get(
+				grid,
+				new N5CellLoader<>(reader, dataset, attrs.getBlockSize()),
+				type,
+				flags);
+		final Cache<Long, Cell<A>> cache = SharedCellCache.getInstance().<Long, A>createCellCache().withLoader(cacheLoader);
+		return new CachedCellImg<>(grid, type, cache, ArrayDataAccessFactory.get(type, flags));
+	}
+
 	/**
 	 *
 	 * @param reader container
@@ -471,8 +511,10 @@ public class N5Data {
 				reader,
 				dataset,
 				N5LabelMultisetCacheLoader.constantNullReplacement(Label.BACKGROUND));
-		// TODO make cache a parameter?
-		final Cache<Long, Cell<VolatileLabelMultisetArray>> cache = new SoftRefLoaderCache<Long, Cell<VolatileLabelMultisetArray>>().withLoader(loader);
+		final Cache<Long, Cell<VolatileLabelMultisetArray>> cache = SharedCellCache
+				.getInstance()
+				.<Long, VolatileLabelMultisetArray>createCellCache()
+				.withLoader(loader);
 		final CachedCellImg<LabelMultisetType, VolatileLabelMultisetArray> cachedImg = new CachedCellImg<>(
 				new CellGrid(attrs.getDimensions(), attrs.getBlockSize()),
 				new LabelMultisetType().getEntitiesPerPixel(),
@@ -1,6 +1,7 @@
 package org.janelia.saalfeldlab.util.n5;
 
 import com.google.gson.annotations.Expose;
+import com.pivovarit.function.ThrowingIntFunction;
 import gnu.trove.map.TLongLongMap;
 import gnu.trove.map.hash.TLongLongHashMap;
 import net.imglib2.Cursor;
@@ -11,6 +12,7 @@ import net.imglib2.type.numeric.IntegerType;
 import net.imglib2.type.numeric.integer.UnsignedLongType;
 import net.imglib2.view.Views;
 import org.janelia.saalfeldlab.n5.DataType;
+import org.janelia.saalfeldlab.n5.DatasetAttributes;
 import org.janelia.saalfeldlab.n5.N5Reader;
 import org.janelia.saalfeldlab.n5.imglib2.N5Utils;
 import org.janelia.saalfeldlab.paintera.data.n5.N5Meta;
@@ -21,6 +23,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 public class N5FragmentSegmentAssignmentInitialLut implements Supplier<TLongLongMap> {
 
@@ -44,6 +47,8 @@ public class N5FragmentSegmentAssignmentInitialLut implements Supplier<TLongLong
 	@Override
 	public TLongLongMap get() {
 		try {
+			if (N5FragmentSegmentAssignmentPersister.isChunkedLog(meta.reader(), meta.dataset()))
+				return readChunkedLog(meta.reader(), meta.dataset());
 			RandomAccessibleInterval<UnsignedLongType> data = openDatasetSafe(meta.reader(), meta.dataset());
 			final long[] keys = new long[(int) data.dimension(0)];
 			final long[] values = new long[keys.length];
@@ -62,6 +67,45 @@ public class N5FragmentSegmentAssignmentInitialLut implements Supplier<TLongLong
 		}
 	}
 
+	/**
+	 * Read all blocks of a {@link N5FragmentSegmentAssignmentPersister chunked log} in parallel and apply them in order.
+	 */
+	private static TLongLongMap readChunkedLog(final N5Reader reader, final String dataset) throws IOException {
+		final DatasetAttributes attributes = reader.getDatasetAttributes(dataset);
+		final long numEntries = attributes.getDimensions()[0];
+		final int blockSize = attributes.getBlockSize()[0];
+		final int firstBlock = (int) (N5FragmentSegmentAssignmentPersister.logStart(reader, dataset) / blockSize);
+		final int numBlocks = (int) ((numEntries + blockSize - 1) / blockSize);
+		final long numLogEntries = numEntries - (long) firstBlock * blockSize;
+		LOG.debug("Reading {} log entries in {} blocks", numLogEntries, numBlocks - firstBlock);
+
+		final long[][] blocks;
+		try {
+			blocks = IntStream
+					.range(firstBlock, numBlocks)
+					.parallel()
+					.mapToObj(ThrowingIntFunction.unchecked(index -> (long[]) reader.readBlock(dataset, attributes, index, 0).getData()))
+					.toArray(long[][]::new);
+		} catch (final RuntimeException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw e;
+		}
+
+		final TLongLongHashMap lut = new TLongLongHashMap((int) Math.min(numLogEntries, Integer.MAX_VALUE - 8));
+		for (int index = firstBlock; index < numBlocks; ++index) {
+			final long[] block = blocks[index - firstBlock];
+			// the last block may contain entries beyond numEntries if it was appended to concurrently
+			final int numRowsInBlock = block.length / 2;
+			final int numRows = (int) Math.min(numRowsInBlock, numEntries - (long) index * blockSize);
+			for (int row = 0; row < numRows; ++row)
+				lut.put(block[row], block[numRowsInBlock + row]);
+		}
+		lut.retainEntries((key, value) -> key != value);
+		LOG.debug("Found {} assignments", lut.size());
+		return lut;
+	}
+
 	private static RandomAccessibleInterval<UnsignedLongType> openDatasetSafe(
 			final N5Reader reader,
 			final String dataset
@@ -1,22 +1,52 @@
 package org.janelia.saalfeldlab.util.n5;
 
+import gnu.trove.map.TLongLongMap;
 import org.janelia.saalfeldlab.n5.DataBlock;
 import org.janelia.saalfeldlab.n5.DataType;
 import org.janelia.saalfeldlab.n5.DatasetAttributes;
 import org.janelia.saalfeldlab.n5.GzipCompression;
 import org.janelia.saalfeldlab.n5.LongArrayDataBlock;
+import org.janelia.saalfeldlab.n5.N5Reader;
 import org.janelia.saalfeldlab.n5.N5Writer;
 import org.janelia.saalfeldlab.paintera.control.assignment.FragmentSegmentAssignmentOnlyLocal;
 import org.janelia.saalfeldlab.paintera.control.assignment.UnableToPersist;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
 
+/**
+ * Persists the fragment-segment lookup as a {@code {numEntries, 2}} {@link DataType#UINT64} dataset of
+ * (fragment, segment) rows, chunked into blocks of {@link #CHUNK_SIZE} rows. The dataset is an append-only log:
+ * {@link #persistChanges(long[], long[], TLongLongMap)} appends the changed rows, later rows override earlier rows,
+ * and a row with {@code fragment == segment} removes the assignment of {@code fragment}. The log is compacted, i.e.
+ * rewritten from the complete lookup, when it grows larger than {@link #COMPACTION_FACTOR} times the lookup.
+ *
+ * Only the rows starting at {@link #LOG_START_KEY} (always a multiple of {@link #CHUNK_SIZE}) are part of the log.
+ * Compaction never overwrites blocks of the log: the compacted rows are written in front of the log if they fit,
+ * or behind it otherwise, and the log start and dimensions are updated only after all blocks have been written.
+ * An interrupted persist therefore leaves the previous log intact.
+ *
+ * Datasets in the legacy single-block format (written by previous versions) are converted on the first persist.
+ */
 public class N5FragmentSegmentAssignmentPersister implements FragmentSegmentAssignmentOnlyLocal.Persister {
 
 	private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+	public static final String FORMAT_KEY = "lutFormat";
+
+	public static final String CHUNKED_LOG_FORMAT = "chunked-log";
+
+	public static final String LOG_START_KEY = "logStart";
+
+	public static final int CHUNK_SIZE = 1 << 16;
+
+	public static final int COMPACTION_FACTOR = 2;
+
 	private final N5Writer writer;
 
 	private final String dataset;
@@ -39,38 +69,140 @@ public class N5FragmentSegmentAssignmentPersister implements FragmentSegmentAssi
 	public void persist(long[] keys, long[] values) throws UnableToPersist {
 		try
 		{
-
 			LOG.debug("Persisting fragment-segment-lookup: {} {}", keys, values);
 
-			final DatasetAttributes attrs = new DatasetAttributes(
-					new long[] {keys.length, 2},
-					new int[] {Math.max(keys.length, 1), 1},
-					DataType.UINT64,
-					new GzipCompression()
-			);
-			writer.createDataset(dataset, attrs);
-
 			if (keys.length == 0)
 			{
 				LOG.debug("Zero-length-lookup: Will not write any data.");
 			}
 
-			final DataBlock<long[]> keyBlock = new LongArrayDataBlock(
-					new int[] {keys.length, 1},
-					new long[] {0, 0},
-					keys
-			);
-			final DataBlock<long[]> valueBlock = new LongArrayDataBlock(
-					new int[] {values.length, 1},
-					new long[] {0, 1},
-					values
-			);
-			writer.writeBlock(dataset, attrs, keyBlock);
-			writer.writeBlock(dataset, attrs, valueBlock);
+			if (!isChunkedLog(writer, dataset))
+			{
+				final DatasetAttributes attrs = chunkedAttributes(keys.length);
+				writer.createDataset(dataset, attrs);
+				writeRows(attrs, 0, keys, values);
+				final Map<String, Object> attributes = new HashMap<>();
+				attributes.put(LOG_START_KEY, 0L);
+				attributes.put(FORMAT_KEY, CHUNKED_LOG_FORMAT);
+				writer.setAttributes(dataset, attributes);
+				return;
+			}
+
+			// write the compacted rows into blocks that are not part of the current log
+			final long logStart = logStart(writer, dataset);
+			final long numEntries = writer.getDatasetAttributes(dataset).getDimensions()[0];
+			final long compactedStart = roundUpToChunk(keys.length) <= logStart ? 0 : roundUpToChunk(numEntries);
+			final DatasetAttributes attrs = chunkedAttributes(compactedStart + keys.length);
+			LOG.debug("Writing {} compacted entries at {}, log starts at {}", keys.length, compactedStart, logStart);
+			writeRows(attrs, compactedStart, keys, values);
+			final Map<String, Object> attributes = new HashMap<>();
+			attributes.put(LOG_START_KEY, compactedStart);
+			attributes.put("dimensions", attrs.getDimensions());
+			writer.setAttributes(dataset, attributes);
 		} catch (final Exception e)
 		{
 			throw new UnableToPersist(e);
 		}
 	}
 
+	@Override
+	public void persistChanges(long[] changedKeys, long[] changedValues, TLongLongMap lut) throws UnableToPersist {
+		try
+		{
+			if (!isChunkedLog(writer, dataset))
+			{
+				LOG.debug("{} does not exist or is not a chunked log: Persisting complete lookup", dataset);
+				persist(lut.keys(), lut.values());
+				return;
+			}
+
+			if (changedKeys.length == 0)
+				return;
+
+			final long numEntries = writer.getDatasetAttributes(dataset).getDimensions()[0];
+			final long numLogEntries = numEntries - logStart(writer, dataset);
+			if (numLogEntries + changedKeys.length > COMPACTION_FACTOR * Math.max((long) lut.size(), CHUNK_SIZE))
+			{
+				LOG.debug("Compacting {} log entries into {} assignments", numLogEntries + changedKeys.length, lut.size());
+				persist(lut.keys(), lut.values());
+				return;
+			}
+
+			LOG.debug("Appending {} changed assignments to {} log entries", changedKeys.length, numLogEntries);
+			final DatasetAttributes attrs = chunkedAttributes(numEntries + changedKeys.length);
+
+			// rewrite the last, partially filled block, the log starts at a block boundary
+			final int numInLastBlock = (int) (numEntries % CHUNK_SIZE);
+			final long firstRow = numEntries - numInLastBlock;
+			final long[] keys = new long[numInLastBlock + changedKeys.length];
+			final long[] values = new long[keys.length];
+			if (numInLastBlock > 0)
+			{
+				final long[] lastBlock = (long[]) writer.readBlock(dataset, writer.getDatasetAttributes(dataset), firstRow / CHUNK_SIZE, 0).getData();
+				// the block may hold more than numInLastBlock rows if a previous append was interrupted
+				final int rowsInBlock = lastBlock.length / 2;
+				System.arraycopy(lastBlock, 0, keys, 0, numInLastBlock);
+				System.arraycopy(lastBlock, rowsInBlock, values, 0, numInLastBlock);
+			}
+			System.arraycopy(changedKeys, 0, keys, numInLastBlock, changedKeys.length);
+			System.arraycopy(changedValues, 0, values, numInLastBlock, changedValues.length);
+
+			writeRows(attrs, firstRow, keys, values);
+			writer.setAttribute(dataset, "dimensions", attrs.getDimensions());
+		} catch (final UnableToPersist e)
+		{
+			throw e;
+		} catch (final Exception e)
+		{
+			throw new UnableToPersist(e);
+		}
+	}
+
+	private void writeRows(
+			final DatasetAttributes attrs,
+			final long firstRow,
+			final long[] keys,
+			final long[] values) throws IOException
+	{
+		for (int start = 0; start < keys.length; start += CHUNK_SIZE)
+		{
+			final int size = Math.min(CHUNK_SIZE, keys.length - start);
+			final long[] data = new long[2 * size];
+			System.arraycopy(keys, start, data, 0, size);
+			System.arraycopy(values, start, data, size, size);
+			final DataBlock<long[]> block = new LongArrayDataBlock(
+					new int[] {size, 2},
+					new long[] {(firstRow + start) / CHUNK_SIZE, 0},
+					data);
+			writer.writeBlock(dataset, attrs, block);
+		}
+	}
+
+	private static long roundUpToChunk(final long numEntries)
+	{
+		return (numEntries + CHUNK_SIZE - 1) / CHUNK_SIZE * CHUNK_SIZE;
+	}
+
+	static long logStart(final N5Reader reader, final String dataset) throws IOException
+	{
+		return Optional.ofNullable(reader.getAttribute(dataset, LOG_START_KEY, Long.class)).orElse(0L);
+	}
+
+	static DatasetAttributes chunkedAttributes(final long numEntries)
+	{
+		return new DatasetAttributes(
+				new long[] {numEntries, 2},
+				new int[] {CHUNK_SIZE, 2},
+				DataType.UINT64,
+				new GzipCompression());
+	}
+
+	static boolean isChunkedLog(final N5Reader reader, final String dataset) throws IOException
+	{
+		return reader.datasetExists(dataset) && Optional
+				.ofNullable(reader.getAttribute(dataset, FORMAT_KEY, String.class))
+				.map(CHUNKED_LOG_FORMAT::equals)
+				.orElse(false);
+	}
+
 }
@@ -47,6 +47,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 import java.util.regex.Pattern;
@@ -303,11 +304,28 @@ public class N5Helpers
 	public static List<String> discoverDatasets(
 			final N5Reader n5,
 			final BooleanSupplier keepLooking)
+	{
+		return discoverDatasets(n5, keepLooking, dataset -> {});
+	}
+
+	/**
+	 * Find all datasets inside an n5 container, see {@link #discoverDatasets(N5Reader, BooleanSupplier, ExecutorService, Consumer)}.
+	 * Discovery results of file system containers are cached in a {@link DatasetDiscoveryIndex}.
+	 *
+	 * @param n5 container
+	 * @param keepLooking discover datasets while while {@code keepLooking.get() == true}
+	 * @param onDatasetFound called for each dataset as soon as it is found, from multiple threads
+	 * @return List of all contained datasets (paths wrt to the root of the container)
+	 */
+	public static List<String> discoverDatasets(
+			final N5Reader n5,
+			final BooleanSupplier keepLooking,
+			final Consumer<String> onDatasetFound)
 	{
 		final ExecutorService es = Executors.newFixedThreadPool(
 				n5 instanceof N5HDF5Reader ? 1 : 12,
 				new NamedThreadFactory("dataset-discovery-%d", true));
-		final List<String> datasets = discoverDatasets(n5, keepLooking, es);
+		final List<String> datasets = discoverDatasets(n5, keepLooking, es, onDatasetFound);
 		LOG.debug("Shutting down discovery ExecutorService.");
 		es.shutdownNow();
 		return datasets;
@@ -329,19 +347,44 @@ public class N5Helpers
 			final BooleanSupplier keepLooking,
 			final ExecutorService es)
 	{
+		return discoverDatasets(n5, keepLooking, es, dataset -> {});
+	}
+
+	/**
+	 * Find all datasets inside an n5 container
+	 * A dataset is any one of:
+	 *   - N5 dataset
+	 *   - multi-sclae group
+	 *   - paintera dataset
+	 * Discovery results of file system containers are cached in a {@link DatasetDiscoveryIndex}, such that only
+	 * modification times need to be checked for groups that did not change since the last discovery.
+	 *
+	 * @param n5 container
+	 * @param keepLooking discover datasets while while {@code keepLooking.get() == true}
+	 * @param es ExecutorService for parallelization of discovery
+	 * @param onDatasetFound called for each dataset as soon as it is found, from multiple threads
+	 * @return List of all contained datasets (paths wrt to the root of the container)
+	 */
+	public static List<String> discoverDatasets(
+			final N5Reader n5,
+			final BooleanSupplier keepLooking,
+			final ExecutorService es,
+			final Consumer<String> onDatasetFound)
+	{
+		final DatasetDiscoveryIndex index = DatasetDiscoveryIndex.forContainer(n5).orElse(null);
 		final List<String> datasets = new ArrayList<>();
 		final AtomicInteger counter = new AtomicInteger(1);
-		Future<?> f = es.submit(() -> discoverSubdirectories(n5, "", datasets, es, counter, keepLooking));
+		Future<?> f = es.submit(() -> discoverSubdirectories(n5, "", datasets, onDatasetFound, index, es, counter, keepLooking));
 		while (true) {
 			try {
 				synchronized (counter) {
-					counter.wait();
-					final int count = counter.get();
-					LOG.debug("Current discovery task count is {}", count);
 					if (counter.get() <= 0) {
 						LOG.debug("Finished all discovery tasks.");
 						break;
 					}
+					counter.wait();
+					final int count = counter.get();
+					LOG.debug("Current discovery task count is {}", count);
 				}
 			} catch (InterruptedException e) {
 				LOG.debug("Was interrupted -- will stop dataset discovery.");
@@ -349,14 +392,22 @@ public class N5Helpers
 				break;
 			}
 		}
-		Collections.sort(datasets);
-		return datasets;
+		if (index != null)
+			index.save();
+		synchronized (datasets)
+		{
+			final List<String> sorted = new ArrayList<>(datasets);
+			Collections.sort(sorted);
+			return sorted;
+		}
 	}
 
 	private static void discoverSubdirectories(
 			final N5Reader n5,
 			final String pathName,
 			final Collection<String> datasets,
+			final Consumer<String> onDatasetFound,
+			final DatasetDiscoveryIndex index,
 			final ExecutorService exec,
 			final AtomicInteger counter,
 			final BooleanSupplier keepLooking)
@@ -369,75 +420,41 @@ public class N5Helpers
 			if (!keepLooking.getAsBoolean() || Thread.currentThread().isInterrupted())
 				return;
 
-			if (isPainteraDataset(n5, pathName))
+			final long[] stamp = index == null ? null : index.stamp(pathName);
+			final DatasetDiscoveryIndex.Entry cached = index == null ? null : index.get(pathName, stamp);
+
+			final boolean isDataset;
+			final String[] groups;
+			if (cached != null)
 			{
-				synchronized (datasets)
-				{
-					datasets.add(pathName);
-				}
+				LOG.trace("Using indexed discovery result for {}", pathName);
+				isDataset = cached.isDataset();
+				groups = cached.getChildren();
 			}
-			else if (n5.datasetExists(pathName))
+			else
+			{
+				isDataset = isDiscoverableDataset(n5, pathName);
+				groups = isDataset ? null : n5.list(pathName);
+				if (index != null)
+					index.put(pathName, stamp, isDataset, groups);
+			}
+
+			if (isDataset)
 			{
 				synchronized (datasets)
 				{
+					LOG.debug("Adding dataset {}", pathName);
 					datasets.add(pathName);
 				}
+				onDatasetFound.accept(pathName);
 			}
-			else
+			else if (keepLooking.getAsBoolean() && !Thread.currentThread().isInterrupted())
 			{
-
-				String[] groups = null;
-				/* based on attribute */
-
-				boolean isMipmapGroup = Optional.ofNullable(n5.getAttribute(
-						pathName,
-						MULTI_SCALE_KEY,
-						Boolean.class
-				                                                           )).orElse(false);
-
-				/* based on groupd content (the old way) */
-				if (!isMipmapGroup)
-				{
-					groups = n5.list(pathName);
-					isMipmapGroup = groups.length > 0;
-					for (final String group : groups)
-					{
-						if (!(group.matches("^s[0-9]+$") && n5.datasetExists(pathName + "/" + group)))
-						{
-							isMipmapGroup = false;
-							break;
-						}
-					}
-					if (isMipmapGroup)
-					{
-						LOG.warn(
-								"Found multi-scale group without {} tag. Implicit multi-scale detection will be " +
-										"removed in the future. Please add \"{}\":{} to attributes.json in group `{}'.",
-								MULTI_SCALE_KEY,
-								MULTI_SCALE_KEY,
-								true,
-								pathName
-						        );
-					}
-				}
-				if (isMipmapGroup)
-				{
-					synchronized (datasets)
-					{
-						LOG.debug("Adding dataset {}", pathName);
-						datasets.add(pathName);
-					}
-				}
-				else
-				{
-					if (keepLooking.getAsBoolean() && !Thread.currentThread().isInterrupted()) {
-						for (final String group : groups) {
-							final String groupPathName = pathName + "/" + group;
-							final int numThreads = counter.incrementAndGet();
-							LOG.debug("Entering {}, {} tasks created", groupPathName, numThreads);
-							exec.submit(() -> discoverSubdirectories(n5, groupPathName, datasets, exec, counter, keepLooking));
-						}
-					}
+				for (final String group : groups) {
+					final String groupPathName = pathName + "/" + group;
+					final int numThreads = counter.incrementAndGet();
+					LOG.debug("Entering {}, {} tasks created", groupPathName, numThreads);
+					exec.submit(() -> discoverSubdirectories(n5, groupPathName, datasets, onDatasetFound, index, exec, counter, keepLooking));
 				}
 			}
 		} catch (final IOException e)
@@ -453,6 +470,35 @@ public class N5Helpers
 		}
 	}
 
+	private static boolean isDiscoverableDataset(final N5Reader n5, final String pathName) throws IOException
+	{
+		if (isPainteraDataset(n5, pathName) || n5.datasetExists(pathName))
+			return true;
+
+		/* based on attribute */
+		if (Optional.ofNullable(n5.getAttribute(pathName, MULTI_SCALE_KEY, Boolean.class)).orElse(false))
+			return true;
+
+		/* based on groupd content (the old way) */
+		final String[] groups = n5.list(pathName);
+		if (groups.length == 0)
+			return false;
+		for (final String group : groups)
+		{
+			if (!(group.matches("^s[0-9]+$") && n5.datasetExists(pathName + "/" + group)))
+				return false;
+		}
+		LOG.warn(
+				"Found multi-scale group without {} tag. Implicit multi-scale detection will be " +
+						"removed in the future. Please add \"{}\":{} to attributes.json in group `{}'.",
+				MULTI_SCALE_KEY,
+				MULTI_SCALE_KEY,
+				true,
+				pathName
+		        );
+		return true;
+	}
+
 
 	/**
 	 * Adjust {@link AffineTransform3D} by scaling and translating appropriately.
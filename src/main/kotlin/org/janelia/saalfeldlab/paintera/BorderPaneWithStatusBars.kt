@@ -2,6 +2,7 @@ package org.janelia.saalfeldlab.paintera
 
 import bdv.fx.viewer.ViewerPanelFX
 import de.jensd.fx.glyphs.fontawesome.FontAwesomeIcon
+import javafx.beans.InvalidationListener
 import javafx.beans.binding.Bindings
 import javafx.beans.property.SimpleObjectProperty
 import javafx.beans.value.ObservableObjectValue
@@ -265,6 +266,12 @@ class BorderPaneWithStatusBars(private val paintera: PainteraMainWindow) {
         LOG.debug("Construction {}", BorderPaneWithStatusBars::class.java.name)
 		this.currentFocusHolderWithState = currentFocusHolder(center.orthogonalViews())
 		properties.screenScalesConfig.screenScalesProperty().addListener { _, _, newv -> center.orthogonalViews().setScreenScales(newv.scalesCopy) }
+		properties.screenScalesConfig.let { config ->
+			val updateAdaptiveScreenScales = InvalidationListener { center.orthogonalViews().setAdaptiveScreenScales(config.adaptiveProperty().get(), config.targetRenderNanos) }
+			config.adaptiveProperty().addListener(updateAdaptiveScreenScales)
+			config.targetFramesPerSecondProperty().addListener(updateAdaptiveScreenScales)
+			updateAdaptiveScreenScales.invalidated(null)
+		}
 
 		this.currentSourceStatus = Label()
         this.viewerCoordinateStatus = Label()
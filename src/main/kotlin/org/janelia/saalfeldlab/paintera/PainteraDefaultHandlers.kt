@@ -3,6 +3,8 @@ package org.janelia.saalfeldlab.paintera
 import bdv.fx.viewer.ViewerPanelFX
 import bdv.fx.viewer.multibox.MultiBoxOverlayConfig
 import bdv.fx.viewer.multibox.MultiBoxOverlayRendererFX
+import bdv.fx.viewer.render.RenderMetrics
+import bdv.fx.viewer.render.RenderMetricsOverlayRenderer
 import bdv.fx.viewer.scalebar.ScaleBarOverlayRenderer
 import bdv.viewer.Interpolation
 import bdv.viewer.Source
@@ -44,7 +46,10 @@ import org.janelia.saalfeldlab.paintera.control.navigation.DisplayTransformUpdat
 import org.janelia.saalfeldlab.paintera.ui.ToggleMaximize
 import org.janelia.saalfeldlab.paintera.ui.opendialog.menu.OpenDialogMenu
 import org.slf4j.LoggerFactory
+import java.io.File
+import java.io.IOException
 import java.lang.invoke.MethodHandles
+import java.text.SimpleDateFormat
 import java.util.*
 import java.util.concurrent.Callable
 import java.util.function.Consumer
@@ -133,6 +138,9 @@ class PainteraDefaultHandlers(
 			ScaleBarOverlayRenderer(properties.scaleBarOverlayConfig),
 			ScaleBarOverlayRenderer(properties.scaleBarOverlayConfig))
 
+    private val renderMetricsOverlays = viewersTopLeftTopRightBottomLeft
+            .map { vat -> RenderMetricsOverlayRenderer(Supplier { vat.viewer().renderUnit.renderMetrics }) }
+
     private val viewerToTransforms = HashMap<ViewerPanelFX, ViewerAndTransforms>()
 
     fun getSourceSpecificGlobalEventHandler() = DelegateEventHandlers.fromSupplier { sourceSpecificGlobalEventHandler.get() }
@@ -329,6 +337,31 @@ class PainteraDefaultHandlers(
         this.baseView.orthogonalViews().bottomLeft().viewer().display.addOverlayRenderer(scaleBarOverlays[2])
 		properties.scaleBarOverlayConfig.change.addListener { this.baseView.orthogonalViews().applyToAll { vp -> vp.display.drawOverlays() } }
 
+		viewersTopLeftTopRightBottomLeft.zip(renderMetricsOverlays).forEach { (vat, overlay) ->
+			val viewer = vat.viewer()
+			viewer.display.addOverlayRenderer(overlay)
+			viewer.renderUnit.renderedImageProperty.addListener(InvalidationListener { if (overlay.isVisibleProperty.get()) viewer.display.drawOverlays() })
+			overlay.isVisibleProperty.addListener(InvalidationListener { viewer.display.drawOverlays() })
+		}
+
+		val toggleRenderMetricsOverlayKeyCode = KeyCodeCombination(KeyCode.F4)
+		val dumpRenderMetricsKeyCode = KeyCodeCombination(KeyCode.F4, KeyCombination.SHIFT_DOWN)
+		val resetRenderMetricsKeyCode = KeyCodeCombination(KeyCode.F4, KeyCombination.CONTROL_DOWN)
+		paneWithStatus.pane.addEventHandler(KeyEvent.KEY_PRESSED) {
+			if (toggleRenderMetricsOverlayKeyCode.match(it)) {
+				it.consume()
+				val isVisible = renderMetricsOverlays.none { o -> o.isVisibleProperty.get() }
+				renderMetricsOverlays.forEach { o -> o.isVisibleProperty.set(isVisible) }
+			} else if (dumpRenderMetricsKeyCode.match(it)) {
+				it.consume()
+				dumpRenderMetrics()
+			} else if (resetRenderMetricsKeyCode.match(it)) {
+				it.consume()
+				renderMetricsByViewer().values.forEach { m -> m.reset() }
+				baseView.orthogonalViews().applyToAll { vp -> vp.display.drawOverlays() }
+			}
+		}
+
         val addBookmarkKeyCode = KeyCodeCombination(KeyCode.B)
         val addBookmarkWithCommentKeyCode = KeyCodeCombination(KeyCode.B, KeyCombination.SHIFT_DOWN)
         val applyBookmarkKeyCode = KeyCodeCombination(KeyCode.B, KeyCombination.CONTROL_DOWN)
@@ -363,6 +396,25 @@ class PainteraDefaultHandlers(
 
     }
 
+    private fun renderMetricsByViewer() = linkedMapOf(
+            "top-left" to orthogonalViews.topLeft().viewer().renderUnit.renderMetrics,
+            "top-right" to orthogonalViews.topRight().viewer().renderUnit.renderMetrics,
+            "bottom-left" to orthogonalViews.bottomLeft().viewer().renderUnit.renderMetrics)
+
+    private fun dumpRenderMetrics() {
+        val metrics = renderMetricsByViewer()
+        val prefix = "render-metrics-${SimpleDateFormat("yyyyMMdd-HHmmss").format(Date())}"
+        val csv = File(projectDirectory.get(), "$prefix.csv")
+        val json = File(projectDirectory.get(), "$prefix.json")
+        try {
+            csv.bufferedWriter().use { RenderMetrics.writeCsv(metrics, it) }
+            json.bufferedWriter().use { RenderMetrics.writeJson(metrics, it) }
+            LOG.info("Wrote render metrics to {} and {}", csv, json)
+        } catch (e: IOException) {
+            Exceptions.exceptionAlert(Paintera.Constants.NAME, "Unable to write render metrics", e).show()
+        }
+    }
+
     private fun toggleInterpolation() {
         if (globalInterpolationProperty.get() != null) {
             globalInterpolationProperty.set(if (globalInterpolationProperty.get() == Interpolation.NLINEAR) Interpolation.NEARESTNEIGHBOR else Interpolation.NLINEAR)
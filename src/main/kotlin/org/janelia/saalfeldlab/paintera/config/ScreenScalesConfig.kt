@@ -1,6 +1,10 @@
 package org.janelia.saalfeldlab.paintera.config
 
+import javafx.beans.property.BooleanProperty
+import javafx.beans.property.DoubleProperty
 import javafx.beans.property.ObjectProperty
+import javafx.beans.property.SimpleBooleanProperty
+import javafx.beans.property.SimpleDoubleProperty
 import javafx.beans.property.SimpleObjectProperty
 import java.util.*
 
@@ -8,6 +12,16 @@ class ScreenScalesConfig @JvmOverloads constructor(vararg initialScales: Double
 
     private val screenScales = SimpleObjectProperty<ScreenScales>()
 
+    private val adaptive = SimpleBooleanProperty(DEFAULT_ADAPTIVE)
+
+    private val targetFramesPerSecond = SimpleDoubleProperty(DEFAULT_TARGET_FRAMES_PER_SECOND)
+
+    /**
+     * Time budget for rendering a full frame at the screen scale at which rendering starts, if [adaptiveProperty] is set.
+     */
+    val targetRenderNanos: Long
+        get() = (1e9 / targetFramesPerSecond.get()).toLong()
+
     class ScreenScales(vararg scales: Double) {
 
         private val scales: DoubleArray
@@ -42,14 +56,30 @@ class ScreenScalesConfig @JvmOverloads constructor(vararg initialScales: Double
         return this.screenScales
     }
 
+    /**
+     * If `true`, rendering starts at the finest screen scale that renders within [targetRenderNanos], based on
+     * measured render times. Otherwise, rendering always starts at the coarsest screen scale.
+     */
+    fun adaptiveProperty(): BooleanProperty {
+        return this.adaptive
+    }
+
+    fun targetFramesPerSecondProperty(): DoubleProperty {
+        return this.targetFramesPerSecond
+    }
+
     fun set(that: ScreenScalesConfig) {
         this.screenScales.set(that.screenScales.get())
+        this.adaptive.set(that.adaptive.get())
+        this.targetFramesPerSecond.set(that.targetFramesPerSecond.get())
     }
 
     override fun toString(): String {
         return String.format(
-                "{ScreenScalesConfig: %s}",
-                if (this.screenScales.get() == null) null else this.screenScales.get().toString()
+                "{ScreenScalesConfig: %s, adaptive=%s, targetFramesPerSecond=%s}",
+                if (this.screenScales.get() == null) null else this.screenScales.get().toString(),
+                this.adaptive.get(),
+                this.targetFramesPerSecond.get()
         )
     }
 
@@ -57,6 +87,10 @@ class ScreenScalesConfig @JvmOverloads constructor(vararg initialScales: Double
 
         private val DEFAULT_SCREEN_SCALES = doubleArrayOf(1.0, 0.5, 0.25, 0.125, 0.0625)
 
+        const val DEFAULT_ADAPTIVE = false
+
+        const val DEFAULT_TARGET_FRAMES_PER_SECOND = 30.0
+
         @JvmStatic
         fun defaultScreenScalesCopy(): DoubleArray {
             return DEFAULT_SCREEN_SCALES.clone()
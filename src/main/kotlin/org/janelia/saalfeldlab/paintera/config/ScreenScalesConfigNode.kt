@@ -2,10 +2,12 @@ package org.janelia.saalfeldlab.paintera.config
 
 import javafx.beans.property.ObjectProperty
 import javafx.beans.property.SimpleObjectProperty
+import javafx.geometry.Pos
 import javafx.scene.Node
 import javafx.scene.control.*
 import javafx.scene.layout.GridPane
 import javafx.scene.layout.HBox
+import javafx.scene.layout.VBox
 import javafx.util.StringConverter
 import org.janelia.saalfeldlab.fx.TitledPanes
 import org.janelia.saalfeldlab.fx.ui.NumberField
@@ -26,6 +28,14 @@ class ScreenScalesConfigNode() {
 
     private val screenScales = SimpleObjectProperty(ScreenScalesConfig.ScreenScales(1.0, 0.5))
 
+    private val adaptiveCheckBox = CheckBox("Adaptive")
+
+    private val targetFramesPerSecondField = NumberField.doubleField(
+            ScreenScalesConfig.DEFAULT_TARGET_FRAMES_PER_SECOND,
+            DoublePredicate { it > 0.0 },
+            ObjectField.SubmitOn.ENTER_PRESSED,
+            ObjectField.SubmitOn.FOCUS_LOST)
+
     val contents: Node
 
     init {
@@ -34,6 +44,8 @@ class ScreenScalesConfigNode() {
 
     fun bind(config: ScreenScalesConfig) {
         this.screenScales.bindBidirectional(config.screenScalesProperty())
+        this.adaptiveCheckBox.selectedProperty().bindBidirectional(config.adaptiveProperty())
+        this.targetFramesPerSecondField.valueProperty().bindBidirectional(config.targetFramesPerSecondProperty())
     }
 
     private fun createContents(): Node {
@@ -49,7 +61,19 @@ class ScreenScalesConfigNode() {
         geometricSequenceButton.setOnAction { fromGeometricSequence().showAndWait().ifPresent { screenScales.set(it) } }
         val setButton = MenuButton("Set", null, geometricSequenceButton)
 
-        return TitledPanes.createCollapsed("Screen Scales", HBox(screenScalesField.textField(), setButton))
+        adaptiveCheckBox.tooltip = Tooltip(
+                "Start rendering at the finest screen scale that renders a full frame at the target frame rate, based on measured render times. " +
+                        "Otherwise, rendering always starts at the coarsest screen scale."
+        )
+        val targetFramesPerSecondLabel = Label("Target FPS")
+        targetFramesPerSecondField.textField().maxWidth = 60.0
+        targetFramesPerSecondField.textField().disableProperty().bind(adaptiveCheckBox.selectedProperty().not())
+        targetFramesPerSecondLabel.disableProperty().bind(adaptiveCheckBox.selectedProperty().not())
+        val adaptiveBox = HBox(adaptiveCheckBox, targetFramesPerSecondLabel, targetFramesPerSecondField.textField())
+        adaptiveBox.spacing = 5.0
+        adaptiveBox.alignment = Pos.CENTER_LEFT
+
+        return TitledPanes.createCollapsed("Screen Scales", VBox(HBox(screenScalesField.textField(), setButton), adaptiveBox))
     }
 
     private class ScreenScalesStringConverter : StringConverter<ScreenScalesConfig.ScreenScales>() {
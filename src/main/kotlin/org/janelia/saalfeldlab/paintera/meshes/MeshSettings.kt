@@ -20,6 +20,7 @@ class MeshSettings @JvmOverloads constructor(
     // Currently, all source states use the default defaults, i.e. MeshSettings.Defaults.IMMUTABLE_INSTANCE
     interface Defaults {
         val simplificationIterations: Int
+        val simplificationRatio: Double
         val smoothingIterations: Int
         val smoothingLambda: Double
         val opacity: Double
@@ -33,6 +34,9 @@ class MeshSettings @JvmOverloads constructor(
 
         object Values {
             @JvmStatic val simplificationIterations = 0
+            @JvmStatic val simplificationRatio = Simplify.DEFAULT_TARGET_RATIO
+            @JvmStatic val minSimplificationRatio = 0.05
+            @JvmStatic val maxSimplificationRatio = 1.0
             @JvmStatic val smoothingIterations = Smooth.DEFAULT_ITERATIONS
             @JvmStatic val smoothingLambda = Smooth.DEFAULT_LAMBDA
             @JvmStatic val opacity = 1.0
@@ -57,6 +61,7 @@ class MeshSettings @JvmOverloads constructor(
 
     class MutableDefaults(): Defaults {
         override var simplificationIterations: Int = Defaults.Values.simplificationIterations
+        override var simplificationRatio: Double = Defaults.Values.simplificationRatio
         override var smoothingIterations: Int = Defaults.Values.smoothingIterations
         override var smoothingLambda: Double = Defaults.Values.smoothingLambda
         override var opacity: Double = Defaults.Values.opacity
@@ -77,6 +82,7 @@ class MeshSettings @JvmOverloads constructor(
     private val _coarsestScaleLevel = SimpleIntegerProperty(Defaults.getDefaultCoarsestScaleLevel(numScaleLevels))
     private val _finestScaleLevel = SimpleIntegerProperty(Defaults.getDefaultFinestScaleLevel(numScaleLevels))
     private val _simplificationIterations = SimpleIntegerProperty(defaults.simplificationIterations)
+    private val _simplificationRatio: DoubleProperty = SimpleDoubleProperty(defaults.simplificationRatio)
     private val _smoothingLambda: DoubleProperty = SimpleDoubleProperty(defaults.smoothingLambda)
     private val _smoothingIterations: IntegerProperty = SimpleIntegerProperty(defaults.smoothingIterations)
     private val _opacity: DoubleProperty = SimpleDoubleProperty(defaults.opacity)
@@ -90,6 +96,7 @@ class MeshSettings @JvmOverloads constructor(
     fun coarsestScaleLevelProperty(): IntegerProperty = _coarsestScaleLevel
     fun finestScaleLevelProperty(): IntegerProperty = _finestScaleLevel
     fun simplificationIterationsProperty(): IntegerProperty = _simplificationIterations
+    fun simplificationRatioProperty(): DoubleProperty = _simplificationRatio
     fun smoothingLambdaProperty(): DoubleProperty = _smoothingLambda
     fun smoothingIterationsProperty(): IntegerProperty = _smoothingIterations
     fun opacityProperty(): DoubleProperty = _opacity
@@ -109,6 +116,9 @@ class MeshSettings @JvmOverloads constructor(
     var simplificationIterations: Int
         get() = _simplificationIterations.value
         set(iterations) = _simplificationIterations.set(iterations)
+    var simplificationRatio: Double
+        get() = _simplificationRatio.value
+        set(ratio) = _simplificationRatio.set(ratio)
     var smoothingLambda: Double
         get() = _smoothingLambda.value
         set(lambda) = _smoothingLambda.set(lambda)
@@ -138,6 +148,10 @@ class MeshSettings @JvmOverloads constructor(
         set(level) = _levelOfDetail.set(level)
 
     init {
+        _simplificationRatio.addListener { _, _, new ->
+            if (!simplificationRatioProperty().isBound)
+                simplificationRatio = min(Defaults.Values.maxSimplificationRatio, max(Defaults.Values.minSimplificationRatio, new.toDouble()))
+        }
         _levelOfDetail.addListener { _, _, new ->
             // TODO can we do this without the bound check?
             if (!levelOfDetailProperty().isBound)
@@ -157,6 +171,7 @@ class MeshSettings @JvmOverloads constructor(
         coarsetsScaleLevel = that.coarsetsScaleLevel
         finestScaleLevel = that.finestScaleLevel
         simplificationIterations = that.simplificationIterations
+        simplificationRatio = that.simplificationRatio
         smoothingLambda = that.smoothingLambda
         smoothingIterations = that.smoothingIterations
         opacity = that.opacity
@@ -173,6 +188,7 @@ class MeshSettings @JvmOverloads constructor(
         coarsetsScaleLevel = numScaleLevels - 1
         finestScaleLevel = 0
         simplificationIterations = defaults.simplificationIterations
+        simplificationRatio = defaults.simplificationRatio
         smoothingLambda = defaults.smoothingLambda
         smoothingIterations = defaults.smoothingIterations
         minLabelRatio = defaults.minLabelRatio
@@ -189,6 +205,7 @@ class MeshSettings @JvmOverloads constructor(
         _coarsestScaleLevel.bind(that._coarsestScaleLevel)
         _finestScaleLevel.bind(that._finestScaleLevel)
         _simplificationIterations.bind(that._simplificationIterations)
+        _simplificationRatio.bind(that._simplificationRatio)
         _smoothingLambda.bind(that._smoothingLambda)
         _smoothingIterations.bind(that._smoothingIterations)
         _minLabelRatio.bind(that._minLabelRatio)
@@ -204,6 +221,7 @@ class MeshSettings @JvmOverloads constructor(
         _coarsestScaleLevel.unbind()
         _finestScaleLevel.unbind()
         _simplificationIterations.unbind()
+        _simplificationRatio.unbind()
         _smoothingLambda.unbind()
         _smoothingIterations.unbind()
         _minLabelRatio.unbind()
@@ -219,6 +237,7 @@ class MeshSettings @JvmOverloads constructor(
         _coarsestScaleLevel.bindBidirectional(that._coarsestScaleLevel)
         _finestScaleLevel.bindBidirectional(that._finestScaleLevel)
         _simplificationIterations.bindBidirectional(that._simplificationIterations)
+        _simplificationRatio.bindBidirectional(that._simplificationRatio)
         _smoothingLambda.bindBidirectional(that._smoothingLambda)
         _smoothingIterations.bindBidirectional(that._smoothingIterations)
         _minLabelRatio.bindBidirectional(that._minLabelRatio)
@@ -234,6 +253,7 @@ class MeshSettings @JvmOverloads constructor(
         _coarsestScaleLevel.unbindBidirectional(that._coarsestScaleLevel)
         _finestScaleLevel.unbindBidirectional(that._finestScaleLevel)
         _simplificationIterations.unbindBidirectional(that._simplificationIterations)
+        _simplificationRatio.unbindBidirectional(that._simplificationRatio)
         _smoothingLambda.unbindBidirectional(that._smoothingLambda)
         _smoothingIterations.unbindBidirectional(that._smoothingIterations)
         _minLabelRatio.unbindBidirectional(that._minLabelRatio)
@@ -248,6 +268,7 @@ class MeshSettings @JvmOverloads constructor(
         return coarsetsScaleLevel == Defaults.getDefaultCoarsestScaleLevel(numScaleLevels)
             && finestScaleLevel == Defaults.getDefaultFinestScaleLevel(numScaleLevels)
             && simplificationIterations == defaults.simplificationIterations
+            && simplificationRatio == defaults.simplificationRatio
             && smoothingLambda == defaults.smoothingLambda
             && smoothingIterations == defaults.smoothingIterations
             && opacity == defaults.opacity
@@ -11,6 +11,30 @@ data class PainteraTriangleMesh @JvmOverloads constructor(
     val isEmpty: Boolean = vertices.isEmpty() && normals.isEmpty()
     val isNotEmpty: Boolean = !isEmpty
 
+    /**
+     * Indexed meshes share vertices and normals between triangles and store three vertex [indices] per triangle.
+     * Otherwise, [vertices] and [normals] hold three consecutive vertices (nine coordinates) per triangle.
+     */
+    val isIndexed: Boolean
+        get() = indices != null
+
+    val numTriangles: Int
+        get() = indices?.let { it.size / 3 } ?: vertices.size / 9
+
+    /**
+     * @return this mesh with three vertices and normals per triangle, i.e. without [indices]
+     */
+    fun asTriangleSoup(): PainteraTriangleMesh {
+        val indices = this.indices ?: return this
+        val soupVertices = FloatArray(indices.size * 3)
+        val soupNormals = FloatArray(indices.size * 3)
+        indices.forEachIndexed { i, index ->
+            System.arraycopy(vertices, 3 * index, soupVertices, 3 * i, 3)
+            System.arraycopy(normals, 3 * index, soupNormals, 3 * i, 3)
+        }
+        return PainteraTriangleMesh(soupVertices, soupNormals)
+    }
+
     companion object {
         @JvmStatic
         fun fromVerticesAndNormals(vertices: FloatArray?, normals: FloatArray?): PainteraTriangleMesh? {
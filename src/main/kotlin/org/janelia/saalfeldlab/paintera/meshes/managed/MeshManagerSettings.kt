@@ -45,4 +45,10 @@ class MeshManagerSettings {
         get() = _sceneUpdateDelayMsec.get()
         set(delayMsec) = _sceneUpdateDelayMsec.set(delayMsec)
     fun sceneUpdateDelayMsecProperty() = _sceneUpdateDelayMsec
+
+    private val _maxNumTriangles: LongProperty = SimpleLongProperty(Viewer3DConfig.MAX_NUM_TRIANGLES_DEFAULT_VALUE)
+    var maxNumTriangles: Long
+        get() = _maxNumTriangles.get()
+        set(maxNumTriangles) = _maxNumTriangles.set(maxNumTriangles)
+    fun maxNumTrianglesProperty() = _maxNumTriangles
 }
@@ -24,6 +24,7 @@ import org.janelia.saalfeldlab.paintera.control.selection.SelectedSegments
 import org.janelia.saalfeldlab.paintera.data.DataSource
 import org.janelia.saalfeldlab.paintera.data.mask.MaskedSource
 import org.janelia.saalfeldlab.paintera.meshes.*
+import org.janelia.saalfeldlab.paintera.meshes.cache.DiskMeshCache
 import org.janelia.saalfeldlab.paintera.meshes.cache.SegmentMaskGenerators
 import org.janelia.saalfeldlab.paintera.meshes.cache.SegmentMeshCacheLoader
 import org.janelia.saalfeldlab.paintera.meshes.managed.adaptive.AdaptiveResolutionMeshManager
@@ -295,6 +296,7 @@ class MeshManagerWithAssignmentForSegments(
         fun LabelBlockLookup.read(level: Int, id: Long) = read(LabelBlockLookupKey(level, id))
 
         @JvmStatic
+        @JvmOverloads
         fun <D : IntegerType<D>> fromBlockLookup(
             dataSource: DataSource<D, *>,
             selectedSegments: SelectedSegments,
@@ -303,7 +305,8 @@ class MeshManagerWithAssignmentForSegments(
             eyeToWorldTransformProperty: ObservableValue<AffineTransform3D>,
             labelBlockLookup: LabelBlockLookup,
             meshManagerExecutors: ExecutorService,
-            meshWorkersExecutors: HashPriorityQueueBasedTaskExecutor<MeshWorkerPriority>): MeshManagerWithAssignmentForSegments {
+            meshWorkersExecutors: HashPriorityQueueBasedTaskExecutor<MeshWorkerPriority>,
+            diskMeshCache: DiskMeshCache<TLongHashSet>? = null): MeshManagerWithAssignmentForSegments {
             LOG.debug("Data source is type {}", dataSource.javaClass)
             val actualLookup = when (dataSource) {
                 is MaskedSource<D, *> -> LabeLBlockLookupWithMaskedSource.create(labelBlockLookup, dataSource)
@@ -316,8 +319,9 @@ class MeshManagerWithAssignmentForSegments(
                     Supplier { dataSource.getDataSource(0, it) },
                     segmentMaskGenerators[it],
                     dataSource.getSourceTransformCopy(0, it))
+                    .let { loader -> diskMeshCache?.withLoader(loader) ?: loader }
             }
-            val getMeshFor = GetMeshFor.FromCache.fromPairLoaders(*loaders)
+            val getMeshFor = GetMeshFor.FromCache.fromLoaders(*loaders)
 
             return MeshManagerWithAssignmentForSegments(
                 dataSource,
@@ -399,6 +403,7 @@ class MeshManagerWithAssignmentForSegments(
                 getContainedFragmentsFor(key.shapeId()) ?: TLongHashSet(),
                 key.scaleIndex(),
                 key.simplificationIterations(),
+                key.simplificationRatio(),
                 key.smoothingLambda(),
                 key.smoothingIterations(),
                 key.minLabelRatio(),
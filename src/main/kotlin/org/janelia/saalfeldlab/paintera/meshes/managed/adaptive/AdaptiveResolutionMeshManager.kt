@@ -102,6 +102,7 @@ class AdaptiveResolutionMeshManager<ObjectKey> constructor(
         }
 
         rendererSettings.sceneUpdateDelayMsecProperty().addListener { _ -> sceneUpdateHandler.update(rendererSettings.sceneUpdateDelayMsec) }
+        rendererSettings.maxNumTrianglesProperty().addListener { _ -> requestCancelAndUpdate() }
         eyeToWorldTransform.addListener(sceneUpdateHandler)
         val meshViewUpdateQueueListener = InvalidationListener { meshViewUpdateQueue.update(rendererSettings.numElementsPerFrame, rendererSettings.frameDelayMsec) }
         rendererSettings.numElementsPerFrameProperty().addListener(meshViewUpdateQueueListener)
@@ -233,7 +234,7 @@ class AdaptiveResolutionMeshManager<ObjectKey> constructor(
         assert(Platform.isFxApplicationThread()) { "update() was called on thread ${Thread.currentThread().name} instead of JavaFX application thread." }
         val rendererGrids = this.rendererGrids
         if (rendererGrids == null || !isMeshesAndViewerEnabled) return
-        val sceneUpdateParameters = SceneUpdateParameters(viewFrustum.value, eyeToWorldTransform.value, rendererGrids)
+        val sceneUpdateParameters = SceneUpdateParameters(viewFrustum.value, eyeToWorldTransform.value, rendererGrids, rendererSettings.maxNumTriangles)
 
         val needToSubmit = sceneUpdateParametersProperty.get() == null
         sceneUpdateParametersProperty.set(sceneUpdateParameters)
@@ -269,7 +270,10 @@ class AdaptiveResolutionMeshManager<ObjectKey> constructor(
             }
             val sceneBlockTrees =
                 mutableMapOf<BlockTreeParametersKey, BlockTree<BlockTreeFlatKey, BlockTreeNode<BlockTreeFlatKey>>?>()
-            for (blockTreeParametersKey in blockTreeParametersKeysToMeshGenerators.keys) {
+            // The triangle budget is shared by all meshes of this manager: each block tree gets the share of the
+            // meshes that are generated from it.
+            val numMeshes = blockTreeParametersKeysToMeshGenerators.values.sumBy { it.size }
+            for ((blockTreeParametersKey, meshGenerators) in blockTreeParametersKeysToMeshGenerators) {
                 if (wasInterrupted.asBoolean) return
                 sceneBlockTrees[blockTreeParametersKey] = SceneBlockTree.createSceneBlockTree(
                     source,
@@ -278,6 +282,8 @@ class AdaptiveResolutionMeshManager<ObjectKey> constructor(
                     blockTreeParametersKey.levelOfDetail,
                     blockTreeParametersKey.coarsestScaleLevel,
                     blockTreeParametersKey.finestScaleLevel,
+                    sceneUpdateParameters.maxNumTriangles / numMeshes * meshGenerators.size,
+                    meshGenerators.size,
                     sceneUpdateParameters.rendererGrids,
                     wasInterrupted)
             }
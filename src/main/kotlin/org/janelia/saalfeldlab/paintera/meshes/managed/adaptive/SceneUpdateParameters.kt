@@ -7,4 +7,5 @@ import org.janelia.saalfeldlab.paintera.viewer3d.ViewFrustum
 class SceneUpdateParameters internal constructor(
     val viewFrustum: ViewFrustum,
     val eyeToWorldTransform: AffineTransform3D,
-    val rendererGrids: Array<CellGrid>)
+    val rendererGrids: Array<CellGrid>,
+    val maxNumTriangles: Long)
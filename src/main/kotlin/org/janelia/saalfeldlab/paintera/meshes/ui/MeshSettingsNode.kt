@@ -41,6 +41,7 @@ class MeshSettingsNode @JvmOverloads constructor(
     private val levelOfDetail: IntegerProperty,
     private val coarsestScaleLevel: IntegerProperty,
     private val finestScaleLevel: IntegerProperty,
+    private val simplificationRatio: DoubleProperty,
     private val smoothingLambda: DoubleProperty,
     private val smoothingIterations: IntegerProperty,
     private val minLabelRatio: DoubleProperty,
@@ -57,6 +58,7 @@ class MeshSettingsNode @JvmOverloads constructor(
         meshSettings.levelOfDetailProperty(),
         meshSettings.coarsestScaleLevelProperty(),
         meshSettings.finestScaleLevelProperty(),
+        meshSettings.simplificationRatioProperty(),
         meshSettings.smoothingLambdaProperty(),
         meshSettings.smoothingIterationsProperty(),
         meshSettings.minLabelRatioProperty(),
@@ -78,6 +80,7 @@ class MeshSettingsNode @JvmOverloads constructor(
             NumericSliderWithField(MeshSettings.Defaults.Values.minLevelOfDetail, MeshSettings.Defaults.Values.maxLevelOfDetail, levelOfDetail.value).also { it.slider.valueProperty().bindBidirectional(levelOfDetail) },
             NumericSliderWithField(0, this.numScaleLevels - 1, coarsestScaleLevel.value).also { it.slider.valueProperty().bindBidirectional(coarsestScaleLevel) },
             NumericSliderWithField(0, this.numScaleLevels - 1, finestScaleLevel.value).also { it.slider.valueProperty().bindBidirectional(finestScaleLevel) },
+            NumericSliderWithField(MeshSettings.Defaults.Values.minSimplificationRatio, MeshSettings.Defaults.Values.maxSimplificationRatio, simplificationRatio.value).also { it.slider.valueProperty().bindBidirectional(simplificationRatio) },
             NumericSliderWithField(0.0, 1.00, .05).also { it.slider.valueProperty().bindBidirectional(smoothingLambda) },
             NumericSliderWithField(0, 10, 5).also { it.slider.valueProperty().bindBidirectional(smoothingIterations) },
             NumericSliderWithField(0.0, 1.0, 0.5).also { it.slider.valueProperty().bindBidirectional(minLabelRatio) },
@@ -144,6 +147,7 @@ class MeshSettingsNode @JvmOverloads constructor(
             levelOfDetailSlider: NumericSliderWithField,
             coarsestScaleLevelSlider: NumericSliderWithField,
             finestScaleLevelSlider: NumericSliderWithField,
+            simplificationRatioSlider: NumericSliderWithField,
             smoothingLambdaSlider: NumericSliderWithField,
             smoothingIterationsSlider: NumericSliderWithField,
             minLabelRatioSlider: NumericSliderWithField,
@@ -207,6 +211,14 @@ class MeshSettingsNode @JvmOverloads constructor(
             setupSlider(finestScaleLevelSlider, "Finest Scale Level")
             ++row
 
+            contents.add(Labels.withTooltip("Simplification"), 0, row)
+            contents.add(simplificationRatioSlider.slider, 1, row)
+            GridPane.setColumnSpan(simplificationRatioSlider.slider, 2)
+            contents.add(simplificationRatioSlider.textField, 3, row)
+            setupSlider(simplificationRatioSlider, "Fraction of triangles kept after mesh simplification." + System.lineSeparator() +
+                "1.0 means that meshes are not simplified.")
+            ++row
+
             contents.add(Labels.withTooltip("Lambda"), 0, row)
             contents.add(smoothingLambdaSlider.slider, 1, row)
             GridPane.setColumnSpan(smoothingLambdaSlider.slider, 2)
@@ -21,6 +21,7 @@ import org.janelia.saalfeldlab.paintera.control.assignment.FragmentSegmentAssign
 import org.janelia.saalfeldlab.paintera.control.assignment.action.AssignmentAction
 import org.janelia.saalfeldlab.paintera.control.assignment.action.Detach
 import org.janelia.saalfeldlab.paintera.control.assignment.action.Merge
+import org.janelia.saalfeldlab.paintera.control.assignment.action.MergeAll
 import org.janelia.saalfeldlab.paintera.control.selection.SelectedIds
 import org.janelia.saalfeldlab.paintera.control.selection.SelectedSegments
 import org.janelia.saalfeldlab.paintera.data.DataSource
@@ -216,6 +217,7 @@ class LabelSourceStatePreferencePaneNode(
 					val title = { action: AssignmentAction ->
 						when(action.type) {
 							AssignmentAction.Type.MERGE -> { (action as Merge).let { "M: ${it.fromFragmentId} ${it.intoFragmentId} (${it.segmentId})"} }
+							AssignmentAction.Type.MERGE_ALL -> { (action as MergeAll).let { "M: ${it.fromFragmentIds.size} fragments ${it.intoFragmentId} (${it.segmentId})"} }
 							AssignmentAction.Type.DETACH -> { (action as Detach).let { "D: ${it.fragmentId} ${it.fragmentFrom}" } }
 							else -> "UNSUPPORTED ACTION"
 						}
@@ -1,9 +1,11 @@
 package org.janelia.saalfeldlab.paintera.state.label
 
+import gnu.trove.set.hash.TLongHashSet
 import org.janelia.saalfeldlab.labels.blocks.LabelBlockLookup
 import org.janelia.saalfeldlab.paintera.control.assignment.FragmentSegmentAssignmentState
 import org.janelia.saalfeldlab.paintera.data.DataSource
 import org.janelia.saalfeldlab.paintera.id.IdService
+import org.janelia.saalfeldlab.paintera.meshes.cache.DiskMeshCache
 import org.janelia.saalfeldlab.paintera.state.SourceStateBackend
 
 interface ConnectomicsLabelBackend<D, T> : SourceStateBackend<D, T> {
@@ -17,4 +19,9 @@ interface ConnectomicsLabelBackend<D, T> : SourceStateBackend<D, T> {
 
 	fun createIdService(source: DataSource<D, T>): IdService
 
+	/**
+	 * @return persistent cache for segment meshes of [source] or `null` if meshes should not be persisted
+	 */
+	fun createDiskMeshCache(source: DataSource<D, T>): DiskMeshCache<TLongHashSet>? = null
+
 }
@@ -52,6 +52,7 @@ import org.janelia.saalfeldlab.paintera.control.selection.SelectedIds
 import org.janelia.saalfeldlab.paintera.control.selection.SelectedSegments
 import org.janelia.saalfeldlab.paintera.data.DataSource
 import org.janelia.saalfeldlab.paintera.data.mask.MaskedSource
+import org.janelia.saalfeldlab.paintera.id.N5IdService
 import org.janelia.saalfeldlab.paintera.meshes.ManagedMeshSettings
 import org.janelia.saalfeldlab.paintera.meshes.MeshWorkerPriority
 import org.janelia.saalfeldlab.paintera.meshes.managed.MeshManagerWithAssignmentForSegments
@@ -125,7 +126,8 @@ class ConnectomicsLabelState<D: IntegerType<D>, T>(
         eyeToWorldTransformProperty,
         this.labelBlockLookup,
         meshManagerExecutors,
-        meshWorkersExecutors)
+        meshWorkersExecutors,
+        backend.createDiskMeshCache(source))
 
 	private val paintHandler = when(source) {
         is MaskedSource<D, *> -> LabelSourceStatePaintHandler<D>(
@@ -134,7 +136,8 @@ class ConnectomicsLabelState<D: IntegerType<D>, T>(
             BooleanSupplier { isVisible },
             Consumer<FloodFillState?> { floodFillState.set(it) },
             selectedIds,
-            maskForLabel)
+            maskForLabel,
+            meshManager.getBlockListForLongKey)
         else -> null
     }
 
@@ -302,6 +305,7 @@ class ConnectomicsLabelState<D: IntegerType<D>, T>(
         meshManager.rendererSettings.numElementsPerFrameProperty().bind(paintera.viewer3D().numElementsPerFrameProperty())
         meshManager.rendererSettings.frameDelayMsecProperty().bind(paintera.viewer3D().frameDelayMsecProperty())
         meshManager.rendererSettings.sceneUpdateDelayMsecProperty().bind(paintera.viewer3D().sceneUpdateDelayMsecProperty())
+        meshManager.rendererSettings.maxNumTrianglesProperty().bind(paintera.viewer3D().maxNumTrianglesProperty())
         meshManager.refreshMeshes()
 
 		// TODO make resolution/offset configurable
@@ -327,8 +331,17 @@ class ConnectomicsLabelState<D: IntegerType<D>, T>(
 			},
 			false,
 			"_Skip")
+		releaseIdLease()
     }
 
+	private fun releaseIdLease() {
+		try {
+			(idService as? N5IdService)?.releaseLease()
+		} catch (e: RuntimeException) {
+			LOG.warn("Unable to release id lease for source {}", nameProperty().get(), e)
+		}
+	}
+
 	override fun onShutdown(paintera: PainteraBaseView) {
 		CommitHandler.showCommitDialog(
 			this,
@@ -342,6 +355,7 @@ class ConnectomicsLabelState<D: IntegerType<D>, T>(
 			},
 			false,
 			"_Skip")
+		releaseIdLease()
 	}
 
 	override fun createKeyAndMouseBindings(): KeyAndMouseBindings {
@@ -435,7 +449,10 @@ class ConnectomicsLabelState<D: IntegerType<D>, T>(
 			InvokeOnJavaFXApplicationThread.invoke {
 				if (newv != null) {
 					paintingProgressIndicator.isVisible = true
-					paintingProgressIndicatorTooltip.text = "Flood-filling, label ID: " + newv.labelId
+					val description = "Flood-filling, label ID: " + newv.labelId
+					paintingProgressIndicatorTooltip.text = description
+					// progress is pushed on the application thread and stops before the state is reset
+					newv.progressDescriptionProperty().addListener { _, _, progress -> paintingProgressIndicatorTooltip.text = description + progress }
 
 					val floodFillContextMenuCancelItem = MenuItem("Cancel")
 					if (newv.interrupt != null) {
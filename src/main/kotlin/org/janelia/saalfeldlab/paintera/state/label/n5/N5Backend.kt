@@ -1,5 +1,6 @@
 package org.janelia.saalfeldlab.paintera.state.label.n5
 
+import gnu.trove.set.hash.TLongHashSet
 import javafx.scene.Node
 import javafx.scene.control.TextField
 import javafx.scene.layout.GridPane
@@ -12,14 +13,30 @@ import org.janelia.saalfeldlab.n5.N5FSReader
 import org.janelia.saalfeldlab.n5.N5Reader
 import org.janelia.saalfeldlab.n5.N5Writer
 import org.janelia.saalfeldlab.n5.hdf5.N5HDF5Reader
+import org.janelia.saalfeldlab.paintera.data.DataSource
+import org.janelia.saalfeldlab.paintera.data.n5.N5BlockContentVersion
+import org.janelia.saalfeldlab.paintera.meshes.cache.DiskMeshCache
+import org.janelia.saalfeldlab.paintera.meshes.cache.DiskMeshCacheBudget
 import org.janelia.saalfeldlab.paintera.state.SourceStateBackendN5
 import org.janelia.saalfeldlab.paintera.state.label.ConnectomicsLabelBackend
 import org.janelia.saalfeldlab.util.n5.N5Helpers
+import java.nio.file.Paths
 import java.util.concurrent.ExecutorService
 import java.util.function.Supplier
 
 interface N5Backend<D, T> : ConnectomicsLabelBackend<D, T>, SourceStateBackendN5<D, T> {
 
+	val projectDirectory: Supplier<String>
+
+	override fun createDiskMeshCache(source: DataSource<D, T>): DiskMeshCache<TLongHashSet>? {
+		val contentVersion = N5BlockContentVersion.create(container, dataset, source) ?: return null
+		return DiskMeshCache(
+			DiskMeshCache.directoryFor(Paths.get(projectDirectory.get()), "${container.urlRepresentation()}/$dataset"),
+			DiskMeshCacheBudget.getInstance(),
+			{ DiskMeshCache.fragmentsDigest(it) },
+			contentVersion)
+	}
+
 	override fun createMetaDataNode(): Node {
 		val containerLabel = Labels.withTooltip("Container", "N5 container of source dataset `$dataset'")
 		val datasetLabel = Labels.withTooltip("Dataset", "Dataset path inside container `${container.urlRepresentation()}'")
@@ -35,7 +35,7 @@ import java.util.function.Supplier
 class N5BackendMultiScaleGroup<D, T> constructor(
 	override val container: N5Writer,
 	override val dataset: String,
-	private val projectDirectory: Supplier<String>,
+	override val projectDirectory: Supplier<String>,
 	private val propagationExecutorService: ExecutorService) : N5Backend<D, T>
 		where D: NativeType<D>, D: IntegerType<D>, T: net.imglib2.Volatile<D>, T: NativeType<T> {
 
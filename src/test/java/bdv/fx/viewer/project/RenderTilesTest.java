@@ -0,0 +1,50 @@
+package bdv.fx.viewer.project;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class RenderTilesTest
+{
+
+	@Test
+	public void testCoverage()
+	{
+		final int width = 150;
+		final int height = 70;
+		final List<RenderTiles.Tile> tiles = RenderTiles.tiles(width, height, 64, null);
+		Assert.assertEquals(6, tiles.size());
+
+		final int[] coverage = new int[width * height];
+		for (final RenderTiles.Tile tile : tiles)
+		{
+			Assert.assertTrue(tile.width > 0 && tile.width <= 64);
+			Assert.assertTrue(tile.height > 0 && tile.height <= 64);
+			for (int y = tile.minY; y < tile.minY + tile.height; ++y)
+				for (int x = tile.minX; x < tile.minX + tile.width; ++x)
+					++coverage[y * width + x];
+		}
+		for (final int c : coverage)
+			Assert.assertEquals(1, c);
+	}
+
+	@Test
+	public void testOrder()
+	{
+		final List<RenderTiles.Tile> tiles = RenderTiles.tiles(256, 256, 64, new double[] {250.0, 10.0});
+		Assert.assertEquals(16, tiles.size());
+		Assert.assertEquals(192, tiles.get(0).minX);
+		Assert.assertEquals(0, tiles.get(0).minY);
+		Assert.assertEquals(0, tiles.get(tiles.size() - 1).minX);
+		Assert.assertEquals(192, tiles.get(tiles.size() - 1).minY);
+
+		final List<RenderTiles.Tile> centered = RenderTiles.tiles(256, 256, 64, null);
+		final RenderTiles.Tile first = centered.get(0);
+		Assert.assertTrue(first.minX == 64 || first.minX == 128);
+		Assert.assertTrue(first.minY == 64 || first.minY == 128);
+
+		Assert.assertEquals(1, RenderTiles.tiles(100, 50, 100, null).size());
+	}
+
+}
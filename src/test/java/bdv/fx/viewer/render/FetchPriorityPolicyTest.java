@@ -0,0 +1,35 @@
+package bdv.fx.viewer.render;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FetchPriorityPolicyTest
+{
+
+	@Test
+	public void testActiveSourceFirst()
+	{
+		final Object active = new Object();
+		final Object other = new Object();
+		final FetchPriorityPolicy policy = new FetchPriorityPolicy(50, () -> active);
+
+		Assert.assertEquals(0, policy.getQueuePriority(active, 0));
+		Assert.assertEquals(1, policy.getQueuePriority(active, 1));
+		Assert.assertEquals(25, policy.getQueuePriority(other, 0));
+		Assert.assertEquals(26, policy.getQueuePriority(other, 1));
+
+		// coarse levels of the active source still come before any level of other sources
+		Assert.assertEquals(24, policy.getQueuePriority(active, 100));
+		Assert.assertEquals(49, policy.getQueuePriority(other, 100));
+	}
+
+	@Test
+	public void testNoActiveSource()
+	{
+		final FetchPriorityPolicy policy = new FetchPriorityPolicy(4, () -> null);
+		Assert.assertEquals(2, policy.getQueuePriority(new Object(), 0));
+		Assert.assertEquals(3, policy.getQueuePriority(new Object(), 1));
+		Assert.assertEquals(3, policy.getQueuePriority(null, 5));
+	}
+
+}
@@ -0,0 +1,64 @@
+package bdv.fx.viewer.render;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FrameTimeEstimatorTest
+{
+
+	private static final long[] NUM_FULL_FRAME_PIXELS = {1000_000, 250_000, 62_500};
+
+	private static final long TARGET_RENDER_NANOS = 30_000_000;
+
+	@Test
+	public void testNoMeasurements()
+	{
+		final FrameTimeEstimator estimator = new FrameTimeEstimator(3);
+		Assert.assertTrue(Double.isNaN(estimator.estimateNanosPerPixel(0)));
+		Assert.assertEquals(2, estimator.selectScreenScaleIndex(NUM_FULL_FRAME_PIXELS, TARGET_RENDER_NANOS, 2));
+	}
+
+	@Test
+	public void testSelect()
+	{
+		final FrameTimeEstimator estimator = new FrameTimeEstimator(3, 1.0);
+
+		// 100ns per pixel: only the coarsest scale renders within 30ms
+		Assert.assertTrue(estimator.record(2, 6_250_000, 62_500, 62_500));
+		Assert.assertEquals(100.0, estimator.estimateNanosPerPixel(0), 0.0);
+		Assert.assertEquals(2, estimator.selectScreenScaleIndex(NUM_FULL_FRAME_PIXELS, TARGET_RENDER_NANOS, 2));
+
+		// 20ns per pixel: 20ms at index 0, but switching to a finer scale requires margin
+		Assert.assertTrue(estimator.record(2, 1_250_000, 62_500, 62_500));
+		Assert.assertEquals(0, estimator.selectScreenScaleIndex(NUM_FULL_FRAME_PIXELS, TARGET_RENDER_NANOS, 2));
+
+		// 25ns per pixel: 25ms at index 0 stays within budget, but is not selected when coming from a coarser scale
+		Assert.assertTrue(estimator.record(2, 1_562_500, 62_500, 62_500));
+		Assert.assertEquals(0, estimator.selectScreenScaleIndex(NUM_FULL_FRAME_PIXELS, TARGET_RENDER_NANOS, 0));
+		Assert.assertEquals(1, estimator.selectScreenScaleIndex(NUM_FULL_FRAME_PIXELS, TARGET_RENDER_NANOS, 2));
+	}
+
+	@Test
+	public void testIgnoreSmallFrames()
+	{
+		final FrameTimeEstimator estimator = new FrameTimeEstimator(3);
+		Assert.assertFalse(estimator.record(0, 1_000_000, 100, 1000_000));
+		Assert.assertFalse(estimator.record(0, 0, 1000_000, 1000_000));
+		Assert.assertFalse(estimator.record(3, 1_000_000, 1000_000, 1000_000));
+		Assert.assertTrue(Double.isNaN(estimator.estimateNanosPerPixel(1)));
+	}
+
+	@Test
+	public void testMovingAverage()
+	{
+		final FrameTimeEstimator estimator = new FrameTimeEstimator(2, 0.5);
+		estimator.record(1, 100, 10, 10);
+		estimator.record(1, 200, 10, 10);
+		Assert.assertEquals(15.0, estimator.estimateNanosPerPixel(1), 1e-9);
+		// nearest measured scale
+		Assert.assertEquals(15.0, estimator.estimateNanosPerPixel(0), 1e-9);
+		estimator.reset(2);
+		Assert.assertTrue(Double.isNaN(estimator.estimateNanosPerPixel(1)));
+	}
+
+}
@@ -0,0 +1,81 @@
+package bdv.fx.viewer.render;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.List;
+
+public class RenderMetricsTest
+{
+
+	@Test
+	public void testAggregate()
+	{
+		final RenderMetrics metrics = new RenderMetrics();
+		metrics.recordProjectorCreation(1, 0.5);
+		metrics.recordFrame(1, 0.5, 2_000_000, 1_000_000, 10, 100);
+		metrics.recordCancelledFrame(1, 0.5);
+		metrics.recordFrame(1, 0.5, 4_000_000, 0, 0, 100);
+		metrics.recordFrame(0, 1.0, 8_000_000, 0, -1, 0);
+
+		final List<RenderMetrics.ScaleStatistics> statistics = metrics.snapshot();
+		Assert.assertEquals(2, statistics.size());
+
+		final RenderMetrics.ScaleStatistics s0 = statistics.get(0);
+		Assert.assertEquals(0, s0.getScreenScaleIndex());
+		Assert.assertEquals(1, s0.getFrames());
+		Assert.assertEquals(8.0, s0.getMeanRenderMillis(), 0.0);
+		Assert.assertTrue(Double.isNaN(s0.getInvalidPixelFraction()));
+
+		final RenderMetrics.ScaleStatistics s1 = statistics.get(1);
+		Assert.assertEquals(0.5, s1.getScreenScale(), 0.0);
+		Assert.assertEquals(2, s1.getFrames());
+		Assert.assertEquals(1, s1.getCancelledFrames());
+		Assert.assertEquals(1, s1.getProjectorCreations());
+		Assert.assertEquals(3.0, s1.getMeanRenderMillis(), 1e-9);
+		Assert.assertEquals(4.0, s1.getMaxRenderMillis(), 1e-9);
+		Assert.assertEquals(0.5, s1.getMeanIoMillis(), 1e-9);
+		Assert.assertEquals(0.05, s1.getInvalidPixelFraction(), 1e-9);
+		Assert.assertEquals(0.0, s1.getLastInvalidPixelFraction(), 0.0);
+
+		// changed screen scales invalidate statistics for that index
+		metrics.recordFrame(1, 0.25, 1_000_000, 0, 0, 100);
+		Assert.assertEquals(1, metrics.get(1).getFrames());
+		Assert.assertEquals(0, metrics.get(1).getCancelledFrames());
+
+		metrics.reset();
+		Assert.assertTrue(metrics.snapshot().isEmpty());
+		Assert.assertNull(metrics.get(0));
+	}
+
+	@Test
+	public void testCsvAndJson() throws IOException
+	{
+		final RenderMetrics metrics = new RenderMetrics();
+		metrics.recordFrame(0, 1.0, 1_000_000, 0, 1, 4);
+		metrics.recordFrame(2, 0.25, 1_000_000, 0, 0, 4);
+
+		final StringWriter csv = new StringWriter();
+		RenderMetrics.writeCsv(Collections.singletonMap("viewer", metrics), csv);
+		final String[] lines = csv.toString().split("\n");
+		Assert.assertEquals(3, lines.length);
+		Assert.assertEquals(String.join(",", RenderMetrics.CSV_HEADER), lines[0]);
+		Assert.assertTrue(lines[1].startsWith("viewer,0,1.0,1,0,0,1.0,1.0,0.0,0.25,"));
+		Assert.assertTrue(lines[2].startsWith("viewer,2,0.25,1,"));
+
+		final StringWriter json = new StringWriter();
+		RenderMetrics.writeJson(Collections.singletonMap("viewer", metrics), json);
+		final JsonObject parsed = new JsonParser().parse(json.toString()).getAsJsonObject();
+		final JsonArray scales = parsed.getAsJsonArray("viewer");
+		Assert.assertEquals(2, scales.size());
+		Assert.assertEquals(2, scales.get(1).getAsJsonObject().get("screenScaleIndex").getAsInt());
+		Assert.assertEquals(0.25, scales.get(0).getAsJsonObject().get("invalidPixelFraction").getAsDouble(), 0.0);
+	}
+
+}
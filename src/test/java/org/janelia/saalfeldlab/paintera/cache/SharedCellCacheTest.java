@@ -0,0 +1,84 @@
+package org.janelia.saalfeldlab.paintera.cache;
+
+import net.imglib2.cache.LoaderCache;
+import net.imglib2.img.basictypeaccess.array.LongArray;
+import net.imglib2.img.cell.Cell;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+
+public class SharedCellCacheTest
+{
+
+	@Test
+	public void testHitsAndMisses() throws ExecutionException
+	{
+		final SharedCellCache sharedCache = new SharedCellCache(100);
+		final LoaderCache<Long, String> cache = sharedCache.createCache(s -> 10);
+
+		Assert.assertEquals("1", cache.get(1L, String::valueOf));
+		Assert.assertEquals("1", cache.get(1L, key -> "not loaded"));
+		Assert.assertEquals("1", cache.getIfPresent(1L));
+		Assert.assertNull(cache.getIfPresent(2L));
+
+		Assert.assertEquals(1, sharedCache.getHits());
+		Assert.assertEquals(1, sharedCache.getMisses());
+		Assert.assertEquals(0, sharedCache.getEvictions());
+		Assert.assertEquals(10, sharedCache.getSizeInBytes());
+	}
+
+	@Test
+	public void testEvictAcrossCaches() throws ExecutionException
+	{
+		final SharedCellCache sharedCache = new SharedCellCache(30);
+		final LoaderCache<Long, String> cache1 = sharedCache.createCache(s -> 10);
+		final LoaderCache<Long, String> cache2 = sharedCache.createCache(s -> 10);
+
+		cache1.get(1L, String::valueOf);
+		cache1.get(2L, String::valueOf);
+		cache2.get(3L, String::valueOf);
+		// second chance for 1
+		cache1.get(1L, String::valueOf);
+		cache2.get(4L, String::valueOf);
+
+		Assert.assertEquals(1, sharedCache.getEvictions());
+		Assert.assertEquals(30, sharedCache.getSizeInBytes());
+		Assert.assertEquals("1", cache1.getIfPresent(1L));
+		Assert.assertNull(cache1.getIfPresent(2L));
+		Assert.assertEquals("3", cache2.getIfPresent(3L));
+		Assert.assertEquals("4", cache2.getIfPresent(4L));
+
+		sharedCache.setMaxSizeInBytes(10);
+		Assert.assertEquals(10, sharedCache.getSizeInBytes());
+		Assert.assertEquals(3, sharedCache.getEvictions());
+	}
+
+	@Test
+	public void testInvalidate() throws ExecutionException
+	{
+		final SharedCellCache sharedCache = new SharedCellCache(100);
+		final LoaderCache<Long, String> cache = sharedCache.createCache(s -> 10);
+		for (long key = 0; key < 5; ++key)
+			cache.get(key, String::valueOf);
+
+		cache.invalidate(0L);
+		Assert.assertNull(cache.getIfPresent(0L));
+		Assert.assertEquals(40, sharedCache.getSizeInBytes());
+
+		cache.invalidateIf(1, key -> key % 2 == 0);
+		Assert.assertEquals(20, sharedCache.getSizeInBytes());
+
+		cache.invalidateAll(1);
+		Assert.assertEquals(0, sharedCache.getSizeInBytes());
+		Assert.assertEquals(0, sharedCache.getEvictions());
+	}
+
+	@Test
+	public void testSizeOfCell()
+	{
+		final Cell<LongArray> cell = new Cell<>(new int[] {2, 3}, new long[] {0, 0}, new LongArray(6));
+		Assert.assertEquals(6 * Long.BYTES, SharedCellCache.sizeOf(cell));
+	}
+
+}
@@ -0,0 +1,130 @@
+package org.janelia.saalfeldlab.paintera.control.assignment;
+
+import gnu.trove.map.hash.TLongLongHashMap;
+import javafx.beans.property.BooleanProperty;
+import javafx.util.Pair;
+import org.janelia.saalfeldlab.paintera.control.assignment.action.AssignmentAction;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+public class FragmentSegmentAssignmentOnlyLocalTest
+{
+
+	private static final int NUM_FRAGMENTS = 30;
+
+	@Test
+	public void testToggleActions()
+	{
+		final Random rng = new Random(100L);
+		final TLongLongHashMap initialLut = new TLongLongHashMap();
+		for (long fragment = 1; fragment <= NUM_FRAGMENTS; fragment += 3)
+			initialLut.put(fragment, 1000 + fragment / 6);
+
+		final long[] nextId = {2000};
+		final FragmentSegmentAssignmentOnlyLocal assignment = new FragmentSegmentAssignmentOnlyLocal(
+				() -> initialLut,
+				new FragmentSegmentAssignmentOnlyLocal.DoesNotPersist());
+
+		for (int i = 0; i < 300; ++i)
+		{
+			final long fragment1 = 1 + rng.nextInt(NUM_FRAGMENTS);
+			final long fragment2 = 1 + rng.nextInt(NUM_FRAGMENTS);
+			final List<Pair<AssignmentAction, BooleanProperty>> events = assignment.events();
+			if (!events.isEmpty() && rng.nextInt(3) == 0)
+			{
+				final BooleanProperty isEnabled = events.get(rng.nextInt(events.size())).getValue();
+				isEnabled.set(!isEnabled.get());
+			}
+			else if (rng.nextInt(4) == 0)
+				assignment.getMergeAllAction(randomFragments(rng, 5), fragment2, () -> ++nextId[0]).ifPresent(assignment::apply);
+			else if (rng.nextBoolean())
+				assignment.getMergeAction(fragment1, fragment2, () -> ++nextId[0]).ifPresent(assignment::apply);
+			else
+				assignment.getDetachAction(fragment1, assignment.getSegment(fragment1)).ifPresent(assignment::apply);
+
+			assertSameAssignment(replay(initialLut, assignment), assignment);
+		}
+	}
+
+	@Test
+	public void testMergeAll()
+	{
+		final Random rng = new Random(200L);
+		final TLongLongHashMap initialLut = new TLongLongHashMap();
+		for (long fragment = 1; fragment <= NUM_FRAGMENTS; fragment += 2)
+			initialLut.put(fragment, 1000 + fragment / 4);
+
+		final FragmentSegmentAssignmentOnlyLocal merged = new FragmentSegmentAssignmentOnlyLocal(
+				() -> initialLut,
+				new FragmentSegmentAssignmentOnlyLocal.DoesNotPersist());
+		final FragmentSegmentAssignmentOnlyLocal mergedIndividually = new FragmentSegmentAssignmentOnlyLocal(
+				() -> initialLut,
+				new FragmentSegmentAssignmentOnlyLocal.DoesNotPersist());
+		final int[] numNotifications = {0};
+		merged.addListener(obs -> ++numNotifications[0]);
+
+		for (int i = 0; i < 20; ++i)
+		{
+			final long[] from = randomFragments(rng, 8);
+			final long into = 1 + rng.nextInt(NUM_FRAGMENTS);
+			final long segment = 2000 + i;
+			final int previousNumNotifications = numNotifications[0];
+			merged.getMergeAllAction(from, into, () -> segment).ifPresent(merged::apply);
+			Assert.assertTrue(numNotifications[0] - previousNumNotifications <= 1);
+			for (final long id : from)
+				mergedIndividually.getMergeAction(id, into, () -> segment).ifPresent(mergedIndividually::apply);
+			assertSameAssignment(mergedIndividually, merged);
+		}
+
+		// undo of a single merge all reverts all its merges
+		final int numActions = merged.events().size();
+		final FragmentSegmentAssignmentOnlyLocal reference = replay(initialLut, merged);
+		final long[] all = LongStream.rangeClosed(1, NUM_FRAGMENTS).toArray();
+		merged.getMergeAllAction(all, NUM_FRAGMENTS + 1, () -> 3000).ifPresent(merged::apply);
+		Assert.assertEquals(numActions + 1, merged.events().size());
+		for (final long id : all)
+			Assert.assertEquals(3000, merged.getSegment(id));
+		merged.events().get(numActions).getValue().set(false);
+		assertSameAssignment(reference, merged);
+	}
+
+	private static long[] randomFragments(final Random rng, final int maxNumFragments)
+	{
+		return rng.longs(1 + rng.nextInt(maxNumFragments), 1, NUM_FRAGMENTS + 1).toArray();
+	}
+
+	private static FragmentSegmentAssignmentOnlyLocal replay(
+			final TLongLongHashMap initialLut,
+			final FragmentSegmentAssignmentOnlyLocal assignment)
+	{
+		final FragmentSegmentAssignmentOnlyLocal replayed = new FragmentSegmentAssignmentOnlyLocal(
+				() -> initialLut,
+				new FragmentSegmentAssignmentOnlyLocal.DoesNotPersist());
+		replayed.applyWithEnabledFlag(assignment
+				.events()
+				.stream()
+				.map(p -> new Pair<>(p.getKey(), p.getValue().get()))
+				.collect(Collectors.toList()));
+		return replayed;
+	}
+
+	private static void assertSameAssignment(
+			final FragmentSegmentAssignmentOnlyLocal expected,
+			final FragmentSegmentAssignmentOnlyLocal actual)
+	{
+		final FragmentSegmentLookupSnapshot snapshot = actual.getLookupSnapshot();
+		for (long fragment = 0; fragment <= NUM_FRAGMENTS + 1; ++fragment)
+		{
+			final long segment = expected.getSegment(fragment);
+			Assert.assertEquals(segment, actual.getSegment(fragment));
+			Assert.assertEquals(segment, snapshot.getSegment(fragment));
+			Assert.assertEquals(expected.getFragments(segment), actual.getFragments(segment));
+		}
+	}
+
+}
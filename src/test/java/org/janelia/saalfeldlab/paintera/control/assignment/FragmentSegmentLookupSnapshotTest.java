@@ -0,0 +1,83 @@
+package org.janelia.saalfeldlab.paintera.control.assignment;
+
+import gnu.trove.map.hash.TLongLongHashMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class FragmentSegmentLookupSnapshotTest {
+
+	@Test
+	public void testLookup()
+	{
+		final Random rng = new Random(100);
+		final TLongLongHashMap map = new TLongLongHashMap();
+		for (int i = 0; i < 10000; ++i)
+			map.put(rng.nextLong(), rng.nextLong());
+		map.put(0L, 3L);
+
+		final FragmentSegmentLookupSnapshot snapshot = FragmentSegmentLookupSnapshot.fromMap(map, 7L);
+		Assert.assertEquals(map.size(), snapshot.size());
+		Assert.assertEquals(7L, snapshot.version());
+		map.forEachEntry((k, v) -> {
+			Assert.assertEquals(v, snapshot.getSegment(k));
+			return true;
+		});
+
+		for (int i = 0; i < 1000; ++i)
+		{
+			final long k = rng.nextLong();
+			if (!map.containsKey(k))
+				Assert.assertEquals(k, snapshot.getSegment(k));
+		}
+	}
+
+	@Test
+	public void testWithChanges()
+	{
+		final Random rng = new Random(100);
+		final TLongLongHashMap map = new TLongLongHashMap();
+		for (int i = 0; i < 1000; ++i)
+			map.put(rng.nextInt(2000), rng.nextInt(100));
+
+		FragmentSegmentLookupSnapshot snapshot = FragmentSegmentLookupSnapshot.fromMap(map, 0L);
+		Assert.assertEquals(0, snapshot.overlaySize());
+		for (int iteration = 1; iteration <= 50; ++iteration)
+		{
+			final int numChanged = rng.nextInt(20);
+			final long[] changedKeys = new long[numChanged];
+			final long[] changedValues = new long[numChanged];
+			for (int i = 0; i < numChanged; ++i)
+			{
+				changedKeys[i] = rng.nextInt(2000);
+				changedValues[i] = rng.nextInt(100);
+			}
+			final long[] removedKeys = new long[rng.nextInt(20)];
+			for (int i = 0; i < removedKeys.length; ++i)
+			{
+				removedKeys[i] = rng.nextInt(2000);
+				map.remove(removedKeys[i]);
+			}
+			for (int i = 0; i < numChanged; ++i)
+				map.put(changedKeys[i], changedValues[i]);
+
+			snapshot = snapshot.withChanges(changedKeys, changedValues, removedKeys, iteration);
+			Assert.assertEquals(iteration, snapshot.version());
+			Assert.assertEquals(map.size(), snapshot.size());
+			for (long k = 0; k < 2000; ++k)
+				Assert.assertEquals(map.containsKey(k) ? map.get(k) : -1L, snapshot.get(k, -1L));
+		}
+		Assert.assertTrue(snapshot.overlaySize() > 0);
+	}
+
+	@Test
+	public void testEmpty()
+	{
+		Assert.assertEquals(0, FragmentSegmentLookupSnapshot.EMPTY.size());
+		Assert.assertEquals(0L, FragmentSegmentLookupSnapshot.EMPTY.getSegment(0L));
+		Assert.assertEquals(5L, FragmentSegmentLookupSnapshot.EMPTY.getSegment(5L));
+		Assert.assertEquals(-1L, FragmentSegmentLookupSnapshot.EMPTY.get(5L, -1L));
+	}
+
+}
@@ -0,0 +1,127 @@
+package org.janelia.saalfeldlab.paintera.control.paint;
+
+import gnu.trove.set.hash.TLongHashSet;
+import net.imglib2.Interval;
+import net.imglib2.Point;
+import net.imglib2.RandomAccess;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.LongArray;
+import net.imglib2.img.cell.CellGrid;
+import net.imglib2.type.numeric.integer.LongType;
+import net.imglib2.type.numeric.integer.UnsignedLongType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class BlockParallelFloodFillTest
+{
+
+	private static final long[] DIMENSIONS = {12, 9, 4};
+
+	private static final CellGrid GRID = new CellGrid(DIMENSIONS, new int[] {3, 3, 2});
+
+	private static ExecutorService workers;
+
+	@BeforeClass
+	public static void startWorkers()
+	{
+		workers = Executors.newFixedThreadPool(3);
+	}
+
+	@AfterClass
+	public static void stopWorkers()
+	{
+		workers.shutdown();
+	}
+
+	@Test
+	public void testFillAcrossBlocks() throws InterruptedException, ExecutionException
+	{
+		final ArrayImg<LongType, LongArray> labels = serpentine();
+		final ArrayImg<UnsignedLongType, LongArray> mask = ArrayImgs.unsignedLongs(DIMENSIONS);
+
+		final Interval filled = new BlockParallelFloodFill(labels, mask, GRID, label -> label == 1, null, 1)
+				.fill(new Point(0, 0, 0), workers, BlockParallelFloodFill.Progress.NONE);
+
+		Assert.assertArrayEquals(new long[] {0, 0, 0}, Intervals.minAsLongArray(filled));
+		Assert.assertArrayEquals(new long[] {11, 8, 3}, Intervals.maxAsLongArray(filled));
+		final RandomAccess<LongType> labelAccess = labels.randomAccess();
+		final RandomAccess<UnsignedLongType> maskAccess = mask.randomAccess();
+		for (final long[] position : positions())
+		{
+			labelAccess.setPosition(position);
+			maskAccess.setPosition(position);
+			Assert.assertEquals(labelAccess.get().get() == 1 ? 1 : 0, maskAccess.get().get());
+		}
+	}
+
+	@Test
+	public void testDoNotFillOutsideAllowedBlocks() throws InterruptedException, ExecutionException
+	{
+		final ArrayImg<LongType, LongArray> labels = ArrayImgs.longs(DIMENSIONS);
+		Views.iterable(labels).forEach(l -> l.set(1));
+		final ArrayImg<UnsignedLongType, LongArray> mask = ArrayImgs.unsignedLongs(DIMENSIONS);
+
+		// only the first two blocks along x
+		final TLongHashSet allowedBlocks = new TLongHashSet(new long[] {0, 1});
+		final long[] numFilledVoxels = {0};
+		final Interval filled = new BlockParallelFloodFill(labels, mask, GRID, label -> label == 1, allowedBlocks, 1)
+				.fill(new Point(0, 0, 0), workers, (blocks, voxels, pending) -> numFilledVoxels[0] = voxels);
+
+		Assert.assertArrayEquals(new long[] {0, 0, 0}, Intervals.minAsLongArray(filled));
+		Assert.assertArrayEquals(new long[] {5, 2, 1}, Intervals.maxAsLongArray(filled));
+		Assert.assertEquals(6 * 3 * 2, numFilledVoxels[0]);
+		long sum = 0;
+		for (final UnsignedLongType m : mask)
+			sum += m.get();
+		Assert.assertEquals(6 * 3 * 2, sum);
+	}
+
+	@Test
+	public void testSeedOutsideOfFillLabel() throws InterruptedException, ExecutionException
+	{
+		final ArrayImg<LongType, LongArray> labels = serpentine();
+		final ArrayImg<UnsignedLongType, LongArray> mask = ArrayImgs.unsignedLongs(DIMENSIONS);
+		Assert.assertNull(new BlockParallelFloodFill(labels, mask, GRID, label -> label == 1, null, 1)
+				.fill(new Point(1, 1, 0), workers, BlockParallelFloodFill.Progress.NONE));
+	}
+
+	/**
+	 * Label 1 forms a single path that runs back and forth through all blocks in x and y, label 2 everywhere else.
+	 * Rows {@code y = 0, 2, 4, ...} are filled, and the rows in between are connected at alternating ends.
+	 */
+	private static ArrayImg<LongType, LongArray> serpentine()
+	{
+		final ArrayImg<LongType, LongArray> labels = ArrayImgs.longs(DIMENSIONS);
+		final RandomAccess<LongType> access = labels.randomAccess();
+		for (final long[] position : positions())
+		{
+			access.setPosition(position);
+			final long x = position[0];
+			final long y = position[1];
+			final boolean isPath = y % 2 == 0 || (y % 4 == 1 && x == DIMENSIONS[0] - 1) || (y % 4 == 3 && x == 0);
+			access.get().set(isPath ? 1 : 2);
+		}
+		return labels;
+	}
+
+	private static long[][] positions()
+	{
+		final long[][] positions = new long[(int) Intervals.numElements(DIMENSIONS)][];
+		int index = 0;
+		for (long z = 0; z < DIMENSIONS[2]; ++z)
+			for (long y = 0; y < DIMENSIONS[1]; ++y)
+				for (long x = 0; x < DIMENSIONS[0]; ++x)
+					positions[index++] = new long[] {x, y, z};
+		return positions;
+	}
+
+}
@@ -0,0 +1,144 @@
+package org.janelia.saalfeldlab.paintera.data.mask;
+
+import net.imglib2.RandomAccess;
+import net.imglib2.cache.img.CachedCellImg;
+import net.imglib2.img.basictypeaccess.volatiles.array.DirtyVolatileLongArray;
+import net.imglib2.img.cell.CellGrid;
+import net.imglib2.type.label.Label;
+import net.imglib2.type.numeric.integer.UnsignedLongType;
+import net.imglib2.util.Intervals;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+public class CompactCanvasCellCacheTest
+{
+
+	private static final long[] DIMENSIONS = {64, 64, 64};
+
+	private static final int[] BLOCK_SIZE = {8, 8, 8};
+
+	// four decoded cells
+	private static final long MAX_RESIDENT_BYTES = 4 * 8 * 8 * 8 * Long.BYTES;
+
+	@Test
+	public void testPaintThroughHeldAccessAcrossEviction() throws IOException, InterruptedException
+	{
+		final Path spillDirectory = Files.createTempDirectory("compact-canvas-cell-cache-test");
+		final CachedCellImg<UnsignedLongType, DirtyVolatileLongArray> canvas = CompactCanvasCellCache.createCanvas(
+				DIMENSIONS,
+				BLOCK_SIZE,
+				MAX_RESIDENT_BYTES,
+				100,
+				spillDirectory);
+
+		// the painter reads a background cell, which is evicted while the painter still holds its access
+		final RandomAccess<UnsignedLongType> painter = canvas.randomAccess();
+		painter.setPosition(new long[] {1, 2, 3});
+		Assert.assertEquals(Label.INVALID, painter.get().getIntegerLong());
+		evictAllAndCollect(canvas);
+
+		// copy on write of the evicted background cell
+		painter.get().setInteger(10);
+		evictAllAndCollect(canvas);
+
+		// write into the evicted painted cell
+		painter.setPosition(new long[] {1, 2, 4});
+		painter.get().setInteger(11);
+
+		// release the access and paint enough cells to spill encodings to disk
+		painter.setPosition(new long[] {63, 63, 63});
+		painter.get().setInteger(12);
+		final RandomAccess<UnsignedLongType> access = canvas.randomAccess();
+		for (long z = 8; z < DIMENSIONS[2]; z += BLOCK_SIZE[2])
+		{
+			access.setPosition(new long[] {0, 0, z});
+			access.get().setInteger(z);
+		}
+		evictAllAndCollect(canvas);
+		evictAllAndCollect(canvas);
+
+		try (final Stream<Path> spilled = Files.list(spillDirectory))
+		{
+			Assert.assertTrue(spilled.count() > 0);
+		}
+
+		final RandomAccess<UnsignedLongType> reader = canvas.randomAccess();
+		reader.setPosition(new long[] {1, 2, 3});
+		Assert.assertEquals(10, reader.get().getIntegerLong());
+		reader.setPosition(new long[] {1, 2, 4});
+		Assert.assertEquals(11, reader.get().getIntegerLong());
+		reader.setPosition(new long[] {1, 2, 5});
+		Assert.assertEquals(Label.INVALID, reader.get().getIntegerLong());
+		reader.setPosition(new long[] {63, 63, 63});
+		Assert.assertEquals(12, reader.get().getIntegerLong());
+		for (long z = 8; z < DIMENSIONS[2]; z += BLOCK_SIZE[2])
+		{
+			reader.setPosition(new long[] {0, 0, z});
+			Assert.assertEquals(z, reader.get().getIntegerLong());
+		}
+
+		canvas.getCache().invalidateAll();
+		try (final Stream<Path> spilled = Files.list(spillDirectory))
+		{
+			Assert.assertEquals(0, spilled.count());
+		}
+		Files.delete(spillDirectory);
+	}
+
+	@Test
+	public void testConcurrentAccess() throws InterruptedException, ExecutionException
+	{
+		final CellGrid grid = new CellGrid(DIMENSIONS, BLOCK_SIZE);
+		final CompactCanvasCellCache cache = new CompactCanvasCellCache(grid, Label.INVALID, MAX_RESIDENT_BYTES);
+		final long numCells = Intervals.numElements(grid.getGridDimensions());
+		final int numThreads = 4;
+		final ExecutorService es = Executors.newFixedThreadPool(numThreads);
+		final List<Future<?>> futures = new ArrayList<>();
+		for (int thread = 0; thread < numThreads; ++thread)
+		{
+			final int index = thread;
+			futures.add(es.submit(() -> {
+				// each thread paints one voxel of every cell and reads it back while other threads evict the cells
+				for (int round = 0; round < 10; ++round)
+					for (long key = 0; key < numCells; ++key)
+					{
+						final DirtyVolatileLongArray access = cache.get(key).getData();
+						if (round == 0)
+							access.setValue(index, key + index);
+						else
+							Assert.assertEquals(key + index, access.getValue(index));
+					}
+				return null;
+			}));
+		}
+		for (final Future<?> future : futures)
+			future.get();
+		es.shutdown();
+	}
+
+	private static void evictAllAndCollect(final CachedCellImg<UnsignedLongType, ?> canvas) throws InterruptedException
+	{
+		final RandomAccess<UnsignedLongType> access = canvas.randomAccess();
+		for (long z = 0; z < DIMENSIONS[2]; z += BLOCK_SIZE[2])
+			for (long y = 0; y < DIMENSIONS[1]; y += BLOCK_SIZE[1])
+				for (long x = 0; x < DIMENSIONS[0]; x += BLOCK_SIZE[0])
+				{
+					access.setPosition(new long[] {x, y, z});
+					access.get().getIntegerLong();
+				}
+		System.gc();
+		Thread.sleep(50);
+	}
+
+}
@@ -0,0 +1,49 @@
+package org.janelia.saalfeldlab.paintera.data.mask;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class CompactCanvasCellTest
+{
+
+	@Test
+	public void testUniform()
+	{
+		final long[] data = new long[1000];
+		Arrays.fill(data, 17L);
+		final CompactCanvasCell cell = CompactCanvasCell.encode(data, data.length);
+		Assert.assertTrue(cell.isUniform());
+		Assert.assertEquals(17L, cell.getUniformValue());
+		Assert.assertTrue(cell.getSizeInBytes() < 32);
+
+		final long[] decoded = new long[data.length];
+		cell.decodeInto(decoded);
+		Assert.assertArrayEquals(data, decoded);
+	}
+
+	@Test
+	public void testPalette()
+	{
+		final Random rng = new Random(100);
+		final long[] labels = {-1L, 3L, 1L << 40, Long.MAX_VALUE, 0L};
+		// 1 bit per voxel for two labels up to 17 bits for 100000 labels
+		for (final int numLabels : new int[] {2, 3, 5, 100, 100000})
+		{
+			final long[] data = new long[64 * 64 * 64 - 3];
+			for (int i = 0; i < data.length; ++i)
+				data[i] = numLabels <= labels.length ? labels[rng.nextInt(numLabels)] : rng.nextInt(numLabels);
+			final CompactCanvasCell cell = CompactCanvasCell.encode(data, data.length);
+			Assert.assertFalse(cell.isUniform());
+			Assert.assertEquals(data.length, cell.getNumEntities());
+			Assert.assertTrue(cell.getSizeInBytes() < (long) data.length * Long.BYTES);
+
+			final long[] decoded = new long[data.length];
+			cell.decodeInto(decoded);
+			Assert.assertArrayEquals(data, decoded);
+		}
+	}
+
+}
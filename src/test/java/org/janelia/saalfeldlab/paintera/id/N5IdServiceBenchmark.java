@@ -0,0 +1,46 @@
+package org.janelia.saalfeldlab.paintera.id;
+
+import org.janelia.saalfeldlab.n5.N5FSWriter;
+import org.janelia.saalfeldlab.util.n5.N5TestUtil;
+
+import java.io.IOException;
+
+/**
+ * Compare throughput of {@link N5IdService#next()} when writing {@code "maxId"} on every allocation
+ * ({@code leaseSize = 0}) and with leased ids ({@link N5IdService#DEFAULT_LEASE_SIZE}).
+ * Pass the number of allocations as first argument (default: 10000).
+ */
+public class N5IdServiceBenchmark
+{
+
+	private static final String DATASET = "labels";
+
+	public static void main(final String[] args) throws IOException
+	{
+		final int numIds = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+		for (final long leaseSize : new long[] {0, N5IdService.DEFAULT_LEASE_SIZE})
+		{
+			// warm up
+			allocate(leaseSize, numIds / 10);
+			final long elapsedNanos = allocate(leaseSize, numIds);
+			System.out.println(String.format(
+					"leaseSize=%6d: %d ids in %8.2f ms (%.0f ids/s)",
+					leaseSize,
+					numIds,
+					elapsedNanos * 1e-6,
+					numIds / (elapsedNanos * 1e-9)));
+		}
+	}
+
+	private static long allocate(final long leaseSize, final int numIds) throws IOException
+	{
+		final N5FSWriter n5 = N5TestUtil.fileSystemWriterAtTmpDir();
+		n5.createGroup(DATASET);
+		final N5IdService service = new N5IdService(n5, DATASET, 0, leaseSize);
+		final long start = System.nanoTime();
+		for (int i = 0; i < numIds; ++i)
+			service.next();
+		return System.nanoTime() - start;
+	}
+
+}
@@ -0,0 +1,78 @@
+package org.janelia.saalfeldlab.paintera.id;
+
+import org.janelia.saalfeldlab.n5.N5FSWriter;
+import org.janelia.saalfeldlab.util.n5.N5TestUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class N5IdServiceTest
+{
+
+	private static final String DATASET = "labels";
+
+	@Test
+	public void testLease() throws IOException
+	{
+		final N5FSWriter n5 = N5TestUtil.fileSystemWriterAtTmpDir();
+		n5.createGroup(DATASET);
+		final N5IdService service = new N5IdService(n5, DATASET, 10, 100);
+
+		Assert.assertEquals(11, service.next());
+		Assert.assertEquals(111, maxId(n5));
+		for (long id = 12; id < 111; ++id)
+			Assert.assertEquals(id, service.next());
+		Assert.assertEquals(111, maxId(n5));
+
+		// exceeding the lease writes a new lease
+		Assert.assertEquals(111, service.next());
+		Assert.assertEquals(211, maxId(n5));
+
+		service.invalidate(500);
+		Assert.assertTrue(service.isInvalidated(500));
+		Assert.assertFalse(service.isInvalidated(501));
+		Assert.assertEquals(601, maxId(n5));
+
+		service.releaseLease();
+		Assert.assertEquals(501, maxId(n5));
+		Assert.assertEquals(502, service.next());
+		Assert.assertEquals(602, maxId(n5));
+	}
+
+	@Test
+	public void testNoIdsReusedAfterRestart() throws IOException
+	{
+		final N5FSWriter n5 = N5TestUtil.fileSystemWriterAtTmpDir();
+		n5.createGroup(DATASET);
+		final N5IdService service = new N5IdService(n5, DATASET, 0, 7);
+		long maxHandedOut = -1;
+		for (int i = 0; i < 20; ++i)
+			maxHandedOut = Math.max(maxHandedOut, service.next());
+		for (final long id : service.next(11))
+			maxHandedOut = Math.max(maxHandedOut, id);
+
+		// simulate crash: no release of lease
+		final N5IdService restarted = new N5IdService(n5, DATASET, maxId(n5), 7);
+		Assert.assertTrue(restarted.next() > maxHandedOut);
+		Assert.assertTrue(restarted.next(5)[0] > maxHandedOut);
+	}
+
+	@Test
+	public void testWriteThrough() throws IOException
+	{
+		final N5FSWriter n5 = N5TestUtil.fileSystemWriterAtTmpDir();
+		n5.createGroup(DATASET);
+		final N5IdService service = new N5IdService(n5, DATASET, 10, 0);
+		Assert.assertEquals(11, service.next());
+		Assert.assertEquals(11, maxId(n5));
+		service.next(2);
+		Assert.assertEquals(13, maxId(n5));
+	}
+
+	private static long maxId(final N5FSWriter n5) throws IOException
+	{
+		return n5.getAttribute(DATASET, "maxId", Long.class);
+	}
+
+}
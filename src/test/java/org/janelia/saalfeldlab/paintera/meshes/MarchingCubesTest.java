@@ -0,0 +1,77 @@
+package org.janelia.saalfeldlab.paintera.meshes;
+
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccess;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.LongArray;
+import net.imglib2.realtransform.AffineTransform3D;
+import net.imglib2.type.logic.BitType;
+import net.imglib2.util.Intervals;
+import net.imglib2.util.Pair;
+import net.imglib2.view.Views;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MarchingCubesTest
+{
+
+	private static final long[] DIMENSIONS = {8, 8, 8};
+
+	@Test
+	public void testEmptyAndFullBlocks()
+	{
+		final ArrayImg<BitType, LongArray> mask = ArrayImgs.bits(DIMENSIONS);
+		final Interval block = new FinalInterval(DIMENSIONS);
+		Assert.assertNull(MarchingCubes.occupiedCubes(Views.extendZero(mask), block));
+		assertEmpty(new MarchingCubes<>(Views.extendZero(mask), block, new AffineTransform3D()).generateIndexedMesh());
+
+		// all cubes are inside of the segment
+		Views.iterable(mask).forEach(BitType::setOne);
+		Assert.assertNull(MarchingCubes.occupiedCubes(Views.extendValue(mask, new BitType(true)), block));
+		assertEmpty(new MarchingCubes<>(Views.extendValue(mask, new BitType(true)), block, new AffineTransform3D()).generateIndexedMesh());
+	}
+
+	@Test
+	public void testSingleVoxel()
+	{
+		final ArrayImg<BitType, LongArray> mask = ArrayImgs.bits(DIMENSIONS);
+		final RandomAccess<BitType> access = mask.randomAccess();
+		access.setPosition(new long[] {3, 4, 5});
+		access.get().setOne();
+
+		// only the cubes with a corner at the voxel are scanned
+		final Interval cubes = MarchingCubes.occupiedCubes(Views.extendZero(mask), Intervals.expand(new FinalInterval(DIMENSIONS), 1));
+		Assert.assertArrayEquals(new long[] {2, 3, 4}, Intervals.minAsLongArray(cubes));
+		Assert.assertArrayEquals(new long[] {3, 4, 5}, Intervals.maxAsLongArray(cubes));
+
+		assertOctahedronAround(
+				new MarchingCubes<>(Views.extendZero(mask), new FinalInterval(DIMENSIONS), new AffineTransform3D()).generateIndexedMesh(),
+				3, 4, 5);
+
+		// voxels next to the block are part of the surface of the block
+		assertOctahedronAround(
+				new MarchingCubes<>(Views.extendZero(mask), new FinalInterval(new long[] {3, 4, 5}), new AffineTransform3D()).generateIndexedMesh(),
+				3, 4, 5);
+	}
+
+	private static void assertEmpty(final Pair<float[], int[]> mesh)
+	{
+		Assert.assertEquals(0, mesh.getA().length);
+		Assert.assertEquals(0, mesh.getB().length);
+	}
+
+	private static void assertOctahedronAround(final Pair<float[], int[]> mesh, final double x, final double y, final double z)
+	{
+		final float[] vertices = mesh.getA();
+		Assert.assertEquals(6 * 3, vertices.length);
+		Assert.assertEquals(8 * 3, mesh.getB().length);
+		for (int i = 0; i < vertices.length; i += 3)
+		{
+			final double distance = Math.abs(vertices[i] - x) + Math.abs(vertices[i + 1] - y) + Math.abs(vertices[i + 2] - z);
+			Assert.assertEquals(0.5, distance, 1e-6);
+		}
+	}
+
+}
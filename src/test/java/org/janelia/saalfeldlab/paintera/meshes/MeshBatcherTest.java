@@ -0,0 +1,39 @@
+package org.janelia.saalfeldlab.paintera.meshes;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MeshBatcherTest
+{
+	@Test
+	public void testInflate()
+	{
+		final float[] points = {
+				-1.0f, -1.0f, -1.0f,
+				0.0f, 0.0f, 0.0f,
+				1.0f, 3.0f, 5.0f,
+				3.0f, 5.0f, 9.0f
+		};
+		// only inflate the last two points around their center (2, 4, 7)
+		MeshBatcher.inflate(points, 6, 12, 2.0);
+		Assert.assertArrayEquals(
+				new float[] {
+						-1.0f, -1.0f, -1.0f,
+						0.0f, 0.0f, 0.0f,
+						0.0f, 2.0f, 3.0f,
+						4.0f, 6.0f, 11.0f
+				},
+				points,
+				0.0f);
+	}
+
+	@Test
+	public void testOffsetFaces()
+	{
+		final int[] faces = {0, 0, 0, 1, 1, 0, 2, 2, 0, 0, 0, 0, 2, 1, 0, 1, 2, 1};
+		MeshBatcher.offsetFaces(faces, 9, 18, 10, 20, 30);
+		Assert.assertArrayEquals(
+				new int[] {0, 0, 0, 1, 1, 0, 2, 2, 0, 10, 20, 30, 12, 21, 30, 11, 22, 31},
+				faces);
+	}
+}
@@ -0,0 +1,167 @@
+package org.janelia.saalfeldlab.paintera.meshes;
+
+import javafx.scene.PerspectiveCamera;
+import net.imglib2.FinalInterval;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.cache.Invalidate;
+import net.imglib2.img.cell.CellGrid;
+import net.imglib2.interpolation.randomaccess.NearestNeighborInterpolatorFactory;
+import net.imglib2.realtransform.AffineTransform3D;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.util.ConstantUtils;
+import org.janelia.saalfeldlab.paintera.data.DataSource;
+import org.janelia.saalfeldlab.paintera.data.RandomAccessibleIntervalDataSource;
+import org.janelia.saalfeldlab.paintera.viewer3d.ViewFrustum;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+public class SceneBlockTreeTest
+{
+
+	private static final Invalidate<Long> NO_OP_INVALIDATE = new Invalidate<Long>() {
+		@Override
+		public void invalidate(Long key) {
+
+		}
+
+		@Override
+		public void invalidateIf(long parallelismThreshold, Predicate<Long> condition) {
+
+		}
+
+		@Override
+		public void invalidateAll(long parallelismThreshold) {
+
+		}
+	};
+
+	private static final int[] BLOCK_SIZE = {16, 16, 16};
+
+	// 2 x 2 x 2 blocks at level 1, each block is replaced by 8 blocks at level 0
+	private static final long NUM_TRIANGLES_PER_BLOCK = 2 * 16 * 16;
+
+	private static final long NUM_TRIANGLES_AT_LEVEL_1 = 8 * NUM_TRIANGLES_PER_BLOCK;
+
+	private static final long NUM_TRIANGLES_PER_REFINEMENT = 8 * NUM_TRIANGLES_PER_BLOCK - NUM_TRIANGLES_PER_BLOCK;
+
+	private static final int LEVEL_OF_DETAIL = MeshSettings.Defaults.Values.getMaxLevelOfDetail();
+
+	private DataSource<DoubleType, DoubleType> source;
+
+	private CellGrid[] rendererGrids;
+
+	private ViewFrustum viewFrustum;
+
+	private AffineTransform3D eyeToWorldTransform;
+
+	@Before
+	public void setUp()
+	{
+		final RandomAccessibleInterval<DoubleType> s0 = ConstantUtils.constantRandomAccessibleInterval(new DoubleType(), 3, new FinalInterval(64, 64, 64));
+		final RandomAccessibleInterval<DoubleType> s1 = ConstantUtils.constantRandomAccessibleInterval(new DoubleType(), 3, new FinalInterval(32, 32, 32));
+		final AffineTransform3D transform1 = new AffineTransform3D();
+		transform1.scale(2.0);
+		source = new RandomAccessibleIntervalDataSource<>(
+				new RandomAccessibleInterval[] {s0, s1},
+				new RandomAccessibleInterval[] {s0, s1},
+				new AffineTransform3D[] {new AffineTransform3D(), transform1},
+				NO_OP_INVALIDATE,
+				i -> new NearestNeighborInterpolatorFactory<>(),
+				i -> new NearestNeighborInterpolatorFactory<>(),
+				"source");
+		rendererGrids = new CellGrid[] {
+				new CellGrid(new long[] {64, 64, 64}, BLOCK_SIZE),
+				new CellGrid(new long[] {32, 32, 32}, BLOCK_SIZE)
+		};
+
+		final PerspectiveCamera camera = new PerspectiveCamera(true);
+		camera.setNearClip(0.01);
+		camera.setFarClip(10.0);
+		camera.setFieldOfView(45);
+		camera.setVerticalFieldOfView(true);
+		viewFrustum = new ViewFrustum(camera, new double[] {800, 600});
+
+		// the camera looks at the center of the front face (z = 0) of the source, which is entirely visible
+		eyeToWorldTransform = new AffineTransform3D();
+		eyeToWorldTransform.scale(100.0);
+		eyeToWorldTransform.translate(32.0, 32.0, -100.0);
+	}
+
+	@Test
+	public void testUnlimitedBudget()
+	{
+		final BlockTree<BlockTreeFlatKey, BlockTreeNode<BlockTreeFlatKey>> tree = createTree(1, Long.MAX_VALUE, 1);
+		Assert.assertEquals(8 + 64, tree.nodes.size());
+		Assert.assertEquals(8, refinedBlocks(tree).size());
+	}
+
+	@Test
+	public void testStopsAtBudget()
+	{
+		Assert.assertEquals(8, createTree(1, NUM_TRIANGLES_AT_LEVEL_1, 1).nodes.size());
+		Assert.assertEquals(8, createTree(1, NUM_TRIANGLES_AT_LEVEL_1 + NUM_TRIANGLES_PER_REFINEMENT - 1, 1).nodes.size());
+
+		final BlockTree<BlockTreeFlatKey, BlockTreeNode<BlockTreeFlatKey>> tree = createTree(1, NUM_TRIANGLES_AT_LEVEL_1 + NUM_TRIANGLES_PER_REFINEMENT, 1);
+		Assert.assertEquals(8 + 8, tree.nodes.size());
+		Assert.assertEquals(1, refinedBlocks(tree).size());
+	}
+
+	@Test
+	public void testClosestBlocksRefinedFirst()
+	{
+		final BlockTree<BlockTreeFlatKey, BlockTreeNode<BlockTreeFlatKey>> tree = createTree(1, NUM_TRIANGLES_AT_LEVEL_1 + 4 * NUM_TRIANGLES_PER_REFINEMENT, 1);
+		// blocks 0 to 3 are the front blocks at z = 0
+		final Set<Long> refined = refinedBlocks(tree).stream().map(key -> key.blockIndex).collect(Collectors.toSet());
+		Assert.assertEquals(new HashSet<>(Arrays.asList(0L, 1L, 2L, 3L)), refined);
+	}
+
+	@Test
+	public void testBudgetSharedByMeshes()
+	{
+		final long budgetForOneRefinement = NUM_TRIANGLES_AT_LEVEL_1 + NUM_TRIANGLES_PER_REFINEMENT;
+		Assert.assertEquals(8, createTree(1, budgetForOneRefinement, 2).nodes.size());
+		Assert.assertEquals(8 + 8, createTree(1, 2 * budgetForOneRefinement, 2).nodes.size());
+	}
+
+	@Test
+	public void testCoarsestScaleLevelIgnoresBudget()
+	{
+		final BlockTree<BlockTreeFlatKey, BlockTreeNode<BlockTreeFlatKey>> tree = createTree(0, 0, 1);
+		Assert.assertEquals(8 + 64, tree.nodes.size());
+	}
+
+	private BlockTree<BlockTreeFlatKey, BlockTreeNode<BlockTreeFlatKey>> createTree(
+			final int coarsestScaleLevel,
+			final long maxNumTriangles,
+			final int numMeshes)
+	{
+		return SceneBlockTree.createSceneBlockTree(
+				source,
+				viewFrustum,
+				eyeToWorldTransform,
+				LEVEL_OF_DETAIL,
+				coarsestScaleLevel,
+				0,
+				maxNumTriangles,
+				numMeshes,
+				rendererGrids,
+				() -> false);
+	}
+
+	private static Set<BlockTreeFlatKey> refinedBlocks(final BlockTree<BlockTreeFlatKey, BlockTreeNode<BlockTreeFlatKey>> tree)
+	{
+		return tree.nodes.entrySet().stream()
+				.filter(entry -> entry.getKey().scaleLevel == 1 && !entry.getValue().children.isEmpty())
+				.map(Map.Entry::getKey)
+				.collect(Collectors.toSet());
+	}
+
+}
@@ -0,0 +1,101 @@
+package org.janelia.saalfeldlab.paintera.meshes;
+
+import gnu.trove.list.array.TFloatArrayList;
+import net.imglib2.util.Pair;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+public class SimplifyTest
+{
+
+	@Test
+	public void testSphere()
+	{
+		final float[] sphere = uvSphere(40, 40);
+		final int numTriangles = sphere.length / 9;
+
+		final float[] simplified = Simplify.simplify(sphere, 0.1);
+		final int numSimplifiedTriangles = simplified.length / 9;
+		Assert.assertEquals(0, simplified.length % 9);
+		Assert.assertTrue(numSimplifiedTriangles > 0);
+		Assert.assertTrue(numSimplifiedTriangles <= Math.ceil(0.1 * numTriangles) + 2);
+
+		// all vertices stay close to the surface
+		for (int i = 0; i < simplified.length; i += 3)
+		{
+			final double r = Math.sqrt(simplified[i] * simplified[i] + simplified[i + 1] * simplified[i + 1] + simplified[i + 2] * simplified[i + 2]);
+			Assert.assertEquals(1.0, r, 0.05);
+		}
+
+		Assert.assertSame(sphere, Simplify.simplify(sphere, 1.0));
+	}
+
+	@Test
+	public void testBoundaryIsPreserved()
+	{
+		final int n = 20;
+		final TFloatArrayList triangles = new TFloatArrayList();
+		for (int y = 0; y < n; ++y)
+			for (int x = 0; x < n; ++x)
+			{
+				triangles.add(new float[] {x, y, 0, x + 1, y, 0, x, y + 1, 0});
+				triangles.add(new float[] {x + 1, y, 0, x + 1, y + 1, 0, x, y + 1, 0});
+			}
+
+		final float[] simplified = Simplify.simplify(triangles.toArray(), 0.2);
+		Assert.assertTrue(simplified.length < triangles.size());
+
+		final Set<String> vertices = new HashSet<>();
+		for (int i = 0; i < simplified.length; i += 3)
+		{
+			Assert.assertEquals(0.0f, simplified[i + 2], 0.0f);
+			vertices.add(Arrays.toString(new float[] {simplified[i], simplified[i + 1]}));
+		}
+
+		for (int k = 0; k <= n; ++k)
+		{
+			Assert.assertTrue(vertices.contains(Arrays.toString(new float[] {k, 0})));
+			Assert.assertTrue(vertices.contains(Arrays.toString(new float[] {k, n})));
+			Assert.assertTrue(vertices.contains(Arrays.toString(new float[] {0, k})));
+			Assert.assertTrue(vertices.contains(Arrays.toString(new float[] {n, k})));
+		}
+	}
+
+	@Test
+	public void testIndex()
+	{
+		final float[] triangles = {0, 0, 0, 1, 0, 0, 0, 1, 0, 1, 0, 0, 1, 1, 0, 0, 1, 0};
+		final Pair<float[], int[]> indexed = Simplify.index(triangles);
+		Assert.assertEquals(4 * 3, indexed.getA().length);
+		Assert.assertArrayEquals(new int[] {0, 1, 2, 1, 3, 2}, indexed.getB());
+	}
+
+	private static float[] uvSphere(final int stacks, final int slices)
+	{
+		final float[][] points = new float[(stacks + 1) * (slices + 1)][];
+		for (int i = 0; i <= stacks; ++i)
+			for (int j = 0; j <= slices; ++j)
+			{
+				final double theta = Math.PI * i / stacks;
+				final double phi = 2 * Math.PI * j / slices;
+				points[i * (slices + 1) + j] = new float[] {
+						(float) (Math.sin(theta) * Math.cos(phi)),
+						(float) (Math.sin(theta) * Math.sin(phi)),
+						(float) Math.cos(theta)};
+			}
+		final TFloatArrayList triangles = new TFloatArrayList();
+		for (int i = 0; i < stacks; ++i)
+			for (int j = 0; j < slices; ++j)
+			{
+				final int a = i * (slices + 1) + j, b = a + 1, c = a + slices + 1, d = c + 1;
+				for (final int v : new int[] {a, c, b, b, c, d})
+					triangles.add(points[v]);
+			}
+		return triangles.toArray();
+	}
+
+}
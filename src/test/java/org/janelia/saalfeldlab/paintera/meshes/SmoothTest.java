@@ -0,0 +1,56 @@
+package org.janelia.saalfeldlab.paintera.meshes;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SmoothTest
+{
+
+	// octahedron with face (0, 3, 5) removed: vertices 0, 3, and 5 are on the boundary
+	private static final float[] VERTICES = {
+			1, 0, 0,
+			0, 1, 0,
+			-1, 0, 0,
+			0, -1, 0,
+			0, 0, 1,
+			0, 0, -2
+	};
+
+	private static final int[] INDICES = {
+			0, 1, 4,
+			1, 2, 4,
+			2, 3, 4,
+			3, 0, 4,
+			1, 0, 5,
+			2, 1, 5,
+			3, 2, 5
+	};
+
+	@Test
+	public void testIndexedMatchesTriangleSoup()
+	{
+		final float[] soup = new float[INDICES.length * 3];
+		for (int i = 0; i < INDICES.length; ++i)
+			System.arraycopy(VERTICES, 3 * INDICES[i], soup, 3 * i, 3);
+
+		final float[] smoothedSoup = Smooth.smooth(soup, 0.5, 3);
+		final float[] smoothedVertices = Smooth.smooth(VERTICES, INDICES, 0.5, 3);
+
+		Assert.assertEquals(VERTICES.length, smoothedVertices.length);
+		for (int i = 0; i < INDICES.length; ++i)
+			for (int d = 0; d < 3; ++d)
+				Assert.assertEquals(smoothedSoup[3 * i + d], smoothedVertices[3 * INDICES[i] + d], 1e-6);
+	}
+
+	@Test
+	public void testBoundaryIsFixed()
+	{
+		final float[] smoothed = Smooth.smooth(VERTICES, INDICES, 0.5, 5);
+		for (final int boundaryVertex : new int[] {0, 3, 5})
+			for (int d = 0; d < 3; ++d)
+				Assert.assertEquals(VERTICES[3 * boundaryVertex + d], smoothed[3 * boundaryVertex + d], 0.0f);
+		// vertex 4 is not on the boundary and is pulled towards its neighbors
+		Assert.assertTrue(smoothed[4 * 3 + 2] < VERTICES[4 * 3 + 2]);
+	}
+
+}
@@ -90,5 +90,16 @@ public class ViewFrustumTest
 		Assert.assertTrue(frustumCullingWithTransform.intersects(Intervals.createMinSize(0, 0, 0, 64, 64, 64)));
 		Assert.assertFalse(frustumCullingWithTransform.intersects(Intervals.createMinSize(128, 0, 0, 64, 64, 64)));
 	}
+
+	@Test
+	public void testProjectedSizeInPixels()
+	{
+		// full height of the view plane covers all 600 screen pixels
+		final double viewPlaneHeight = 2 * Math.tan(Math.toRadians(45.0 / 2)) * 5.0;
+		Assert.assertEquals(600.0, frustumCamera.projectedSizeInPixels(viewPlaneHeight, 5.0), 1e-9);
+		Assert.assertEquals(300.0, frustumCamera.projectedSizeInPixels(viewPlaneHeight, 10.0), 1e-9);
+		Assert.assertEquals(Double.POSITIVE_INFINITY, frustumCamera.projectedSizeInPixels(1.0, 0.0), 0.0);
+		Assert.assertEquals(0.0, frustumCamera.projectedSizeInPixels(1.0, Double.POSITIVE_INFINITY), 0.0);
+	}
 }
 
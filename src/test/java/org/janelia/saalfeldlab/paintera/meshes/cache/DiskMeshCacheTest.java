@@ -0,0 +1,185 @@
+package org.janelia.saalfeldlab.paintera.meshes.cache;
+
+import gnu.trove.set.hash.TLongHashSet;
+import net.imglib2.cache.CacheLoader;
+import org.janelia.saalfeldlab.paintera.meshes.PainteraTriangleMesh;
+import org.janelia.saalfeldlab.paintera.meshes.ShapeKey;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DiskMeshCacheTest
+{
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	private static final PainteraTriangleMesh MESH = new PainteraTriangleMesh(
+			new float[] {0.0f, 0.0f, 0.0f, 1.0f, 0.0f, 0.0f, 0.0f, 1.0f, 0.0f},
+			new float[] {0.0f, 0.0f, 1.0f, 0.0f, 0.0f, 1.0f, 0.0f, 0.0f, 1.0f},
+			new int[] {0, 1, 2});
+
+	@Test
+	public void testPersistedAcrossInstances() throws Exception
+	{
+		final Path directory = tmp.getRoot().toPath();
+		final AtomicInteger numGenerated = new AtomicInteger();
+		final CacheLoader<ShapeKey<TLongHashSet>, PainteraTriangleMesh> generator = key -> {
+			numGenerated.incrementAndGet();
+			return MESH;
+		};
+
+		final ShapeKey<TLongHashSet> key = key(new TLongHashSet(new long[] {3, 1, 2}), 0);
+		final PainteraTriangleMesh generated = cache(directory, Long.MAX_VALUE, "v1").withLoader(generator).get(key);
+		Assert.assertEquals(1, numGenerated.get());
+		assertEquals(MESH, generated);
+
+		// fragment order does not matter
+		final PainteraTriangleMesh cached = cache(directory, Long.MAX_VALUE, "v1").withLoader(generator).get(key(new TLongHashSet(new long[] {1, 2, 3}), 0));
+		Assert.assertEquals(1, numGenerated.get());
+		assertEquals(MESH, cached);
+
+		// different content version
+		cache(directory, Long.MAX_VALUE, "v2").withLoader(generator).get(key);
+		Assert.assertEquals(2, numGenerated.get());
+
+		// no content version: do not persist
+		final DiskMeshCache<TLongHashSet> bypass = cache(directory, Long.MAX_VALUE, null);
+		bypass.withLoader(generator).get(key);
+		bypass.withLoader(generator).get(key);
+		Assert.assertEquals(4, numGenerated.get());
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEviction() throws Exception
+	{
+		final Path directory = tmp.getRoot().toPath();
+		final long meshSize = DiskMeshCache.encode(MESH).capacity();
+		final AtomicInteger numGenerated = new AtomicInteger();
+		final CacheLoader<ShapeKey<TLongHashSet>, PainteraTriangleMesh> loader = cache(directory, 2 * meshSize, "v1").withLoader(key -> {
+			numGenerated.incrementAndGet();
+			return MESH;
+		});
+
+		final ShapeKey<TLongHashSet> key1 = key(new TLongHashSet(new long[] {1}), 0);
+		final ShapeKey<TLongHashSet> key2 = key(new TLongHashSet(new long[] {2}), 0);
+		final ShapeKey<TLongHashSet> key3 = key(new TLongHashSet(new long[] {3}), 0);
+		loader.get(key1);
+		loader.get(key2);
+		loader.get(key1);
+		// evicts key2
+		loader.get(key3);
+		Assert.assertEquals(3, numGenerated.get());
+		loader.get(key1);
+		loader.get(key3);
+		Assert.assertEquals(3, numGenerated.get());
+		loader.get(key2);
+		Assert.assertEquals(4, numGenerated.get());
+		Assert.assertEquals(2 * meshSize, cache(directory, 2 * meshSize, "v1").getSizeInBytes());
+	}
+
+	@Test
+	public void testBudgetSharedByDatasets() throws Exception
+	{
+		final long meshSize = DiskMeshCache.encode(MESH).capacity();
+		final DiskMeshCacheBudget budget = new DiskMeshCacheBudget(2 * meshSize);
+		final DiskMeshCache<TLongHashSet> cache1 = new DiskMeshCache<>(tmp.newFolder().toPath(), budget, DiskMeshCache::fragmentsDigest, (level, interval) -> "v1");
+		final DiskMeshCache<TLongHashSet> cache2 = new DiskMeshCache<>(tmp.newFolder().toPath(), budget, DiskMeshCache::fragmentsDigest, (level, interval) -> "v1");
+		final AtomicInteger numGenerated = new AtomicInteger();
+		final CacheLoader<ShapeKey<TLongHashSet>, PainteraTriangleMesh> generator = key -> {
+			numGenerated.incrementAndGet();
+			return MESH;
+		};
+		final CacheLoader<ShapeKey<TLongHashSet>, PainteraTriangleMesh> loader1 = cache1.withLoader(generator);
+		final CacheLoader<ShapeKey<TLongHashSet>, PainteraTriangleMesh> loader2 = cache2.withLoader(generator);
+
+		final ShapeKey<TLongHashSet> key1 = key(new TLongHashSet(new long[] {1}), 0);
+		final ShapeKey<TLongHashSet> key2 = key(new TLongHashSet(new long[] {2}), 0);
+		final ShapeKey<TLongHashSet> key3 = key(new TLongHashSet(new long[] {3}), 0);
+		loader1.get(key1);
+		loader2.get(key2);
+		loader1.get(key1);
+		// evicts key2 of the other dataset
+		loader2.get(key3);
+		Assert.assertEquals(3, numGenerated.get());
+		Assert.assertEquals(meshSize, cache1.getSizeInBytes());
+		Assert.assertEquals(meshSize, cache2.getSizeInBytes());
+		Assert.assertEquals(2 * meshSize, budget.getSizeInBytes());
+
+		// shrinking the budget evicts the least recently used mesh of all datasets
+		loader1.get(key1);
+		budget.setMaxSizeInBytes(meshSize);
+		Assert.assertEquals(meshSize, cache1.getSizeInBytes());
+		Assert.assertEquals(0, cache2.getSizeInBytes());
+		loader1.get(key1);
+		Assert.assertEquals(3, numGenerated.get());
+	}
+
+	@Test
+	public void testShapeIdStringMemoized() throws Exception
+	{
+		final AtomicInteger numDigests = new AtomicInteger();
+		final DiskMeshCache<TLongHashSet> cache = new DiskMeshCache<>(
+				tmp.getRoot().toPath(),
+				Long.MAX_VALUE,
+				fragments -> {
+					numDigests.incrementAndGet();
+					return DiskMeshCache.fragmentsDigest(fragments);
+				},
+				(level, interval) -> "v1");
+		final CacheLoader<ShapeKey<TLongHashSet>, PainteraTriangleMesh> loader = cache.withLoader(key -> MESH);
+
+		// all blocks of a segment share the same fragments instance
+		final TLongHashSet fragments = new TLongHashSet(new long[] {1, 2, 3});
+		for (int level = 0; level < 4; ++level)
+			loader.get(key(fragments, level));
+		Assert.assertEquals(1, numDigests.get());
+
+		loader.get(key(new TLongHashSet(new long[] {1, 2, 3}), 0));
+		Assert.assertEquals(2, numDigests.get());
+	}
+
+	@Test
+	public void testFragmentsDigest()
+	{
+		final TLongHashSet large = new TLongHashSet();
+		for (long fragment = 5000; fragment > 0; --fragment)
+			large.add(fragment);
+		final TLongHashSet largeReordered = new TLongHashSet();
+		for (long fragment = 1; fragment <= 5000; ++fragment)
+			largeReordered.add(fragment);
+		Assert.assertEquals(DiskMeshCache.fragmentsDigest(large), DiskMeshCache.fragmentsDigest(largeReordered));
+		largeReordered.remove(4999);
+		Assert.assertNotEquals(DiskMeshCache.fragmentsDigest(large), DiskMeshCache.fragmentsDigest(largeReordered));
+	}
+
+	@Test
+	public void testEncodeDecode()
+	{
+		assertEquals(MESH, DiskMeshCache.decode(DiskMeshCache.encode(MESH)));
+		final PainteraTriangleMesh soup = MESH.asTriangleSoup();
+		assertEquals(soup, DiskMeshCache.decode(DiskMeshCache.encode(soup)));
+	}
+
+	private static DiskMeshCache<TLongHashSet> cache(final Path directory, final long maxSizeInBytes, final String version)
+	{
+		return new DiskMeshCache<>(directory, maxSizeInBytes, DiskMeshCache::fragmentsDigest, (level, interval) -> version);
+	}
+
+	private static ShapeKey<TLongHashSet> key(final TLongHashSet fragments, final int level)
+	{
+		return new ShapeKey<>(fragments, level, 0, 0.0, 0, 0.5, new long[] {0, 0, 0}, new long[] {63, 63, 63});
+	}
+
+	private static void assertEquals(final PainteraTriangleMesh expected, final PainteraTriangleMesh actual) throws AssertionError
+	{
+		Assert.assertArrayEquals(expected.getVertices(), actual.getVertices(), 0.0f);
+		Assert.assertArrayEquals(expected.getNormals(), actual.getNormals(), 0.0f);
+		Assert.assertArrayEquals(expected.getIndices(), actual.getIndices());
+	}
+
+}
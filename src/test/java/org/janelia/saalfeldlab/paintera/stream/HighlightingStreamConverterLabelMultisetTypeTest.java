@@ -0,0 +1,151 @@
+package org.janelia.saalfeldlab.paintera.stream;
+
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.type.label.Label;
+import net.imglib2.type.label.LabelMultisetEntry;
+import net.imglib2.type.label.LabelMultisetEntryList;
+import net.imglib2.type.label.LabelMultisetType.Entry;
+import net.imglib2.type.label.LongMappedAccessData;
+import net.imglib2.type.label.VolatileLabelMultisetArray;
+import net.imglib2.type.label.VolatileLabelMultisetType;
+import net.imglib2.type.numeric.ARGBType;
+import org.janelia.saalfeldlab.paintera.control.assignment.FragmentSegmentAssignmentOnlyLocal;
+import org.janelia.saalfeldlab.paintera.control.lock.LockedSegmentsOnlyLocal;
+import org.janelia.saalfeldlab.paintera.control.selection.SelectedIds;
+import org.janelia.saalfeldlab.paintera.control.selection.SelectedSegments;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HighlightingStreamConverterLabelMultisetTypeTest
+{
+
+	private static final double ONE_OVER_255 = 1.0 / 255.0;
+
+	@Test
+	public void testMemoizedPerMultiset()
+	{
+		final CountingStream stream = new CountingStream();
+		final HighlightingStreamConverterLabelMultisetType converter = new HighlightingStreamConverterLabelMultisetType(stream);
+		final ARGBType output = new ARGBType();
+
+		converter.convert(multiset(new long[] {1, 2, 3}, new int[] {4, 5, 6}), output);
+		final int color = output.get();
+		Assert.assertEquals(3, stream.numArgbCalls.get());
+
+		// same multiset in another pixel
+		converter.convert(multiset(new long[] {1, 2, 3}, new int[] {4, 5, 6}), output);
+		Assert.assertEquals(color, output.get());
+		Assert.assertEquals(3, stream.numArgbCalls.get());
+
+		// same ids, different counts
+		converter.convert(multiset(new long[] {1, 2, 3}, new int[] {4, 5, 7}), output);
+		Assert.assertEquals(6, stream.numArgbCalls.get());
+
+		// memoized colors are discarded when the colors of the stream change
+		stream.clearCache();
+		converter.convert(multiset(new long[] {1, 2, 3}, new int[] {4, 5, 6}), output);
+		Assert.assertEquals(color, output.get());
+		Assert.assertEquals(9, stream.numArgbCalls.get());
+		converter.convert(multiset(new long[] {1, 2, 3}, new int[] {4, 5, 6}), output);
+		Assert.assertEquals(9, stream.numArgbCalls.get());
+	}
+
+	@Test
+	public void testBlendingMatchesDoublePrecision()
+	{
+		final CountingStream stream = new CountingStream();
+		final HighlightingStreamConverterLabelMultisetType converter = new HighlightingStreamConverterLabelMultisetType(stream);
+		final ARGBType output = new ARGBType();
+		final Random rng = new Random(100);
+		for (int n = 0; n < 1000; ++n)
+		{
+			final int size = 1 + rng.nextInt(12);
+			final long[] ids = rng.longs(size, 1, 50).distinct().sorted().toArray();
+			final int[] counts = rng.ints(ids.length, 1, 100).toArray();
+			final VolatileLabelMultisetType input = multiset(ids, counts);
+			converter.convert(input, output);
+			final int expected = blendWithDoublePrecision(stream, input);
+			Assert.assertEquals(ARGBType.alpha(expected), ARGBType.alpha(output.get()), 1);
+			Assert.assertEquals(ARGBType.red(expected), ARGBType.red(output.get()), 1);
+			Assert.assertEquals(ARGBType.green(expected), ARGBType.green(output.get()), 1);
+			Assert.assertEquals(ARGBType.blue(expected), ARGBType.blue(output.get()), 1);
+		}
+	}
+
+	/**
+	 * Previous implementation of {@link HighlightingStreamConverterLabelMultisetType#convert}.
+	 */
+	private static int blendWithDoublePrecision(final ARGBStream stream, final VolatileLabelMultisetType input)
+	{
+		double a              = 0;
+		double r              = 0;
+		double g              = 0;
+		double b              = 0;
+		double alphaCountSize = 0;
+		for (final Entry<Label> entry : input.get().entrySet())
+		{
+			final int    argb       = stream.argb(entry.getElement().id());
+			final double alpha      = ARGBType.alpha(argb);
+			final double alphaCount = alpha * ONE_OVER_255 * entry.getCount();
+			a += alphaCount * alpha;
+			r += alphaCount * ARGBType.red(argb);
+			g += alphaCount * ARGBType.green(argb);
+			b += alphaCount * ARGBType.blue(argb);
+			alphaCountSize += alphaCount;
+		}
+		final double iAlphaCountSize = 1.0 / alphaCountSize;
+		final int    aInt            = Math.min(255, (int) (a * iAlphaCountSize));
+		final int    rInt            = Math.min(255, (int) (r * iAlphaCountSize));
+		final int    gInt            = Math.min(255, (int) (g * iAlphaCountSize));
+		final int    bInt            = Math.min(255, (int) (b * iAlphaCountSize));
+		return ((aInt << 8 | rInt) << 8 | gInt) << 8 | bInt;
+	}
+
+	private static VolatileLabelMultisetType multiset(final long[] ids, final int[] counts)
+	{
+		final LongMappedAccessData listData = LongMappedAccessData.factory.createStorage(1024);
+		final LabelMultisetEntryList list = new LabelMultisetEntryList(listData, 0);
+		list.createListAt(listData, 0);
+		for (int i = 0; i < ids.length; ++i)
+			list.add(new LabelMultisetEntry(ids[i], counts[i]));
+		final VolatileLabelMultisetArray access = new VolatileLabelMultisetArray(new int[] {0}, listData, true, new long[] {ids[0]});
+		final ArrayImg<VolatileLabelMultisetType, VolatileLabelMultisetArray> img = new ArrayImg<>(
+				access,
+				new long[] {1},
+				new VolatileLabelMultisetType().getEntitiesPerPixel());
+		img.setLinkedType(new VolatileLabelMultisetType(img));
+		return img.firstElement();
+	}
+
+	private static class CountingStream extends AbstractHighlightingARGBStream
+	{
+
+		private final AtomicInteger numArgbCalls = new AtomicInteger();
+
+		private CountingStream()
+		{
+			super(
+					new SelectedSegments(new SelectedIds(), new FragmentSegmentAssignmentOnlyLocal((keys, values) -> {})),
+					new LockedSegmentsOnlyLocal(locked -> {}));
+		}
+
+		@Override
+		protected double getDoubleImpl(final long id, final boolean colorFromSegmentId)
+		{
+			return 0.0;
+		}
+
+		@Override
+		protected int argbImpl(final long id, final boolean colorFromSegmentId)
+		{
+			numArgbCalls.incrementAndGet();
+			final int alpha = (int) (id * 37 % 256);
+			return ARGBType.rgba((int) (id * 53 % 256), (int) (id * 97 % 256), (int) (id * 13 % 256), alpha);
+		}
+
+	}
+
+}
@@ -0,0 +1,95 @@
+package org.janelia.saalfeldlab.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrentLongIntCacheTest {
+
+	private static final long NO_ENTRY_KEY = -1;
+
+	@Test
+	public void testComputeOnlyOnce()
+	{
+		final ConcurrentLongIntCache cache = new ConcurrentLongIntCache(NO_ENTRY_KEY);
+		final AtomicInteger numComputed = new AtomicInteger();
+		final int numKeys = 10000;
+
+		for (int iteration = 0; iteration < 2; ++iteration)
+			for (long key = 0; key < numKeys; ++key)
+				Assert.assertEquals(color(key), cache.computeIfAbsent(key, k -> {
+					numComputed.incrementAndGet();
+					return color(k);
+				}));
+
+		Assert.assertEquals(numKeys, cache.size());
+		Assert.assertEquals(numKeys, numComputed.get());
+		for (long key = 0; key < numKeys; ++key)
+			Assert.assertEquals(color(key), cache.computeIfAbsent(key, k -> 0));
+	}
+
+	@Test
+	public void testNoEntryKeyAndClear()
+	{
+		final ConcurrentLongIntCache cache = new ConcurrentLongIntCache(NO_ENTRY_KEY);
+		Assert.assertEquals(1, cache.computeIfAbsent(NO_ENTRY_KEY, k -> 1));
+		Assert.assertEquals(2, cache.computeIfAbsent(NO_ENTRY_KEY, k -> 2));
+		Assert.assertEquals(0, cache.size());
+
+		Assert.assertEquals(0, cache.computeIfAbsent(5, k -> 0));
+		Assert.assertEquals(0, cache.computeIfAbsent(5, k -> 1));
+		Assert.assertEquals(1, cache.size());
+
+		cache.clear();
+		Assert.assertEquals(0, cache.size());
+		Assert.assertEquals(1, cache.computeIfAbsent(5, k -> 1));
+	}
+
+	@Test
+	public void testConcurrentReadersAndWriters() throws InterruptedException, ExecutionException
+	{
+		final ConcurrentLongIntCache cache = new ConcurrentLongIntCache(NO_ENTRY_KEY);
+		final int numThreads = 8;
+		final int numKeys = 1 << 16;
+		final ExecutorService es = Executors.newFixedThreadPool(numThreads);
+		try
+		{
+			final List<Callable<Void>> tasks = new ArrayList<>();
+			for (int thread = 0; thread < numThreads; ++thread)
+			{
+				final long offset = thread * 1000;
+				tasks.add(() -> {
+					for (long i = 0; i < numKeys; ++i)
+					{
+						final long key = (i + offset) % numKeys - numKeys / 2;
+						Assert.assertEquals(color(key), cache.computeIfAbsent(key, ConcurrentLongIntCacheTest::color));
+					}
+					return null;
+				});
+			}
+			for (final Future<Void> future : es.invokeAll(tasks))
+				future.get();
+		} finally
+		{
+			es.shutdown();
+		}
+
+		for (long key = -numKeys / 2; key < numKeys / 2; ++key)
+			if (key != NO_ENTRY_KEY)
+				Assert.assertEquals(color(key), cache.computeIfAbsent(key, ConcurrentLongIntCacheTest::color));
+	}
+
+	private static int color(final long key)
+	{
+		return (int) (key * 31 + 7) | 0xff000000;
+	}
+
+}
@@ -0,0 +1,67 @@
+package org.janelia.saalfeldlab.util.n5;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+public class DatasetDiscoveryIndexTest
+{
+
+	@Test
+	public void testValidation() throws IOException
+	{
+		final Path container = Files.createTempDirectory("dataset-discovery-index");
+		final Path indexFile = Files.createTempDirectory("dataset-discovery-index-file").resolve("index.json");
+		final Path group = Files.createDirectories(container.resolve("group"));
+		final Path dataset = Files.createDirectories(group.resolve("dataset"));
+		Files.write(dataset.resolve("attributes.json"), "{}".getBytes());
+		setOld(dataset.resolve("attributes.json"), dataset, group, container);
+
+		final DatasetDiscoveryIndex index = DatasetDiscoveryIndex.load(container, indexFile);
+		Assert.assertEquals(0, index.size());
+		index.put("", index.stamp(""), false, new String[] {"group"});
+		index.put("/group", index.stamp("/group"), false, new String[] {"dataset"});
+		index.put("/group/dataset", index.stamp("/group/dataset"), true, null);
+		index.save();
+
+		final DatasetDiscoveryIndex loaded = DatasetDiscoveryIndex.load(container, indexFile);
+		Assert.assertEquals(3, loaded.size());
+		Assert.assertArrayEquals(new String[] {"group"}, loaded.get("", loaded.stamp("")).getChildren());
+		Assert.assertTrue(loaded.get("/group/dataset", loaded.stamp("/group/dataset")).isDataset());
+
+		// modified attributes invalidate entry
+		Files.setLastModifiedTime(dataset.resolve("attributes.json"), FileTime.fromMillis(System.currentTimeMillis()));
+		Assert.assertNull(loaded.get("/group/dataset", loaded.stamp("/group/dataset")));
+
+		// new child invalidates entry
+		Files.createDirectories(group.resolve("other"));
+		Assert.assertNull(loaded.get("/group", loaded.stamp("/group")));
+		Assert.assertNotNull(loaded.get("", loaded.stamp("")));
+
+		// recently modified groups are not indexed
+		loaded.put("/group", loaded.stamp("/group"), false, new String[] {"dataset", "other"});
+		Assert.assertNull(loaded.get("/group", loaded.stamp("/group")));
+	}
+
+	@Test
+	public void testMissingOrCorruptIndexFile() throws IOException
+	{
+		final Path container = Files.createTempDirectory("dataset-discovery-index");
+		final Path indexFile = Files.createTempFile("dataset-discovery-index", ".json");
+		Files.write(indexFile, "not json".getBytes());
+		Assert.assertEquals(0, DatasetDiscoveryIndex.load(container, indexFile).size());
+		Assert.assertEquals(0, DatasetDiscoveryIndex.load(container, container.resolve("missing.json")).size());
+	}
+
+	private static void setOld(final Path... paths) throws IOException
+	{
+		final FileTime old = FileTime.fromMillis(System.currentTimeMillis() - 60_000);
+		for (final Path path : paths)
+			Files.setLastModifiedTime(path, old);
+	}
+
+}
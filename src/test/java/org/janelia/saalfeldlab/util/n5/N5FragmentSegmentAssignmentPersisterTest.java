@@ -0,0 +1,158 @@
+package org.janelia.saalfeldlab.util.n5;
+
+import gnu.trove.map.TLongLongMap;
+import gnu.trove.map.hash.TLongLongHashMap;
+import org.janelia.saalfeldlab.n5.DataType;
+import org.janelia.saalfeldlab.n5.DatasetAttributes;
+import org.janelia.saalfeldlab.n5.GzipCompression;
+import org.janelia.saalfeldlab.n5.LongArrayDataBlock;
+import org.janelia.saalfeldlab.n5.N5FSWriter;
+import org.janelia.saalfeldlab.n5.N5Writer;
+import org.janelia.saalfeldlab.paintera.control.assignment.UnableToPersist;
+import org.janelia.saalfeldlab.paintera.data.n5.ReflectionException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Map;
+
+public class N5FragmentSegmentAssignmentPersisterTest {
+
+	private static final String DATASET = "fragment-segment-assignment";
+
+	@Test
+	public void testAppendChanges() throws IOException, UnableToPersist, ReflectionException {
+		final N5Writer writer = N5TestUtil.fileSystemWriterAtTmpDir();
+		final N5FragmentSegmentAssignmentPersister persister = new N5FragmentSegmentAssignmentPersister(writer, DATASET);
+
+		final TLongLongMap lut = new TLongLongHashMap(new long[] {1, 2, 3}, new long[] {10, 10, 11});
+		persister.persistChanges(lut.keys(), lut.values(), lut);
+		Assert.assertTrue(N5FragmentSegmentAssignmentPersister.isChunkedLog(writer, DATASET));
+		Assert.assertEquals(lut, read(writer));
+
+		// detach 3 from 11, merge 4 into 10
+		lut.remove(3);
+		lut.put(4, 10);
+		persister.persistChanges(new long[] {3, 4}, new long[] {3, 10}, lut);
+		Assert.assertEquals(5, writer.getDatasetAttributes(DATASET).getDimensions()[0]);
+		Assert.assertEquals(lut, read(writer));
+	}
+
+	@Test
+	public void testChunksAndCompaction() throws IOException, UnableToPersist, ReflectionException {
+		final N5Writer writer = N5TestUtil.fileSystemWriterAtTmpDir();
+		final N5FragmentSegmentAssignmentPersister persister = new N5FragmentSegmentAssignmentPersister(writer, DATASET);
+		final int chunkSize = N5FragmentSegmentAssignmentPersister.CHUNK_SIZE;
+
+		final TLongLongMap lut = new TLongLongHashMap();
+		for (long fragment = 1; fragment <= chunkSize + 10; ++fragment)
+			lut.put(fragment, fragment % 2 == 0 ? -2 : -1);
+		persister.persistChanges(new long[0], new long[0], lut);
+		Assert.assertEquals(lut, read(writer));
+
+		// reassign every fragment twice: the second time exceeds the compaction threshold
+		for (int iteration = 0; iteration < 2; ++iteration) {
+			final long[] changedKeys = lut.keys();
+			final long[] changedValues = new long[changedKeys.length];
+			for (int i = 0; i < changedKeys.length; ++i) {
+				changedValues[i] = -3 - iteration;
+				lut.put(changedKeys[i], changedValues[i]);
+			}
+			persister.persistChanges(changedKeys, changedValues, lut);
+			Assert.assertEquals(lut, read(writer));
+		}
+		final long logStart = N5FragmentSegmentAssignmentPersister.logStart(writer, DATASET);
+		Assert.assertEquals(0, logStart % chunkSize);
+		Assert.assertEquals(lut.size(), writer.getDatasetAttributes(DATASET).getDimensions()[0] - logStart);
+	}
+
+	@Test
+	public void testAppendToOversizedLastBlock() throws IOException, UnableToPersist, ReflectionException {
+		final N5Writer writer = N5TestUtil.fileSystemWriterAtTmpDir();
+		final N5FragmentSegmentAssignmentPersister persister = new N5FragmentSegmentAssignmentPersister(writer, DATASET);
+
+		final TLongLongMap lut = new TLongLongHashMap(new long[] {1, 2, 3}, new long[] {10, 10, 11});
+		persister.persistChanges(lut.keys(), lut.values(), lut);
+
+		// an append of the rows (7, 70) and (8, 80) was interrupted before the dimensions were updated
+		final DatasetAttributes attrs = writer.getDatasetAttributes(DATASET);
+		final long[] lastBlock = (long[]) writer.readBlock(DATASET, attrs, 0, 0).getData();
+		final long[] oversized = {lastBlock[0], lastBlock[1], lastBlock[2], 7, 8, lastBlock[3], lastBlock[4], lastBlock[5], 70, 80};
+		writer.writeBlock(DATASET, attrs, new LongArrayDataBlock(new int[] {5, 2}, new long[] {0, 0}, oversized));
+		Assert.assertEquals(lut, read(writer));
+
+		lut.put(4, 11);
+		persister.persistChanges(new long[] {4}, new long[] {11}, lut);
+		Assert.assertEquals(4, writer.getDatasetAttributes(DATASET).getDimensions()[0]);
+		Assert.assertEquals(lut, read(writer));
+	}
+
+	@Test
+	public void testInterruptedCompactionKeepsLog() throws IOException, UnableToPersist, ReflectionException {
+		final N5FSWriter writer = N5TestUtil.fileSystemWriterAtTmpDir();
+		final N5FragmentSegmentAssignmentPersister persister = new N5FragmentSegmentAssignmentPersister(writer, DATASET);
+		// fails after all blocks have been written
+		final N5FragmentSegmentAssignmentPersister interruptedPersister = new N5FragmentSegmentAssignmentPersister(
+				new N5FSWriter(writer.getBasePath()) {
+					@Override
+					public void setAttributes(final String pathName, final Map<String, ?> attributes) throws IOException {
+						throw new IOException("interrupted");
+					}
+				},
+				DATASET);
+		final int chunkSize = N5FragmentSegmentAssignmentPersister.CHUNK_SIZE;
+
+		final TLongLongMap lut = new TLongLongHashMap();
+		for (long fragment = 1; fragment <= chunkSize + 10; ++fragment)
+			lut.put(fragment, -1);
+		persister.persistChanges(new long[0], new long[0], lut);
+
+		// append, compact behind the log, append, compact in front of the log
+		final long[] logStarts = new long[4];
+		for (int iteration = 0; iteration < logStarts.length; ++iteration) {
+			final long[] changedKeys = lut.keys();
+			final long[] changedValues = new long[changedKeys.length];
+			final TLongLongMap changed = new TLongLongHashMap(lut);
+			for (int i = 0; i < changedKeys.length; ++i) {
+				changedValues[i] = -2 - iteration;
+				changed.put(changedKeys[i], changedValues[i]);
+			}
+			try {
+				interruptedPersister.persistChanges(changedKeys, changedValues, changed);
+				Assert.fail("Expected persist to be interrupted");
+			} catch (final UnableToPersist e) {
+				Assert.assertEquals(lut, read(writer));
+			}
+			persister.persistChanges(changedKeys, changedValues, changed);
+			Assert.assertEquals(changed, read(writer));
+			lut.putAll(changed);
+			logStarts[iteration] = N5FragmentSegmentAssignmentPersister.logStart(writer, DATASET);
+		}
+		Assert.assertArrayEquals(new long[] {0, 3 * chunkSize, 3 * chunkSize, 0}, logStarts);
+	}
+
+	@Test
+	public void testConvertLegacyFormat() throws IOException, UnableToPersist, ReflectionException {
+		final N5Writer writer = N5TestUtil.fileSystemWriterAtTmpDir();
+		final long[] keys = {1, 2};
+		final long[] values = {10, 10};
+		final DatasetAttributes attrs = new DatasetAttributes(new long[] {2, 2}, new int[] {2, 1}, DataType.UINT64, new GzipCompression());
+		writer.createDataset(DATASET, attrs);
+		writer.writeBlock(DATASET, attrs, new LongArrayDataBlock(new int[] {2, 1}, new long[] {0, 0}, keys));
+		writer.writeBlock(DATASET, attrs, new LongArrayDataBlock(new int[] {2, 1}, new long[] {0, 1}, values));
+		Assert.assertFalse(N5FragmentSegmentAssignmentPersister.isChunkedLog(writer, DATASET));
+
+		final TLongLongMap lut = read(writer);
+		Assert.assertEquals(new TLongLongHashMap(keys, values), lut);
+
+		lut.put(3, 10);
+		new N5FragmentSegmentAssignmentPersister(writer, DATASET).persistChanges(new long[] {3}, new long[] {10}, lut);
+		Assert.assertTrue(N5FragmentSegmentAssignmentPersister.isChunkedLog(writer, DATASET));
+		Assert.assertEquals(lut, read(writer));
+	}
+
+	private static TLongLongMap read(final N5Writer writer) throws ReflectionException {
+		return new N5FragmentSegmentAssignmentInitialLut(writer, DATASET).get();
+	}
+
+}